@@ -0,0 +1,33 @@
+-- ============================================
+-- Script de Migración: Añadir jugado a Partido
+-- ============================================
+-- Descripción: Añade el indicador jugado a la tabla partido. La clasificación
+-- solo cuenta los partidos marcados como jugados, por lo que hay que rellenarlo
+-- para los partidos existentes: con goles o con estadísticas registradas.
+-- ============================================
+
+-- 1. Añadir la columna jugado
+ALTER TABLE partido ADD COLUMN jugado BIT NOT NULL DEFAULT 0;
+
+-- 2. Marcar como jugados los partidos con goles o con estadísticas
+UPDATE partido p
+SET jugado = 1
+WHERE p.goles_local > 0
+   OR p.goles_visitante > 0
+   OR EXISTS (
+       SELECT 1
+       FROM estadistica_jugador_partido e
+       WHERE e.partido_id = p.id_partido
+   );
+
+-- 3. Vaciar la clasificación materializada para que se reconstruya
+DELETE FROM fila_clasificacion;
+
+-- Verificar el resultado
+SELECT id_partido, goles_local, goles_visitante, jugado
+FROM partido
+ORDER BY id_partido;
+
+-- ============================================
+-- Fin del script
+-- ============================================
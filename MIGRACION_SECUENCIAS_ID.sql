@@ -0,0 +1,64 @@
+-- ============================================
+-- Script de Migración: IDs por secuencia (MySQL)
+-- ============================================
+-- Descripción: Las entidades con más volumen (jugador, partido, jornada, equipo,
+-- usuario, alineacion, puntos_usuario_jornada y ranking_jornada) ya no usan
+-- AUTO_INCREMENT sino una secuencia con bloques de 50 IDs, para que Hibernate
+-- pueda insertar por lotes. MySQL no tiene secuencias y Hibernate las emula con
+-- una tabla <tabla>_seq de una sola fila. Este script crea esas tablas en una
+-- base de datos existente, empezando por encima del mayor ID ya usado.
+-- ============================================
+
+-- 1. jugador
+CREATE TABLE IF NOT EXISTS jugador_seq (next_val BIGINT);
+DELETE FROM jugador_seq;
+INSERT INTO jugador_seq (next_val) SELECT COALESCE(MAX(id_jugador), 0) + 51 FROM jugador;
+
+-- 2. partido
+CREATE TABLE IF NOT EXISTS partido_seq (next_val BIGINT);
+DELETE FROM partido_seq;
+INSERT INTO partido_seq (next_val) SELECT COALESCE(MAX(id_partido), 0) + 51 FROM partido;
+
+-- 3. jornada
+CREATE TABLE IF NOT EXISTS jornada_seq (next_val BIGINT);
+DELETE FROM jornada_seq;
+INSERT INTO jornada_seq (next_val) SELECT COALESCE(MAX(id_jornada), 0) + 51 FROM jornada;
+
+-- 4. equipo
+CREATE TABLE IF NOT EXISTS equipo_seq (next_val BIGINT);
+DELETE FROM equipo_seq;
+INSERT INTO equipo_seq (next_val) SELECT COALESCE(MAX(id_equipo), 0) + 51 FROM equipo;
+
+-- 5. usuario
+CREATE TABLE IF NOT EXISTS usuario_seq (next_val BIGINT);
+DELETE FROM usuario_seq;
+INSERT INTO usuario_seq (next_val) SELECT COALESCE(MAX(id_usuario), 0) + 51 FROM usuario;
+
+-- 6. alineacion
+CREATE TABLE IF NOT EXISTS alineacion_seq (next_val BIGINT);
+DELETE FROM alineacion_seq;
+INSERT INTO alineacion_seq (next_val) SELECT COALESCE(MAX(id_alineacion), 0) + 51 FROM alineacion;
+
+-- 7. puntos_usuario_jornada
+CREATE TABLE IF NOT EXISTS puntos_usuario_jornada_seq (next_val BIGINT);
+DELETE FROM puntos_usuario_jornada_seq;
+INSERT INTO puntos_usuario_jornada_seq (next_val) SELECT COALESCE(MAX(id_puntos), 0) + 51 FROM puntos_usuario_jornada;
+
+-- 8. ranking_jornada
+CREATE TABLE IF NOT EXISTS ranking_jornada_seq (next_val BIGINT);
+DELETE FROM ranking_jornada_seq;
+INSERT INTO ranking_jornada_seq (next_val) SELECT COALESCE(MAX(id_ranking), 0) + 51 FROM ranking_jornada;
+
+-- Verificar el resultado
+SELECT 'jugador' AS tabla, next_val FROM jugador_seq
+UNION ALL SELECT 'partido', next_val FROM partido_seq
+UNION ALL SELECT 'jornada', next_val FROM jornada_seq
+UNION ALL SELECT 'equipo', next_val FROM equipo_seq
+UNION ALL SELECT 'usuario', next_val FROM usuario_seq
+UNION ALL SELECT 'alineacion', next_val FROM alineacion_seq
+UNION ALL SELECT 'puntos_usuario_jornada', next_val FROM puntos_usuario_jornada_seq
+UNION ALL SELECT 'ranking_jornada', next_val FROM ranking_jornada_seq;
+
+-- ============================================
+-- Fin del script
+-- ============================================
@@ -2,16 +2,20 @@ package com.example.Liga_Del_Cume.data.Controller;
 
 import com.example.Liga_Del_Cume.data.model.*;
 import com.example.Liga_Del_Cume.data.repository.*;
+import com.example.Liga_Del_Cume.data.service.ActualizacionJornadaService;
 import com.example.Liga_Del_Cume.data.service.LigaService;
+import com.example.Liga_Del_Cume.data.service.ReglasPuntuacionService;
+import com.example.Liga_Del_Cume.data.service.RepuntuacionService;
+import com.example.Liga_Del_Cume.data.service.ResultadosJornadaService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Controlador para agregar y editar resultados de partidos (Admin)
@@ -33,13 +37,19 @@ public class AgregarResultadosController {
     private EstadisticaJugadorPartidoRepository estadisticaRepository;
 
     @Autowired
-    private UsuarioRepository usuarioRepository;
+    private LigaService ligaService;
 
     @Autowired
-    private AlineacionRepository alineacionRepository;
+    private ReglasPuntuacionService reglasPuntuacionService;
 
     @Autowired
-    private LigaService ligaService;
+    private RepuntuacionService repuntuacionService;
+
+    @Autowired
+    private ResultadosJornadaService resultadosJornadaService;
+
+    @Autowired
+    private ActualizacionJornadaService actualizacionJornadaService;
 
     /**
      * GET: Mostrar página para agregar resultados
@@ -241,7 +251,8 @@ public class AgregarResultadosController {
 
     /**
      * POST: Guardar estadísticas de un partido
-     * Actualiza las estadísticas de todos los jugadores y recalcula puntos
+     * Actualiza las estadísticas de todos los jugadores; los puntos de los usuarios y
+     * el ranking se recalculan en segundo plano (ver /actualizacion/estado)
      */
     @PostMapping("/partido/{partidoId}/guardar")
     @ResponseBody
@@ -251,91 +262,13 @@ public class AgregarResultadosController {
             @RequestBody Map<String, Object> datos) {
 
         try {
-            Partido partido = partidoRepository.findById(partidoId)
-                .orElseThrow(() -> new RuntimeException("Partido no encontrado"));
-
             // Obtener jugadores del request
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> jugadores = (List<Map<String, Object>>) datos.get("jugadores");
 
-            int golesLocal = 0;
-            int golesVisitante = 0;
-
-            // Procesar cada jugador
-            for (Map<String, Object> jugadorData : jugadores) {
-                Long idJugador = Long.valueOf(jugadorData.get("idJugador").toString());
-                int goles = Integer.parseInt(jugadorData.get("goles").toString());
-                int asistencias = Integer.parseInt(jugadorData.get("asistencias").toString());
-                int tarjetasAmarillas = Integer.parseInt(jugadorData.get("tarjetasAmarillas").toString());
-                boolean tarjetaRoja = Boolean.parseBoolean(jugadorData.get("tarjetaRoja").toString());
-                boolean minMinutosJugados = Boolean.parseBoolean(jugadorData.get("minMinutosJugados").toString());
-                int golesRecibidos = Integer.parseInt(jugadorData.get("golesRecibidos").toString());
-
-                Jugador jugador = jugadorRepository.findById(idJugador)
-                    .orElseThrow(() -> new RuntimeException("Jugador no encontrado"));
-
-                // Calcular puntos de fantasy
-                int puntosJornada = calcularPuntosFantasy(jugador, goles, asistencias,
-                    tarjetasAmarillas, tarjetaRoja, minMinutosJugados, golesRecibidos);
-
-                // Sumar goles al marcador
-                if (jugador.getEquipo().getIdEquipo().equals(partido.getEquipoLocal().getIdEquipo())) {
-                    golesLocal += goles;
-                } else {
-                    golesVisitante += goles;
-                }
-
-                // Guardar o actualizar estadística
-                EstadisticaJugadorPartido estadistica = estadisticaRepository
-                    .findByJugadorIdJugadorAndPartidoIdPartido(idJugador, partidoId);
-
-                int puntosAnteriores = 0;
-                boolean esActualizacion = false;
-
-                if (estadistica == null) {
-                    estadistica = new EstadisticaJugadorPartido();
-                    estadistica.setJugador(jugador);
-                    estadistica.setPartido(partido);
-                } else {
-                    // Si la estadística ya existía, guardamos los puntos anteriores para ajustar el precio
-                    puntosAnteriores = estadistica.getPuntosJornada();
-                    esActualizacion = true;
-                }
-
-                estadistica.setGolesAnotados(goles);
-                estadistica.setAsistencias(asistencias);
-                estadistica.setTarjetaAmarillas(tarjetasAmarillas);
-                estadistica.setTarjetaRojas(tarjetaRoja);
-                estadistica.setMinMinutosJugados(minMinutosJugados);
-                estadistica.setGolesRecibidos(golesRecibidos);
-                estadistica.setPuntosJornada(puntosJornada);
-
-                estadisticaRepository.save(estadistica);
-
-                // Actualizar precio del jugador basado en los puntos obtenidos
-                if (esActualizacion) {
-                    // Si es actualización, ajustar la diferencia
-                    int diferenciaPuntos = puntosJornada - puntosAnteriores;
-                    actualizarPrecioJugador(jugador, diferenciaPuntos);
-                } else {
-                    // Si es nueva estadística, aplicar los puntos completos
-                    actualizarPrecioJugador(jugador, puntosJornada);
-                }
-            }
-
-            // Actualizar marcador del partido
-            partido.setGolesLocal(golesLocal);
-            partido.setGolesVisitante(golesVisitante);
-            partidoRepository.save(partido);
-
-            // Actualizar goles recibidos de los porteros
-            actualizarGolesRecibidosPorteros(partido, golesLocal, golesVisitante);
-
-            // NUEVO: Mover alineaciones futuras a esta jornada (historial)
-            moverAlineacionesFuturasAHistorial(partido.getJornada());
-
-            // Recalcular puntos de usuarios
-            recalcularPuntosUsuarios(partido.getJornada().getIdJornada());
+            Partido partido = resultadosJornadaService.guardarResultadosPartido(ligaId, partidoId, jugadores);
+            int golesLocal = partido.getGolesLocal();
+            int golesVisitante = partido.getGolesVisitante();
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -354,223 +287,141 @@ public class AgregarResultadosController {
     }
 
     /**
-     * Calcula los puntos de fantasy de un jugador según sus estadísticas
+     * GET: Consultar si los puntos de los usuarios y el ranking ya reflejan todos
+     * los resultados guardados
      */
-    private int calcularPuntosFantasy(Jugador jugador, int goles, int asistencias,
-                                      int tarjetasAmarillas, boolean tarjetaRoja,
-                                      boolean minMinutosJugados, int golesRecibidos) {
-        int puntos = 0;
-
-        // Puntos base por jugar mínimo de minutos
-        if (minMinutosJugados) {
-            puntos += 1;
-        }
+    @GetMapping("/actualizacion/estado")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> obtenerEstadoActualizacion(@PathVariable("ligaId") Long ligaId) {
+        Map<String, Object> response = new HashMap<>(actualizacionJornadaService.obtenerEstado(ligaId));
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
 
-        if (jugador.isEsPortero()) {
-            // Puntos para porteros
-            puntos += goles * 6; // Gol de portero
-            puntos += asistencias * 3;
-
-            // Penalización por goles recibidos
-            if (golesRecibidos == 0 && minMinutosJugados) {
-                puntos += 5; // Portería a cero
-            } else if (golesRecibidos >= 1 && golesRecibidos <= 2) {
-                puntos -= 1;
-            } else if (golesRecibidos >= 3) {
-                puntos -= 2;
-            }
-        } else {
-            // Puntos para jugadores de campo
-            puntos += goles * 4; // Gol normal
-            puntos += asistencias * 3;
-        }
+    /**
+     * POST: Importar en JSON las estadísticas de todos los partidos de una jornada
+     * Formato: {"estadisticas": [{"idPartido": 1, "idJugador": 2, "goles": 1, ...}, ...]}
+     */
+    @PostMapping(value = "/jornada/{jornadaId}/importar", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> importarResultadosJson(
+            @PathVariable("ligaId") Long ligaId,
+            @PathVariable("jornadaId") Long jornadaId,
+            @RequestBody Map<String, Object> datos) {
 
-        // Penalizaciones por tarjetas
-        puntos -= tarjetasAmarillas;
-        if (tarjetaRoja) {
-            puntos -= 3;
+        try {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> filas = (List<Map<String, Object>>) datos.get("estadisticas");
+            return respuestaImportacion(resultadosJornadaService.importarResultados(ligaId, jornadaId, filas));
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         }
-
-        return puntos;
     }
 
     /**
-     * Actualiza los goles recibidos de los porteros automáticamente
+     * POST: Importar en CSV las estadísticas de todos los partidos de una jornada
+     * La primera línea es la cabecera con las mismas columnas que el JSON
      */
-    private void actualizarGolesRecibidosPorteros(Partido partido, int golesLocal, int golesVisitante) {
-        // Porteros del equipo local reciben los goles visitantes
-        List<Jugador> porterosLocal = jugadorRepository.findByEquipoIdEquipo(
-            partido.getEquipoLocal().getIdEquipo()
-        ).stream().filter(Jugador::isEsPortero).collect(Collectors.toList());
-
-        for (Jugador portero : porterosLocal) {
-            EstadisticaJugadorPartido estadistica = estadisticaRepository
-                .findByJugadorIdJugadorAndPartidoIdPartido(portero.getIdJugador(), partido.getIdPartido());
-
-            if (estadistica != null) {
-                estadistica.setGolesRecibidos(golesVisitante);
-                estadisticaRepository.save(estadistica);
-            }
-        }
-
-        // Porteros del equipo visitante reciben los goles locales
-        List<Jugador> porterosVisitante = jugadorRepository.findByEquipoIdEquipo(
-            partido.getEquipoVisitante().getIdEquipo()
-        ).stream().filter(Jugador::isEsPortero).collect(Collectors.toList());
-
-        for (Jugador portero : porterosVisitante) {
-            EstadisticaJugadorPartido estadistica = estadisticaRepository
-                .findByJugadorIdJugadorAndPartidoIdPartido(portero.getIdJugador(), partido.getIdPartido());
+    @PostMapping(value = "/jornada/{jornadaId}/importar", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> importarResultadosCsv(
+            @PathVariable("ligaId") Long ligaId,
+            @PathVariable("jornadaId") Long jornadaId,
+            @RequestBody String contenido) {
 
-            if (estadistica != null) {
-                estadistica.setGolesRecibidos(golesLocal);
-                estadisticaRepository.save(estadistica);
-            }
+        try {
+            List<Map<String, Object>> filas = resultadosJornadaService.leerCsv(contenido);
+            return respuestaImportacion(resultadosJornadaService.importarResultados(ligaId, jornadaId, filas));
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         }
     }
 
+    private ResponseEntity<Map<String, Object>> respuestaImportacion(Map<String, Object> resumen) {
+        Map<String, Object> response = new HashMap<>(resumen);
+        response.put("success", true);
+        response.put("message", "Resultados de la jornada importados correctamente");
+        return ResponseEntity.ok(response);
+    }
+
     /**
-     * Recalcula los puntos de todos los usuarios basándose en sus alineaciones
+     * GET: Obtener las reglas de puntuación de la liga
      */
-    private void recalcularPuntosUsuarios(Long jornadaId) {
-        // Obtener todas las alineaciones de la jornada
-        List<Alineacion> alineaciones = alineacionRepository.findByJornadaIdJornada(jornadaId);
-
-        for (Alineacion alineacion : alineaciones) {
-            int puntosTotal = 0;
+    @GetMapping("/reglas-puntuacion")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> obtenerReglasPuntuacion(@PathVariable("ligaId") Long ligaId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("reglas", reglasPuntuacionService.obtenerReglas(ligaId));
+        return ResponseEntity.ok(response);
+    }
 
-            // Sumar puntos de todos los jugadores de la alineación
-            for (Jugador jugador : alineacion.getJugadores()) {
-                EstadisticaJugadorPartido estadistica = estadisticaRepository
-                    .findByJugadorIdJugadorAndPartidoJornadaIdJornada(jugador.getIdJugador(), jornadaId);
+    /**
+     * POST: Guardar las reglas de puntuación de la liga
+     * Se deben enviar todos los valores; los que falten toman su valor por defecto.
+     * Después de guardarlas se lanza en segundo plano la repuntuación de la temporada
+     * (si ya hay una en curso, se repite al terminar con las reglas nuevas).
+     */
+    @PostMapping("/reglas-puntuacion")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> guardarReglasPuntuacion(
+            @PathVariable("ligaId") Long ligaId,
+            @RequestBody ReglasPuntuacion reglas) {
 
-                if (estadistica != null) {
-                    puntosTotal += estadistica.getPuntosJornada();
-                }
-            }
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("reglas", reglasPuntuacionService.guardarReglas(ligaId, reglas));
 
-            // Actualizar puntos del usuario
-            Usuario usuario = alineacion.getUsuario();
-            usuario.setPuntosAcumulados(usuario.getPuntosAcumulados() + puntosTotal);
-            usuarioRepository.save(usuario);
+            response.put("progreso", repuntuacionService.solicitarRepuntuacion(ligaId));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         }
     }
 
     /**
-     * Mueve las alineaciones "futuras" (sin jornada asignada o de jornadas futuras)
-     * al historial de la jornada que acaba de jugarse.
-     *
-     * Este método se ejecuta cuando se agregan resultados a un partido por primera vez.
-     *
-     * Lógica:
-     * 1. Si es la primera vez que se juega un partido de esta jornada, todas las alineaciones
-     *    que los usuarios tenían guardadas para "alineación futura" deben moverse a esta jornada.
-     * 2. Esto asegura que las alineaciones se guarden en el historial automáticamente.
-     *
-     * @param jornada La jornada que acaba de jugarse
+     * POST: Volver a puntuar la temporada de la liga con sus reglas actuales
+     * El proceso se ejecuta en segundo plano; su avance se consulta en /repuntuar/estado
      */
-    private void moverAlineacionesFuturasAHistorial(Jornada jornada) {
+    @PostMapping("/repuntuar")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> repuntuarTemporada(@PathVariable("ligaId") Long ligaId) {
+        Map<String, Object> response = new HashMap<>();
         try {
-            Long jornadaId = jornada.getIdJornada();
-            Long ligaId = jornada.getLiga().getIdLigaCume();
-
-            // Verificar si es la primera vez que se agregan resultados a esta jornada
-            // (es decir, si esta jornada ya tiene alineaciones guardadas, no hacemos nada)
-            List<Alineacion> alineacionesExistentes = alineacionRepository.findByJornadaIdJornada(jornadaId);
-
-            if (!alineacionesExistentes.isEmpty()) {
-                // Ya hay alineaciones guardadas para esta jornada, no hacer nada
-                return;
-            }
-
-            // Obtener la próxima jornada sin resultados (que ahora ES esta jornada que se está jugando)
-            List<Jornada> todasJornadas = jornadaRepository.findByLigaIdLigaCume(ligaId);
-            todasJornadas.sort((j1, j2) -> j1.getNumeroJornada().compareTo(j2.getNumeroJornada()));
-
-            // Encontrar la posición de la jornada actual
-            int posicionJornadaActual = -1;
-            for (int i = 0; i < todasJornadas.size(); i++) {
-                if (todasJornadas.get(i).getIdJornada().equals(jornadaId)) {
-                    posicionJornadaActual = i;
-                    break;
-                }
-            }
-
-            if (posicionJornadaActual == -1) {
-                return; // No se encontró la jornada, algo raro pasó
-            }
-
-            // Buscar alineaciones que tengan una jornada "futura" (mayor número de jornada)
-            // o que no tengan jornada asignada
-            List<Usuario> usuariosDeLiga = usuarioRepository.findByLigaIdLigaCume(ligaId);
-
-            for (Usuario usuario : usuariosDeLiga) {
-                // Buscar si el usuario tiene una alineación en una jornada futura
-                // o en una jornada sin resultados
-                Alineacion alineacionFutura = null;
-
-                // Buscar la alineación más cercana que el usuario tenga para jornadas futuras
-                for (int i = posicionJornadaActual; i < todasJornadas.size(); i++) {
-                    Jornada jornadaBusqueda = todasJornadas.get(i);
-                    Optional<Alineacion> alineacionOpt = alineacionRepository
-                        .findByUsuarioIdUsuarioAndJornadaIdJornada(
-                            usuario.getIdUsuario(),
-                            jornadaBusqueda.getIdJornada()
-                        );
-
-                    if (alineacionOpt.isPresent()) {
-                        alineacionFutura = alineacionOpt.get();
-                        break; // Encontramos la primera alineación futura
-                    }
-                }
-
-                // Si encontramos una alineación futura, moverla a esta jornada
-                if (alineacionFutura != null && !alineacionFutura.getJornada().getIdJornada().equals(jornadaId)) {
-                    // Cambiar la jornada de la alineación
-                    alineacionFutura.setJornada(jornada);
-                    alineacionRepository.save(alineacionFutura);
-                }
-            }
-
+            response.put("success", true);
+            response.put("progreso", repuntuacionService.iniciarRepuntuacion(ligaId));
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
-            // Log del error pero no interrumpir el flujo principal
-            System.err.println("Error al mover alineaciones futuras: " + e.getMessage());
-            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         }
     }
 
     /**
-     * Actualiza el precio de mercado de un jugador basándose en los puntos obtenidos en un partido.
-     *
-     * Lógica de actualización de precios:
-     * - Si los puntos son positivos: se suman (puntos * 1000) al precio actual
-     * - Si los puntos son negativos: se restan (|puntos| * 1000) del precio actual
-     * - El precio nunca puede ser menor que 0
-     *
-     * Ejemplos:
-     * - Jugador con precio 5000, obtiene 3 puntos: nuevo precio = 5000 + (3 * 1000) = 8000
-     * - Jugador con precio 5000, obtiene -2 puntos: nuevo precio = 5000 - (2 * 1000) = 3000
-     * - Jugador con precio 1000, obtiene -3 puntos: nuevo precio = max(0, 1000 - 3000) = 0
-     *
-     * @param jugador Jugador cuyo precio se actualizará
-     * @param puntosJornada Puntos obtenidos en la jornada (pueden ser positivos o negativos)
+     * GET: Consultar el progreso de la última repuntuación de la liga
      */
-    private void actualizarPrecioJugador(Jugador jugador, int puntosJornada) {
-        if (jugador == null) {
-            return;
-        }
-
-        float precioActual = jugador.getPrecioMercado();
-        float cambio = puntosJornada * 1000.0f;
-        float nuevoPrecio = precioActual + cambio;
-
-        // Asegurar que el precio nunca sea negativo
-        if (nuevoPrecio < 0) {
-            nuevoPrecio = 0;
+    @GetMapping("/repuntuar/estado")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> obtenerEstadoRepuntuacion(@PathVariable("ligaId") Long ligaId) {
+        Map<String, Object> response = new HashMap<>();
+        ProgresoRepuntuacion progreso = repuntuacionService.obtenerProgreso(ligaId);
+        if (progreso == null) {
+            response.put("success", false);
+            response.put("error", "No se ha lanzado ninguna repuntuación para esta liga");
+            return ResponseEntity.badRequest().body(response);
         }
-
-        jugador.setPrecioMercado(nuevoPrecio);
-        jugadorRepository.save(jugador);
+        response.put("success", true);
+        response.put("progreso", progreso);
+        return ResponseEntity.ok(response);
     }
 }
-
@@ -5,14 +5,19 @@ import com.example.Liga_Del_Cume.data.service.*;
 import com.example.Liga_Del_Cume.data.repository.*;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Controlador para gestionar las alineaciones de los usuarios
@@ -43,6 +48,12 @@ public class AlineacionController {
     @Autowired
     private PartidoRepository partidoRepository;
 
+    @Autowired
+    private MercadoJugadoresService mercadoJugadoresService;
+
+    @Autowired
+    private OptimizadorAlineacionService optimizadorAlineacionService;
+
     /**
      * Muestra la pantalla para crear una alineación futura (próxima jornada)
      */
@@ -166,8 +177,8 @@ public class AlineacionController {
 
     /**
      * Verifica si una jornada no tiene resultados agregados
-     * Una jornada sin resultados es aquella donde todos los partidos tienen 0-0
-     * y no tienen estadísticas de jugadores registradas
+     * Una jornada sin resultados es aquella donde ningún partido está jugado
+     * (con goles o con estadísticas de jugadores registradas)
      */
     private boolean jornadaSinResultados(Jornada jornada) {
         List<Partido> partidos = partidoRepository.findByJornadaIdJornada(jornada.getIdJornada());
@@ -176,17 +187,9 @@ public class AlineacionController {
             return true; // Si no hay partidos, consideramos que no tiene resultados
         }
 
-        // Verificar si todos los partidos están sin jugar (0-0 y sin estadísticas)
+        // Verificar si todos los partidos están sin jugar (mismo criterio que la clasificación)
         for (Partido partido : partidos) {
-            // Si algún partido tiene goles, la jornada tiene resultados
-            if (partido.getGolesLocal() != 0 || partido.getGolesVisitante() != 0) {
-                return false;
-            }
-
-            // Si algún partido tiene estadísticas de jugadores, la jornada tiene resultados
-            List<EstadisticaJugadorPartido> estadisticas =
-                estadisticaRepository.findByPartidoIdPartido(partido.getIdPartido());
-            if (estadisticas != null && !estadisticas.isEmpty()) {
+            if (partido.isJugado()) {
                 return false;
             }
         }
@@ -216,103 +219,75 @@ public class AlineacionController {
     /**
      * Obtiene la lista de jugadores disponibles para una posición
      * Solo muestra jugadores de equipos que juegan en la próxima jornada
+     *
+     * Los jugadores salen del mercado en memoria de la liga (MercadoJugadoresService),
+     * ya ordenados y con sus puntos de la temporada. Se pueden ordenar por "puntos"
+     * (por defecto), "precio" o "nombre" y paginar con pagina/tamano; sin tamano se
+     * devuelven todos. La cabecera X-Total-Count indica cuántos hay disponibles.
      */
     @GetMapping("/alineacion-futura/jugadores")
     @ResponseBody
-    public List<JugadorDisponible> obtenerJugadoresDisponibles(
+    public ResponseEntity<List<ResumenJugador>> obtenerJugadoresDisponibles(
             @PathVariable("ligaId") Long ligaId,
             @RequestParam("posicion") String posicion,
-            @RequestParam(value = "jugadoresSeleccionados", required = false) String jugadoresSeleccionados) {
+            @RequestParam(value = "jugadoresSeleccionados", required = false) String jugadoresSeleccionados,
+            @RequestParam(value = "orden", defaultValue = MercadoJugadores.ORDEN_PUNTOS) String orden,
+            @RequestParam(value = "pagina", defaultValue = "0") int pagina,
+            @RequestParam(value = "tamano", defaultValue = "0") int tamano) {
 
         // Determinar si la posición es portero
         boolean esPortero = "portero".equalsIgnoreCase(posicion);
 
-        // Obtener la próxima jornada
-        List<Jornada> jornadas = jornadaRepository.findByLigaIdLigaCume(ligaId);
-        Jornada proximaJornada = null;
+        // Filtrar jugadores ya seleccionados
+        Set<Long> idsSeleccionados = leerIds(jugadoresSeleccionados);
 
-        if (!jornadas.isEmpty()) {
-            jornadas.sort((j1, j2) -> j1.getNumeroJornada().compareTo(j2.getNumeroJornada()));
-            for (Jornada j : jornadas) {
-                if (jornadaSinResultados(j)) {
-                    proximaJornada = j;
-                    break;
-                }
-            }
-        }
+        PaginaJugadores disponibles = mercadoJugadoresService.buscarDisponibles(
+                ligaId, esPortero, orden, idsSeleccionados, pagina, tamano);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(disponibles.getTotal()))
+                .body(disponibles.getJugadores());
+    }
 
-        // Obtener equipos que juegan en la próxima jornada
-        List<Long> equiposQueJuegan = new ArrayList<>();
-        if (proximaJornada != null) {
-            List<Partido> partidos = partidoRepository.findByJornadaIdJornada(proximaJornada.getIdJornada());
-            for (Partido partido : partidos) {
-                if (partido.getEquipoLocal() != null) {
-                    equiposQueJuegan.add(partido.getEquipoLocal().getIdEquipo());
-                }
-                if (partido.getEquipoVisitante() != null) {
-                    equiposQueJuegan.add(partido.getEquipoVisitante().getIdEquipo());
-                }
-            }
-        }
+    /**
+     * Calcula la alineación con más puntos esperados que cabe en el presupuesto de la liga
+     * Los jugadores ya seleccionados en la pantalla se mantienen y los excluidos no se eligen
+     */
+    @GetMapping("/alineacion-futura/optima")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> obtenerAlineacionOptima(
+            @PathVariable("ligaId") Long ligaId,
+            @RequestParam(value = "jugadoresSeleccionados", required = false) String jugadoresSeleccionados,
+            @RequestParam(value = "excluidos", required = false) String excluidos) {
 
-        // Obtener jugadores según la posición
-        List<Jugador> jugadores;
-        if (esPortero) {
-            jugadores = jugadorRepository.findByEsPortero(true);
-        } else {
-            jugadores = jugadorRepository.findByEsPortero(false);
+        Map<String, Object> response = new HashMap<>();
+        try {
+            AlineacionOptima alineacion = optimizadorAlineacionService.calcularAlineacionOptima(
+                    ligaId, leerIds(excluidos), leerIds(jugadoresSeleccionados));
+            response.put("success", true);
+            response.put("alineacion", alineacion);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         }
+    }
 
-        // Filtrar jugadores ya seleccionados
-        List<Long> idsSeleccionados = new ArrayList<>();
-        if (jugadoresSeleccionados != null && !jugadoresSeleccionados.isEmpty()) {
-            String[] ids = jugadoresSeleccionados.split(",");
-            for (String id : ids) {
+    /**
+     * Lee una lista de IDs separados por comas, ignorando los que no son válidos
+     */
+    private Set<Long> leerIds(String ids) {
+        Set<Long> resultado = new HashSet<>();
+        if (ids != null && !ids.isEmpty()) {
+            for (String id : ids.split(",")) {
                 try {
-                    idsSeleccionados.add(Long.parseLong(id.trim()));
+                    resultado.add(Long.parseLong(id.trim()));
                 } catch (NumberFormatException e) {
                     // Ignorar IDs inválidos
                 }
             }
         }
-
-        // Convertir a DTO y calcular puntos totales
-        List<JugadorDisponible> jugadoresDisponibles = new ArrayList<>();
-        for (Jugador jugador : jugadores) {
-            // Solo incluir jugadores cuyo equipo juega en la próxima jornada
-            boolean equipoJuega = equiposQueJuegan.isEmpty() ||
-                                 (jugador.getEquipo() != null &&
-                                  equiposQueJuegan.contains(jugador.getEquipo().getIdEquipo()));
-
-            if (equipoJuega && !idsSeleccionados.contains(jugador.getIdJugador())) {
-                int puntosTotal = calcularPuntosTotalesJugador(jugador);
-                jugadoresDisponibles.add(new JugadorDisponible(
-                    jugador.getIdJugador(),
-                    jugador.getNombreJugador(),
-                    jugador.getAvatarUrl(),
-                    jugador.getEquipo().getEscudoURL(),
-                    jugador.getEquipo().getNombreEquipo(),
-                    puntosTotal,
-                    (long) jugador.getPrecioMercado()
-                ));
-            }
-        }
-
-        return jugadoresDisponibles;
-    }
-
-    /**
-     * Calcula los puntos totales de un jugador sumando todas sus estadísticas
-     */
-    private int calcularPuntosTotalesJugador(Jugador jugador) {
-        List<EstadisticaJugadorPartido> estadisticas =
-            estadisticaRepository.findByJugadorIdJugador(jugador.getIdJugador());
-
-        int total = 0;
-        for (EstadisticaJugadorPartido est : estadisticas) {
-            total += est.getPuntosJornada();
-        }
-        return total;
+        return resultado;
     }
 
     /**
@@ -498,39 +473,6 @@ public class AlineacionController {
         }
     }
 
-    /**
-     * Clase interna para representar un jugador disponible con sus datos
-     */
-    public static class JugadorDisponible {
-        private Long id;
-        private String nombre;
-        private String avatarUrl;
-        private String escudoEquipo;
-        private String nombreEquipo;
-        private int puntosTotal;
-        private Long precio;
-
-        public JugadorDisponible(Long id, String nombre, String avatarUrl, String escudoEquipo,
-                                String nombreEquipo, int puntosTotal, Long precio) {
-            this.id = id;
-            this.nombre = nombre;
-            this.avatarUrl = avatarUrl;
-            this.escudoEquipo = escudoEquipo;
-            this.nombreEquipo = nombreEquipo;
-            this.puntosTotal = puntosTotal;
-            this.precio = precio;
-        }
-
-        // Getters
-        public Long getId() { return id; }
-        public String getNombre() { return nombre; }
-        public String getAvatarUrl() { return avatarUrl; }
-        public String getEscudoEquipo() { return escudoEquipo; }
-        public String getNombreEquipo() { return nombreEquipo; }
-        public int getPuntosTotal() { return puntosTotal; }
-        public Long getPrecio() { return precio; }
-    }
-
     /**
      * Muestra el historial de alineaciones de un usuario en una jornada específica
      *
@@ -793,24 +735,7 @@ public class AlineacionController {
 
             // Verificar si AL MENOS UN partido ha sido jugado
             for (Partido partido : partidos) {
-                boolean partidoJugado = false;
-
-                // Verificar goles
-                int golesLocal = partido.getGolesLocal();
-                int golesVisitante = partido.getGolesVisitante();
-
-                if (golesLocal != 0 || golesVisitante != 0) {
-                    partidoJugado = true;
-                } else {
-                    // Es 0-0, verificar estadísticas
-                    List<EstadisticaJugadorPartido> estadisticas =
-                        estadisticaRepository.findByPartidoIdPartido(partido.getIdPartido());
-                    if (estadisticas != null && !estadisticas.isEmpty()) {
-                        partidoJugado = true;
-                    }
-                }
-
-                if (partidoJugado) {
+                if (partido.isJugado()) {
                     return jornada;
                 }
             }
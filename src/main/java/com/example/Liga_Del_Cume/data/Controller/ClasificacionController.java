@@ -1,21 +1,31 @@
 package com.example.Liga_Del_Cume.data.Controller;
 
 import com.example.Liga_Del_Cume.data.model.ClasificacionEquipo;
+import com.example.Liga_Del_Cume.data.model.EvolucionClasificacionEquipo;
+import com.example.Liga_Del_Cume.data.model.Jornada;
 import com.example.Liga_Del_Cume.data.model.Usuario;
 import com.example.Liga_Del_Cume.data.model.LigaCume;
 import com.example.Liga_Del_Cume.data.service.ClasificacionService;
+import com.example.Liga_Del_Cume.data.service.JornadaService;
 import com.example.Liga_Del_Cume.data.service.LigaService;
 import com.example.Liga_Del_Cume.data.exceptions.EquipoException;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Controlador para gestionar la clasificación de equipos en una liga
@@ -41,6 +51,9 @@ public class ClasificacionController {
     @Autowired
     private LigaService ligaService;
 
+    @Autowired
+    private JornadaService jornadaService;
+
     /**
      * Muestra la clasificación de equipos de una liga específica
      *
@@ -52,12 +65,15 @@ public class ClasificacionController {
      * - Obtiene la clasificación completa de la liga
      * - Los equipos están ordenados por:
      *   1. Puntos (mayor a menor)
-     *   2. Diferencia de goles (si hay empate en puntos)
-     *   3. Goles a favor (si persiste el empate)
+     *   2. Enfrentamientos directos entre los empatados a puntos
+     *   3. Diferencia de goles (si persiste el empate)
+     *   4. Goles a favor (si persiste el empate)
      * - Muestra escudos, nombres y estadísticas completas
      * - Maneja errores si la liga no existe
+     * - Si se indica hastaJornada, muestra la clasificación al terminar esa jornada
      *
      * @param ligaId ID de la liga de la cual se quiere ver la clasificación
+     * @param hastaJornada Número de jornada para ver la clasificación histórica (opcional)
      * @param model Modelo para pasar datos a la vista
      * @param redirectAttributes Atributos para mensajes de redirección
      * @param session Sesión HTTP para obtener el usuario actual
@@ -66,6 +82,7 @@ public class ClasificacionController {
     @GetMapping
     public String mostrarClasificacion(
             @PathVariable("ligaId") Long ligaId,
+            @RequestParam(value = "hastaJornada", required = false) Integer hastaJornada,
             Model model,
             RedirectAttributes redirectAttributes,
             HttpSession session) {
@@ -73,8 +90,17 @@ public class ClasificacionController {
             // Obtener el usuario de la sesión
             Usuario usuarioSesion = (Usuario) session.getAttribute("usuario");
 
-            // Obtener la clasificación de equipos ordenada por puntos
-            List<ClasificacionEquipo> clasificacion = clasificacionService.obtenerClasificacionLiga(ligaId);
+            // Obtener la clasificación de equipos ordenada por puntos (actual o histórica)
+            List<ClasificacionEquipo> clasificacion = hastaJornada != null
+                    ? clasificacionService.obtenerClasificacionHastaJornada(ligaId, hastaJornada)
+                    : clasificacionService.obtenerClasificacionLiga(ligaId);
+
+            // Números de jornada para el selector de clasificación histórica
+            List<Integer> numerosJornada = jornadaService.listarJornadasPorLiga(ligaId).stream()
+                    .map(Jornada::getNumeroJornada)
+                    .filter(Objects::nonNull)
+                    .sorted()
+                    .toList();
 
             // Obtener el nombre de la liga
             LigaCume liga = ligaService.obtenerLigaPorId(ligaId);
@@ -86,6 +112,8 @@ public class ClasificacionController {
             model.addAttribute("currentPage", "clasificacion");
             model.addAttribute("usuario", usuarioSesion);
             model.addAttribute("nombreLiga", nombreLiga);
+            model.addAttribute("hastaJornada", hastaJornada);
+            model.addAttribute("numerosJornada", numerosJornada);
 
             // Si hay equipos, agregar información adicional
             if (!clasificacion.isEmpty()) {
@@ -109,6 +137,37 @@ public class ClasificacionController {
         }
     }
 
+    /**
+     * Devuelve en JSON la evolución de la clasificación jornada a jornada
+     *
+     * Respuesta:
+     * - jornadas: números de jornada con partidos jugados, en orden
+     * - equipos: por cada equipo, sus posiciones y puntos al terminar cada jornada
+     *
+     * @param ligaId ID de la liga
+     * @return JSON con la evolución de posiciones de todos los equipos
+     */
+    @GetMapping("/evolucion")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> obtenerEvolucionClasificacion(@PathVariable("ligaId") Long ligaId) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<Integer> numerosJornada = new ArrayList<>();
+            List<EvolucionClasificacionEquipo> equipos =
+                    clasificacionService.obtenerEvolucionClasificacion(ligaId, numerosJornada);
+
+            response.put("success", true);
+            response.put("jornadas", numerosJornada);
+            response.put("equipos", equipos);
+            return ResponseEntity.ok(response);
+
+        } catch (EquipoException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     /**
      * Endpoint alternativo para compatibilidad
      * Redirige a la ruta principal de la clasificación
@@ -2,6 +2,7 @@ package com.example.Liga_Del_Cume.data.Controller;
 
 import com.example.Liga_Del_Cume.data.model.Usuario;
 import com.example.Liga_Del_Cume.data.service.IAService;
+import com.example.Liga_Del_Cume.data.service.RecomendacionStreamingService;
 import com.example.Liga_Del_Cume.data.service.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -25,6 +26,9 @@ public class IAController {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private RecomendacionStreamingService recomendacionStreamingService;
+
     public IAController() {
         System.out.println("\t Builder of " + this.getClass().getSimpleName());
     }
@@ -124,5 +128,58 @@ public class IAController {
                 ));
         }
     }
-}
 
+    /**
+     * Endpoint con los contadores de llamadas a la IA: las hechas y las ahorradas
+     * por compartir una llamada en curso o por la caché
+     *
+     * @param ligaId ID de la liga (los contadores son de toda la aplicación)
+     * @return JSON con success y las métricas de IAService.obtenerMetricas
+     */
+    @GetMapping("/alineacion-sugeria/metricas")
+    @org.springframework.web.bind.annotation.ResponseBody
+    public org.springframework.http.ResponseEntity<?> obtenerMetricas(@PathVariable("idLiga") Long ligaId) {
+        java.util.Map<String, Object> respuesta = new java.util.HashMap<>(iaService.obtenerMetricas());
+        respuesta.put("success", true);
+        return org.springframework.http.ResponseEntity.ok(respuesta);
+    }
+
+    /**
+     * Endpoint que envía la recomendación por Server-Sent Events a medida que la IA la escribe
+     * (eventos "texto", "fin" y "fallo", ver RecomendacionStreamingService)
+     *
+     * @param ligaId ID de la liga
+     * @param usuarioId ID del usuario
+     * @return SseEmitter con la recomendación, o JSON con el error si no se puede empezar
+     *         (429 si el usuario ya tiene una recomendación en curso)
+     */
+    @GetMapping("/alineacion-sugeria/stream")
+    @org.springframework.web.bind.annotation.ResponseBody
+    public Object generarRecomendacionEnStreaming(
+            @PathVariable("idLiga") Long ligaId,
+            @RequestParam Long usuarioId) {
+
+        System.out.println("\t SSE GET /liga/" + ligaId + "/alineacion-sugeria/stream - Usuario ID: " + usuarioId);
+
+        Usuario usuario = usuarioService.buscarUsuarioPorId(usuarioId);
+        if (usuario == null) {
+            return org.springframework.http.ResponseEntity
+                .status(org.springframework.http.HttpStatus.NOT_FOUND)
+                .body(java.util.Map.of("success", false, "error", "Usuario no encontrado. Por favor, verifica tu sesión."));
+        }
+
+        try {
+            return recomendacionStreamingService.iniciarRecomendacion(ligaId, usuarioId, usuario.getNombreUsuario());
+        } catch (IllegalStateException e) {
+            return org.springframework.http.ResponseEntity
+                .status(org.springframework.http.HttpStatus.TOO_MANY_REQUESTS)
+                .body(java.util.Map.of("success", false, "error", e.getMessage()));
+        } catch (RuntimeException e) {
+            System.err.println("\t ✗ Error al preparar la recomendación: " + e.getMessage());
+            String errorMsg = e.getMessage() != null ? e.getMessage() : "Error al preparar la recomendación.";
+            return org.springframework.http.ResponseEntity
+                .status(org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(java.util.Map.of("success", false, "error", errorMsg));
+        }
+    }
+}
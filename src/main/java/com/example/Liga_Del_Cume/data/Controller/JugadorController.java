@@ -4,17 +4,23 @@ import com.example.Liga_Del_Cume.data.model.EstadisticaJugadorPartido;
 import com.example.Liga_Del_Cume.data.model.Jugador;
 import com.example.Liga_Del_Cume.data.model.Usuario;
 import com.example.Liga_Del_Cume.data.model.LigaCume;
+import com.example.Liga_Del_Cume.data.model.PrecioJugadorJornada;
 import com.example.Liga_Del_Cume.data.service.JugadorService;
 import com.example.Liga_Del_Cume.data.service.EstadisticaService;
 import com.example.Liga_Del_Cume.data.service.LigaService;
+import com.example.Liga_Del_Cume.data.service.PrecioJugadorService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -30,6 +36,9 @@ public class JugadorController {
     @Autowired
     private LigaService ligaService;
 
+    @Autowired
+    private PrecioJugadorService precioJugadorService;
+
     /**
      * Muestra la lista de estadísticas de jugadores con filtros
      */
@@ -122,6 +131,45 @@ public class JugadorController {
         return "detalleJugador";
     }
 
+    /**
+     * Devuelve en JSON la evolución del precio de mercado de un jugador
+     *
+     * Respuesta:
+     * - jornadas: números de las jornadas en las que cambió su precio, en orden
+     * - precios: precio del jugador al terminar cada una de esas jornadas
+     * - precioActual: precio de mercado actual
+     *
+     * @param idLiga ID de la liga
+     * @param idJugador ID del jugador
+     * @return JSON con el historial de precios del jugador
+     */
+    @GetMapping("/liga/{idLiga}/jugador/{idJugador}/precios")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> obtenerHistorialPrecios(
+            @PathVariable Long idLiga,
+            @PathVariable Long idJugador) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Jugador jugador = jugadorService.obtenerJugador(idJugador);
+            List<Integer> jornadas = new ArrayList<>();
+            List<Float> precios = new ArrayList<>();
+            for (PrecioJugadorJornada precio : precioJugadorService.obtenerHistorialPrecios(idJugador)) {
+                jornadas.add(precio.getNumeroJornada());
+                precios.add(precio.getPrecio());
+            }
+
+            response.put("success", true);
+            response.put("jornadas", jornadas);
+            response.put("precios", precios);
+            response.put("precioActual", jugador.getPrecioMercado());
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
 
     // Métodos auxiliares para calcular estadísticas totales
     private int calcularGolesTotal(Jugador jugador) {
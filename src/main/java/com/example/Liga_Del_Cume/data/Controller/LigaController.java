@@ -3,6 +3,7 @@ package com.example.Liga_Del_Cume.data.Controller;
 import com.example.Liga_Del_Cume.data.exceptions.UsuarioException;
 import com.example.Liga_Del_Cume.data.model.LigaCume;
 import com.example.Liga_Del_Cume.data.model.Usuario;
+import com.example.Liga_Del_Cume.data.service.IndiceRankingService;
 import com.example.Liga_Del_Cume.data.service.LigaService;
 import com.example.Liga_Del_Cume.data.service.UsuarioService;
 import com.example.Liga_Del_Cume.data.exceptions.LigaException;
@@ -29,6 +30,9 @@ public class LigaController {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private IndiceRankingService indiceRankingService;
+
     /**
      * Muestra la página de selección de ligas
      *
@@ -182,6 +186,7 @@ public class LigaController {
             usuario.setLiga(liga);
 
             ligaService.actualizarLiga(ligaId, liga.getNombreLiga(), liga.getPresupuestoMaximo().doubleValue());
+            indiceRankingService.actualizarUsuario(usuario);
 
             redirectAttributes.addFlashAttribute("success",
                 "Te has unido a la liga exitosamente");
@@ -334,6 +339,47 @@ public class LigaController {
         }
     }
 
+    /**
+     * Endpoint para cambiar el modelo de precios de una liga
+     *
+     * Datos: precioPorDemanda (true/false), eurosPorPunto y eurosPorDemanda
+     * (opcionales; si faltan se usan los valores por defecto). Los precios de los
+     * jugadores se recalculan con el nuevo modelo.
+     *
+     * @param ligaId ID de la liga a modificar
+     * @param datos Map con el modelo de precios
+     * @return Respuesta JSON indicando éxito o error
+     */
+    @PostMapping("/{ligaId}/admin/modelo-precios")
+    @ResponseBody
+    public java.util.Map<String, Object> cambiarModeloPrecios(
+            @PathVariable("ligaId") Long ligaId,
+            @RequestBody java.util.Map<String, Object> datos) {
+
+        java.util.Map<String, Object> response = new java.util.HashMap<>();
+
+        try {
+            boolean precioPorDemanda = Boolean.TRUE.equals(datos.get("precioPorDemanda"));
+            Integer eurosPorPunto = datos.get("eurosPorPunto") != null
+                    ? ((Number) datos.get("eurosPorPunto")).intValue() : null;
+            Integer eurosPorDemanda = datos.get("eurosPorDemanda") != null
+                    ? ((Number) datos.get("eurosPorDemanda")).intValue() : null;
+
+            LigaCume liga = ligaService.actualizarModeloPrecios(ligaId, precioPorDemanda, eurosPorPunto, eurosPorDemanda);
+
+            response.put("success", true);
+            response.put("precioPorDemanda", liga.isPrecioPorDemanda());
+            response.put("eurosPorPunto", liga.getEurosPorPunto());
+            response.put("eurosPorDemanda", liga.getEurosPorDemanda());
+            return response;
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", "Error al actualizar el modelo de precios: " + e.getMessage());
+            return response;
+        }
+    }
+
     // NOTA: El endpoint /{id}/ranking ahora está manejado por RankingController
 }
 
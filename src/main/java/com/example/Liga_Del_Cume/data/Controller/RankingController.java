@@ -1,21 +1,29 @@
 package com.example.Liga_Del_Cume.data.Controller;
 
+import com.example.Liga_Del_Cume.data.model.PaginaRanking;
+import com.example.Liga_Del_Cume.data.model.RankingJornada;
 import com.example.Liga_Del_Cume.data.model.Usuario;
 import com.example.Liga_Del_Cume.data.model.LigaCume;
+import com.example.Liga_Del_Cume.data.service.RankingService;
 import com.example.Liga_Del_Cume.data.service.UsuarioService;
 import com.example.Liga_Del_Cume.data.service.LigaService;
 import com.example.Liga_Del_Cume.data.exceptions.UsuarioException;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador para gestionar el ranking de usuarios en una liga
@@ -37,6 +45,12 @@ public class RankingController {
     @Autowired
     private LigaService ligaService;
 
+    @Autowired
+    private RankingService rankingService;
+
+    // Tamaño máximo de página del ranking de una jornada
+    private static final int TAMANO_MAXIMO_PAGINA = 200;
+
     /**
      * Muestra el ranking de usuarios de una liga específica
      *
@@ -49,6 +63,8 @@ public class RankingController {
      * - Obtiene el ranking completo de la liga
      * - Los usuarios están ordenados por puntos (mayor a menor)
      * - Muestra medallas especiales para los 3 primeros lugares
+     * - Muestra cuántas posiciones ha subido o bajado cada usuario en la última
+     *   jornada cerrada (leído de la foto guardada al cerrarla)
      * - Maneja errores si la liga no existe
      *
      * @param ligaId ID de la liga de la cual se quiere ver el ranking
@@ -71,8 +87,18 @@ public class RankingController {
             LigaCume liga = ligaService.obtenerLigaPorId(ligaId);
             String nombreLiga = liga != null ? liga.getNombreLiga() : "Mis Ligas";
 
+            // Movimiento de cada usuario en la última jornada cerrada (una sola consulta)
+            Map<Long, RankingJornada> ultimoRanking = rankingService.obtenerUltimoRankingCerrado(ligaId);
+            Map<Long, Integer> movimientos = new HashMap<>();
+            ultimoRanking.forEach((idUsuario, fila) -> movimientos.put(idUsuario, fila.getDiferenciaPosicion()));
+
             // Pasar datos a la vista
             model.addAttribute("usuarios", usuarios);
+            model.addAttribute("movimientos", movimientos);
+            if (!ultimoRanking.isEmpty()) {
+                model.addAttribute("ultimaJornadaCerrada",
+                        ultimoRanking.values().iterator().next().getNumeroJornada());
+            }
             model.addAttribute("ligaId", ligaId);
             model.addAttribute("currentPage", "ranking");
             model.addAttribute("usuario", usuarioSesion);
@@ -99,6 +125,95 @@ public class RankingController {
         }
     }
 
+    /**
+     * Devuelve en JSON la evolución del ranking en las jornadas cerradas
+     *
+     * Respuesta:
+     * - jornadas: números de las jornadas cerradas, en orden
+     * - posiciones: por cada ID de usuario, su posición en cada una de esas jornadas
+     *
+     * @param ligaId ID de la liga
+     * @return JSON con la evolución de posiciones de todos los usuarios
+     */
+    @GetMapping("/evolucion")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> obtenerEvolucionRanking(@PathVariable("ligaId") Long ligaId) {
+        Map<String, Object> response = new HashMap<>();
+        List<Integer> numerosJornada = new ArrayList<>();
+        Map<Long, List<Integer>> posiciones = rankingService.obtenerEvolucionRanking(ligaId, numerosJornada);
+
+        response.put("success", true);
+        response.put("jornadas", numerosJornada);
+        response.put("posiciones", posiciones);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Devuelve en JSON una página del ranking de una jornada
+     *
+     * Respuesta:
+     * - filas: usuario, puntos de la jornada y posición
+     * - siguienteCursor: valor a enviar en "cursor" para pedir la página siguiente
+     *   (null si no hay más)
+     *
+     * @param ligaId ID de la liga
+     * @param jornadaId ID de la jornada
+     * @param cursor Cursor de la página anterior (opcional)
+     * @param tamano Número de filas por página (por defecto 50, máximo 200)
+     * @return JSON con la página del ranking
+     */
+    @GetMapping("/jornada/{jornadaId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> obtenerRankingJornada(
+            @PathVariable("ligaId") Long ligaId,
+            @PathVariable("jornadaId") Long jornadaId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "tamano", defaultValue = "50") int tamano) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            PaginaRanking pagina = rankingService.obtenerRankingJornada(
+                    jornadaId, cursor, Math.min(tamano, TAMANO_MAXIMO_PAGINA));
+
+            response.put("success", true);
+            response.put("filas", pagina.getFilas());
+            response.put("siguienteCursor", pagina.getSiguienteCursor());
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Devuelve en JSON los jugadores de la alineación de un usuario en una jornada
+     * con los puntos de cada uno (se pide al desplegar una fila del ranking)
+     *
+     * @param ligaId ID de la liga
+     * @param jornadaId ID de la jornada
+     * @param usuarioId ID del usuario
+     * @return JSON con el detalle de la puntuación
+     */
+    @GetMapping("/jornada/{jornadaId}/usuario/{usuarioId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> obtenerDetalleJornadaUsuario(
+            @PathVariable("ligaId") Long ligaId,
+            @PathVariable("jornadaId") Long jornadaId,
+            @PathVariable("usuarioId") Long usuarioId) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("detalle", rankingService.obtenerDetallePuntuacionJornada(usuarioId, jornadaId));
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     /**
      * Endpoint alternativo para compatibilidad
      * Redirige a la ruta principal del ranking
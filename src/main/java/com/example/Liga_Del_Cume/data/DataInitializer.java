@@ -2,10 +2,13 @@ package com.example.Liga_Del_Cume.data;
 
 import com.example.Liga_Del_Cume.data.model.*;
 import com.example.Liga_Del_Cume.data.repository.*;
+import com.example.Liga_Del_Cume.data.service.PrecioJugadorService;
+import com.example.Liga_Del_Cume.data.service.ReglasPuntuacionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -26,10 +29,13 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired private PartidoRepository partidoRepository;
     @Autowired private AlineacionRepository alineacionRepository;
     @Autowired private EstadisticaJugadorPartidoRepository estadisticaRepository;
+    @Autowired private ReglasPuntuacionService reglasPuntuacionService;
+    @Autowired private PrecioJugadorService precioJugadorService;
 
     private final Random random = new Random();
 
     @Override
+    @Transactional
     public void run(String... args) throws Exception {
         if (ligaCumeRepository.count() > 0) {
             System.out.println("\n⚠️  La base de datos ya contiene datos. Saltando inicialización.\n");
@@ -248,10 +254,10 @@ public class DataInitializer implements CommandLineRunner {
         System.out.println("✓ " + jornadasASimular + " jornadas generadas y simuladas correctamente");
         System.out.println("✓ Todos los partidos tienen resultados");
 
-        // Actualizar precios de jugadores UNA SOLA VEZ al final, basándose en el rendimiento total
+        // Calcular el historial de precios UNA SOLA VEZ al final, jornada a jornada
         System.out.println("\n💰 Actualizando precios de jugadores tras " + jornadasASimular + " jornadas...");
-        actualizarPreciosJugadoresFinal();
-        System.out.println("✓ Precios de jugadores actualizados según rendimiento total");
+        int jugadoresActualizados = precioJugadorService.recalcularPreciosLiga(liga.getIdLigaCume());
+        System.out.println("✓ Precios de " + jugadoresActualizados + " jugadores actualizados según su rendimiento");
     }
 
     private void procesarPartido(Jornada jornada, Equipo local, Equipo visitante, boolean simular) {
@@ -266,6 +272,7 @@ public class DataInitializer implements CommandLineRunner {
             int golesVisitante = random.nextInt(3); // 0-2
             partido.setGolesLocal(golesLocal);
             partido.setGolesVisitante(golesVisitante);
+            partido.setJugado(true); // Tiene estadísticas, aunque acabe 0-0
             partido = partidoRepository.save(partido);
 
             // Generar estadísticas para los jugadores
@@ -281,6 +288,7 @@ public class DataInitializer implements CommandLineRunner {
 
     private void generarEstadisticasEquipo(Equipo equipo, Partido partido, int golesFavor, int golesContra, boolean esLocal) {
         List<Jugador> jugadores = jugadorRepository.findByEquipoIdEquipo(equipo.getIdEquipo());
+        TablaPuntuacion tablaPuntuacion = reglasPuntuacionService.obtenerTabla(equipo.getLiga().getIdLigaCume());
 
         // Repartir los goles aleatoriamente entre los jugadores (excepto portero si se quiere realismo, pero lo simplificamos)
         int golesPorAsignar = golesFavor;
@@ -308,17 +316,8 @@ public class DataInitializer implements CommandLineRunner {
             est.setTarjetaAmarillas(random.nextInt(10) > 8 ? 1 : 0);
             est.setTarjetaRojas(false);
 
-            // Calcular Puntos Fantasy (Lógica simplificada)
-            // Base: 2 pts. Gol: +4. Asistencia: +2. Portería a 0 (si ganó y no recibió goles): +3
-            int puntos = 2; // Por jugar
-            puntos += (est.getGolesAnotados() * 4);
-            puntos += (est.getAsistencias() * 2);
-            puntos -= (est.getTarjetaAmarillas());
-            if (jugador.isEsPortero() && golesContra == 0) puntos += 3;
-            if (golesFavor > golesContra) puntos += 1; // Bonus victoria
-
-            // Variación aleatoria de rendimiento
-            puntos += (random.nextInt(5) - 2);
+            // Calcular Puntos Fantasy con las reglas de puntuación de la liga
+            int puntos = tablaPuntuacion.puntuar(est, jugador.isEsPortero());
 
             // PERMITIR PUNTOS NEGATIVOS para que el sistema de precios funcione correctamente
             est.setPuntosJornada(puntos); // Puede ser negativo
@@ -423,68 +422,6 @@ public class DataInitializer implements CommandLineRunner {
         System.out.println("   Estadísticas: " + estadisticaRepository.count());
     }
 
-    // ==================== SISTEMA DE PRECIOS DINÁMICOS ====================
-
-    /**
-     * Actualiza los precios de todos los jugadores basándose en su rendimiento TOTAL en todas las jornadas
-     *
-     * Reglas:
-     * - Por cada punto mayor que 0: +1000€
-     * - Por cada punto menor que 0: -1000€
-     * - Con 0 puntos: precio no varía
-     *
-     * Este método se ejecuta UNA SOLA VEZ al final de todas las jornadas para mejorar el rendimiento
-     *
-     * Ejemplo:
-     * - Jugador con 15 puntos totales: +15000€
-     * - Jugador con 0 puntos totales: sin cambio
-     * - Jugador con -5 puntos totales: -5000€
-     */
-    private void actualizarPreciosJugadoresFinal() {
-        // Obtener todos los jugadores de la liga
-        List<Jugador> todosJugadores = jugadorRepository.findAll();
-
-        // Mapa para acumular los puntos totales por jugador
-        java.util.Map<Long, Integer> puntosTotalesPorJugador = new java.util.HashMap<>();
-
-        // Recorrer todas las estadísticas y sumar puntos por jugador
-        for (Jugador jugador : todosJugadores) {
-            List<EstadisticaJugadorPartido> estadisticas =
-                estadisticaRepository.findByJugadorIdJugador(jugador.getIdJugador());
-
-            int puntosTotal = 0;
-            for (EstadisticaJugadorPartido est : estadisticas) {
-                puntosTotal += est.getPuntosJornada();
-            }
-
-            puntosTotalesPorJugador.put(jugador.getIdJugador(), puntosTotal);
-        }
-
-        // Aplicar los cambios de precio a cada jugador
-        int jugadoresActualizados = 0;
-        for (Jugador jugador : todosJugadores) {
-            Integer puntosTotal = puntosTotalesPorJugador.get(jugador.getIdJugador());
-
-            if (puntosTotal != null && puntosTotal != 0) {
-                float precioAnterior = jugador.getPrecioMercado();
-
-                // Calcular cambio de precio: 1000€ por cada punto (positivo o negativo)
-                float cambioPrecio = puntosTotal * 1000f;
-                float precioNuevo = precioAnterior + cambioPrecio;
-
-                // Asegurar que el precio no sea negativo (mínimo 1000€)
-                precioNuevo = Math.max(1000f, precioNuevo);
-
-                jugador.setPrecioMercado(precioNuevo);
-                jugadorRepository.save(jugador);
-
-                jugadoresActualizados++;
-            }
-        }
-
-        System.out.println("   → " + jugadoresActualizados + " jugadores actualizaron su precio");
-    }
-
     // ==================== HELPERS SIMPLES ====================
 
     private Usuario crearUsuario(String nombre, String email, LigaCume liga) {
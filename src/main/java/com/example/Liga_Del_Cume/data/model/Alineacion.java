@@ -6,10 +6,12 @@ import java.util.Objects;
 import jakarta.persistence.*;
 
 @Entity
+@Table(indexes = @Index(name = "idx_alineacion_jornada_puntos", columnList = "idJornada, puntosTotalesJornada"))
 public class Alineacion {
     // Primary key para la entidad Alineacion
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alineacion_seq")
+    @SequenceGenerator(name = "alineacion_seq", sequenceName = "alineacion_seq", allocationSize = 50)
     private Long idAlineacion;
 
     @ManyToOne(fetch = FetchType.EAGER)
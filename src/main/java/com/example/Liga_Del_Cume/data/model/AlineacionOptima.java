@@ -0,0 +1,49 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO con la alineación de más puntos esperados que cabe en el presupuesto
+ *
+ * La calcula OptimizadorAlineacion: un portero y cuatro jugadores de campo,
+ * estos ordenados por puntos esperados (descendente).
+ */
+public class AlineacionOptima {
+
+    private ResumenJugador portero;
+    private List<ResumenJugador> jugadoresCampo;
+    private Map<Long, Double> puntosEsperadosJugadores;
+    private double puntosEsperados;
+    private long coste;
+    private long presupuesto;
+
+    public AlineacionOptima() {}
+
+    public AlineacionOptima(ResumenJugador portero, List<ResumenJugador> jugadoresCampo,
+                            Map<Long, Double> puntosEsperadosJugadores, double puntosEsperados,
+                            long coste, long presupuesto) {
+        this.portero = portero;
+        this.jugadoresCampo = jugadoresCampo;
+        this.puntosEsperadosJugadores = puntosEsperadosJugadores;
+        this.puntosEsperados = puntosEsperados;
+        this.coste = coste;
+        this.presupuesto = presupuesto;
+    }
+
+    public long getSaldo() { return presupuesto - coste; }
+
+    // Getters y Setters
+    public ResumenJugador getPortero() { return portero; }
+    public void setPortero(ResumenJugador portero) { this.portero = portero; }
+    public List<ResumenJugador> getJugadoresCampo() { return jugadoresCampo; }
+    public void setJugadoresCampo(List<ResumenJugador> jugadoresCampo) { this.jugadoresCampo = jugadoresCampo; }
+    public Map<Long, Double> getPuntosEsperadosJugadores() { return puntosEsperadosJugadores; }
+    public void setPuntosEsperadosJugadores(Map<Long, Double> puntosEsperadosJugadores) { this.puntosEsperadosJugadores = puntosEsperadosJugadores; }
+    public double getPuntosEsperados() { return puntosEsperados; }
+    public void setPuntosEsperados(double puntosEsperados) { this.puntosEsperados = puntosEsperados; }
+    public long getCoste() { return coste; }
+    public void setCoste(long coste) { this.coste = coste; }
+    public long getPresupuesto() { return presupuesto; }
+    public void setPresupuesto(long presupuesto) { this.presupuesto = presupuesto; }
+}
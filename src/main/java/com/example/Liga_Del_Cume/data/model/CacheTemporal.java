@@ -0,0 +1,105 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Caché en memoria con tamaño máximo y caducidad
+ *
+ * Cada entrada caduca pasado un tiempo desde que se guardó y, si la caché está
+ * llena, al guardar una nueva se descarta la usada hace más tiempo (LRU, con un
+ * LinkedHashMap en orden de acceso). Las entradas caducadas se descartan al
+ * consultarlas.
+ *
+ * Todos los métodos públicos están sincronizados, ya que la misma caché se
+ * comparte entre peticiones.
+ *
+ * @param <K> Tipo de la clave
+ * @param <V> Tipo del valor
+ */
+public class CacheTemporal<K, V> {
+
+    private static class Entrada<V> {
+        final V valor;
+        final long caducaEn;
+
+        Entrada(V valor, long caducaEn) {
+            this.valor = valor;
+            this.caducaEn = caducaEn;
+        }
+    }
+
+    private final int tamanoMaximo;
+    private final long duracionNanos;
+    private final LongSupplier reloj;
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+
+    /**
+     * @param tamanoMaximo Número máximo de entradas
+     * @param duracion Tiempo que dura cada entrada desde que se guarda
+     */
+    public CacheTemporal(int tamanoMaximo, Duration duracion) {
+        this(tamanoMaximo, duracion, System::nanoTime);
+    }
+
+    /**
+     * @param tamanoMaximo Número máximo de entradas
+     * @param duracion Tiempo que dura cada entrada desde que se guarda
+     * @param reloj Reloj en nanosegundos (para poder simular el paso del tiempo)
+     */
+    public CacheTemporal(int tamanoMaximo, Duration duracion, LongSupplier reloj) {
+        if (tamanoMaximo <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo de la caché debe ser positivo");
+        }
+        this.tamanoMaximo = tamanoMaximo;
+        this.duracionNanos = duracion.toNanos();
+        this.reloj = reloj;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> masAntigua) {
+                return size() > CacheTemporal.this.tamanoMaximo;
+            }
+        };
+    }
+
+    /**
+     * Obtiene el valor de una clave si está en la caché y no ha caducado
+     *
+     * @param clave Clave
+     * @return Valor guardado, o null si no está o ha caducado
+     */
+    public synchronized V obtener(K clave) {
+        Entrada<V> entrada = entradas.get(clave);
+        if (entrada == null) {
+            return null;
+        }
+        if (reloj.getAsLong() - entrada.caducaEn >= 0) {
+            entradas.remove(clave);
+            return null;
+        }
+        return entrada.valor;
+    }
+
+    /**
+     * Guarda un valor, sustituyendo el que hubiera para la clave
+     *
+     * @param clave Clave
+     * @param valor Valor (no nulo)
+     */
+    public synchronized void guardar(K clave, V valor) {
+        entradas.put(clave, new Entrada<>(valor, reloj.getAsLong() + duracionNanos));
+    }
+
+    /**
+     * Descarta todas las entradas
+     */
+    public synchronized void vaciar() {
+        entradas.clear();
+    }
+
+    public synchronized int getTamano() {
+        return entradas.size();
+    }
+}
@@ -8,6 +8,7 @@ package com.example.Liga_Del_Cume.data.model;
  * - Datos del equipo (nombre, escudo)
  * - Estadísticas (victorias, empates, derrotas)
  * - Puntos totales calculados
+ * - Posición en la tabla (0 si todavía no se ha ordenado)
  */
 public class ClasificacionEquipo implements Comparable<ClasificacionEquipo> {
 
@@ -20,6 +21,7 @@ public class ClasificacionEquipo implements Comparable<ClasificacionEquipo> {
     private int puntosTotales;
     private int golesAFavor;
     private int golesEnContra;
+    private int posicion;
 
     public ClasificacionEquipo() {}
 
@@ -35,13 +37,29 @@ public class ClasificacionEquipo implements Comparable<ClasificacionEquipo> {
         this.golesEnContra = 0;
     }
 
+    /**
+     * Constructor usado por la consulta agregada de PartidoRepository
+     * (los SUM de JPQL se devuelven como Long y pueden ser null si no hay partidos)
+     */
+    public ClasificacionEquipo(Long idEquipo, String nombreEquipo, String escudoURL,
+                               Long victorias, Long empates, Long derrotas,
+                               Long golesAFavor, Long golesEnContra) {
+        this(idEquipo, nombreEquipo, escudoURL);
+        this.victorias = victorias != null ? victorias.intValue() : 0;
+        this.empates = empates != null ? empates.intValue() : 0;
+        this.derrotas = derrotas != null ? derrotas.intValue() : 0;
+        this.golesAFavor = golesAFavor != null ? golesAFavor.intValue() : 0;
+        this.golesEnContra = golesEnContra != null ? golesEnContra.intValue() : 0;
+        calcularPuntos();
+    }
+
     /**
      * Calcula los puntos totales según la fórmula:
      * Victoria = 3 puntos
      * Empate = 1 punto
      * Derrota = 0 puntos
      */
-    public void calcularPuntos() {
+    public final void calcularPuntos() {
         this.puntosTotales = (victorias * 3) + (empates * 1);
     }
 
@@ -181,6 +199,14 @@ public class ClasificacionEquipo implements Comparable<ClasificacionEquipo> {
         this.golesEnContra = golesEnContra;
     }
 
+    public int getPosicion() {
+        return posicion;
+    }
+
+    public void setPosicion(int posicion) {
+        this.posicion = posicion;
+    }
+
     public int getPartidosJugados() {
         return victorias + empates + derrotas;
     }
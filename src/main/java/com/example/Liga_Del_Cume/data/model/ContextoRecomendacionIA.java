@@ -0,0 +1,26 @@
+package com.example.Liga_Del_Cume.data.model;
+
+/**
+ * Lo que IAService necesita para pedir a la IA la explicación de una alineación
+ *
+ * clave es "ligaId:versión de datos", con la que se guarda en caché la
+ * recomendación; alineacion es la alineación del optimizador ya formateada y
+ * prompt el contexto que se envía a la IA.
+ */
+public class ContextoRecomendacionIA {
+
+    private final String clave;
+    private final String alineacion;
+    private final String prompt;
+
+    public ContextoRecomendacionIA(String clave, String alineacion, String prompt) {
+        this.clave = clave;
+        this.alineacion = alineacion;
+        this.prompt = prompt;
+    }
+
+    // Getters
+    public String getClave() { return clave; }
+    public String getAlineacion() { return alineacion; }
+    public String getPrompt() { return prompt; }
+}
@@ -0,0 +1,127 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import jakarta.persistence.*;
+import java.util.Objects;
+
+/**
+ * Entidad que guarda lo que aporta una jornada a la clasificación de un equipo
+ *
+ * Hay como mucho una fila por equipo y jornada con las victorias, empates, derrotas
+ * y goles conseguidos en esa jornada. La clasificación "hasta la jornada N" es la
+ * suma de las filas con numeroJornada <= N, de modo que el histórico no necesita
+ * recalcular la liga entera para cada jornada.
+ */
+@Entity
+@Table(
+    uniqueConstraints = @UniqueConstraint(columnNames = {"idJornada", "idEquipo"}),
+    indexes = @Index(name = "idx_delta_clasificacion_liga_jornada", columnList = "idLiga, numeroJornada")
+)
+public class DeltaClasificacionJornada {
+    // Primary key para la entidad DeltaClasificacionJornada
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idDelta;
+
+    private Long idLiga;
+    private Long idJornada;
+
+    // Copia del número de jornada para ordenar y filtrar sin join
+    private int numeroJornada;
+
+    private Long idEquipo;
+
+    private int victorias;
+    private int empates;
+    private int derrotas;
+    private int golesAFavor;
+    private int golesEnContra;
+
+    public DeltaClasificacionJornada() {}
+
+    public DeltaClasificacionJornada(Long idLiga, Long idJornada, int numeroJornada, Long idEquipo) {
+        this.idLiga = idLiga;
+        this.idJornada = idJornada;
+        this.numeroJornada = numeroJornada;
+        this.idEquipo = idEquipo;
+    }
+
+    /**
+     * Constructor usado por la consulta agregada de PartidoRepository
+     * (los SUM de JPQL se devuelven como Long)
+     */
+    public DeltaClasificacionJornada(Long idJornada, Integer numeroJornada, Long idEquipo,
+                                     Long victorias, Long empates, Long derrotas,
+                                     Long golesAFavor, Long golesEnContra) {
+        this(null, idJornada, numeroJornada != null ? numeroJornada : 0, idEquipo);
+        this.victorias = victorias != null ? victorias.intValue() : 0;
+        this.empates = empates != null ? empates.intValue() : 0;
+        this.derrotas = derrotas != null ? derrotas.intValue() : 0;
+        this.golesAFavor = golesAFavor != null ? golesAFavor.intValue() : 0;
+        this.golesEnContra = golesEnContra != null ? golesEnContra.intValue() : 0;
+    }
+
+    /**
+     * Aplica (signo = 1) o revierte (signo = -1) el resultado de un partido
+     * de esta jornada desde el punto de vista de este equipo.
+     *
+     * @param golesFavor Goles marcados por este equipo en el partido
+     * @param golesContra Goles recibidos por este equipo en el partido
+     * @param signo 1 para sumar el resultado, -1 para deshacerlo
+     */
+    public void aplicarResultado(int golesFavor, int golesContra, int signo) {
+        if (golesFavor > golesContra) {
+            victorias += signo;
+        } else if (golesFavor < golesContra) {
+            derrotas += signo;
+        } else {
+            empates += signo;
+        }
+        golesAFavor += signo * golesFavor;
+        golesEnContra += signo * golesContra;
+    }
+
+    /**
+     * Suma esta jornada a la clasificación acumulada de un equipo
+     */
+    public void sumarA(ClasificacionEquipo clasificacion) {
+        clasificacion.setVictorias(clasificacion.getVictorias() + victorias);
+        clasificacion.setEmpates(clasificacion.getEmpates() + empates);
+        clasificacion.setDerrotas(clasificacion.getDerrotas() + derrotas);
+        clasificacion.addGoles(golesAFavor, golesEnContra);
+        clasificacion.calcularPuntos();
+    }
+
+    // Getters y Setters
+    public Long getIdDelta() { return idDelta; }
+    public void setIdDelta(Long idDelta) { this.idDelta = idDelta; }
+    public Long getIdLiga() { return idLiga; }
+    public void setIdLiga(Long idLiga) { this.idLiga = idLiga; }
+    public Long getIdJornada() { return idJornada; }
+    public void setIdJornada(Long idJornada) { this.idJornada = idJornada; }
+    public int getNumeroJornada() { return numeroJornada; }
+    public void setNumeroJornada(int numeroJornada) { this.numeroJornada = numeroJornada; }
+    public Long getIdEquipo() { return idEquipo; }
+    public void setIdEquipo(Long idEquipo) { this.idEquipo = idEquipo; }
+    public int getVictorias() { return victorias; }
+    public void setVictorias(int victorias) { this.victorias = victorias; }
+    public int getEmpates() { return empates; }
+    public void setEmpates(int empates) { this.empates = empates; }
+    public int getDerrotas() { return derrotas; }
+    public void setDerrotas(int derrotas) { this.derrotas = derrotas; }
+    public int getGolesAFavor() { return golesAFavor; }
+    public void setGolesAFavor(int golesAFavor) { this.golesAFavor = golesAFavor; }
+    public int getGolesEnContra() { return golesEnContra; }
+    public void setGolesEnContra(int golesEnContra) { this.golesEnContra = golesEnContra; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        DeltaClasificacionJornada that = (DeltaClasificacionJornada) o;
+        return Objects.equals(idDelta, that.idDelta) && Objects.equals(idJornada, that.idJornada) && Objects.equals(idEquipo, that.idEquipo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idDelta, idJornada, idEquipo);
+    }
+}
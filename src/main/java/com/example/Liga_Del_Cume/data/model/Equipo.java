@@ -7,7 +7,8 @@ import java.util.*;
 public class Equipo {
     // Primary key para la entidad Equipo
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "equipo_seq")
+    @SequenceGenerator(name = "equipo_seq", sequenceName = "equipo_seq", allocationSize = 50)
     private Long idEquipo;
 
     // Relación N a 1: Muchos equipos pertenecen a una liga
@@ -0,0 +1,23 @@
+package com.example.Liga_Del_Cume.data.model;
+
+/**
+ * Evento que se publica al guardar el resultado de un partido
+ *
+ * Se procesa después de confirmar la transacción que lo publica (ver
+ * ActualizacionJornadaService) para actualizar fuera de la petición del
+ * administrador todo lo que depende de la jornada completa.
+ */
+public class EventoResultadoGuardado {
+
+    private final Long idLiga;
+    private final Long idJornada;
+
+    public EventoResultadoGuardado(Long idLiga, Long idJornada) {
+        this.idLiga = idLiga;
+        this.idJornada = idJornada;
+    }
+
+    // Getters
+    public Long getIdLiga() { return idLiga; }
+    public Long getIdJornada() { return idJornada; }
+}
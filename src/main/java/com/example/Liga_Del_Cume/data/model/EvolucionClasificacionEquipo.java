@@ -0,0 +1,47 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO con la evolución de un equipo en la clasificación jornada a jornada
+ *
+ * Las listas de posiciones y puntos van en el mismo orden que las jornadas
+ * devueltas junto a este objeto (posición 1 = líder).
+ */
+public class EvolucionClasificacionEquipo {
+
+    private Long idEquipo;
+    private String nombreEquipo;
+    private String escudoURL;
+    private List<Integer> posiciones = new ArrayList<>();
+    private List<Integer> puntos = new ArrayList<>();
+
+    public EvolucionClasificacionEquipo() {}
+
+    public EvolucionClasificacionEquipo(Long idEquipo, String nombreEquipo, String escudoURL) {
+        this.idEquipo = idEquipo;
+        this.nombreEquipo = nombreEquipo;
+        this.escudoURL = escudoURL;
+    }
+
+    /**
+     * Añade el estado del equipo al terminar una jornada
+     */
+    public void addJornada(int posicion, int puntosTotales) {
+        posiciones.add(posicion);
+        puntos.add(puntosTotales);
+    }
+
+    // Getters y Setters
+    public Long getIdEquipo() { return idEquipo; }
+    public void setIdEquipo(Long idEquipo) { this.idEquipo = idEquipo; }
+    public String getNombreEquipo() { return nombreEquipo; }
+    public void setNombreEquipo(String nombreEquipo) { this.nombreEquipo = nombreEquipo; }
+    public String getEscudoURL() { return escudoURL; }
+    public void setEscudoURL(String escudoURL) { this.escudoURL = escudoURL; }
+    public List<Integer> getPosiciones() { return posiciones; }
+    public void setPosiciones(List<Integer> posiciones) { this.posiciones = posiciones; }
+    public List<Integer> getPuntos() { return puntos; }
+    public void setPuntos(List<Integer> puntos) { this.puntos = puntos; }
+}
@@ -0,0 +1,101 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import jakarta.persistence.*;
+import java.util.Objects;
+
+/**
+ * Entidad que representa una fila materializada de la tabla de clasificación
+ *
+ * Guarda, por cada equipo de una liga, los mismos datos que ClasificacionEquipo
+ * (victorias, empates, derrotas, goles y puntos) ya calculados. Se actualiza con
+ * deltas cada vez que cambia el resultado de un partido (ClasificacionJdbcRepository
+ * los suma en la propia sentencia), de forma que la página
+ * de clasificación solo necesita leer estas filas en lugar de recorrer los partidos.
+ *
+ * Los datos del equipo (nombre y escudo) se copian en la fila para no tener que
+ * cargar la entidad Equipo (y sus partidos EAGER) al mostrar la tabla.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_fila_clasificacion_liga", columnList = "idLiga"))
+public class FilaClasificacion {
+    // Primary key para la entidad FilaClasificacion
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idFila;
+
+    private Long idLiga;
+
+    @Column(unique = true)
+    private Long idEquipo;
+
+    private String nombreEquipo;
+
+    @Column(columnDefinition = "TEXT")
+    private String escudoURL;
+
+    private int victorias;
+    private int empates;
+    private int derrotas;
+    private int golesAFavor;
+    private int golesEnContra;
+    private int puntosTotales;
+
+    public FilaClasificacion() {}
+
+    public FilaClasificacion(Long idLiga, Long idEquipo, String nombreEquipo, String escudoURL) {
+        this.idLiga = idLiga;
+        this.idEquipo = idEquipo;
+        this.nombreEquipo = nombreEquipo;
+        this.escudoURL = escudoURL;
+    }
+
+    /**
+     * Convierte la fila en el DTO que consumen las vistas
+     */
+    public ClasificacionEquipo toClasificacionEquipo() {
+        ClasificacionEquipo clasificacion = new ClasificacionEquipo(idEquipo, nombreEquipo, escudoURL);
+        clasificacion.setVictorias(victorias);
+        clasificacion.setEmpates(empates);
+        clasificacion.setDerrotas(derrotas);
+        clasificacion.setGolesAFavor(golesAFavor);
+        clasificacion.setGolesEnContra(golesEnContra);
+        clasificacion.calcularPuntos();
+        return clasificacion;
+    }
+
+    // Getters y Setters
+    public Long getIdFila() { return idFila; }
+    public void setIdFila(Long idFila) { this.idFila = idFila; }
+    public Long getIdLiga() { return idLiga; }
+    public void setIdLiga(Long idLiga) { this.idLiga = idLiga; }
+    public Long getIdEquipo() { return idEquipo; }
+    public void setIdEquipo(Long idEquipo) { this.idEquipo = idEquipo; }
+    public String getNombreEquipo() { return nombreEquipo; }
+    public void setNombreEquipo(String nombreEquipo) { this.nombreEquipo = nombreEquipo; }
+    public String getEscudoURL() { return escudoURL; }
+    public void setEscudoURL(String escudoURL) { this.escudoURL = escudoURL; }
+    public int getVictorias() { return victorias; }
+    public void setVictorias(int victorias) { this.victorias = victorias; }
+    public int getEmpates() { return empates; }
+    public void setEmpates(int empates) { this.empates = empates; }
+    public int getDerrotas() { return derrotas; }
+    public void setDerrotas(int derrotas) { this.derrotas = derrotas; }
+    public int getGolesAFavor() { return golesAFavor; }
+    public void setGolesAFavor(int golesAFavor) { this.golesAFavor = golesAFavor; }
+    public int getGolesEnContra() { return golesEnContra; }
+    public void setGolesEnContra(int golesEnContra) { this.golesEnContra = golesEnContra; }
+    public int getPuntosTotales() { return puntosTotales; }
+    public void setPuntosTotales(int puntosTotales) { this.puntosTotales = puntosTotales; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        FilaClasificacion that = (FilaClasificacion) o;
+        return Objects.equals(idFila, that.idFila) && Objects.equals(idEquipo, that.idEquipo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idFila, idEquipo);
+    }
+}
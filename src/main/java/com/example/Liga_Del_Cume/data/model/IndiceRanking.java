@@ -0,0 +1,212 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import java.util.*;
+
+/**
+ * Índice en memoria con el ranking de usuarios de una liga
+ *
+ * Es un árbol binario de búsqueda aleatorizado (treap) en el que cada nodo guarda
+ * el tamaño de su subárbol, lo que permite calcular la posición de un usuario y
+ * obtener el usuario en una posición dada en tiempo logarítmico. El orden es:
+ * 1. Puntos acumulados (descendente)
+ * 2. ID de usuario (ascendente), para que el orden sea estable
+ *
+ * Las posiciones empiezan en 1. Todos los métodos públicos están sincronizados,
+ * ya que el mismo índice se comparte entre peticiones.
+ */
+public class IndiceRanking {
+
+    private static class Nodo {
+        final Long idUsuario;
+        final String nombreUsuario;
+        final int puntos;
+        final int prioridad;
+        int tamano = 1;
+        Nodo izquierdo;
+        Nodo derecho;
+
+        Nodo(Long idUsuario, String nombreUsuario, int puntos, int prioridad) {
+            this.idUsuario = idUsuario;
+            this.nombreUsuario = nombreUsuario;
+            this.puntos = puntos;
+            this.prioridad = prioridad;
+        }
+    }
+
+    private final Random random = new Random();
+    private final Map<Long, Nodo> nodosPorUsuario = new HashMap<>();
+    private Nodo raiz;
+
+    /**
+     * Añade un usuario o actualiza su nombre y puntos si ya estaba en el índice
+     */
+    public synchronized void actualizar(Long idUsuario, String nombreUsuario, int puntos) {
+        eliminar(idUsuario);
+        Nodo nodo = new Nodo(idUsuario, nombreUsuario, puntos, random.nextInt());
+        Nodo[] partes = dividir(raiz, nodo);
+        raiz = unir(unir(partes[0], nodo), partes[1]);
+        nodosPorUsuario.put(idUsuario, nodo);
+    }
+
+    /**
+     * Quita un usuario del índice (no hace nada si no estaba)
+     */
+    public synchronized void eliminar(Long idUsuario) {
+        Nodo nodo = nodosPorUsuario.remove(idUsuario);
+        if (nodo != null) {
+            raiz = eliminar(raiz, nodo);
+        }
+    }
+
+    /**
+     * Indica si un usuario está en el índice
+     */
+    public synchronized boolean contiene(Long idUsuario) {
+        return nodosPorUsuario.containsKey(idUsuario);
+    }
+
+    /**
+     * Número de usuarios del índice
+     */
+    public synchronized int tamano() {
+        return tamano(raiz);
+    }
+
+    /**
+     * Posición de un usuario en el ranking
+     *
+     * @return Posición (1 = líder) o -1 si el usuario no está en el índice
+     */
+    public synchronized int posicion(Long idUsuario) {
+        Nodo buscado = nodosPorUsuario.get(idUsuario);
+        if (buscado == null) {
+            return -1;
+        }
+
+        int anteriores = 0;
+        Nodo actual = raiz;
+        while (actual != null) {
+            int comparacion = comparar(buscado, actual);
+            if (comparacion < 0) {
+                actual = actual.izquierdo;
+            } else if (comparacion > 0) {
+                anteriores += tamano(actual.izquierdo) + 1;
+                actual = actual.derecho;
+            } else {
+                return anteriores + tamano(actual.izquierdo) + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Devuelve las posiciones del ranking en el rango [desde, hasta] (ambas incluidas,
+     * empezando en 1). Los límites fuera del ranking se recortan.
+     */
+    public synchronized List<PosicionRanking> rango(int desde, int hasta) {
+        int inicio = Math.max(1, desde);
+        int fin = Math.min(tamano(raiz), hasta);
+
+        List<PosicionRanking> resultado = new ArrayList<>();
+        for (int posicion = inicio; posicion <= fin; posicion++) {
+            Nodo nodo = seleccionar(raiz, posicion);
+            resultado.add(new PosicionRanking(nodo.idUsuario, nodo.nombreUsuario, nodo.puntos, posicion));
+        }
+        return resultado;
+    }
+
+    /**
+     * Devuelve la fila de un usuario en el ranking, o null si no está en el índice
+     */
+    public synchronized PosicionRanking obtener(Long idUsuario) {
+        int posicion = posicion(idUsuario);
+        if (posicion < 0) {
+            return null;
+        }
+        Nodo nodo = nodosPorUsuario.get(idUsuario);
+        return new PosicionRanking(nodo.idUsuario, nodo.nombreUsuario, nodo.puntos, posicion);
+    }
+
+    // Orden del ranking: más puntos primero y, a igualdad, menor ID primero
+    private static int comparar(Nodo a, Nodo b) {
+        if (a.puntos != b.puntos) {
+            return Integer.compare(b.puntos, a.puntos);
+        }
+        return a.idUsuario.compareTo(b.idUsuario);
+    }
+
+    private static int tamano(Nodo nodo) {
+        return nodo == null ? 0 : nodo.tamano;
+    }
+
+    private static void recalcularTamano(Nodo nodo) {
+        nodo.tamano = 1 + tamano(nodo.izquierdo) + tamano(nodo.derecho);
+    }
+
+    // Divide el árbol en [nodos anteriores a clave, nodos posteriores o iguales a clave]
+    private static Nodo[] dividir(Nodo nodo, Nodo clave) {
+        if (nodo == null) {
+            return new Nodo[]{null, null};
+        }
+        if (comparar(nodo, clave) < 0) {
+            Nodo[] partes = dividir(nodo.derecho, clave);
+            nodo.derecho = partes[0];
+            recalcularTamano(nodo);
+            return new Nodo[]{nodo, partes[1]};
+        }
+        Nodo[] partes = dividir(nodo.izquierdo, clave);
+        nodo.izquierdo = partes[1];
+        recalcularTamano(nodo);
+        return new Nodo[]{partes[0], nodo};
+    }
+
+    // Une dos árboles sabiendo que todos los nodos de a van antes que los de b
+    private static Nodo unir(Nodo a, Nodo b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.prioridad > b.prioridad) {
+            a.derecho = unir(a.derecho, b);
+            recalcularTamano(a);
+            return a;
+        }
+        b.izquierdo = unir(a, b.izquierdo);
+        recalcularTamano(b);
+        return b;
+    }
+
+    private static Nodo eliminar(Nodo nodo, Nodo objetivo) {
+        if (nodo == null) {
+            return null;
+        }
+        int comparacion = comparar(objetivo, nodo);
+        if (comparacion < 0) {
+            nodo.izquierdo = eliminar(nodo.izquierdo, objetivo);
+        } else if (comparacion > 0) {
+            nodo.derecho = eliminar(nodo.derecho, objetivo);
+        } else {
+            return unir(nodo.izquierdo, nodo.derecho);
+        }
+        recalcularTamano(nodo);
+        return nodo;
+    }
+
+    // Nodo en la posición indicada (empezando en 1)
+    private static Nodo seleccionar(Nodo nodo, int posicion) {
+        while (nodo != null) {
+            int izquierda = tamano(nodo.izquierdo);
+            if (posicion <= izquierda) {
+                nodo = nodo.izquierdo;
+            } else if (posicion == izquierda + 1) {
+                return nodo;
+            } else {
+                posicion -= izquierda + 1;
+                nodo = nodo.derecho;
+            }
+        }
+        return null;
+    }
+}
@@ -7,7 +7,8 @@ import java.util.*;
 public class Jornada {
     // Primary key para la entidad Jornada
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "jornada_seq")
+    @SequenceGenerator(name = "jornada_seq", sequenceName = "jornada_seq", allocationSize = 50)
     private Long idJornada;
 
     // Número de la jornada (1, 2, 3, etc.)
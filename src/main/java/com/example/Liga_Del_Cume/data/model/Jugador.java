@@ -10,7 +10,8 @@ import java.util.Objects;
 public class Jugador {
     // Primary key para la entidad Jugador
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "jugador_seq")
+    @SequenceGenerator(name = "jugador_seq", sequenceName = "jugador_seq", allocationSize = 50)
     private Long idJugador;
 
     @Column(columnDefinition = "TEXT")
@@ -27,7 +28,10 @@ public class Jugador {
     @OneToMany(mappedBy = "jugador", fetch = FetchType.EAGER)
     private List<EstadisticaJugadorPartido> estadisticas = new ArrayList<>();
 
+    // Último precio del historial (PrecioJugadorJornada), guardado aquí para mostrar el mercado
     private float precioMercado;
+    // Precio antes de la primera jornada: punto de partida al recalcular el historial de precios
+    private Float precioSalida;
     private String nombreJugador; // Aquí irá nombre y apellidos
     private boolean esPortero; // true = portero, false = no portero
 
@@ -41,6 +45,27 @@ public class Jugador {
         this.avatarUrl= url;
     }
 
+    // Sin precio de salida explícito, el jugador sale con su precio de mercado inicial
+    @PrePersist
+    private void fijarPrecioSalida() {
+        if (precioSalida == null) {
+            precioSalida = precioMercado;
+        }
+    }
+
+    /**
+     * Corrige a mano el precio de mercado. El precio de salida se mueve lo mismo
+     * para que la corrección se mantenga al recalcular el historial de precios.
+     *
+     * @param nuevoPrecio Nuevo precio de mercado
+     */
+    public void corregirPrecioMercado(float nuevoPrecio) {
+        if (precioSalida != null) {
+            precioSalida += nuevoPrecio - precioMercado;
+        }
+        precioMercado = nuevoPrecio;
+    }
+
     public String getAvatarUrl() {
         return avatarUrl;
     }
@@ -88,6 +113,14 @@ public class Jugador {
         this.precioMercado = precioMercado;
     }
 
+    public Float getPrecioSalida() {
+        return precioSalida;
+    }
+
+    public void setPrecioSalida(Float precioSalida) {
+        this.precioSalida = precioSalida;
+    }
+
     public String getNombreJugador() {
         return nombreJugador;
     }
@@ -6,6 +6,10 @@ import java.util.*;
 @Entity
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 public class LigaCume {
+    // Valores por defecto del modelo de precios (los de antes de poder configurarlo)
+    public static final int EUROS_POR_PUNTO_DEFECTO = 1000;
+    public static final int EUROS_POR_DEMANDA_DEFECTO = 20000;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long idLigaCume;
@@ -13,6 +17,13 @@ public class LigaCume {
     private String nombreLigaCume;
 
     private Long presupuestoMaximo;
+
+    // Modelo de precios: con demanda, el precio también sube según cuántas alineaciones eligieron al jugador
+    private boolean precioPorDemanda;
+    // Cambio de precio por cada punto fantasy (null = valor por defecto)
+    private Integer eurosPorPunto;
+    // Subida de precio si todas las alineaciones de la jornada eligieron al jugador (null = valor por defecto)
+    private Integer eurosPorDemanda;
     // Relación 1 a N: Una liga tiene muchos equipos
     @OneToMany(mappedBy = "liga", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Equipo> equipos = new ArrayList<>();
@@ -34,6 +45,12 @@ public class LigaCume {
     public void setPresupuestoMaximo(Long presupuestoMaximo) {
         this.presupuestoMaximo = presupuestoMaximo;
     }
+    public boolean isPrecioPorDemanda() { return precioPorDemanda; }
+    public void setPrecioPorDemanda(boolean precioPorDemanda) { this.precioPorDemanda = precioPorDemanda; }
+    public int getEurosPorPunto() { return eurosPorPunto != null ? eurosPorPunto : EUROS_POR_PUNTO_DEFECTO; }
+    public void setEurosPorPunto(Integer eurosPorPunto) { this.eurosPorPunto = eurosPorPunto; }
+    public int getEurosPorDemanda() { return eurosPorDemanda != null ? eurosPorDemanda : EUROS_POR_DEMANDA_DEFECTO; }
+    public void setEurosPorDemanda(Integer eurosPorDemanda) { this.eurosPorDemanda = eurosPorDemanda; }
     public Long getIdLigaCume() { return idLigaCume; }
     public void setIdLigaCume(Long idLigaCume) { this.idLigaCume = idLigaCume; }
     public List<Equipo> getEquipos() { return equipos; }
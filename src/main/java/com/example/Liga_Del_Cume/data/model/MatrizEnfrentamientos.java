@@ -0,0 +1,127 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import java.util.*;
+
+/**
+ * Matriz de enfrentamientos directos entre los equipos de una liga
+ *
+ * Cada equipo recibe un ordinal (0..n-1) y los resultados se acumulan en dos
+ * arrays planos de n*n posiciones:
+ * - puntos[i * n + j]: puntos que el equipo i ha sacado contra el equipo j
+ * - goles[i * n + j]: goles que el equipo i ha marcado al equipo j
+ *
+ * Se construye una vez por cada cambio de resultados y permite desempatar en
+ * memoria con la "mini-liga" entre los equipos empatados a puntos, sin volver
+ * a consultar los partidos al ordenar.
+ */
+public class MatrizEnfrentamientos {
+
+    private final Map<Long, Integer> ordinales = new HashMap<>();
+    private final int n;
+    private final int[] puntos;
+    private final int[] goles;
+
+    public MatrizEnfrentamientos(Collection<Long> idsEquipo) {
+        int ordinal = 0;
+        for (Long idEquipo : idsEquipo) {
+            ordinales.put(idEquipo, ordinal++);
+        }
+        this.n = ordinal;
+        this.puntos = new int[n * n];
+        this.goles = new int[n * n];
+    }
+
+    /**
+     * Suma el resultado de un partido jugado a la matriz
+     * Los partidos con algún equipo desconocido se ignoran
+     */
+    public void registrarResultado(Long idLocal, Long idVisitante, int golesLocal, int golesVisitante) {
+        Integer local = ordinales.get(idLocal);
+        Integer visitante = ordinales.get(idVisitante);
+        if (local == null || visitante == null) {
+            return;
+        }
+
+        goles[local * n + visitante] += golesLocal;
+        goles[visitante * n + local] += golesVisitante;
+
+        if (golesLocal > golesVisitante) {
+            puntos[local * n + visitante] += 3;
+        } else if (golesLocal < golesVisitante) {
+            puntos[visitante * n + local] += 3;
+        } else {
+            puntos[local * n + visitante] += 1;
+            puntos[visitante * n + local] += 1;
+        }
+    }
+
+    /**
+     * Ordena la clasificación aplicando el desempate por enfrentamientos directos
+     *
+     * Orden resultante:
+     * 1. Puntos (descendente)
+     * 2. Entre los equipos empatados a puntos, mini-liga de sus enfrentamientos
+     *    directos: puntos, diferencia de goles y goles a favor
+     * 3. Diferencia de goles general
+     * 4. Goles a favor generales
+     *
+     * @param clasificacion Lista a ordenar (se modifica en el sitio)
+     */
+    public void ordenar(List<ClasificacionEquipo> clasificacion) {
+        Collections.sort(clasificacion);
+
+        int inicio = 0;
+        while (inicio < clasificacion.size()) {
+            int fin = inicio + 1;
+            int puntosGrupo = clasificacion.get(inicio).getPuntosTotales();
+            while (fin < clasificacion.size() && clasificacion.get(fin).getPuntosTotales() == puntosGrupo) {
+                fin++;
+            }
+
+            if (fin - inicio > 1) {
+                desempatarGrupo(clasificacion.subList(inicio, fin));
+            }
+            inicio = fin;
+        }
+    }
+
+    /**
+     * Ordena un grupo de equipos empatados a puntos según la mini-liga entre ellos
+     */
+    private void desempatarGrupo(List<ClasificacionEquipo> grupo) {
+        int[] ordinalesGrupo = new int[grupo.size()];
+        for (int k = 0; k < grupo.size(); k++) {
+            ordinalesGrupo[k] = ordinales.getOrDefault(grupo.get(k).getIdEquipo(), -1);
+        }
+
+        // Puntos, diferencia de goles y goles a favor de cada equipo solo contra el resto del grupo
+        Map<Long, int[]> miniLiga = new HashMap<>();
+        for (int a = 0; a < grupo.size(); a++) {
+            int[] totales = new int[3];
+            int i = ordinalesGrupo[a];
+            if (i >= 0) {
+                for (int j : ordinalesGrupo) {
+                    if (j < 0 || j == i) {
+                        continue;
+                    }
+                    totales[0] += puntos[i * n + j];
+                    totales[1] += goles[i * n + j] - goles[j * n + i];
+                    totales[2] += goles[i * n + j];
+                }
+            }
+            miniLiga.put(grupo.get(a).getIdEquipo(), totales);
+        }
+
+        grupo.sort((e1, e2) -> {
+            int[] m1 = miniLiga.get(e1.getIdEquipo());
+            int[] m2 = miniLiga.get(e2.getIdEquipo());
+            for (int k = 0; k < m1.length; k++) {
+                if (m1[k] != m2[k]) {
+                    return Integer.compare(m2[k], m1[k]);
+                }
+            }
+            // Sin desempate directo: criterios generales de ClasificacionEquipo
+            return e1.compareTo(e2);
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import java.util.*;
+
+/**
+ * Jugadores de una liga que se pueden fichar para la próxima jornada
+ *
+ * Se construye una vez con los jugadores de los equipos que juegan esa jornada
+ * (todos si no hay próxima jornada) y ya separa porteros y jugadores de campo,
+ * con una lista ordenada para cada orden admitido:
+ * - "puntos": puntos de la temporada (descendente)
+ * - "precio": precio de mercado (descendente)
+ * - "nombre": nombre del jugador (ascendente)
+ * En caso de empate se ordena por ID para que la paginación sea estable.
+ *
+ * Es inmutable, así que se comparte entre peticiones sin sincronizar: cada
+ * consulta solo recorre la lista ya ordenada saltando los jugadores excluidos.
+ */
+public class MercadoJugadores {
+
+    public static final String ORDEN_PUNTOS = "puntos";
+    public static final String ORDEN_PRECIO = "precio";
+    public static final String ORDEN_NOMBRE = "nombre";
+
+    private static final Map<String, Comparator<ResumenJugador>> ORDENES = Map.of(
+            ORDEN_PUNTOS, Comparator.comparingInt(ResumenJugador::getPuntosTotal).reversed(),
+            ORDEN_PRECIO, Comparator.comparing(ResumenJugador::getPrecio).reversed(),
+            ORDEN_NOMBRE, Comparator.comparing(ResumenJugador::getNombre,
+                    Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+
+    private final Map<String, List<ResumenJugador>> porteros = new HashMap<>();
+    private final Map<String, List<ResumenJugador>> jugadoresCampo = new HashMap<>();
+
+    /**
+     * @param jugadores Jugadores de la liga
+     * @param equiposQueJuegan IDs de los equipos de la próxima jornada (vacío = todos)
+     */
+    public MercadoJugadores(Collection<ResumenJugador> jugadores, Set<Long> equiposQueJuegan) {
+        List<ResumenJugador> disponiblesPortero = new ArrayList<>();
+        List<ResumenJugador> disponiblesCampo = new ArrayList<>();
+        for (ResumenJugador jugador : jugadores) {
+            if (equiposQueJuegan.isEmpty() || equiposQueJuegan.contains(jugador.getIdEquipo())) {
+                (jugador.isPortero() ? disponiblesPortero : disponiblesCampo).add(jugador);
+            }
+        }
+
+        for (Map.Entry<String, Comparator<ResumenJugador>> orden : ORDENES.entrySet()) {
+            Comparator<ResumenJugador> comparador = orden.getValue().thenComparing(ResumenJugador::getId);
+            porteros.put(orden.getKey(), ordenar(disponiblesPortero, comparador));
+            jugadoresCampo.put(orden.getKey(), ordenar(disponiblesCampo, comparador));
+        }
+    }
+
+    private static List<ResumenJugador> ordenar(List<ResumenJugador> jugadores, Comparator<ResumenJugador> comparador) {
+        List<ResumenJugador> ordenados = new ArrayList<>(jugadores);
+        ordenados.sort(comparador);
+        return List.copyOf(ordenados);
+    }
+
+    /**
+     * Obtiene todos los jugadores disponibles de una posición, ordenados por puntos
+     *
+     * @param esPortero true para porteros, false para jugadores de campo
+     * @return Lista inmutable de jugadores
+     */
+    public List<ResumenJugador> getDisponibles(boolean esPortero) {
+        return (esPortero ? porteros : jugadoresCampo).get(ORDEN_PUNTOS);
+    }
+
+    /**
+     * Obtiene una página de jugadores disponibles
+     *
+     * @param esPortero true para porteros, false para jugadores de campo
+     * @param orden "puntos", "precio" o "nombre" (cualquier otro valor ordena por puntos)
+     * @param excluidos IDs de jugadores que no se deben devolver (los ya elegidos)
+     * @param pagina Página, empezando en 0
+     * @param tamano Jugadores por página (0 o menos = todos)
+     * @return Jugadores de la página y total disponible
+     */
+    public PaginaJugadores buscar(boolean esPortero, String orden, Set<Long> excluidos, int pagina, int tamano) {
+        List<ResumenJugador> ordenados = (esPortero ? porteros : jugadoresCampo)
+                .getOrDefault(orden, (esPortero ? porteros : jugadoresCampo).get(ORDEN_PUNTOS));
+
+        int desde = tamano > 0 ? Math.max(pagina, 0) * tamano : 0;
+        int hasta = tamano > 0 ? desde + tamano : Integer.MAX_VALUE;
+
+        List<ResumenJugador> resultado = new ArrayList<>(tamano > 0 ? tamano : ordenados.size());
+        int total = 0;
+        for (ResumenJugador jugador : ordenados) {
+            if (excluidos.contains(jugador.getId())) {
+                continue;
+            }
+            if (total >= desde && total < hasta) {
+                resultado.add(jugador);
+            }
+            total++;
+        }
+        return new PaginaJugadores(resultado, total);
+    }
+}
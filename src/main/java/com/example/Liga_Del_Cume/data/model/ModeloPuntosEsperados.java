@@ -0,0 +1,36 @@
+package com.example.Liga_Del_Cume.data.model;
+
+/**
+ * Modelo con el que el optimizador de alineaciones estima los puntos que hará
+ * un jugador en la próxima jornada
+ *
+ * - TOTAL: los puntos de toda la temporada, sin más.
+ * - MEDIA: la media de puntos por partido jugado, acercada a la media de su
+ *   posición como si hubiera jugado además unos partidos previos con esa media.
+ *   Así un jugador con un solo buen partido no pasa por delante de uno regular
+ *   con muchos partidos.
+ */
+public enum ModeloPuntosEsperados {
+    TOTAL,
+    MEDIA;
+
+    /**
+     * Estima los puntos de un jugador en la próxima jornada
+     *
+     * @param jugador Jugador con sus puntos y partidos de la temporada
+     * @param mediaPosicion Media de puntos por partido de los jugadores de su posición
+     * @param partidosPrevios Partidos con la media de la posición que se suman a los del jugador (modelo MEDIA)
+     * @return Puntos esperados
+     */
+    public double puntosEsperados(ResumenJugador jugador, double mediaPosicion, int partidosPrevios) {
+        if (this == TOTAL) {
+            return jugador.getPuntosTotal();
+        }
+
+        int partidos = jugador.getPartidosJugados() + partidosPrevios;
+        if (partidos == 0) {
+            return mediaPosicion;
+        }
+        return (jugador.getPuntosTotal() + partidosPrevios * mediaPosicion) / partidos;
+    }
+}
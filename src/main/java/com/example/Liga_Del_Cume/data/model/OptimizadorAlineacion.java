@@ -0,0 +1,189 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import java.util.*;
+
+/**
+ * Búsqueda de la alineación de más puntos esperados dentro de un presupuesto
+ *
+ * Es una mochila con cardinalidad fija (un portero y cuatro jugadores de campo)
+ * resuelta por ramificación y poda. Para cada portero candidato se eligen los
+ * jugadores de campo que faltan recorriendo la lista ordenada por puntos
+ * esperados (descendente), y una rama se poda cuando:
+ * - ni con los mejores jugadores que quedan supera a la mejor alineación encontrada
+ *   (al estar ordenados, son los siguientes de la lista: una resta de sumas prefijas), o
+ * - ni con los más baratos que quedan cabe en el presupuesto restante.
+ * Como las dos cotas solo empeoran al avanzar en la lista, al fallar una se
+ * abandona el resto del nivel.
+ *
+ * Los jugadores fijados entran siempre. El resultado es exacto y determinista:
+ * a igualdad de puntos gana la alineación encontrada antes (más barata primero).
+ */
+public final class OptimizadorAlineacion {
+
+    public static final int JUGADORES_CAMPO = 4;
+
+    private static final double EPSILON = 1e-9;
+
+    // Jugadores de campo libres, ordenados por puntos esperados
+    private final ResumenJugador[] candidatos;
+    private final double[] valores;
+    private final long[] costes;
+    // prefijoValores[i] = suma de valores[0..i-1]
+    private final double[] prefijoValores;
+    // costeMinimo[k][i] = suma de los k costes más baratos desde i (Long.MAX_VALUE si no hay k)
+    private final long[][] costeMinimo;
+
+    private final int[] seleccion = new int[JUGADORES_CAMPO];
+    private int[] mejorSeleccion;
+    private double mejorValor = Double.NEGATIVE_INFINITY;
+
+    private OptimizadorAlineacion(List<ResumenJugador> libres, Map<Long, Double> puntosEsperados) {
+        int n = libres.size();
+        candidatos = libres.toArray(new ResumenJugador[0]);
+        valores = new double[n];
+        costes = new long[n];
+        prefijoValores = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            valores[i] = puntosEsperados.get(candidatos[i].getId());
+            costes[i] = candidatos[i].getPrecio();
+            prefijoValores[i + 1] = prefijoValores[i] + valores[i];
+        }
+
+        costeMinimo = new long[JUGADORES_CAMPO + 1][n + 1];
+        long[] masBaratos = new long[JUGADORES_CAMPO];
+        int encontrados = 0;
+        for (int i = n; i >= 0; i--) {
+            if (i < n) {
+                // Insertar el coste en los más baratos vistos (ordenados, como mucho cuatro)
+                int pos = Math.min(encontrados, JUGADORES_CAMPO - 1);
+                if (encontrados < JUGADORES_CAMPO || costes[i] < masBaratos[pos]) {
+                    while (pos > 0 && masBaratos[pos - 1] > costes[i]) {
+                        masBaratos[pos] = masBaratos[pos - 1];
+                        pos--;
+                    }
+                    masBaratos[pos] = costes[i];
+                    encontrados = Math.min(encontrados + 1, JUGADORES_CAMPO);
+                }
+            }
+            long suma = 0;
+            for (int k = 1; k <= JUGADORES_CAMPO; k++) {
+                if (k <= encontrados) {
+                    suma += masBaratos[k - 1];
+                    costeMinimo[k][i] = suma;
+                } else {
+                    costeMinimo[k][i] = Long.MAX_VALUE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Calcula la alineación de más puntos esperados que cabe en el presupuesto
+     *
+     * @param porteros Porteros disponibles
+     * @param jugadoresCampo Jugadores de campo disponibles
+     * @param puntosEsperados Puntos esperados de cada jugador disponible, por ID
+     * @param presupuesto Presupuesto máximo
+     * @param fijados IDs de jugadores que deben estar en la alineación (como mucho un
+     *                portero y cuatro de campo, todos entre los disponibles)
+     * @return La mejor alineación, o null si ninguna cabe en el presupuesto
+     */
+    public static AlineacionOptima resolver(List<ResumenJugador> porteros, List<ResumenJugador> jugadoresCampo,
+                                            Map<Long, Double> puntosEsperados, long presupuesto, Set<Long> fijados) {
+        Comparator<ResumenJugador> orden = Comparator
+                .comparingDouble((ResumenJugador j) -> puntosEsperados.get(j.getId())).reversed()
+                .thenComparing(ResumenJugador::getPrecio)
+                .thenComparing(ResumenJugador::getId);
+
+        List<ResumenJugador> porterosCandidatos = new ArrayList<>();
+        for (ResumenJugador portero : porteros) {
+            if (fijados.contains(portero.getId())) {
+                porterosCandidatos = List.of(portero);
+                break;
+            }
+            porterosCandidatos.add(portero);
+        }
+        if (porterosCandidatos.size() > 1) {
+            porterosCandidatos.sort(orden);
+        }
+
+        List<ResumenJugador> campoFijado = new ArrayList<>();
+        List<ResumenJugador> libres = new ArrayList<>();
+        long costeFijado = 0;
+        double valorFijado = 0;
+        for (ResumenJugador jugador : jugadoresCampo) {
+            if (fijados.contains(jugador.getId())) {
+                campoFijado.add(jugador);
+                costeFijado += jugador.getPrecio();
+                valorFijado += puntosEsperados.get(jugador.getId());
+            } else {
+                libres.add(jugador);
+            }
+        }
+        libres.sort(orden);
+
+        int faltan = JUGADORES_CAMPO - campoFijado.size();
+        OptimizadorAlineacion busqueda = new OptimizadorAlineacion(libres, puntosEsperados);
+        ResumenJugador mejorPortero = null;
+        for (ResumenJugador portero : porterosCandidatos) {
+            long restante = presupuesto - portero.getPrecio() - costeFijado;
+            if (restante < 0) {
+                continue;
+            }
+            int[] mejorAntes = busqueda.mejorSeleccion;
+            busqueda.buscar(0, faltan, faltan, restante, puntosEsperados.get(portero.getId()) + valorFijado);
+            if (busqueda.mejorSeleccion != mejorAntes) {
+                mejorPortero = portero;
+            }
+        }
+        if (mejorPortero == null) {
+            return null;
+        }
+
+        List<ResumenJugador> campo = new ArrayList<>(campoFijado);
+        for (int indice : busqueda.mejorSeleccion) {
+            campo.add(busqueda.candidatos[indice]);
+        }
+        campo.sort(orden);
+
+        Map<Long, Double> puntosAlineacion = new LinkedHashMap<>();
+        long coste = mejorPortero.getPrecio();
+        puntosAlineacion.put(mejorPortero.getId(), puntosEsperados.get(mejorPortero.getId()));
+        for (ResumenJugador jugador : campo) {
+            coste += jugador.getPrecio();
+            puntosAlineacion.put(jugador.getId(), puntosEsperados.get(jugador.getId()));
+        }
+        return new AlineacionOptima(mejorPortero, List.copyOf(campo), puntosAlineacion,
+                busqueda.mejorValor, coste, presupuesto);
+    }
+
+    /**
+     * Elige los jugadores que faltan a partir de la posición desde
+     */
+    private void buscar(int desde, int faltan, int total, long restante, double valor) {
+        if (faltan == 0) {
+            if (valor > mejorValor + EPSILON) {
+                mejorValor = valor;
+                mejorSeleccion = Arrays.copyOf(seleccion, total);
+            }
+            return;
+        }
+
+        int n = candidatos.length;
+        for (int i = desde; i + faltan <= n; i++) {
+            // Cota de puntos: los siguientes de la lista son los mejores que quedan
+            if (valor + prefijoValores[i + faltan] - prefijoValores[i] <= mejorValor + EPSILON) {
+                return;
+            }
+            // Cota de presupuesto: ni con los más baratos que quedan se llega
+            if (costeMinimo[faltan][i] > restante) {
+                return;
+            }
+            if (costes[i] > restante) {
+                continue;
+            }
+            seleccion[total - faltan] = i;
+            buscar(i + 1, faltan - 1, total, restante - costes[i], valor + valores[i]);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import java.util.List;
+
+/**
+ * DTO con una página de jugadores disponibles en el mercado
+ *
+ * total es el número de jugadores disponibles antes de paginar.
+ */
+public class PaginaJugadores {
+
+    private List<ResumenJugador> jugadores;
+    private int total;
+
+    public PaginaJugadores() {}
+
+    public PaginaJugadores(List<ResumenJugador> jugadores, int total) {
+        this.jugadores = jugadores;
+        this.total = total;
+    }
+
+    // Getters y Setters
+    public List<ResumenJugador> getJugadores() { return jugadores; }
+    public void setJugadores(List<ResumenJugador> jugadores) { this.jugadores = jugadores; }
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+}
@@ -0,0 +1,30 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import java.util.List;
+
+/**
+ * DTO con una página del ranking de una jornada
+ *
+ * Además de las filas incluye el cursor para pedir la página siguiente
+ * (null si ya no quedan más filas).
+ */
+public class PaginaRanking {
+
+    private List<PosicionRanking> filas;
+    private String siguienteCursor;
+
+    public PaginaRanking() {}
+
+    public PaginaRanking(List<PosicionRanking> filas, String siguienteCursor) {
+        this.filas = filas;
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public boolean isHayMas() { return siguienteCursor != null; }
+
+    // Getters y Setters
+    public List<PosicionRanking> getFilas() { return filas; }
+    public void setFilas(List<PosicionRanking> filas) { this.filas = filas; }
+    public String getSiguienteCursor() { return siguienteCursor; }
+    public void setSiguienteCursor(String siguienteCursor) { this.siguienteCursor = siguienteCursor; }
+}
@@ -7,7 +7,8 @@ import java.util.*;
 public class Partido {
     // Primary key para la entidad Partido
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "partido_seq")
+    @SequenceGenerator(name = "partido_seq", sequenceName = "partido_seq", allocationSize = 50)
     private Long idPartido;
 
     // Relación N a 1: Muchos partidos pertenecen a una jornada
@@ -31,6 +32,10 @@ public class Partido {
     private int golesLocal;
     private int golesVisitante;
 
+    // Indica si el partido cuenta para la clasificación. Un 0-0 solo se considera
+    // jugado cuando se han registrado estadísticas de jugadores
+    private boolean jugado;
+
     public Partido() {}
 
     public Partido(Equipo equipoLocal, Equipo equipoVisitante, int golesLocal, int golesVisitante, Jornada jornada) {
@@ -41,6 +46,26 @@ public class Partido {
         this.jornada = jornada;
     }
 
+    // Un partido con goles siempre está jugado
+    @PrePersist
+    @PreUpdate
+    private void marcarJugadoSiHayGoles() {
+        if (golesLocal > 0 || golesVisitante > 0) {
+            jugado = true;
+        }
+    }
+
+    /**
+     * Recalcula el indicador jugado con el marcador actual: el partido está jugado
+     * si tiene goles o estadísticas registradas, así que al corregir un resultado
+     * a 0-0 sin estadísticas deja de contar para la clasificación
+     *
+     * @param tieneEstadisticas Si el partido tiene estadísticas de jugadores
+     */
+    public void actualizarJugado(boolean tieneEstadisticas) {
+        this.jugado = golesLocal > 0 || golesVisitante > 0 || tieneEstadisticas;
+    }
+
     // Getters y Setters
     public Long getIdPartido() { return idPartido; }
     public void setIdPartido(Long idPartido) { this.idPartido = idPartido; }
@@ -54,6 +79,8 @@ public class Partido {
     public void setGolesLocal(int golesLocal) { this.golesLocal = golesLocal; }
     public int getGolesVisitante() { return golesVisitante; }
     public void setGolesVisitante(int golesVisitante) { this.golesVisitante = golesVisitante; }
+    public boolean isJugado() { return jugado; }
+    public void setJugado(boolean jugado) { this.jugado = jugado; }
     public List<EstadisticaJugadorPartido> getEstadisticas() { return estadisticas; }
     public void setEstadisticas(List<EstadisticaJugadorPartido> estadisticas) { this.estadisticas = estadisticas; }
 
@@ -61,11 +88,11 @@ public class Partido {
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         Partido partido = (Partido) o;
-        return golesLocal == partido.golesLocal && golesVisitante == partido.golesVisitante && Objects.equals(idPartido, partido.idPartido) && Objects.equals(jornada, partido.jornada) && Objects.equals(equipoLocal, partido.equipoLocal) && Objects.equals(equipoVisitante, partido.equipoVisitante) && Objects.equals(estadisticas, partido.estadisticas);
+        return golesLocal == partido.golesLocal && golesVisitante == partido.golesVisitante && jugado == partido.jugado && Objects.equals(idPartido, partido.idPartido) && Objects.equals(jornada, partido.jornada) && Objects.equals(equipoLocal, partido.equipoLocal) && Objects.equals(equipoVisitante, partido.equipoVisitante) && Objects.equals(estadisticas, partido.estadisticas);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(idPartido, jornada, equipoLocal, equipoVisitante, estadisticas, golesLocal, golesVisitante);
+        return Objects.hash(idPartido, jornada, equipoLocal, equipoVisitante, estadisticas, golesLocal, golesVisitante, jugado);
     }
 }
@@ -0,0 +1,34 @@
+package com.example.Liga_Del_Cume.data.model;
+
+/**
+ * DTO con la posición de un usuario en un ranking
+ *
+ * Contiene solo lo necesario para pintar una fila del ranking
+ * (sin cargar la entidad Usuario ni sus alineaciones).
+ */
+public class PosicionRanking {
+
+    private Long idUsuario;
+    private String nombreUsuario;
+    private int puntos;
+    private int posicion;
+
+    public PosicionRanking() {}
+
+    public PosicionRanking(Long idUsuario, String nombreUsuario, int puntos, int posicion) {
+        this.idUsuario = idUsuario;
+        this.nombreUsuario = nombreUsuario;
+        this.puntos = puntos;
+        this.posicion = posicion;
+    }
+
+    // Getters y Setters
+    public Long getIdUsuario() { return idUsuario; }
+    public void setIdUsuario(Long idUsuario) { this.idUsuario = idUsuario; }
+    public String getNombreUsuario() { return nombreUsuario; }
+    public void setNombreUsuario(String nombreUsuario) { this.nombreUsuario = nombreUsuario; }
+    public int getPuntos() { return puntos; }
+    public void setPuntos(int puntos) { this.puntos = puntos; }
+    public int getPosicion() { return posicion; }
+    public void setPosicion(int posicion) { this.posicion = posicion; }
+}
@@ -0,0 +1,75 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import jakarta.persistence.*;
+import java.util.Objects;
+
+/**
+ * Entidad que guarda el precio de mercado de un jugador al terminar una jornada
+ *
+ * Es el historial de precios: solo hay fila para las jornadas en las que el
+ * jugador tiene estadísticas (en las demás su precio no cambia), y el precio de
+ * un jugador en cualquier jornada es el de su última fila hasta esa jornada.
+ * Jugador.precioMercado guarda una copia del último precio para no tener que
+ * consultar esta tabla al mostrar el mercado.
+ *
+ * Se guardan los IDs en lugar de relaciones para no cargar Jugador (y sus
+ * estadísticas EAGER) al leer el historial.
+ */
+@Entity
+@Table(
+    uniqueConstraints = @UniqueConstraint(name = "uk_precio_jugador_jornada", columnNames = {"idJugador", "idJornada"}),
+    indexes = {
+        @Index(name = "idx_precio_jugador_jornada_numero", columnList = "idJugador, numeroJornada"),
+        @Index(name = "idx_precio_jugador_jornada_liga", columnList = "idLiga, numeroJornada")
+    }
+)
+public class PrecioJugadorJornada {
+    // Primary key para la entidad PrecioJugadorJornada
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "precio_jugador_jornada_seq")
+    @SequenceGenerator(name = "precio_jugador_jornada_seq", sequenceName = "precio_jugador_jornada_seq", allocationSize = 50)
+    private Long idPrecio;
+
+    private Long idLiga;
+    private Long idJugador;
+    private Long idJornada;
+    private int numeroJornada;
+    private float precio;
+
+    public PrecioJugadorJornada() {}
+
+    public PrecioJugadorJornada(Long idLiga, Long idJugador, Long idJornada, int numeroJornada, float precio) {
+        this.idLiga = idLiga;
+        this.idJugador = idJugador;
+        this.idJornada = idJornada;
+        this.numeroJornada = numeroJornada;
+        this.precio = precio;
+    }
+
+    // Getters y Setters
+    public Long getIdPrecio() { return idPrecio; }
+    public void setIdPrecio(Long idPrecio) { this.idPrecio = idPrecio; }
+    public Long getIdLiga() { return idLiga; }
+    public void setIdLiga(Long idLiga) { this.idLiga = idLiga; }
+    public Long getIdJugador() { return idJugador; }
+    public void setIdJugador(Long idJugador) { this.idJugador = idJugador; }
+    public Long getIdJornada() { return idJornada; }
+    public void setIdJornada(Long idJornada) { this.idJornada = idJornada; }
+    public int getNumeroJornada() { return numeroJornada; }
+    public void setNumeroJornada(int numeroJornada) { this.numeroJornada = numeroJornada; }
+    public float getPrecio() { return precio; }
+    public void setPrecio(float precio) { this.precio = precio; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        PrecioJugadorJornada that = (PrecioJugadorJornada) o;
+        return Objects.equals(idPrecio, that.idPrecio) && Objects.equals(idJugador, that.idJugador)
+                && Objects.equals(idJornada, that.idJornada);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idPrecio, idJugador, idJornada);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO con el progreso de un proceso que vuelve a puntuar la temporada de una liga
+ *
+ * El proceso lo actualiza desde su propio hilo mientras las peticiones lo leen,
+ * por eso todos los campos son volatile.
+ */
+public class ProgresoRepuntuacion {
+
+    public static final String EN_CURSO = "EN_CURSO";
+    public static final String COMPLETADO = "COMPLETADO";
+    public static final String ERROR = "ERROR";
+
+    private final Long idLiga;
+    private final LocalDateTime inicio = LocalDateTime.now();
+    private volatile String estado = EN_CURSO;
+    private volatile long estadisticasTotales;
+    private volatile long estadisticasProcesadas;
+    private volatile long estadisticasModificadas;
+    private volatile int jornadasRecalculadas;
+    private volatile String mensaje;
+    private volatile LocalDateTime fin;
+    // Las reglas han cambiado durante el proceso: al terminar se vuelve a lanzar una vez
+    private volatile boolean repeticionPendiente;
+
+    public ProgresoRepuntuacion(Long idLiga) {
+        this.idLiga = idLiga;
+    }
+
+    /**
+     * Porcentaje de estadísticas ya procesadas (0-100)
+     */
+    public int getPorcentaje() {
+        if (estadisticasTotales == 0) {
+            return COMPLETADO.equals(estado) ? 100 : 0;
+        }
+        return (int) (estadisticasProcesadas * 100 / estadisticasTotales);
+    }
+
+    public boolean isEnCurso() { return EN_CURSO.equals(estado); }
+
+    public void completar() {
+        this.estado = COMPLETADO;
+        this.fin = LocalDateTime.now();
+    }
+
+    public void fallar(String mensaje) {
+        this.mensaje = mensaje;
+        this.estado = ERROR;
+        this.fin = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public Long getIdLiga() { return idLiga; }
+    public LocalDateTime getInicio() { return inicio; }
+    public String getEstado() { return estado; }
+    public long getEstadisticasTotales() { return estadisticasTotales; }
+    public void setEstadisticasTotales(long estadisticasTotales) { this.estadisticasTotales = estadisticasTotales; }
+    public long getEstadisticasProcesadas() { return estadisticasProcesadas; }
+    public void setEstadisticasProcesadas(long estadisticasProcesadas) { this.estadisticasProcesadas = estadisticasProcesadas; }
+    public long getEstadisticasModificadas() { return estadisticasModificadas; }
+    public void setEstadisticasModificadas(long estadisticasModificadas) { this.estadisticasModificadas = estadisticasModificadas; }
+    public int getJornadasRecalculadas() { return jornadasRecalculadas; }
+    public void setJornadasRecalculadas(int jornadasRecalculadas) { this.jornadasRecalculadas = jornadasRecalculadas; }
+    public String getMensaje() { return mensaje; }
+    public LocalDateTime getFin() { return fin; }
+    public boolean isRepeticionPendiente() { return repeticionPendiente; }
+    public void setRepeticionPendiente(boolean repeticionPendiente) { this.repeticionPendiente = repeticionPendiente; }
+}
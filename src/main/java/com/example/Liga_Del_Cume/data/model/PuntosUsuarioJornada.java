@@ -0,0 +1,67 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import jakarta.persistence.*;
+import java.util.Objects;
+
+/**
+ * Entidad que registra los puntos que una jornada ha aportado a un usuario
+ *
+ * Funciona como un libro de apuntes: cada vez que se recalcula una jornada se
+ * guarda aquí el nuevo total del usuario en esa jornada y a sus puntos
+ * acumulados solo se les suma la diferencia con el valor anterior. Así volver
+ * a guardar los resultados de un partido no cuenta dos veces los mismos puntos.
+ *
+ * Se guardan los IDs en lugar de relaciones para no cargar Usuario ni Jornada
+ * al consultar los apuntes de una jornada.
+ */
+@Entity
+@Table(
+    uniqueConstraints = @UniqueConstraint(name = "uk_puntos_usuario_jornada", columnNames = {"idUsuario", "idJornada"}),
+    indexes = @Index(name = "idx_puntos_usuario_jornada_jornada", columnList = "idJornada")
+)
+public class PuntosUsuarioJornada {
+    // Primary key para la entidad PuntosUsuarioJornada
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "puntos_usuario_jornada_seq")
+    @SequenceGenerator(name = "puntos_usuario_jornada_seq", sequenceName = "puntos_usuario_jornada_seq", allocationSize = 50)
+    private Long idPuntos;
+
+    private Long idLiga;
+    private Long idUsuario;
+    private Long idJornada;
+    private int puntos;
+
+    public PuntosUsuarioJornada() {}
+
+    public PuntosUsuarioJornada(Long idLiga, Long idUsuario, Long idJornada, int puntos) {
+        this.idLiga = idLiga;
+        this.idUsuario = idUsuario;
+        this.idJornada = idJornada;
+        this.puntos = puntos;
+    }
+
+    // Getters y Setters
+    public Long getIdPuntos() { return idPuntos; }
+    public void setIdPuntos(Long idPuntos) { this.idPuntos = idPuntos; }
+    public Long getIdLiga() { return idLiga; }
+    public void setIdLiga(Long idLiga) { this.idLiga = idLiga; }
+    public Long getIdUsuario() { return idUsuario; }
+    public void setIdUsuario(Long idUsuario) { this.idUsuario = idUsuario; }
+    public Long getIdJornada() { return idJornada; }
+    public void setIdJornada(Long idJornada) { this.idJornada = idJornada; }
+    public int getPuntos() { return puntos; }
+    public void setPuntos(int puntos) { this.puntos = puntos; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        PuntosUsuarioJornada that = (PuntosUsuarioJornada) o;
+        return Objects.equals(idPuntos, that.idPuntos) && Objects.equals(idUsuario, that.idUsuario)
+                && Objects.equals(idJornada, that.idJornada);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idPuntos, idUsuario, idJornada);
+    }
+}
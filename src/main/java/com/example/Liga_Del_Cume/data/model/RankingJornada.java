@@ -0,0 +1,80 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+import java.util.Objects;
+
+/**
+ * Entidad con la foto del ranking de usuarios al cerrar una jornada
+ *
+ * Hay una fila por usuario y jornada cerrada con su posición, sus puntos acumulados
+ * hasta esa jornada, los puntos de la propia jornada y cuántas posiciones ha subido
+ * (positivo) o bajado (negativo) respecto a la jornada cerrada anterior.
+ *
+ * Las filas se escriben una sola vez y no se modifican (@Immutable), de forma que
+ * mostrar el movimiento en el ranking o la evolución de la temporada no necesita
+ * reconstruir rankings pasados.
+ */
+@Entity
+@Immutable
+@Table(
+    uniqueConstraints = @UniqueConstraint(name = "uk_ranking_jornada_usuario", columnNames = {"idJornada", "idUsuario"}),
+    indexes = @Index(name = "idx_ranking_jornada_liga_numero", columnList = "idLiga, numeroJornada")
+)
+public class RankingJornada {
+    // Primary key para la entidad RankingJornada
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ranking_jornada_seq")
+    @SequenceGenerator(name = "ranking_jornada_seq", sequenceName = "ranking_jornada_seq", allocationSize = 50)
+    private Long idRanking;
+
+    private Long idLiga;
+    private Long idJornada;
+
+    // Copia del número de jornada para ordenar y filtrar sin join
+    private int numeroJornada;
+
+    private Long idUsuario;
+    private int posicion;
+    private int puntos;
+    private int puntosJornada;
+    private int diferenciaPosicion;
+
+    protected RankingJornada() {}
+
+    public RankingJornada(Long idLiga, Long idJornada, int numeroJornada, Long idUsuario,
+                          int posicion, int puntos, int puntosJornada, int diferenciaPosicion) {
+        this.idLiga = idLiga;
+        this.idJornada = idJornada;
+        this.numeroJornada = numeroJornada;
+        this.idUsuario = idUsuario;
+        this.posicion = posicion;
+        this.puntos = puntos;
+        this.puntosJornada = puntosJornada;
+        this.diferenciaPosicion = diferenciaPosicion;
+    }
+
+    // Getters (las filas no se modifican una vez escritas)
+    public Long getIdRanking() { return idRanking; }
+    public Long getIdLiga() { return idLiga; }
+    public Long getIdJornada() { return idJornada; }
+    public int getNumeroJornada() { return numeroJornada; }
+    public Long getIdUsuario() { return idUsuario; }
+    public int getPosicion() { return posicion; }
+    public int getPuntos() { return puntos; }
+    public int getPuntosJornada() { return puntosJornada; }
+    public int getDiferenciaPosicion() { return diferenciaPosicion; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        RankingJornada that = (RankingJornada) o;
+        return Objects.equals(idRanking, that.idRanking) && Objects.equals(idJornada, that.idJornada)
+                && Objects.equals(idUsuario, that.idUsuario);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idRanking, idJornada, idUsuario);
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Recomendación de la IA que se está generando y que comparten todos los que la
+ * piden a la vez (misma liga y misma versión de datos)
+ *
+ * Cada suscriptor recibe primero el texto generado hasta el momento y después
+ * cada fragmento nuevo, en orden. Si un suscriptor falla al recibir un
+ * fragmento (por ejemplo, porque su cliente se ha desconectado) se le quita de
+ * la lista sin afectar a los demás. Cuando se va el último suscriptor antes de
+ * terminar, la recomendación queda cancelada y ya no admite más suscriptores.
+ *
+ * El hilo de la IA no entrega el texto: solo lo deja en la cola de cada
+ * suscriptor, y cada uno lo recibe en su propio hilo mientras espera (esperar).
+ * Así un cliente lento no frena la lectura de la IA ni a los demás suscriptores.
+ */
+public class RecomendacionCompartida {
+
+    // Marca el final de la cola de un suscriptor (se compara por identidad)
+    private static final String FIN = new String();
+
+    private final StringBuilder texto = new StringBuilder();
+    private final Map<Consumer<String>, BlockingQueue<String>> suscriptores = new IdentityHashMap<>();
+    private final CompletableFuture<String> resultado = new CompletableFuture<>();
+    private boolean cancelada;
+    private Future<?> tarea;
+
+    /**
+     * Añade un suscriptor, que recibe primero el texto generado hasta ahora
+     *
+     * @param suscriptor Recibe cada fragmento de texto
+     * @return false si la recomendación ya ha terminado o se ha cancelado
+     */
+    public synchronized boolean suscribir(Consumer<String> suscriptor) {
+        if (cancelada || resultado.isDone()) {
+            return false;
+        }
+        BlockingQueue<String> cola = new LinkedBlockingQueue<>();
+        if (!texto.isEmpty()) {
+            cola.add(texto.toString());
+        }
+        suscriptores.put(suscriptor, cola);
+        return true;
+    }
+
+    /**
+     * Quita un suscriptor
+     *
+     * @param suscriptor Suscriptor a quitar
+     * @return true si era el último y la recomendación no había terminado: queda
+     *         cancelada y hay que cancelar su tarea (cancelar)
+     */
+    public synchronized boolean desuscribir(Consumer<String> suscriptor) {
+        suscriptores.remove(suscriptor);
+        if (suscriptores.isEmpty() && !cancelada && !resultado.isDone()) {
+            cancelada = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Añade un fragmento de texto a la cola de cada suscriptor, sin esperar a
+     * que lo reciban
+     *
+     * @param fragmento Texto nuevo
+     */
+    public synchronized void anadirTexto(String fragmento) {
+        texto.append(fragmento);
+        suscriptores.values().forEach(cola -> cola.add(fragmento));
+    }
+
+    // Tras el último fragmento, cada suscriptor encuentra FIN en su cola
+    private synchronized void cerrarColas() {
+        suscriptores.values().forEach(cola -> cola.add(FIN));
+    }
+
+    // Un suscriptor que falla deja de recibir texto
+    private boolean entregar(Consumer<String> suscriptor, String fragmento) {
+        try {
+            suscriptor.accept(fragmento);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    public synchronized void setTarea(Future<?> tarea) {
+        this.tarea = tarea;
+        if (cancelada) {
+            tarea.cancel(true);
+        }
+    }
+
+    public synchronized void completar(String recomendacion) {
+        resultado.complete(recomendacion);
+        cerrarColas();
+    }
+
+    public synchronized void fallar(Exception error) {
+        resultado.completeExceptionally(error);
+        cerrarColas();
+    }
+
+    /**
+     * Cancela la tarea que genera la recomendación (interrumpiendo su hilo)
+     */
+    public synchronized void cancelar() {
+        cancelada = true;
+        resultado.completeExceptionally(new CancellationException("Recomendación cancelada"));
+        cerrarColas();
+        if (tarea != null) {
+            tarea.cancel(true);
+        }
+    }
+
+    /**
+     * Entrega al suscriptor, en el hilo que llama, cada fragmento de su cola
+     * hasta que termine la recomendación
+     *
+     * @param suscriptor Suscriptor añadido con suscribir
+     * @return Recomendación completa
+     * @throws InterruptedException si se interrumpe el hilo mientras espera
+     * @throws Exception el error con el que falló la recomendación
+     */
+    public String esperar(Consumer<String> suscriptor) throws Exception {
+        BlockingQueue<String> cola;
+        synchronized (this) {
+            cola = suscriptores.get(suscriptor);
+        }
+        if (cola != null) {
+            for (String fragmento = cola.take(); fragmento != FIN; fragmento = cola.take()) {
+                if (!entregar(suscriptor, fragmento)) {
+                    synchronized (this) {
+                        suscriptores.remove(suscriptor);
+                    }
+                    break;
+                }
+            }
+        }
+        try {
+            return resultado.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.Liga_Del_Cume.data.model;
+
+import jakarta.persistence.*;
+import java.util.Objects;
+
+/**
+ * Entidad con las reglas de puntuación fantasy de una liga
+ *
+ * Guarda cuántos puntos vale cada acción de un jugador en un partido. Los valores
+ * por defecto son los del sistema de puntuación original:
+ * - Jugar el mínimo de minutos: +1
+ * - Gol de portero: +6 / gol de jugador de campo: +4
+ * - Asistencia: +3
+ * - Portería a cero (portero que juega el mínimo de minutos): +5
+ * - Portero que recibe 1 o 2 goles: -1 / 3 o más goles: -2
+ * - Tarjeta amarilla: -1 / tarjeta roja: -3
+ *
+ * Las ligas sin fila propia usan estos valores. Para puntuar no se usa la entidad
+ * directamente sino la TablaPuntuacion compilada a partir de ella.
+ */
+@Entity
+public class ReglasPuntuacion {
+    // Primary key para la entidad ReglasPuntuacion
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idReglas;
+
+    @Column(unique = true)
+    private Long idLiga;
+
+    private int puntosMinutosJugados = 1;
+    private int puntosGolPortero = 6;
+    private int puntosGolJugadorCampo = 4;
+    private int puntosAsistencia = 3;
+    private int puntosPorteriaCero = 5;
+    private int puntosPorteroUnoODosGoles = -1;
+    private int puntosPorteroTresOMasGoles = -2;
+    private int puntosTarjetaAmarilla = -1;
+    private int puntosTarjetaRoja = -3;
+
+    public ReglasPuntuacion() {}
+
+    public ReglasPuntuacion(Long idLiga) {
+        this.idLiga = idLiga;
+    }
+
+    // Getters y Setters
+    public Long getIdReglas() { return idReglas; }
+    public void setIdReglas(Long idReglas) { this.idReglas = idReglas; }
+    public Long getIdLiga() { return idLiga; }
+    public void setIdLiga(Long idLiga) { this.idLiga = idLiga; }
+    public int getPuntosMinutosJugados() { return puntosMinutosJugados; }
+    public void setPuntosMinutosJugados(int puntosMinutosJugados) { this.puntosMinutosJugados = puntosMinutosJugados; }
+    public int getPuntosGolPortero() { return puntosGolPortero; }
+    public void setPuntosGolPortero(int puntosGolPortero) { this.puntosGolPortero = puntosGolPortero; }
+    public int getPuntosGolJugadorCampo() { return puntosGolJugadorCampo; }
+    public void setPuntosGolJugadorCampo(int puntosGolJugadorCampo) { this.puntosGolJugadorCampo = puntosGolJugadorCampo; }
+    public int getPuntosAsistencia() { return puntosAsistencia; }
+    public void setPuntosAsistencia(int puntosAsistencia) { this.puntosAsistencia = puntosAsistencia; }
+    public int getPuntosPorteriaCero() { return puntosPorteriaCero; }
+    public void setPuntosPorteriaCero(int puntosPorteriaCero) { this.puntosPorteriaCero = puntosPorteriaCero; }
+    public int getPuntosPorteroUnoODosGoles() { return puntosPorteroUnoODosGoles; }
+    public void setPuntosPorteroUnoODosGoles(int puntosPorteroUnoODosGoles) { this.puntosPorteroUnoODosGoles = puntosPorteroUnoODosGoles; }
+    public int getPuntosPorteroTresOMasGoles() { return puntosPorteroTresOMasGoles; }
+    public void setPuntosPorteroTresOMasGoles(int puntosPorteroTresOMasGoles) { this.puntosPorteroTresOMasGoles = puntosPorteroTresOMasGoles; }
+    public int getPuntosTarjetaAmarilla() { return puntosTarjetaAmarilla; }
+    public void setPuntosTarjetaAmarilla(int puntosTarjetaAmarilla) { this.puntosTarjetaAmarilla = puntosTarjetaAmarilla; }
+    public int getPuntosTarjetaRoja() { return puntosTarjetaRoja; }
+    public void setPuntosTarjetaRoja(int puntosTarjetaRoja) { this.puntosTarjetaRoja = puntosTarjetaRoja; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        ReglasPuntuacion that = (ReglasPuntuacion) o;
+        return Objects.equals(idReglas, that.idReglas) && Objects.equals(idLiga, that.idLiga);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idReglas, idLiga);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.Liga_Del_Cume.data.model;
+
+/**
+ * DTO con lo que se muestra de un jugador en el mercado de la alineación futura
+ *
+ * Incluye los puntos y los partidos de toda la temporada ya sumados, para no
+ * tener que leer las estadísticas del jugador. Es inmutable porque se comparte entre peticiones
+ * desde la caché de MercadoJugadores.
+ */
+public class ResumenJugador {
+
+    private final Long id;
+    private final String nombre;
+    private final String avatarUrl;
+    private final boolean portero;
+    private final Long idEquipo;
+    private final String nombreEquipo;
+    private final String escudoEquipo;
+    private final int puntosTotal;
+    private final int partidosJugados;
+    private final Long precio;
+
+    public ResumenJugador(Long id, String nombre, String avatarUrl, boolean portero, Long idEquipo,
+                          String nombreEquipo, String escudoEquipo, int puntosTotal, int partidosJugados, Long precio) {
+        this.id = id;
+        this.nombre = nombre;
+        this.avatarUrl = avatarUrl;
+        this.portero = portero;
+        this.idEquipo = idEquipo;
+        this.nombreEquipo = nombreEquipo;
+        this.escudoEquipo = escudoEquipo;
+        this.puntosTotal = puntosTotal;
+        this.partidosJugados = partidosJugados;
+        this.precio = precio;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getNombre() { return nombre; }
+    public String getAvatarUrl() { return avatarUrl; }
+    public boolean isPortero() { return portero; }
+    public Long getIdEquipo() { return idEquipo; }
+    public String getNombreEquipo() { return nombreEquipo; }
+    public String getEscudoEquipo() { return escudoEquipo; }
+    public int getPuntosTotal() { return puntosTotal; }
+    public int getPartidosJugados() { return partidosJugados; }
+    public Long getPrecio() { return precio; }
+}
@@ -0,0 +1,104 @@
+package com.example.Liga_Del_Cume.data.model;
+
+/**
+ * Reglas de puntuación de una liga compiladas en una tabla de coeficientes
+ *
+ * Cada línea de estadísticas se ve como un vector de características (minutos
+ * jugados, goles, asistencias, tarjetas y tramo de goles recibidos) y sus puntos
+ * son el producto escalar con la fila de coeficientes de su rol (portero o
+ * jugador de campo). Las dos filas van seguidas en un único array, de forma que
+ * puntuar no crea objetos ni tiene ramas por regla.
+ *
+ * La tabla es inmutable y se puede compartir entre hilos.
+ */
+public final class TablaPuntuacion {
+
+    // Posición de cada característica dentro de una fila de coeficientes
+    private static final int MINUTOS = 0;
+    private static final int GOLES = 1;
+    private static final int ASISTENCIAS = 2;
+    private static final int AMARILLAS = 3;
+    private static final int ROJA = 4;
+    private static final int PORTERIA_CERO = 5;
+    private static final int UNO_O_DOS_RECIBIDOS = 6;
+    private static final int TRES_O_MAS_RECIBIDOS = 7;
+    private static final int CARACTERISTICAS = 8;
+
+    // Fila del portero (posiciones 0..7) seguida de la del jugador de campo (8..15)
+    private final int[] coeficientes = new int[CARACTERISTICAS * 2];
+
+    private TablaPuntuacion() {}
+
+    /**
+     * Compila unas reglas de puntuación en su tabla de coeficientes
+     *
+     * @param reglas Reglas de la liga
+     * @return Tabla lista para puntuar
+     */
+    public static TablaPuntuacion compilar(ReglasPuntuacion reglas) {
+        TablaPuntuacion tabla = new TablaPuntuacion();
+        int[] c = tabla.coeficientes;
+
+        for (int base = 0; base < c.length; base += CARACTERISTICAS) {
+            c[base + MINUTOS] = reglas.getPuntosMinutosJugados();
+            c[base + ASISTENCIAS] = reglas.getPuntosAsistencia();
+            c[base + AMARILLAS] = reglas.getPuntosTarjetaAmarilla();
+            c[base + ROJA] = reglas.getPuntosTarjetaRoja();
+        }
+
+        // Solo los porteros puntúan por goles recibidos
+        c[GOLES] = reglas.getPuntosGolPortero();
+        c[PORTERIA_CERO] = reglas.getPuntosPorteriaCero();
+        c[UNO_O_DOS_RECIBIDOS] = reglas.getPuntosPorteroUnoODosGoles();
+        c[TRES_O_MAS_RECIBIDOS] = reglas.getPuntosPorteroTresOMasGoles();
+
+        c[CARACTERISTICAS + GOLES] = reglas.getPuntosGolJugadorCampo();
+        return tabla;
+    }
+
+    /**
+     * Calcula los puntos fantasy de una línea de estadísticas
+     *
+     * @param esPortero true si el jugador es portero
+     * @param goles Goles marcados
+     * @param asistencias Asistencias
+     * @param tarjetasAmarillas Tarjetas amarillas
+     * @param tarjetaRoja true si vio tarjeta roja
+     * @param minMinutosJugados true si jugó el mínimo de minutos
+     * @param golesRecibidos Goles recibidos (solo cuenta para porteros)
+     * @return Puntos de la jornada
+     */
+    public int puntuar(boolean esPortero, int goles, int asistencias, int tarjetasAmarillas,
+                       boolean tarjetaRoja, boolean minMinutosJugados, int golesRecibidos) {
+        int[] c = coeficientes;
+        int base = esPortero ? 0 : CARACTERISTICAS;
+        int minutos = minMinutosJugados ? 1 : 0;
+
+        return c[base + MINUTOS] * minutos
+                + c[base + GOLES] * goles
+                + c[base + ASISTENCIAS] * asistencias
+                + c[base + AMARILLAS] * tarjetasAmarillas
+                + c[base + ROJA] * (tarjetaRoja ? 1 : 0)
+                + c[base + PORTERIA_CERO] * (golesRecibidos == 0 ? minutos : 0)
+                + c[base + UNO_O_DOS_RECIBIDOS] * (golesRecibidos >= 1 && golesRecibidos <= 2 ? 1 : 0)
+                + c[base + TRES_O_MAS_RECIBIDOS] * (golesRecibidos >= 3 ? 1 : 0);
+    }
+
+    /**
+     * Calcula los puntos fantasy de una estadística ya registrada
+     *
+     * @param estadistica Estadística del jugador en un partido
+     * @param esPortero true si el jugador es portero
+     * @return Puntos de la jornada
+     */
+    public int puntuar(EstadisticaJugadorPartido estadistica, boolean esPortero) {
+        return puntuar(esPortero, estadistica.getGolesAnotados(), estadistica.getAsistencias(),
+                estadistica.getTarjetaAmarillas(), estadistica.isTarjetaRojas(),
+                estadistica.isMinMinutosJugados(), estadistica.getGolesRecibidos());
+    }
+
+    // Coeficientes del portero por goles recibidos (para actualizarlos en bloque en la base de datos)
+    public int getPuntosPorteriaCero() { return coeficientes[PORTERIA_CERO]; }
+    public int getPuntosPorteroUnoODosGoles() { return coeficientes[UNO_O_DOS_RECIBIDOS]; }
+    public int getPuntosPorteroTresOMasGoles() { return coeficientes[TRES_O_MAS_RECIBIDOS]; }
+}
@@ -7,7 +7,8 @@ import java.util.*;
 public class Usuario {
     // Primary key para la entidad Usuario
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuario_seq")
+    @SequenceGenerator(name = "usuario_seq", sequenceName = "usuario_seq", allocationSize = 50)
     private Long idUsuario;
     
     // Relación N a 1: Muchos usuarios pertenecen a una liga
@@ -0,0 +1,49 @@
+package com.example.Liga_Del_Cume.data.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acceso JDBC a las alineaciones para actualizaciones masivas
+ *
+ * Igual que las consultas @Modifying(flushAutomatically, clearAutomatically) de
+ * AlineacionRepository, vuelca los cambios pendientes antes de escribir y limpia
+ * el contexto de persistencia después, para que ninguna entidad cargada quede
+ * con los puntos antiguos.
+ */
+@Repository
+public class AlineacionJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Actualiza en un único lote los puntos de varias alineaciones
+     *
+     * @param puntos Nuevos puntos por ID de alineación
+     */
+    public void actualizarPuntosAlineaciones(Map<Long, Integer> puntos) {
+        if (puntos.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> parametros = new ArrayList<>(puntos.size());
+        puntos.forEach((idAlineacion, nuevosPuntos) -> parametros.add(new Object[]{nuevosPuntos, idAlineacion}));
+
+        entityManager.flush();
+        jdbcTemplate.batchUpdate(
+                "UPDATE alineacion SET puntos_totales_jornada = ? WHERE id_alineacion = ?",
+                parametros);
+        entityManager.clear();
+    }
+}
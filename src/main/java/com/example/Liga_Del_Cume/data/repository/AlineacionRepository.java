@@ -1,8 +1,13 @@
 package com.example.Liga_Del_Cume.data.repository;
 
 import com.example.Liga_Del_Cume.data.model.Alineacion;
+import com.example.Liga_Del_Cume.data.model.PosicionRanking;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +27,16 @@ public interface AlineacionRepository extends JpaRepository<Alineacion, Long> {
     // Buscar alineaciones por jornada
     List<Alineacion> findByJornadaIdJornada(Long idJornada);
 
+    // Contar cuántas alineaciones de cada jornada eligieron a cada jugador (ID de jornada, ID de jugador, veces)
+    @Query("SELECT a.jornada.idJornada, j.idJugador, COUNT(a) FROM Alineacion a JOIN a.jugadores j " +
+           "WHERE a.jornada.idJornada IN :idsJornada GROUP BY a.jornada.idJornada, j.idJugador")
+    List<Object[]> contarSeleccionesJugadores(@Param("idsJornada") Collection<Long> idsJornada);
+
+    // Contar las alineaciones de cada jornada (ID de jornada, alineaciones)
+    @Query("SELECT a.jornada.idJornada, COUNT(a) FROM Alineacion a " +
+           "WHERE a.jornada.idJornada IN :idsJornada GROUP BY a.jornada.idJornada")
+    List<Object[]> contarAlineacionesJornadas(@Param("idsJornada") Collection<Long> idsJornada);
+
     // Buscar la alineación de un usuario en una jornada específica
     Optional<Alineacion> findByUsuarioIdUsuarioAndJornadaIdJornada(Long idUsuario, Long idJornada);
 
@@ -35,4 +50,67 @@ public interface AlineacionRepository extends JpaRepository<Alineacion, Long> {
     // Buscar alineaciones por jornada y ordenarlas por puntos de forma descendente
     List<Alineacion> findByJornadaIdJornadaOrderByPuntosTotalesJornadaDesc(Long idJornada);
 
+    /**
+     * Página del ranking de una jornada ordenada en la base de datos por puntos
+     * (descendente) y, a igualdad, por ID de usuario (ascendente)
+     *
+     * Usa paginación por clave: devuelve las alineaciones que van justo después de
+     * la fila (puntos, idUsuario) indicada, sin recorrer las páginas anteriores.
+     * La posición de cada fila la completa el servicio.
+     *
+     * @param idJornada ID de la jornada
+     * @param puntos Puntos de la última fila de la página anterior
+     * @param idUsuario ID del usuario de la última fila de la página anterior
+     * @param pagina Tamaño de la página (se usa siempre la primera página)
+     * @return Filas del ranking sin posición
+     */
+    @Query("SELECT new com.example.Liga_Del_Cume.data.model.PosicionRanking(" +
+            "u.idUsuario, u.nombreUsuario, a.puntosTotalesJornada, 0) " +
+            "FROM Alineacion a JOIN a.usuario u " +
+            "WHERE a.jornada.idJornada = :idJornada " +
+            "AND (a.puntosTotalesJornada < :puntos OR (a.puntosTotalesJornada = :puntos AND u.idUsuario > :idUsuario)) " +
+            "ORDER BY a.puntosTotalesJornada DESC, u.idUsuario ASC")
+    List<PosicionRanking> findRankingJornadaDespuesDe(@Param("idJornada") Long idJornada,
+                                                      @Param("puntos") int puntos,
+                                                      @Param("idUsuario") Long idUsuario,
+                                                      Pageable pagina);
+
+    /**
+     * Puntos de cada jugador de la alineación de un usuario en una jornada
+     *
+     * Cada fila contiene: [idJugador, nombreJugador, esPortero, puntos en la jornada]
+     *
+     * @param idUsuario ID del usuario
+     * @param idJornada ID de la jornada
+     * @return Una fila por jugador de la alineación
+     */
+    @Query("SELECT j.idJugador, j.nombreJugador, j.esPortero, COALESCE(SUM(e.puntosJornada), 0) " +
+            "FROM Alineacion a JOIN a.jugadores j " +
+            "LEFT JOIN EstadisticaJugadorPartido e ON e.jugador = j AND e.partido.jornada = a.jornada " +
+            "WHERE a.usuario.idUsuario = :idUsuario AND a.jornada.idJornada = :idJornada " +
+            "GROUP BY j.idJugador, j.nombreJugador, j.esPortero")
+    List<Object[]> findPuntosJugadoresAlineacion(@Param("idUsuario") Long idUsuario,
+                                                 @Param("idJornada") Long idJornada);
+
+    /**
+     * Calcula en una sola consulta los puntos de todas las alineaciones de una jornada
+     * sumando las estadísticas de sus jugadores en los partidos de esa jornada
+     *
+     * Cada fila contiene: [idAlineacion, idUsuario, puntosTotalesJornada guardados, puntos calculados]
+     *
+     * @param idJornada ID de la jornada
+     * @return Una fila por alineación de la jornada
+     */
+    @Query("SELECT a.idAlineacion, a.usuario.idUsuario, a.puntosTotalesJornada, COALESCE(SUM(e.puntosJornada), 0) " +
+            "FROM Alineacion a LEFT JOIN a.jugadores j " +
+            "LEFT JOIN EstadisticaJugadorPartido e ON e.jugador = j AND e.partido.jornada = a.jornada " +
+            "WHERE a.jornada.idJornada = :idJornada " +
+            "GROUP BY a.idAlineacion, a.usuario.idUsuario, a.puntosTotalesJornada")
+    List<Object[]> calcularPuntosAlineacionesJornada(@Param("idJornada") Long idJornada);
+
+    // Sumar los puntos de los jugadores de una alineación en los partidos de su jornada
+    @Query("SELECT COALESCE(SUM(e.puntosJornada), 0) FROM Alineacion a JOIN a.jugadores j " +
+            "JOIN EstadisticaJugadorPartido e ON e.jugador = j AND e.partido.jornada = a.jornada " +
+            "WHERE a.idAlineacion = :idAlineacion")
+    int sumarPuntosAlineacion(@Param("idAlineacion") Long idAlineacion);
 }
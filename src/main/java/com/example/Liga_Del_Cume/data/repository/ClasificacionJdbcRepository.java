@@ -0,0 +1,91 @@
+package com.example.Liga_Del_Cume.data.repository;
+
+import com.example.Liga_Del_Cume.data.model.DeltaClasificacionJornada;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acceso JDBC a la clasificación materializada para aplicar cambios de resultado
+ *
+ * Cada variación se suma en la propia sentencia (victorias = victorias + ?...),
+ * así que dos transacciones que cambian a la vez resultados del mismo equipo no
+ * pierden ninguno de los dos cambios. Como UsuarioJdbcRepository, vuelca los
+ * cambios pendientes antes de escribir y limpia el contexto de persistencia después.
+ */
+@Repository
+public class ClasificacionJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Suma a la fila de clasificación de cada equipo su variación
+     *
+     * @param variaciones Variación de cada equipo (idEquipo y contadores)
+     * @return true si todos los equipos tenían fila; false si falta alguna
+     */
+    public boolean sumarAFilas(List<DeltaClasificacionJornada> variaciones) {
+        if (variaciones.isEmpty()) {
+            return true;
+        }
+
+        List<Object[]> parametros = new ArrayList<>(variaciones.size());
+        for (DeltaClasificacionJornada variacion : variaciones) {
+            parametros.add(new Object[]{variacion.getVictorias(), variacion.getEmpates(), variacion.getDerrotas(),
+                    variacion.getGolesAFavor(), variacion.getGolesEnContra(),
+                    variacion.getVictorias() * 3 + variacion.getEmpates(), variacion.getIdEquipo()});
+        }
+
+        entityManager.flush();
+        int[] actualizadas = jdbcTemplate.batchUpdate(
+                "UPDATE fila_clasificacion SET victorias = victorias + ?, empates = empates + ?, " +
+                "derrotas = derrotas + ?, golesafavor = golesafavor + ?, goles_en_contra = goles_en_contra + ?, " +
+                "puntos_totales = puntos_totales + ? WHERE id_equipo = ?",
+                parametros);
+        entityManager.clear();
+
+        for (int filas : actualizadas) {
+            if (filas == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Suma la variación de cada equipo a su fila de la jornada, creándola si es la
+     * primera vez que juega en ella (una sola sentencia por fila, sin leerla antes)
+     *
+     * @param variaciones Variación de cada equipo con su liga, jornada y número de jornada
+     */
+    public void sumarADeltasJornada(List<DeltaClasificacionJornada> variaciones) {
+        if (variaciones.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> parametros = new ArrayList<>(variaciones.size());
+        for (DeltaClasificacionJornada v : variaciones) {
+            parametros.add(new Object[]{v.getIdLiga(), v.getIdJornada(), v.getNumeroJornada(), v.getIdEquipo(),
+                    v.getVictorias(), v.getEmpates(), v.getDerrotas(), v.getGolesAFavor(), v.getGolesEnContra(),
+                    v.getVictorias(), v.getEmpates(), v.getDerrotas(), v.getGolesAFavor(), v.getGolesEnContra()});
+        }
+
+        entityManager.flush();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO delta_clasificacion_jornada (id_liga, id_jornada, numero_jornada, id_equipo, " +
+                "victorias, empates, derrotas, golesafavor, goles_en_contra) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE victorias = victorias + ?, empates = empates + ?, derrotas = derrotas + ?, " +
+                "golesafavor = golesafavor + ?, goles_en_contra = goles_en_contra + ?",
+                parametros);
+        entityManager.clear();
+    }
+}
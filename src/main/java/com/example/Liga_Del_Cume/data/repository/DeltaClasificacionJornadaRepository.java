@@ -0,0 +1,28 @@
+package com.example.Liga_Del_Cume.data.repository;
+
+import com.example.Liga_Del_Cume.data.model.DeltaClasificacionJornada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface DeltaClasificacionJornadaRepository extends JpaRepository<DeltaClasificacionJornada, Long> {
+    // Obtener todas las variaciones de una liga ordenadas por jornada
+    List<DeltaClasificacionJornada> findByIdLigaOrderByNumeroJornadaAsc(Long idLiga);
+
+    // Obtener las variaciones de una liga hasta una jornada (incluida)
+    List<DeltaClasificacionJornada> findByIdLigaAndNumeroJornadaLessThanEqual(Long idLiga, int numeroJornada);
+
+    /**
+     * Elimina todas las variaciones por jornada de una liga
+     *
+     * @param idLiga ID de la liga
+     * @return Número de filas eliminadas
+     */
+    @Modifying
+    @Query("DELETE FROM DeltaClasificacionJornada d WHERE d.idLiga = :idLiga")
+    int deleteByIdLiga(@Param("idLiga") Long idLiga);
+}
@@ -0,0 +1,202 @@
+package com.example.Liga_Del_Cume.data.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acceso JDBC a las estadísticas de jugadores para procesos masivos
+ *
+ * Se usa para volver a puntuar una temporada entera (lee las estadísticas de una
+ * liga por bloques, paginando por la clave partido/jugador) y para importar los
+ * resultados de una jornada completa. En ambos casos se trabaja sin cargar
+ * entidades y los cambios se escriben con actualizaciones por lotes de JDBC.
+ *
+ * Como AlineacionJdbcRepository, vuelca los cambios pendientes de JPA antes de
+ * leer o escribir y limpia el contexto de persistencia después de escribir.
+ */
+@Repository
+public class EstadisticaJdbcRepository {
+
+    private static final String SELECT_ESTADISTICAS =
+            "SELECT e.partido_id, e.jugador_id, j.es_portero, e.goles_anotados, e.asistencias, " +
+            "e.tarjeta_amarillas, e.tarjeta_rojas, e.min_minutos_jugados, e.goles_recibidos, e.puntos_jornada ";
+
+    private static final String FROM_ESTADISTICAS_LIGA =
+            "FROM estadistica_jugador_partido e " +
+            "JOIN jugador j ON j.id_jugador = e.jugador_id " +
+            "JOIN partido p ON p.id_partido = e.partido_id " +
+            "JOIN jornada jo ON jo.id_jornada = p.jornada_id " +
+            "WHERE jo.liga_id = ? ";
+
+    private static final RowMapper<FilaEstadistica> MAPEO_FILA = (rs, i) -> new FilaEstadistica(
+            rs.getLong(1), rs.getLong(2), rs.getBoolean(3), rs.getInt(4), rs.getInt(5),
+            rs.getInt(6), rs.getBoolean(7), rs.getBoolean(8), rs.getInt(9), rs.getInt(10));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Línea de estadísticas leída para volver a puntuarla
+     */
+    public static class FilaEstadistica {
+        public final long idPartido;
+        public final long idJugador;
+        public final boolean esPortero;
+        public final int golesAnotados;
+        public final int asistencias;
+        public final int tarjetasAmarillas;
+        public final boolean tarjetaRoja;
+        public final boolean minMinutosJugados;
+        public final int golesRecibidos;
+        public final int puntosJornada;
+
+        public FilaEstadistica(long idPartido, long idJugador, boolean esPortero, int golesAnotados,
+                               int asistencias, int tarjetasAmarillas, boolean tarjetaRoja,
+                               boolean minMinutosJugados, int golesRecibidos, int puntosJornada) {
+            this.idPartido = idPartido;
+            this.idJugador = idJugador;
+            this.esPortero = esPortero;
+            this.golesAnotados = golesAnotados;
+            this.asistencias = asistencias;
+            this.tarjetasAmarillas = tarjetasAmarillas;
+            this.tarjetaRoja = tarjetaRoja;
+            this.minMinutosJugados = minMinutosJugados;
+            this.golesRecibidos = golesRecibidos;
+            this.puntosJornada = puntosJornada;
+        }
+    }
+
+    // Contar las estadísticas registradas en una liga
+    public long contarEstadisticasLiga(Long idLiga) {
+        volcarCambiosPendientes();
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) " + FROM_ESTADISTICAS_LIGA, Long.class, idLiga);
+        return total != null ? total : 0;
+    }
+
+    /**
+     * Lee el siguiente bloque de estadísticas de una liga, ordenadas por (partido, jugador)
+     *
+     * @param idLiga ID de la liga
+     * @param despuesDePartido ID de partido de la última fila del bloque anterior (0 para empezar)
+     * @param despuesDeJugador ID de jugador de la última fila del bloque anterior (0 para empezar)
+     * @param tamanoBloque Número máximo de filas a leer
+     * @return Filas del bloque (vacío cuando ya no quedan)
+     */
+    public List<FilaEstadistica> leerBloqueEstadisticasLiga(Long idLiga, long despuesDePartido,
+                                                           long despuesDeJugador, int tamanoBloque) {
+        volcarCambiosPendientes();
+        return jdbcTemplate.query(
+                SELECT_ESTADISTICAS + FROM_ESTADISTICAS_LIGA +
+                "AND (e.partido_id > ? OR (e.partido_id = ? AND e.jugador_id > ?)) " +
+                "ORDER BY e.partido_id, e.jugador_id " +
+                "LIMIT ?",
+                MAPEO_FILA,
+                idLiga, despuesDePartido, despuesDePartido, despuesDeJugador, tamanoBloque);
+    }
+
+    // Obtener todas las estadísticas registradas en los partidos de una jornada
+    public List<FilaEstadistica> leerEstadisticasJornada(Long idJornada) {
+        volcarCambiosPendientes();
+        return jdbcTemplate.query(
+                SELECT_ESTADISTICAS +
+                "FROM estadistica_jugador_partido e " +
+                "JOIN jugador j ON j.id_jugador = e.jugador_id " +
+                "JOIN partido p ON p.id_partido = e.partido_id " +
+                "WHERE p.jornada_id = ?",
+                MAPEO_FILA,
+                idJornada);
+    }
+
+    /**
+     * Inserta por lotes estadísticas nuevas
+     *
+     * @param filas Estadísticas a insertar (no deben existir ya)
+     */
+    public void insertarEstadisticas(List<FilaEstadistica> filas) {
+        volcarCambiosPendientes();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO estadistica_jugador_partido (goles_anotados, asistencias, tarjeta_amarillas, " +
+                "tarjeta_rojas, min_minutos_jugados, goles_recibidos, puntos_jornada, partido_id, jugador_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                parametrosEstadisticas(filas));
+        limpiarContexto();
+    }
+
+    /**
+     * Sobrescribe por lotes todos los datos de estadísticas ya existentes
+     *
+     * @param filas Estadísticas a actualizar, identificadas por partido y jugador
+     */
+    public void actualizarEstadisticas(List<FilaEstadistica> filas) {
+        volcarCambiosPendientes();
+        jdbcTemplate.batchUpdate(
+                "UPDATE estadistica_jugador_partido SET goles_anotados = ?, asistencias = ?, tarjeta_amarillas = ?, " +
+                "tarjeta_rojas = ?, min_minutos_jugados = ?, goles_recibidos = ?, puntos_jornada = ? " +
+                "WHERE partido_id = ? AND jugador_id = ?",
+                parametrosEstadisticas(filas));
+        limpiarContexto();
+    }
+
+    /**
+     * Actualiza por lotes los puntos de varias estadísticas
+     *
+     * @param puntos Filas a actualizar con sus nuevos puntos
+     */
+    public void actualizarPuntosEstadisticas(Map<FilaEstadistica, Integer> puntos) {
+        List<Object[]> parametros = new ArrayList<>(puntos.size());
+        puntos.forEach((fila, nuevosPuntos) -> parametros.add(new Object[]{nuevosPuntos, fila.idPartido, fila.idJugador}));
+        volcarCambiosPendientes();
+        jdbcTemplate.batchUpdate(
+                "UPDATE estadistica_jugador_partido SET puntos_jornada = ? WHERE partido_id = ? AND jugador_id = ?",
+                parametros);
+        limpiarContexto();
+    }
+
+    // Fuera de una transacción (proceso en segundo plano) no hay contexto de persistencia que volcar
+    private void volcarCambiosPendientes() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            entityManager.flush();
+        }
+    }
+
+    private void limpiarContexto() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            entityManager.clear();
+        }
+    }
+
+    private List<Object[]> parametrosEstadisticas(List<FilaEstadistica> filas) {
+        List<Object[]> parametros = new ArrayList<>(filas.size());
+        for (FilaEstadistica fila : filas) {
+            parametros.add(new Object[]{fila.golesAnotados, fila.asistencias, fila.tarjetasAmarillas,
+                    fila.tarjetaRoja, fila.minMinutosJugados, fila.golesRecibidos, fila.puntosJornada,
+                    fila.idPartido, fila.idJugador});
+        }
+        return parametros;
+    }
+
+    /**
+     * Fija por lotes el precio de mercado de varios jugadores
+     *
+     * @param precios Nuevo precio por ID de jugador
+     */
+    public void fijarPreciosJugadores(Map<Long, Float> precios) {
+        List<Object[]> parametros = new ArrayList<>(precios.size());
+        precios.forEach((idJugador, precio) -> parametros.add(new Object[]{precio, idJugador}));
+        volcarCambiosPendientes();
+        jdbcTemplate.batchUpdate("UPDATE jugador SET precio_mercado = ? WHERE id_jugador = ?", parametros);
+        limpiarContexto();
+    }
+}
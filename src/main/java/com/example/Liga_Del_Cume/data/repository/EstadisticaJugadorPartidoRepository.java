@@ -2,12 +2,30 @@ package com.example.Liga_Del_Cume.data.repository;
 
 import com.example.Liga_Del_Cume.data.model.EstadisticaJugadorPartido;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface EstadisticaJugadorPartidoRepository extends JpaRepository<EstadisticaJugadorPartido, Long> {
+
+    // Goles recibidos que corresponden a cada portero: los del equipo rival
+    String GOLES_RECIBIDOS_PORTERO = "(CASE WHEN e.jugador.idJugador IN " +
+            "(SELECT j.idJugador FROM Jugador j WHERE j.equipo.idEquipo = :idEquipoLocal) " +
+            "THEN :golesVisitante ELSE :golesLocal END)";
+
+    // Puntos del portero por goles recibidos, con los goles guardados y con los nuevos
+    String TRAMO_GOLES_RECIBIDOS_ANTERIOR = "(CASE WHEN e.golesRecibidos = 0 " +
+            "THEN (CASE WHEN e.minMinutosJugados = true THEN :porteriaCero ELSE 0 END) " +
+            "WHEN e.golesRecibidos <= 2 THEN :unoODosGoles ELSE :tresOMasGoles END)";
+    String TRAMO_GOLES_RECIBIDOS_NUEVO = "(CASE WHEN " + GOLES_RECIBIDOS_PORTERO + " = 0 " +
+            "THEN (CASE WHEN e.minMinutosJugados = true THEN :porteriaCero ELSE 0 END) " +
+            "WHEN " + GOLES_RECIBIDOS_PORTERO + " <= 2 THEN :unoODosGoles ELSE :tresOMasGoles END)";
+
     // Obtenemos todas las estadisticas de un jugador
     List<EstadisticaJugadorPartido> findByJugadorNombreJugador(String nombreJugador);
 
@@ -17,6 +35,46 @@ public interface EstadisticaJugadorPartidoRepository extends JpaRepository<Estad
     // Obtenemos las estadisticas de todos los jugadores de un partido
     List<EstadisticaJugadorPartido> findByPartidoIdPartido(Long idPartido);
 
+    // Comprobar si un partido tiene estadísticas registradas (sin cargarlas)
+    boolean existsByPartidoIdPartido(Long idPartido);
+
+    /**
+     * Actualiza en una sola sentencia los goles recibidos de todos los porteros de un
+     * partido y ajusta sus puntos: se quita el tramo de goles recibidos anterior
+     * (portería a cero, 1-2 goles o 3 o más) y se suma el nuevo. Los puntos se
+     * asignan primero para que MySQL, que evalúa el SET en orden, use los goles anteriores.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE EstadisticaJugadorPartido e SET " +
+            "e.puntosJornada = e.puntosJornada - " + TRAMO_GOLES_RECIBIDOS_ANTERIOR +
+            " + " + TRAMO_GOLES_RECIBIDOS_NUEVO + ", " +
+            "e.golesRecibidos = " + GOLES_RECIBIDOS_PORTERO + " " +
+            "WHERE e.partido.idPartido = :idPartido " +
+            "AND e.jugador.idJugador IN (SELECT p.idJugador FROM Jugador p WHERE p.esPortero = true)")
+    int actualizarGolesRecibidosPorteros(@Param("idPartido") Long idPartido,
+                                         @Param("idEquipoLocal") Long idEquipoLocal,
+                                         @Param("golesLocal") int golesLocal,
+                                         @Param("golesVisitante") int golesVisitante,
+                                         @Param("porteriaCero") int porteriaCero,
+                                         @Param("unoODosGoles") int unoODosGoles,
+                                         @Param("tresOMasGoles") int tresOMasGoles);
+
+    // Sumar los puntos de cada jugador en una jornada (ID del jugador, puntos)
+    @Query("SELECT e.jugador.idJugador, SUM(e.puntosJornada) FROM EstadisticaJugadorPartido e " +
+            "WHERE e.partido.jornada.idJornada = :idJornada GROUP BY e.jugador.idJugador")
+    List<Object[]> sumarPuntosJugadoresJornada(@Param("idJornada") Long idJornada);
+
+    // Sumar las estadísticas de la temporada de unos jugadores (ID del jugador, goles, asistencias,
+    // amarillas, rojas, goles recibidos, puntos, partidos)
+    @Query("SELECT e.jugador.idJugador, SUM(e.golesAnotados), SUM(e.asistencias), SUM(e.tarjetaAmarillas), " +
+            "SUM(CASE WHEN e.tarjetaRojas = true THEN 1 ELSE 0 END), SUM(e.golesRecibidos), " +
+            "SUM(e.puntosJornada), COUNT(e) FROM EstadisticaJugadorPartido e " +
+            "WHERE e.jugador.idJugador IN :idsJugadores GROUP BY e.jugador.idJugador")
+    List<Object[]> sumarEstadisticasTemporada(@Param("idsJugadores") Collection<Long> idsJugadores);
+
+    // Comprobar si una jornada tiene estadísticas con puntos calculados (sin cargarlas)
+    boolean existsByPartidoJornadaIdJornadaAndPuntosJornadaGreaterThan(Long idJornada, int puntosJornada);
+
     // Obtenemos las estadisticas de un jugador en un partido específico
     EstadisticaJugadorPartido findByJugadorIdJugadorAndPartidoJornadaIdJornada(Long idJugador, Long idJornada);
 
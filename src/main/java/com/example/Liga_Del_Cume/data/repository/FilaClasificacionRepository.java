@@ -0,0 +1,36 @@
+package com.example.Liga_Del_Cume.data.repository;
+
+import com.example.Liga_Del_Cume.data.model.FilaClasificacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface FilaClasificacionRepository extends JpaRepository<FilaClasificacion, Long> {
+    // Obtener la tabla de clasificación de una liga ya ordenada
+    // (puntos, diferencia de goles y goles a favor, todo descendente)
+    @Query("SELECT f FROM FilaClasificacion f WHERE f.idLiga = :idLiga " +
+            "ORDER BY f.puntosTotales DESC, (f.golesAFavor - f.golesEnContra) DESC, f.golesAFavor DESC")
+    List<FilaClasificacion> findClasificacionOrdenada(@Param("idLiga") Long idLiga);
+
+    // Buscar la fila de un equipo
+    Optional<FilaClasificacion> findByIdEquipo(Long idEquipo);
+
+    // Comprobar si la clasificación de una liga ya está materializada
+    boolean existsByIdLiga(Long idLiga);
+
+    /**
+     * Elimina todas las filas de clasificación de una liga para que se
+     * reconstruyan desde los partidos en la siguiente lectura
+     *
+     * @param idLiga ID de la liga
+     * @return Número de filas eliminadas
+     */
+    @Modifying
+    @Query("DELETE FROM FilaClasificacion f WHERE f.idLiga = :idLiga")
+    int deleteByIdLiga(@Param("idLiga") Long idLiga);
+}
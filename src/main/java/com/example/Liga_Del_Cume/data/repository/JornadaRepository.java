@@ -2,6 +2,8 @@ package com.example.Liga_Del_Cume.data.repository;
 
 import com.example.Liga_Del_Cume.data.model.Jornada;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -12,4 +14,12 @@ public interface JornadaRepository extends JpaRepository<Jornada, Long> {
 
     // Buscar jornadas ordenadas por ID
     List<Jornada> findByLigaIdLigaCumeOrderByIdJornadaAsc(Long idLiga);
+
+    // Buscar IDs de las jornadas de una liga sin resultados (ningún partido jugado, el mismo
+    // criterio que la clasificación), por número
+    @Query("SELECT j.idJornada FROM Jornada j " +
+            "WHERE j.liga.idLigaCume = :idLiga " +
+            "AND NOT EXISTS (SELECT p FROM Partido p WHERE p.jornada = j AND p.jugado = true) " +
+            "ORDER BY j.numeroJornada")
+    List<Long> findIdsJornadasSinResultados(@Param("idLiga") Long idLiga);
 }
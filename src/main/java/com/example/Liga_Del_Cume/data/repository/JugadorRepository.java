@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -80,7 +81,34 @@ public interface JugadorRepository extends JpaRepository<Jugador, Long> {
      * @param ligaId ID de la liga cuyos jugadores serán actualizados
      */
     @Modifying
-    @Query("UPDATE Jugador j SET j.precioMercado = 100000.0 WHERE j.equipo.liga.idLigaCume = :ligaId")
+    @Query("UPDATE Jugador j SET j.precioMercado = 100000.0, j.precioSalida = 100000.0 WHERE j.equipo.liga.idLigaCume = :ligaId")
     void resetPreciosJugadoresPorLiga(@Param("ligaId") Long ligaId);
 
-}
\ No newline at end of file
+    // Buscar el precio de salida de varios jugadores (sin cargarlos)
+    @Query("SELECT j.idJugador, j.precioSalida FROM Jugador j WHERE j.idJugador IN :ids")
+    List<Object[]> findPreciosSalida(@Param("ids") Collection<Long> ids);
+
+    // Comprobar si una liga tiene jugadores sin precio de salida (creados antes del historial de precios)
+    boolean existsByEquipoLigaIdLigaCumeAndPrecioSalidaIsNull(Long idLiga);
+
+    /**
+     * Deduce el precio de salida de los jugadores de una liga que no lo tienen:
+     * su precio actual menos 1000 por cada punto que ya se le había sumado.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Jugador j SET j.precioSalida = j.precioMercado - 1000.0 * " +
+           "COALESCE((SELECT SUM(e.puntosJornada) FROM EstadisticaJugadorPartido e WHERE e.jugador.idJugador = j.idJugador), 0) " +
+           "WHERE j.precioSalida IS NULL AND j.equipo.liga.idLigaCume = :ligaId")
+    int inicializarPreciosSalida(@Param("ligaId") Long ligaId);
+
+    // Resumen de los jugadores de una liga con sus puntos de la temporada, una fila por jugador.
+    // Cada fila: [idJugador, nombreJugador, avatarUrl, esPortero, precioMercado, idEquipo, nombreEquipo, escudoURL, puntos, partidos]
+    @Query("SELECT j.idJugador, j.nombreJugador, j.avatarUrl, j.esPortero, j.precioMercado, " +
+           "e.idEquipo, e.nombreEquipo, e.escudoURL, " +
+           "(SELECT COALESCE(SUM(est.puntosJornada), 0) FROM EstadisticaJugadorPartido est WHERE est.jugador = j), " +
+           "(SELECT COUNT(est) FROM EstadisticaJugadorPartido est WHERE est.jugador = j) " +
+           "FROM Jugador j JOIN j.equipo e " +
+           "WHERE e.liga.idLigaCume = :ligaId")
+    List<Object[]> findResumenJugadoresLiga(@Param("ligaId") Long ligaId);
+
+}
@@ -1,5 +1,7 @@
 package com.example.Liga_Del_Cume.data.repository;
 
+import com.example.Liga_Del_Cume.data.model.ClasificacionEquipo;
+import com.example.Liga_Del_Cume.data.model.DeltaClasificacionJornada;
 import com.example.Liga_Del_Cume.data.model.Partido;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -41,7 +43,57 @@ public interface PartidoRepository extends JpaRepository<Partido, Long> {
             "   AND p.golesLocal = p.golesVisitante")
     List<Partido> findPartidosEmpatados(@Param("nombreEquipo") String nombreEquipo);
 
- 
+    // Clasificación de una liga en una sola consulta: victorias, empates, derrotas,
+    // goles a favor y en contra de cada equipo sumando sus partidos jugados como
+    // local y como visitante. Los equipos sin partidos jugados aparecen con todo a 0
+    @Query("SELECT new com.example.Liga_Del_Cume.data.model.ClasificacionEquipo(" +
+            "   e.idEquipo, e.nombreEquipo, e.escudoURL, " +
+            "   SUM(CASE WHEN (p.equipoLocal = e AND p.golesLocal > p.golesVisitante) " +
+            "              OR (p.equipoVisitante = e AND p.golesVisitante > p.golesLocal) THEN 1 ELSE 0 END), " +
+            "   SUM(CASE WHEN p.idPartido IS NOT NULL AND p.golesLocal = p.golesVisitante THEN 1 ELSE 0 END), " +
+            "   SUM(CASE WHEN (p.equipoLocal = e AND p.golesLocal < p.golesVisitante) " +
+            "              OR (p.equipoVisitante = e AND p.golesVisitante < p.golesLocal) THEN 1 ELSE 0 END), " +
+            "   SUM(CASE WHEN p.equipoLocal = e THEN p.golesLocal " +
+            "            WHEN p.equipoVisitante = e THEN p.golesVisitante ELSE 0 END), " +
+            "   SUM(CASE WHEN p.equipoLocal = e THEN p.golesVisitante " +
+            "            WHEN p.equipoVisitante = e THEN p.golesLocal ELSE 0 END)) " +
+            "FROM Equipo e LEFT JOIN Partido p " +
+            "   ON (p.equipoLocal = e OR p.equipoVisitante = e) AND p.jugado = true " +
+            "WHERE e.liga.idLigaCume = :idLiga " +
+            "GROUP BY e.idEquipo, e.nombreEquipo, e.escudoURL")
+    List<ClasificacionEquipo> calcularClasificacionLiga(@Param("idLiga") Long idLiga);
+
+    // Lo mismo que calcularClasificacionLiga pero separado por jornada: una fila por
+    // equipo y jornada en la que ha jugado algún partido
+    @Query("SELECT new com.example.Liga_Del_Cume.data.model.DeltaClasificacionJornada(" +
+            "   j.idJornada, j.numeroJornada, e.idEquipo, " +
+            "   SUM(CASE WHEN (p.equipoLocal = e AND p.golesLocal > p.golesVisitante) " +
+            "              OR (p.equipoVisitante = e AND p.golesVisitante > p.golesLocal) THEN 1 ELSE 0 END), " +
+            "   SUM(CASE WHEN p.golesLocal = p.golesVisitante THEN 1 ELSE 0 END), " +
+            "   SUM(CASE WHEN (p.equipoLocal = e AND p.golesLocal < p.golesVisitante) " +
+            "              OR (p.equipoVisitante = e AND p.golesVisitante < p.golesLocal) THEN 1 ELSE 0 END), " +
+            "   SUM(CASE WHEN p.equipoLocal = e THEN p.golesLocal ELSE p.golesVisitante END), " +
+            "   SUM(CASE WHEN p.equipoLocal = e THEN p.golesVisitante ELSE p.golesLocal END)) " +
+            "FROM Partido p JOIN p.jornada j JOIN Equipo e " +
+            "   ON p.equipoLocal = e OR p.equipoVisitante = e " +
+            "WHERE p.jugado = true AND e.liga.idLigaCume = :idLiga " +
+            "GROUP BY j.idJornada, j.numeroJornada, e.idEquipo")
+    List<DeltaClasificacionJornada> calcularDeltasClasificacionLiga(@Param("idLiga") Long idLiga);
+
+    // Resultados de los partidos jugados de una liga hasta una jornada, ordenados por jornada.
+    // Cada fila: [idEquipoLocal, idEquipoVisitante, golesLocal, golesVisitante, numeroJornada]
+    @Query("SELECT p.equipoLocal.idEquipo, p.equipoVisitante.idEquipo, p.golesLocal, p.golesVisitante, j.numeroJornada " +
+            "FROM Partido p JOIN p.jornada j " +
+            "WHERE p.jugado = true AND p.equipoLocal.liga.idLigaCume = :idLiga AND j.numeroJornada <= :hastaJornada " +
+            "ORDER BY j.numeroJornada")
+    List<Object[]> findResultadosJugadosLiga(@Param("idLiga") Long idLiga, @Param("hastaJornada") int hastaJornada);
+
+    // Buscar los equipos que juegan una jornada. Cada fila: [idEquipoLocal, idEquipoVisitante]
+    @Query("SELECT el.idEquipo, ev.idEquipo FROM Partido p " +
+            "LEFT JOIN p.equipoLocal el LEFT JOIN p.equipoVisitante ev " +
+            "WHERE p.jornada.idJornada = :idJornada")
+    List<Object[]> findIdsEquiposJornada(@Param("idJornada") Long idJornada);
+
 
 }
 
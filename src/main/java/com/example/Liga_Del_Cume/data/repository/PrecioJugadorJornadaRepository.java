@@ -0,0 +1,43 @@
+package com.example.Liga_Del_Cume.data.repository;
+
+import com.example.Liga_Del_Cume.data.model.PrecioJugadorJornada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PrecioJugadorJornadaRepository extends JpaRepository<PrecioJugadorJornada, Long> {
+    // Buscar el historial de precios de un jugador, por orden de jornada
+    List<PrecioJugadorJornada> findByIdJugadorOrderByNumeroJornadaAsc(Long idJugador);
+
+    // Buscar el último precio de cada jugador de una liga anterior a una jornada
+    @Query("SELECT p FROM PrecioJugadorJornada p WHERE p.idLiga = :idLiga AND p.numeroJornada = " +
+           "(SELECT MAX(q.numeroJornada) FROM PrecioJugadorJornada q " +
+           "WHERE q.idJugador = p.idJugador AND q.numeroJornada < :numeroJornada)")
+    List<PrecioJugadorJornada> findUltimosPreciosAntesDe(@Param("idLiga") Long idLiga,
+                                                         @Param("numeroJornada") int numeroJornada);
+
+    // Buscar las jornadas de una liga posteriores a una dada que ya tienen precios
+    @Query("SELECT DISTINCT p.idJornada FROM PrecioJugadorJornada p " +
+           "WHERE p.idLiga = :idLiga AND p.numeroJornada > :numeroJornada")
+    List<Long> findIdsJornadasConPreciosDespuesDe(@Param("idLiga") Long idLiga,
+                                                  @Param("numeroJornada") int numeroJornada);
+
+    // Buscar los jugadores con precio en unas jornadas
+    @Query("SELECT DISTINCT p.idJugador FROM PrecioJugadorJornada p WHERE p.idJornada IN :idsJornada")
+    List<Long> findIdsJugadoresConPrecioEn(@Param("idsJornada") Collection<Long> idsJornada);
+
+    // Eliminar los precios de unas jornadas (antes de volver a calcularlos)
+    @Modifying
+    @Query("DELETE FROM PrecioJugadorJornada p WHERE p.idJornada IN :idsJornada")
+    int deleteByIdJornadaIn(@Param("idsJornada") Collection<Long> idsJornada);
+
+    // Eliminar el historial de una liga (al reiniciar la temporada)
+    @Modifying
+    @Query("DELETE FROM PrecioJugadorJornada p WHERE p.idLiga = :idLiga")
+    int deleteByIdLiga(@Param("idLiga") Long idLiga);
+}
@@ -0,0 +1,32 @@
+package com.example.Liga_Del_Cume.data.repository;
+
+import com.example.Liga_Del_Cume.data.model.PuntosUsuarioJornada;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface PuntosUsuarioJornadaRepository extends JpaRepository<PuntosUsuarioJornada, Long> {
+    // Buscar los apuntes de todos los usuarios en una jornada, bloqueándolos hasta el
+    // fin de la transacción (lectura con bloqueo: ve lo último confirmado, no una foto anterior)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<PuntosUsuarioJornada> findByIdJornada(Long idJornada);
+
+    // Buscar los apuntes de un usuario (uno por jornada)
+    List<PuntosUsuarioJornada> findByIdUsuario(Long idUsuario);
+
+    // Eliminar los apuntes de una liga (al reiniciar la temporada)
+    @Modifying
+    @Query("DELETE FROM PuntosUsuarioJornada p WHERE p.idLiga = :idLiga")
+    int deleteByIdLiga(@Param("idLiga") Long idLiga);
+
+    // Eliminar los apuntes de un usuario (al eliminarlo o cambiarlo de liga)
+    @Modifying
+    @Query("DELETE FROM PuntosUsuarioJornada p WHERE p.idUsuario = :idUsuario")
+    int deleteByIdUsuario(@Param("idUsuario") Long idUsuario);
+}
@@ -0,0 +1,39 @@
+package com.example.Liga_Del_Cume.data.repository;
+
+import com.example.Liga_Del_Cume.data.model.RankingJornada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface RankingJornadaRepository extends JpaRepository<RankingJornada, Long> {
+    // Buscar la foto del ranking de una jornada
+    List<RankingJornada> findByIdJornada(Long idJornada);
+
+    // Buscar los IDs de las jornadas ya cerradas de una liga
+    @Query("SELECT DISTINCT r.idJornada FROM RankingJornada r WHERE r.idLiga = :idLiga")
+    List<Long> findIdsJornadasCerradas(@Param("idLiga") Long idLiga);
+
+    // Obtener la foto de la última jornada cerrada de una liga
+    @Query("SELECT r FROM RankingJornada r WHERE r.idLiga = :idLiga AND r.numeroJornada = " +
+            "(SELECT MAX(r2.numeroJornada) FROM RankingJornada r2 WHERE r2.idLiga = :idLiga)")
+    List<RankingJornada> findUltimoRankingLiga(@Param("idLiga") Long idLiga);
+
+    // Obtener la foto de la última jornada cerrada antes de un número de jornada
+    @Query("SELECT r FROM RankingJornada r WHERE r.idLiga = :idLiga AND r.numeroJornada = " +
+            "(SELECT MAX(r2.numeroJornada) FROM RankingJornada r2 " +
+            "WHERE r2.idLiga = :idLiga AND r2.numeroJornada < :numeroJornada)")
+    List<RankingJornada> findRankingAnterior(@Param("idLiga") Long idLiga,
+                                             @Param("numeroJornada") int numeroJornada);
+
+    // Obtener todas las fotos de una liga ordenadas por jornada y posición
+    List<RankingJornada> findByIdLigaOrderByNumeroJornadaAscPosicionAsc(Long idLiga);
+
+    // Eliminar las fotos de una liga (al reiniciar la temporada)
+    @Modifying
+    @Query("DELETE FROM RankingJornada r WHERE r.idLiga = :idLiga")
+    int deleteByIdLiga(@Param("idLiga") Long idLiga);
+}
@@ -0,0 +1,12 @@
+package com.example.Liga_Del_Cume.data.repository;
+
+import com.example.Liga_Del_Cume.data.model.ReglasPuntuacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface ReglasPuntuacionRepository extends JpaRepository<ReglasPuntuacion, Long> {
+    // Buscar las reglas de puntuación de una liga
+    Optional<ReglasPuntuacion> findByIdLiga(Long idLiga);
+}
@@ -0,0 +1,49 @@
+package com.example.Liga_Del_Cume.data.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acceso JDBC a los usuarios para actualizaciones masivas de puntos
+ *
+ * Cada diferencia se suma en la propia sentencia (puntos = puntos + ?), así que
+ * dos transacciones que cambian a la vez los puntos del mismo usuario no pierden
+ * ninguno de los dos cambios. Como AlineacionJdbcRepository, vuelca los cambios
+ * pendientes antes de escribir y limpia el contexto de persistencia después.
+ */
+@Repository
+public class UsuarioJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Suma en un único lote una diferencia a los puntos acumulados de varios usuarios
+     *
+     * @param diferencias Puntos a sumar (o restar) por ID de usuario
+     */
+    public void sumarPuntosAcumulados(Map<Long, Integer> diferencias) {
+        if (diferencias.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> parametros = new ArrayList<>(diferencias.size());
+        diferencias.forEach((idUsuario, diferencia) -> parametros.add(new Object[]{diferencia, idUsuario}));
+
+        entityManager.flush();
+        jdbcTemplate.batchUpdate(
+                "UPDATE usuario SET puntos_acumulados = puntos_acumulados + ? WHERE id_usuario = ?",
+                parametros);
+        entityManager.clear();
+    }
+}
@@ -2,7 +2,11 @@ package com.example.Liga_Del_Cume.data.repository;
 
 import com.example.Liga_Del_Cume.data.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,5 +22,46 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
     // Buscar usuarios ordenados por puntos acumulados (ranking)
     List<Usuario> findByLigaIdLigaCumeOrderByPuntosAcumuladosDesc(Long idLiga);
+
+    // Buscar id, nombre y puntos de los usuarios de una liga (sin cargar las entidades)
+    @Query("SELECT u.idUsuario, u.nombreUsuario, u.puntosAcumulados FROM Usuario u WHERE u.liga.idLigaCume = :ligaId")
+    List<Object[]> findPuntosUsuariosLiga(@Param("ligaId") Long ligaId);
+
+    // Buscar liga, id, nombre y puntos de varios usuarios (sin cargar las entidades)
+    @Query("SELECT u.liga.idLigaCume, u.idUsuario, u.nombreUsuario, u.puntosAcumulados FROM Usuario u " +
+            "WHERE u.idUsuario IN :idsUsuarios")
+    List<Object[]> findPuntosUsuarios(@Param("idsUsuarios") Collection<Long> idsUsuarios);
+
+    /**
+     * Puntos de cada usuario de una liga sumando sus alineaciones hasta una jornada,
+     * ordenados como el ranking (puntos descendente y, a igualdad, ID ascendente)
+     *
+     * Cada fila contiene: [idUsuario, puntos hasta la jornada, puntos en la jornada]
+     *
+     * @param ligaId ID de la liga
+     * @param numeroJornada Número de la última jornada a sumar
+     * @return Una fila por usuario de la liga (también los que no tienen alineaciones)
+     */
+    @Query("SELECT u.idUsuario, " +
+            "COALESCE(SUM(CASE WHEN j.numeroJornada <= :numeroJornada THEN a.puntosTotalesJornada ELSE 0 END), 0) AS puntos, " +
+            "COALESCE(SUM(CASE WHEN j.numeroJornada = :numeroJornada THEN a.puntosTotalesJornada ELSE 0 END), 0) " +
+            "FROM Usuario u LEFT JOIN Alineacion a ON a.usuario = u LEFT JOIN a.jornada j " +
+            "WHERE u.liga.idLigaCume = :ligaId " +
+            "GROUP BY u.idUsuario " +
+            "ORDER BY puntos DESC, u.idUsuario ASC")
+    List<Object[]> findPuntosHastaJornada(@Param("ligaId") Long ligaId, @Param("numeroJornada") int numeroJornada);
+
+    /**
+     * Recalcula los puntos acumulados de todos los usuarios de una liga como la suma
+     * de los puntos de sus alineaciones, en una única sentencia UPDATE con subconsulta.
+     *
+     * @param ligaId ID de la liga cuyos usuarios serán actualizados
+     * @return Número de usuarios actualizados
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Usuario u SET u.puntosAcumulados = " +
+            "(SELECT COALESCE(SUM(a.puntosTotalesJornada), 0) FROM Alineacion a WHERE a.usuario = u) " +
+            "WHERE u.liga.idLigaCume = :ligaId")
+    int recalcularPuntosAcumuladosPorLiga(@Param("ligaId") Long ligaId);
 }
 
@@ -0,0 +1,289 @@
+package com.example.Liga_Del_Cume.data.service;
+
+import com.example.Liga_Del_Cume.data.model.EventoResultadoGuardado;
+import com.example.Liga_Del_Cume.data.model.Jornada;
+import com.example.Liga_Del_Cume.data.repository.JornadaRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio que actualiza en segundo plano lo que depende de una jornada completa
+ *
+ * Cuando se confirma el guardado de un resultado (EventoResultadoGuardado) se
+ * programa la actualización de su jornada: mover las alineaciones futuras al
+ * historial, recalcular los puntos de los usuarios y los precios de los
+ * jugadores y cerrar las jornadas anteriores. Se ejecuta en hilos virtuales, con un máximo de
+ * MAX_ACTUALIZACIONES_SIMULTANEAS ligas a la vez.
+ *
+ * Las peticiones se agrupan por liga: cada liga tiene una sola cola que actualiza
+ * sus jornadas pendientes de una en una, y si llegan más peticiones mientras tanto
+ * se atienden al terminar, con los datos más recientes. Cada actualización se hace
+ * con el cerrojo de la liga (CerrojoLigaService), compartido con la repuntuación y
+ * la importación de resultados, porque todas escriben los mismos puntos, precios y
+ * fotos del ranking.
+ *
+ * Si una actualización falla, la jornada sigue pendiente y se reintenta con una
+ * espera creciente (de ESPERA_REINTENTO_INICIAL hasta ESPERA_REINTENTO_MAXIMA).
+ * Solo se descartan las jornadas que ya no existen.
+ *
+ * No es @Transactional a nivel de clase: cada actualización abre su propia transacción.
+ */
+@Service
+public class ActualizacionJornadaService {
+
+    private static final int MAX_ACTUALIZACIONES_SIMULTANEAS = 4;
+
+    private static final Duration ESPERA_REINTENTO_INICIAL = Duration.ofSeconds(5);
+
+    private static final Duration ESPERA_REINTENTO_MAXIMA = Duration.ofMinutes(5);
+
+    @Autowired
+    private JornadaRepository jornadaRepository;
+
+    @Autowired
+    private ResultadosJornadaService resultadosJornadaService;
+
+    @Autowired
+    private PuntosJornadaService puntosJornadaService;
+
+    @Autowired
+    private RankingService rankingService;
+
+    @Autowired
+    private PrecioJugadorService precioJugadorService;
+
+    @Autowired
+    private CerrojoLigaService cerrojoLigaService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService ejecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("actualizacion-jornada-", 0).factory());
+
+    private final Semaphore permisos = new Semaphore(MAX_ACTUALIZACIONES_SIMULTANEAS);
+
+    private final Map<Long, EstadoLiga> estados = new ConcurrentHashMap<>();
+
+    /**
+     * Estado de las actualizaciones de las jornadas de una liga
+     */
+    private static class EstadoLiga {
+        final Long idLiga;
+        // Jornadas por actualizar; la que está en curso sale de aquí mientras se actualiza
+        final Set<Long> jornadasPendientes = new ConcurrentSkipListSet<>();
+        volatile Long jornadaEnCurso;
+        // Peticiones recibidas desde la última ronda que empezó; 0 = al día
+        final AtomicInteger peticiones = new AtomicInteger();
+        volatile LocalDateTime ultimaActualizacion;
+        volatile String ultimoError;
+
+        EstadoLiga(Long idLiga) {
+            this.idLiga = idLiga;
+        }
+    }
+
+    @Autowired
+    public ActualizacionJornadaService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Programa la actualización de la jornada cuando se confirma el guardado de un resultado
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void alGuardarResultado(EventoResultadoGuardado evento) {
+        solicitarActualizacion(evento.getIdLiga(), evento.getIdJornada());
+    }
+
+    /**
+     * Programa la actualización en segundo plano de una jornada
+     *
+     * Si la liga ya tiene actualizaciones pendientes o en curso no se lanza otra a la
+     * vez: la jornada se añade a la cola de la liga y se actualiza al terminar.
+     *
+     * @param ligaId ID de la liga
+     * @param jornadaId ID de la jornada
+     * @throws IllegalArgumentException si algún ID es nulo
+     */
+    public void solicitarActualizacion(Long ligaId, Long jornadaId) {
+        if (ligaId == null || jornadaId == null) {
+            throw new IllegalArgumentException("Los IDs de la liga y de la jornada no pueden ser nulos");
+        }
+
+        EstadoLiga estado = estados.computeIfAbsent(ligaId, EstadoLiga::new);
+        estado.jornadasPendientes.add(jornadaId);
+        if (estado.peticiones.getAndIncrement() == 0) {
+            ejecutor.submit(() -> procesar(estado));
+        }
+    }
+
+    /**
+     * Actualiza una jornada en el hilo actual: alineaciones futuras, puntos de los
+     * usuarios, precios de los jugadores y fotos del ranking de las jornadas anteriores
+     *
+     * Espera a que la liga no tenga otra actualización, repuntuación o importación en curso.
+     *
+     * @param jornadaId ID de la jornada
+     * @throws RuntimeException si la jornada no existe
+     */
+    public void actualizarJornada(Long jornadaId) {
+        Jornada jornada = jornadaRepository.findById(jornadaId)
+                .orElseThrow(() -> new RuntimeException("No existe ninguna jornada con ID: " + jornadaId));
+
+        if (jornada.getLiga() == null) {
+            actualizarEnTransaccion(jornadaId);
+        } else {
+            cerrojoLigaService.ejecutar(jornada.getLiga().getIdLigaCume(), () -> actualizarEnTransaccion(jornadaId));
+        }
+    }
+
+    /**
+     * Obtiene el estado de las actualizaciones de una liga
+     *
+     * @param ligaId ID de la liga
+     * @return Mapa con actualizado (sin actualizaciones pendientes ni en curso),
+     *         jornadasPendientes, ultimaActualizacion y ultimoError (el de la última
+     *         ronda de actualizaciones con errores, aunque se esté reintentando)
+     */
+    public Map<String, Object> obtenerEstado(Long ligaId) {
+        EstadoLiga estado = ligaId != null ? estados.get(ligaId) : null;
+
+        Set<Long> pendientes = new TreeSet<>();
+        if (estado != null) {
+            pendientes.addAll(estado.jornadasPendientes);
+            Long enCurso = estado.jornadaEnCurso;
+            if (enCurso != null) {
+                pendientes.add(enCurso);
+            }
+        }
+
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("actualizado", pendientes.isEmpty());
+        resultado.put("jornadasPendientes", new ArrayList<>(pendientes));
+        resultado.put("ultimaActualizacion", estado != null ? estado.ultimaActualizacion : null);
+        resultado.put("ultimoError", estado != null ? estado.ultimoError : null);
+        return resultado;
+    }
+
+    private void actualizarEnTransaccion(Long jornadaId) {
+        transactionTemplate.executeWithoutResult(estadoTransaccion -> {
+            Jornada jornada = jornadaRepository.findById(jornadaId)
+                    .orElseThrow(() -> new RuntimeException("No existe ninguna jornada con ID: " + jornadaId));
+
+            resultadosJornadaService.moverAlineacionesFuturasAHistorial(jornada);
+            puntosJornadaService.recalcularPuntosJornada(jornadaId);
+            precioJugadorService.recalcularPreciosJornada(jornadaId);
+            if (jornada.getLiga() != null) {
+                rankingService.cerrarJornadasAnteriores(jornada.getLiga().getIdLigaCume(), jornada.getNumeroJornada());
+            }
+        });
+    }
+
+    private void procesar(EstadoLiga estado) {
+        int intentosFallidos = 0;
+        while (true) {
+            int atendidas = estado.peticiones.get();
+            boolean fallo;
+            try {
+                permisos.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                fallo = actualizarPendientes(estado);
+            } finally {
+                permisos.release();
+            }
+
+            if (fallo) {
+                // Las jornadas que fallaron siguen pendientes: se reintentan tras esperar
+                intentosFallidos++;
+                if (!esperarReintento(intentosFallidos)) {
+                    return;
+                }
+            } else if (estado.peticiones.compareAndSet(atendidas, 0)) {
+                return;
+            } else {
+                // Llegaron peticiones mientras se actualizaba: otra ronda con sus jornadas
+                intentosFallidos = 0;
+            }
+        }
+    }
+
+    /**
+     * Actualiza de una en una las jornadas pendientes de la liga
+     *
+     * @return true si alguna ha fallado y sigue pendiente
+     */
+    private boolean actualizarPendientes(EstadoLiga estado) {
+        List<Long> jornadas = new ArrayList<>(estado.jornadasPendientes);
+        if (jornadas.isEmpty()) {
+            return false;
+        }
+
+        boolean fallo = false;
+        String error = null;
+        for (Long jornadaId : jornadas) {
+            estado.jornadaEnCurso = jornadaId;
+            estado.jornadasPendientes.remove(jornadaId);
+            try {
+                if (!jornadaRepository.existsById(jornadaId)) {
+                    // No tiene sentido reintentarla: se descarta anotando el error
+                    error = "No existe ninguna jornada con ID: " + jornadaId;
+                    continue;
+                }
+                cerrojoLigaService.ejecutar(estado.idLiga, () -> actualizarEnTransaccion(jornadaId));
+                estado.ultimaActualizacion = LocalDateTime.now();
+            } catch (RuntimeException e) {
+                estado.jornadasPendientes.add(jornadaId);
+                error = e.getMessage();
+                fallo = true;
+                System.err.println("Error al actualizar la jornada " + jornadaId + ": " + e.getMessage());
+            } finally {
+                estado.jornadaEnCurso = null;
+            }
+        }
+        estado.ultimoError = error;
+        return fallo;
+    }
+
+    /**
+     * Espera antes de reintentar: el doble en cada intento fallido, hasta ESPERA_REINTENTO_MAXIMA
+     *
+     * @return false si el hilo se ha interrumpido (la aplicación se está deteniendo)
+     */
+    private boolean esperarReintento(int intentosFallidos) {
+        Duration espera = ESPERA_REINTENTO_INICIAL.multipliedBy(1L << Math.min(intentosFallidos - 1, 10));
+        if (espera.compareTo(ESPERA_REINTENTO_MAXIMA) > 0) {
+            espera = ESPERA_REINTENTO_MAXIMA;
+        }
+        try {
+            Thread.sleep(espera);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
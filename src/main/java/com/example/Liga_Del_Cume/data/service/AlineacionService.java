@@ -1,12 +1,11 @@
 package com.example.Liga_Del_Cume.data.service;
 
 import com.example.Liga_Del_Cume.data.model.Alineacion;
-import com.example.Liga_Del_Cume.data.model.EstadisticaJugadorPartido;
 import com.example.Liga_Del_Cume.data.model.Jornada;
 import com.example.Liga_Del_Cume.data.model.Jugador;
-import com.example.Liga_Del_Cume.data.model.Partido;
 import com.example.Liga_Del_Cume.data.model.Usuario;
 import com.example.Liga_Del_Cume.data.repository.AlineacionRepository;
+import com.example.Liga_Del_Cume.data.repository.EstadisticaJugadorPartidoRepository;
 import com.example.Liga_Del_Cume.data.repository.UsuarioRepository;
 import com.example.Liga_Del_Cume.data.repository.JornadaRepository;
 import com.example.Liga_Del_Cume.data.exceptions.AlineacionException;
@@ -39,7 +38,10 @@ public class AlineacionService {
     private JornadaRepository jornadaRepository;
 
     @Autowired
-    private EstadisticaService estadisticaService;
+    private EstadisticaJugadorPartidoRepository estadisticaRepository;
+
+    @Autowired
+    private PuntosJornadaService puntosJornadaService;
 
     /**
      * Funcionalidad 6.2: Crear una alineación para un usuario en una jornada
@@ -121,22 +123,13 @@ public class AlineacionService {
      * Una jornada se considera evaluada si alguno de sus partidos tiene estadísticas con puntos calculados
      */
     private boolean esJornadaEvaluada(Jornada jornada) {
-        if (jornada.getPartidos() == null || jornada.getPartidos().isEmpty()) {
-            return false; // Si no hay partidos, la jornada no está evaluada
+        if (jornada == null || jornada.getIdJornada() == null) {
+            return false;
         }
 
-        // Verificar si algún partido tiene estadísticas con puntos calculados
-        for (Partido partido : jornada.getPartidos()) {
-            if (partido.getEstadisticas() != null && !partido.getEstadisticas().isEmpty()) {
-                for (EstadisticaJugadorPartido estadistica : partido.getEstadisticas()) {
-                    if (estadistica.getPuntosJornada() > 0) {
-                        return true; // La jornada ya fue evaluada
-                    }
-                }
-            }
-        }
-
-        return false; // La jornada no ha sido evaluada aún
+        // Se pregunta a la base de datos sin cargar los partidos ni sus estadísticas
+        return estadisticaRepository.existsByPartidoJornadaIdJornadaAndPuntosJornadaGreaterThan(
+                jornada.getIdJornada(), 0);
     }
 
     /**
@@ -244,24 +237,8 @@ public class AlineacionService {
             );
         }
 
-        // Inicializar contador de puntos
-        int puntosTotales = 0;
-        Long jornadaId = alineacion.getJornada().getIdJornada();
-
-        // Para cada jugador de la alineación, buscar sus estadísticas en esta jornada
-        for (Jugador jugador : alineacion.getJugadores()) {
-            // Obtener todas las estadísticas del jugador
-            List<EstadisticaJugadorPartido> estadisticas =
-                    estadisticaService.obtenerEstadisticasJugador(jugador.getIdJugador());
-
-            // Filtrar por jornada y sumar puntos
-            for (EstadisticaJugadorPartido est : estadisticas) {
-                // Solo sumar puntos de partidos de esta jornada específica
-                if (est.getPartido().getJornada().getIdJornada().equals(jornadaId)) {
-                    puntosTotales += est.getPuntosJornada();
-                }
-            }
-        }
+        // Sumar en una consulta los puntos de sus jugadores en los partidos de esta jornada
+        int puntosTotales = alineacionRepository.sumarPuntosAlineacion(alineacionId);
 
         // Actualizar los puntos totales de la alineación
         alineacion.setPuntosTotalesJornada(puntosTotales);
@@ -270,6 +247,47 @@ public class AlineacionService {
         return alineacionRepository.save(alineacion);
     }
 
+    /**
+     * Funcionalidad 10: Calcular los puntos de todas las alineaciones de una jornada
+     *
+     * Los puntos de todas las alineaciones se calculan en una única consulta agrupada
+     * (alineacion_jugadores unido a las estadísticas de los partidos de la jornada) y
+     * las que cambian se escriben en un solo lote, junto con los puntos acumulados
+     * de sus usuarios (ver PuntosJornadaService). El coste depende del número de
+     * alineaciones de la jornada, no de la duración de la temporada.
+     *
+     * Validaciones:
+     * 1. Verifica que el ID no sea nulo
+     * 2. Verifica que la jornada exista
+     * 3. Verifica que la jornada haya sido evaluada (debe tener estadísticas con puntos)
+     *
+     * @param jornadaId ID de la jornada
+     * @return Número de usuarios cuyos puntos acumulados han cambiado
+     * @throws AlineacionException Si alguna validación falla
+     */
+    public int calcularPuntosJornada(Long jornadaId) {
+        // Validación 1: Verificar que el ID no sea nulo
+        if (jornadaId == null) {
+            throw new AlineacionException("El ID de la jornada no puede ser nulo");
+        }
+
+        // Validación 2: Verificar que la jornada exista
+        Jornada jornada = jornadaRepository.findById(jornadaId)
+                .orElseThrow(() -> new AlineacionException(
+                    "No existe ninguna jornada con ID: " + jornadaId
+                ));
+
+        // Validación 3: Verificar que la jornada haya sido evaluada
+        if (!esJornadaEvaluada(jornada)) {
+            throw new AlineacionException(
+                "No se pueden calcular los puntos porque la jornada " + jornadaId +
+                " aún no ha sido evaluada. Debe registrar las estadísticas de los partidos primero."
+            );
+        }
+
+        return puntosJornadaService.recalcularPuntosJornada(jornadaId);
+    }
+
     /**
      * Modifica la alineación de un usuario (cambia los jugadores seleccionados)
      *
@@ -0,0 +1,77 @@
+package com.example.Liga_Del_Cume.data.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Servicio con un cerrojo por liga para los procesos que recalculan una liga entera
+ *
+ * La actualización de jornadas, la repuntuación de la temporada y la importación
+ * de resultados escriben las mismas filas: puntos de los usuarios, precios de las
+ * jornadas siguientes y fotos del ranking de las jornadas cerradas. Con el
+ * cerrojo de la liga se ejecutan de uno en uno, y como se suelta después de
+ * confirmar, el siguiente proceso ya lee los datos del anterior.
+ *
+ * El cerrojo es reentrante: un proceso que ya lo tiene puede volver a pedirlo.
+ */
+@Service
+public class CerrojoLigaService {
+
+    private final Map<Long, ReentrantLock> cerrojos = new ConcurrentHashMap<>();
+
+    /**
+     * Ejecuta una tarea con el cerrojo de la liga
+     *
+     * La tarea debe abrir y confirmar su propia transacción, para que el cerrojo
+     * se suelte con los cambios ya confirmados.
+     *
+     * @param ligaId ID de la liga
+     * @param tarea Tarea a ejecutar
+     * @throws IllegalArgumentException si el ID es nulo
+     */
+    public void ejecutar(Long ligaId, Runnable tarea) {
+        ReentrantLock cerrojo = obtenerCerrojo(ligaId);
+        cerrojo.lock();
+        try {
+            tarea.run();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Toma el cerrojo de la liga hasta que termine la transacción actual
+     *
+     * Se suelta al confirmar o deshacer la transacción. Sin transacción activa se
+     * espera a que la liga quede libre y se suelta en el momento.
+     *
+     * @param ligaId ID de la liga
+     * @throws IllegalArgumentException si el ID es nulo
+     */
+    public void bloquearHastaFinTransaccion(Long ligaId) {
+        ReentrantLock cerrojo = obtenerCerrojo(ligaId);
+        cerrojo.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cerrojo.unlock();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cerrojo.unlock();
+            }
+        });
+    }
+
+    private ReentrantLock obtenerCerrojo(Long ligaId) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+        return cerrojos.computeIfAbsent(ligaId, id -> new ReentrantLock());
+    }
+}
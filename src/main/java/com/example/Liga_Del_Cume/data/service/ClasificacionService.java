@@ -1,18 +1,33 @@
 package com.example.Liga_Del_Cume.data.service;
 
 import com.example.Liga_Del_Cume.data.model.ClasificacionEquipo;
+import com.example.Liga_Del_Cume.data.model.DeltaClasificacionJornada;
 import com.example.Liga_Del_Cume.data.model.Equipo;
+import com.example.Liga_Del_Cume.data.model.EvolucionClasificacionEquipo;
+import com.example.Liga_Del_Cume.data.model.FilaClasificacion;
+import com.example.Liga_Del_Cume.data.model.Jornada;
+import com.example.Liga_Del_Cume.data.model.MatrizEnfrentamientos;
 import com.example.Liga_Del_Cume.data.model.Partido;
-import com.example.Liga_Del_Cume.data.model.EstadisticaJugadorPartido;
+import com.example.Liga_Del_Cume.data.repository.ClasificacionJdbcRepository;
+import com.example.Liga_Del_Cume.data.repository.DeltaClasificacionJornadaRepository;
 import com.example.Liga_Del_Cume.data.repository.EquipoRepository;
+import com.example.Liga_Del_Cume.data.repository.FilaClasificacionRepository;
 import com.example.Liga_Del_Cume.data.repository.PartidoRepository;
-import com.example.Liga_Del_Cume.data.repository.EstadisticaJugadorPartidoRepository;
 import com.example.Liga_Del_Cume.data.exceptions.EquipoException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
@@ -23,6 +38,28 @@ import java.util.stream.Collectors;
  * - Victoria: 3 puntos
  * - Empate: 1 punto
  * - Derrota: 0 puntos
+ *
+ * La clasificación se guarda materializada en FilaClasificacion (una fila por
+ * equipo). Cada cambio de resultado aplica solo la diferencia sobre las dos filas
+ * afectadas, y la tabla se reconstruye desde los partidos únicamente cuando
+ * todavía no existe o ha sido invalidada.
+ *
+ * Las lecturas no escriben: si la tabla no existe, la calculan en memoria con
+ * una consulta agregada y la materializan después del commit, en una transacción
+ * propia y con un cerrojo por liga, de modo que dos primeras lecturas a la vez
+ * no insertan dos veces las mismas filas.
+ *
+ * Junto a ella se guarda lo que aporta cada jornada a cada equipo
+ * (DeltaClasificacionJornada), de donde salen la clasificación histórica
+ * "hasta la jornada N" y la evolución de posiciones como sumas acumuladas.
+ *
+ * Los empates a puntos se resuelven con los enfrentamientos directos entre los
+ * equipos empatados, usando una MatrizEnfrentamientos por liga que se guarda en
+ * memoria y se descarta cada vez que cambia un resultado de la liga.
+ *
+ * La clasificación ya ordenada (con la posición de cada equipo) también se guarda
+ * en memoria por liga, de forma que consultar la tabla o la fila de un equipo no
+ * necesita acceder a la base de datos hasta que cambie algún resultado.
  */
 @Service
 @Transactional
@@ -35,13 +72,42 @@ public class ClasificacionService {
     private PartidoRepository partidoRepository;
 
     @Autowired
-    private EstadisticaJugadorPartidoRepository estadisticaRepository;
+    private FilaClasificacionRepository filaClasificacionRepository;
+
+    @Autowired
+    private DeltaClasificacionJornadaRepository deltaClasificacionRepository;
+
+    @Autowired
+    private ClasificacionJdbcRepository clasificacionJdbcRepository;
+
+    // Matriz de enfrentamientos directos de cada liga (clave: ID de la liga)
+    private final Map<Long, MatrizEnfrentamientos> matricesEnfrentamientos = new ConcurrentHashMap<>();
+
+    // Clasificación ordenada de cada liga: ID de la liga -> (ID del equipo -> fila con posición)
+    private final Map<Long, Map<Long, ClasificacionEquipo>> clasificacionesOrdenadas = new ConcurrentHashMap<>();
+
+    // Versión de los resultados de cada liga: aumenta cada vez que se descartan sus datos en memoria
+    private final Map<Long, AtomicLong> versiones = new ConcurrentHashMap<>();
+
+    // Cerrojo por liga para materializar su clasificación de una en una
+    private final Map<Long, ReentrantLock> cerrojosReconstruccion = new ConcurrentHashMap<>();
+
+    // Transacción propia para materializar la clasificación después del commit de una lectura
+    private final TransactionTemplate transaccionReconstruccion;
+
+    @Autowired
+    public ClasificacionService(PlatformTransactionManager transactionManager) {
+        this.transaccionReconstruccion = new TransactionTemplate(transactionManager);
+        this.transaccionReconstruccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
     /**
      * Obtiene la clasificación completa de una liga
      *
-     * Este método calcula los puntos de cada equipo basándose en sus partidos
-     * jugados y los ordena de mayor a menor puntuación.
+     * Devuelve la clasificación guardada en memoria si existe. Si no, lee las filas
+     * materializadas de la liga (o la calcula a partir de los partidos jugados si
+     * todavía no existen o se han invalidado), aplica el desempate y asigna la
+     * posición de cada equipo.
      *
      * @param ligaId ID de la liga
      * @return Lista de ClasificacionEquipo ordenada por puntos (descendente)
@@ -53,121 +119,412 @@ public class ClasificacionService {
             throw new EquipoException("El ID de la liga debe ser válido");
         }
 
-        // Obtener todos los equipos de la liga
-        List<Equipo> equipos = equipoRepository.findByLigaIdLigaCume(ligaId);
+        return new ArrayList<>(obtenerClasificacionOrdenada(ligaId).values());
+    }
+
+    /**
+     * Devuelve la clasificación ordenada de una liga indexada por ID de equipo,
+     * calculándola y guardándola en memoria si todavía no está
+     */
+    private Map<Long, ClasificacionEquipo> obtenerClasificacionOrdenada(Long ligaId) {
+        Map<Long, ClasificacionEquipo> enMemoria = clasificacionesOrdenadas.get(ligaId);
+        if (enMemoria != null) {
+            return enMemoria;
+        }
+
+        // Si la versión cambia mientras se calcula, la tabla puede tener datos anteriores al cambio
+        long versionAntes = obtenerVersion(ligaId);
+
+        List<FilaClasificacion> filas = filaClasificacionRepository.findClasificacionOrdenada(ligaId);
+
+        List<ClasificacionEquipo> clasificacion;
+        if (filas.isEmpty()) {
+            clasificacion = partidoRepository.calcularClasificacionLiga(ligaId);
+            if (!clasificacion.isEmpty()) {
+                programarReconstruccion(ligaId);
+            }
+        } else {
+            clasificacion = filas.stream().map(FilaClasificacion::toClasificacionEquipo).collect(Collectors.toList());
+        }
+
+        // Desempatar por enfrentamientos directos
+        MatrizEnfrentamientos matriz = matricesEnfrentamientos.get(ligaId);
+        if (matriz == null) {
+            matriz = construirMatrizEnfrentamientos(ligaId, clasificacion, Integer.MAX_VALUE);
+            guardarSiNoHaCambiado(matricesEnfrentamientos, ligaId, versionAntes, matriz);
+        }
+        matriz.ordenar(clasificacion);
+
+        Map<Long, ClasificacionEquipo> ordenada = new LinkedHashMap<>();
+        for (int i = 0; i < clasificacion.size(); i++) {
+            ClasificacionEquipo equipo = clasificacion.get(i);
+            equipo.setPosicion(i + 1);
+            ordenada.put(equipo.getIdEquipo(), equipo);
+        }
+
+        // No guardar en memoria una liga vacía: sus equipos pueden estar creándose
+        if (!ordenada.isEmpty()) {
+            guardarSiNoHaCambiado(clasificacionesOrdenadas, ligaId, versionAntes, Collections.unmodifiableMap(ordenada));
+        }
+        return ordenada;
+    }
+
+    /**
+     * Guarda en memoria un dato calculado para una liga solo si su versión no ha
+     * cambiado desde que se empezó a calcular
+     *
+     * La comprobación y el guardado son atómicos respecto a descartar (que sube la
+     * versión antes de quitar los datos): o el dato se guarda antes y descartar lo
+     * quita, o se ve la versión nueva y no se guarda.
+     */
+    private <V> void guardarSiNoHaCambiado(Map<Long, V> datos, Long ligaId, long versionAntes, V valor) {
+        datos.compute(ligaId, (id, actual) -> obtenerVersion(ligaId) == versionAntes ? valor : actual);
+    }
 
-        if (equipos == null || equipos.isEmpty()) {
-            return new ArrayList<>(); // Retornar lista vacía si no hay equipos
+    /**
+     * Descarta los datos en memoria de una liga y sube su versión
+     *
+     * Se descartan en el momento y otra vez al terminar la transacción. La
+     * segunda vez quita lo que una lectura guardara antes del commit; una lectura
+     * que empezó antes del commit y termina después no llega a guardar su tabla,
+     * porque la versión ya no es la que leyó al empezar (guardarSiNoHaCambiado).
+     */
+    private void descartarDatosEnMemoria(Long ligaId) {
+        descartar(ligaId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    descartar(ligaId);
+                }
+            });
         }
+    }
+
+    private void descartar(Long ligaId) {
+        versiones.computeIfAbsent(ligaId, id -> new AtomicLong()).incrementAndGet();
+        matricesEnfrentamientos.remove(ligaId);
+        clasificacionesOrdenadas.remove(ligaId);
+    }
 
-        // Crear mapa de clasificación para cada equipo
-        Map<Long, ClasificacionEquipo> clasificacionMap = new HashMap<>();
+    private long obtenerVersion(Long ligaId) {
+        return versiones.computeIfAbsent(ligaId, id -> new AtomicLong()).get();
+    }
+
+    /**
+     * Construye la matriz de enfrentamientos directos de una liga con los partidos
+     * jugados hasta una jornada
+     *
+     * @param ligaId ID de la liga
+     * @param equipos Equipos de la liga
+     * @param hastaJornada Número de la última jornada a tener en cuenta
+     * @return Matriz con los resultados entre cada par de equipos
+     */
+    private MatrizEnfrentamientos construirMatrizEnfrentamientos(Long ligaId, List<ClasificacionEquipo> equipos,
+                                                                 int hastaJornada) {
+        MatrizEnfrentamientos matriz = new MatrizEnfrentamientos(
+            equipos.stream().map(ClasificacionEquipo::getIdEquipo).collect(Collectors.toList()));
+
+        for (Object[] resultado : partidoRepository.findResultadosJugadosLiga(ligaId, hastaJornada)) {
+            matriz.registrarResultado((Long) resultado[0], (Long) resultado[1],
+                (Integer) resultado[2], (Integer) resultado[3]);
+        }
+        return matriz;
+    }
 
-        // Inicializar clasificación para cada equipo
-        for (Equipo equipo : equipos) {
-            ClasificacionEquipo clasificacion = new ClasificacionEquipo(
-                equipo.getIdEquipo(),
-                equipo.getNombreEquipo(),
-                equipo.getEscudoURL()
-            );
-            clasificacionMap.put(equipo.getIdEquipo(), clasificacion);
+    /**
+     * Materializa la clasificación de una liga cuando termine la transacción actual
+     * (solo si se confirma), para que la lectura que la necesita no escriba
+     */
+    private void programarReconstruccion(Long ligaId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reconstruirClasificacion(ligaId);
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reconstruirClasificacion(ligaId);
+            }
+        });
+    }
+
+    /**
+     * Recalcula la clasificación de una liga desde sus partidos y la guarda como
+     * filas materializadas, en una transacción nueva
+     *
+     * Con el cerrojo de la liga, una segunda reconstrucción ve ya las filas de la
+     * primera y no hace nada. Si algún resultado de la liga cambia mientras se
+     * reconstruye, la transacción se deshace: las filas podrían no incluirlo y la
+     * siguiente lectura lo volverá a intentar. Si otra instancia de la aplicación
+     * inserta las mismas filas a la vez, falla la restricción única y esta
+     * reconstrucción simplemente se descarta.
+     *
+     * El cálculo se hace con una única consulta agregada sobre los partidos
+     * marcados como jugados (ver PartidoRepository.calcularClasificacionLiga).
+     *
+     * @param ligaId ID de la liga
+     */
+    private void reconstruirClasificacion(Long ligaId) {
+        ReentrantLock cerrojo = cerrojosReconstruccion.computeIfAbsent(ligaId, id -> new ReentrantLock());
+        cerrojo.lock();
+        try {
+            long versionAntes = obtenerVersion(ligaId);
+            transaccionReconstruccion.executeWithoutResult(estado -> {
+                if (filaClasificacionRepository.existsByIdLiga(ligaId)) {
+                    return;
+                }
 
-        // Obtener todos los partidos de los equipos de la liga (sin duplicados)
-        Set<Long> partidosProcesados = new HashSet<>();
+                List<ClasificacionEquipo> clasificacion = partidoRepository.calcularClasificacionLiga(ligaId);
+                if (clasificacion.isEmpty()) {
+                    return;
+                }
+
+                // Guardar las filas materializadas de la liga
+                List<FilaClasificacion> filas = new ArrayList<>();
+                for (ClasificacionEquipo equipo : clasificacion) {
+                    FilaClasificacion fila = new FilaClasificacion(ligaId, equipo.getIdEquipo(),
+                        equipo.getNombreEquipo(), equipo.getEscudoURL());
+                    fila.setVictorias(equipo.getVictorias());
+                    fila.setEmpates(equipo.getEmpates());
+                    fila.setDerrotas(equipo.getDerrotas());
+                    fila.setGolesAFavor(equipo.getGolesAFavor());
+                    fila.setGolesEnContra(equipo.getGolesEnContra());
+                    fila.setPuntosTotales(equipo.getPuntosTotales());
+                    filas.add(fila);
+                }
+                filaClasificacionRepository.saveAll(filas);
 
-        for (Equipo equipo : equipos) {
-            List<Partido> partidos = partidoRepository.findByEquipoLocalNombreEquipoOrEquipoVisitanteNombreEquipo(
-                equipo.getNombreEquipo(),
-                equipo.getNombreEquipo()
-            );
+                // Guardar lo que aporta cada jornada a cada equipo
+                List<DeltaClasificacionJornada> deltas = partidoRepository.calcularDeltasClasificacionLiga(ligaId);
+                deltas.forEach(delta -> delta.setIdLiga(ligaId));
+                deltaClasificacionRepository.saveAll(deltas);
 
-            // Procesar cada partido solo una vez
-            for (Partido partido : partidos) {
-                if (!partidosProcesados.contains(partido.getIdPartido())) {
-                    procesarPartido(partido, clasificacionMap);
-                    partidosProcesados.add(partido.getIdPartido());
+                if (obtenerVersion(ligaId) != versionAntes) {
+                    estado.setRollbackOnly();
                 }
+            });
+        } catch (DataIntegrityViolationException e) {
+            System.err.println("La clasificación de la liga " + ligaId + " ya se estaba materializando: " + e.getMessage());
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Obtiene lo que aporta cada jornada hasta una dada a cada equipo, ordenado por
+     * jornada: de las filas materializadas o, si la liga todavía no las tiene, de
+     * los partidos jugados
+     */
+    private List<DeltaClasificacionJornada> obtenerDeltas(Long ligaId, int hastaJornada) {
+        if (filaClasificacionRepository.existsByIdLiga(ligaId)) {
+            return hastaJornada == Integer.MAX_VALUE
+                ? deltaClasificacionRepository.findByIdLigaOrderByNumeroJornadaAsc(ligaId)
+                : deltaClasificacionRepository.findByIdLigaAndNumeroJornadaLessThanEqual(ligaId, hastaJornada);
+        }
+
+        return partidoRepository.calcularDeltasClasificacionLiga(ligaId).stream()
+            .filter(delta -> delta.getNumeroJornada() <= hastaJornada)
+            .sorted(Comparator.comparingInt(DeltaClasificacionJornada::getNumeroJornada))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Obtiene la clasificación de una liga tal y como estaba al terminar una jornada
+     *
+     * Se parte de todos los equipos a cero y se suman las variaciones de las
+     * jornadas con número menor o igual que el indicado.
+     *
+     * @param ligaId ID de la liga
+     * @param numeroJornada Número de la última jornada a tener en cuenta
+     * @return Lista de ClasificacionEquipo ordenada por puntos (descendente)
+     * @throws EquipoException Si el ID de la liga no es válido
+     */
+    public List<ClasificacionEquipo> obtenerClasificacionHastaJornada(Long ligaId, int numeroJornada) {
+        Map<Long, ClasificacionEquipo> clasificacionMap = inicializarClasificacionVacia(ligaId);
+
+        for (DeltaClasificacionJornada delta : obtenerDeltas(ligaId, numeroJornada)) {
+            ClasificacionEquipo clasificacion = clasificacionMap.get(delta.getIdEquipo());
+            if (clasificacion != null) {
+                delta.sumarA(clasificacion);
             }
         }
 
-        // Convertir el mapa a lista y ordenar
         List<ClasificacionEquipo> clasificacion = new ArrayList<>(clasificacionMap.values());
-        Collections.sort(clasificacion);
-
+        construirMatrizEnfrentamientos(ligaId, clasificacion, numeroJornada).ordenar(clasificacion);
         return clasificacion;
     }
 
     /**
-     * Procesa un partido y actualiza las estadísticas de los equipos involucrados
-     * Solo procesa el partido si realmente se ha jugado (tiene goles o estadísticas)
+     * Obtiene la evolución de la clasificación de todos los equipos de una liga
+     *
+     * Recorre las variaciones ordenadas por jornada una sola vez, manteniendo la
+     * suma acumulada de cada equipo, y al cerrar cada jornada ordena la tabla para
+     * anotar la posición y los puntos de cada equipo. En paralelo se van añadiendo
+     * los resultados de cada jornada a la matriz de enfrentamientos directos.
      *
-     * @param partido El partido a procesar
-     * @param clasificacionMap Mapa de clasificaciones a actualizar
+     * @param ligaId ID de la liga
+     * @param numerosJornada Lista (vacía) donde se devuelven, en orden, los números de
+     *                       jornada a los que corresponde cada posición de las series
+     * @return Evolución de cada equipo, en el orden de la clasificación actual
+     * @throws EquipoException Si el ID de la liga no es válido
      */
-    private void procesarPartido(Partido partido, Map<Long, ClasificacionEquipo> clasificacionMap) {
-        if (partido == null || partido.getEquipoLocal() == null || partido.getEquipoVisitante() == null) {
-            return;
+    public List<EvolucionClasificacionEquipo> obtenerEvolucionClasificacion(Long ligaId, List<Integer> numerosJornada) {
+        Map<Long, ClasificacionEquipo> clasificacionMap = inicializarClasificacionVacia(ligaId);
+
+        Map<Long, EvolucionClasificacionEquipo> evolucionMap = new LinkedHashMap<>();
+        for (ClasificacionEquipo equipo : clasificacionMap.values()) {
+            evolucionMap.put(equipo.getIdEquipo(), new EvolucionClasificacionEquipo(
+                equipo.getIdEquipo(), equipo.getNombreEquipo(), equipo.getEscudoURL()));
+        }
+
+        MatrizEnfrentamientos matriz = new MatrizEnfrentamientos(clasificacionMap.keySet());
+        List<Object[]> resultados = partidoRepository.findResultadosJugadosLiga(ligaId, Integer.MAX_VALUE);
+        int r = 0;
+
+        List<DeltaClasificacionJornada> deltas = obtenerDeltas(ligaId, Integer.MAX_VALUE);
+        int i = 0;
+        while (i < deltas.size()) {
+            int jornadaActual = deltas.get(i).getNumeroJornada();
+
+            // Sumar todas las variaciones de esta jornada
+            while (i < deltas.size() && deltas.get(i).getNumeroJornada() == jornadaActual) {
+                ClasificacionEquipo clasificacion = clasificacionMap.get(deltas.get(i).getIdEquipo());
+                if (clasificacion != null) {
+                    deltas.get(i).sumarA(clasificacion);
+                }
+                i++;
+            }
+
+            // Añadir a la matriz los partidos jugados hasta esta jornada
+            while (r < resultados.size() && numeroJornada(resultados.get(r)) <= jornadaActual) {
+                Object[] resultado = resultados.get(r++);
+                matriz.registrarResultado((Long) resultado[0], (Long) resultado[1],
+                    (Integer) resultado[2], (Integer) resultado[3]);
+            }
+
+            // Anotar la posición de cada equipo al terminar la jornada
+            List<ClasificacionEquipo> tabla = new ArrayList<>(clasificacionMap.values());
+            matriz.ordenar(tabla);
+            for (int posicion = 0; posicion < tabla.size(); posicion++) {
+                ClasificacionEquipo equipo = tabla.get(posicion);
+                evolucionMap.get(equipo.getIdEquipo()).addJornada(posicion + 1, equipo.getPuntosTotales());
+            }
+            numerosJornada.add(jornadaActual);
         }
 
-        Long idLocal = partido.getEquipoLocal().getIdEquipo();
-        Long idVisitante = partido.getEquipoVisitante().getIdEquipo();
+        return new ArrayList<>(evolucionMap.values());
+    }
 
-        ClasificacionEquipo clasificacionLocal = clasificacionMap.get(idLocal);
-        ClasificacionEquipo clasificacionVisitante = clasificacionMap.get(idVisitante);
+    /**
+     * Número de jornada de una fila de findResultadosJugadosLiga
+     */
+    private int numeroJornada(Object[] resultado) {
+        return resultado[4] != null ? (Integer) resultado[4] : 0;
+    }
 
-        // Si alguno de los equipos no está en el mapa, no procesar el partido
-        if (clasificacionLocal == null || clasificacionVisitante == null) {
+    /**
+     * Crea un mapa con todos los equipos de la liga a cero, en el orden de la
+     * clasificación actual
+     */
+    private Map<Long, ClasificacionEquipo> inicializarClasificacionVacia(Long ligaId) {
+        Map<Long, ClasificacionEquipo> clasificacionMap = new LinkedHashMap<>();
+        for (ClasificacionEquipo equipo : obtenerClasificacionLiga(ligaId)) {
+            clasificacionMap.put(equipo.getIdEquipo(), new ClasificacionEquipo(
+                equipo.getIdEquipo(), equipo.getNombreEquipo(), equipo.getEscudoURL()));
+        }
+        return clasificacionMap;
+    }
+
+    /**
+     * Aplica sobre la clasificación materializada el cambio de resultado de un partido
+     *
+     * Se calcula la variación de cada equipo (revertir el resultado anterior si el
+     * partido ya contaba como jugado y sumar el nuevo) y se suma en la propia
+     * sentencia a las filas del equipo local y visitante y a las de su jornada
+     * (ClasificacionJdbcRepository), sin leerlas antes: dos cambios a la vez sobre
+     * el mismo equipo no se pisan. Si la liga aún no tiene la clasificación
+     * materializada no se hace nada: la próxima lectura la calculará completa y la
+     * materializará.
+     *
+     * @param partido Partido con el resultado y el indicador de jugado ya actualizados
+     * @param jugadoAntes Si el partido contaba como jugado antes del cambio
+     * @param golesLocalAntes Goles del equipo local antes del cambio
+     * @param golesVisitanteAntes Goles del equipo visitante antes del cambio
+     */
+    public void aplicarCambioResultado(Partido partido, boolean jugadoAntes,
+                                       int golesLocalAntes, int golesVisitanteAntes) {
+        if (partido == null || partido.getEquipoLocal() == null || partido.getEquipoVisitante() == null
+                || partido.getEquipoLocal().getLiga() == null) {
             return;
         }
 
-        int golesLocal = partido.getGolesLocal();
-        int golesVisitante = partido.getGolesVisitante();
+        Long ligaId = partido.getEquipoLocal().getLiga().getIdLigaCume();
+        descartarDatosEnMemoria(ligaId);
+        if (!filaClasificacionRepository.existsByIdLiga(ligaId) || (!jugadoAntes && !partido.isJugado())) {
+            return;
+        }
 
-        // NUEVO: Verificar si el partido realmente se ha jugado
-        // Un partido se considera jugado si:
-        // 1. Tiene al menos un gol (golesLocal > 0 O golesVisitante > 0), O
-        // 2. Tiene estadísticas de jugadores registradas
-        boolean tieneGoles = golesLocal > 0 || golesVisitante > 0;
-        boolean tieneEstadisticas = false;
+        // Variación de cada equipo: la de la jornada es también la de la tabla completa
+        Jornada jornada = partido.getJornada();
+        Long idJornada = jornada != null ? jornada.getIdJornada() : null;
+        int numeroJornada = jornada != null && jornada.getNumeroJornada() != null ? jornada.getNumeroJornada() : 0;
+        DeltaClasificacionJornada variacionLocal = new DeltaClasificacionJornada(
+                ligaId, idJornada, numeroJornada, partido.getEquipoLocal().getIdEquipo());
+        DeltaClasificacionJornada variacionVisitante = new DeltaClasificacionJornada(
+                ligaId, idJornada, numeroJornada, partido.getEquipoVisitante().getIdEquipo());
+
+        if (jugadoAntes) {
+            variacionLocal.aplicarResultado(golesLocalAntes, golesVisitanteAntes, -1);
+            variacionVisitante.aplicarResultado(golesVisitanteAntes, golesLocalAntes, -1);
+        }
 
-        if (!tieneGoles) {
-            // Si no hay goles, verificar si hay estadísticas
-            List<EstadisticaJugadorPartido> estadisticas =
-                estadisticaRepository.findByPartidoIdPartido(partido.getIdPartido());
-            tieneEstadisticas = estadisticas != null && !estadisticas.isEmpty();
+        if (partido.isJugado()) {
+            variacionLocal.aplicarResultado(partido.getGolesLocal(), partido.getGolesVisitante(), 1);
+            variacionVisitante.aplicarResultado(partido.getGolesVisitante(), partido.getGolesLocal(), 1);
         }
 
-        // Si el partido no se ha jugado (0-0 sin estadísticas), no contarlo
-        if (!tieneGoles && !tieneEstadisticas) {
-            return; // No procesar este partido
+        List<DeltaClasificacionJornada> variaciones = List.of(variacionLocal, variacionVisitante);
+
+        // Si falta alguna fila la tabla está desincronizada: reconstruir en la próxima lectura
+        if (!clasificacionJdbcRepository.sumarAFilas(variaciones)) {
+            invalidarClasificacion(ligaId);
+            return;
         }
 
-        // El partido se ha jugado, actualizar goles
-        clasificacionLocal.addGoles(golesLocal, golesVisitante);
-        clasificacionVisitante.addGoles(golesVisitante, golesLocal);
+        // La primera vez que un equipo juega en la jornada se crea su fila
+        if (jornada != null) {
+            clasificacionJdbcRepository.sumarADeltasJornada(variaciones);
+        }
+    }
 
-        // Determinar resultado y actualizar estadísticas
-        if (golesLocal > golesVisitante) {
-            // Victoria local, derrota visitante
-            clasificacionLocal.addVictoria();
-            clasificacionVisitante.addDerrota();
-        } else if (golesLocal < golesVisitante) {
-            // Derrota local, victoria visitante
-            clasificacionLocal.addDerrota();
-            clasificacionVisitante.addVictoria();
-        } else {
-            // Empate (solo si se ha jugado realmente)
-            clasificacionLocal.addEmpate();
-            clasificacionVisitante.addEmpate();
+    /**
+     * Descarta la clasificación materializada de una liga
+     *
+     * Se usa cuando cambian los equipos de la liga o se reinician sus resultados;
+     * la siguiente lectura la reconstruye desde los partidos.
+     *
+     * @param ligaId ID de la liga
+     */
+    public void invalidarClasificacion(Long ligaId) {
+        if (ligaId == null) {
+            return;
         }
+        descartarDatosEnMemoria(ligaId);
+        filaClasificacionRepository.deleteByIdLiga(ligaId);
+        deltaClasificacionRepository.deleteByIdLiga(ligaId);
     }
 
     /**
      * Obtiene la clasificación de un equipo específico
      *
+     * La fila sale de la misma clasificación de la liga que obtenerClasificacionLiga
+     * (incluida la posición), así que los datos siempre coinciden con la tabla y,
+     * con la liga en memoria, la consulta es directa por ID de equipo.
+     *
      * @param equipoId ID del equipo
-     * @return ClasificacionEquipo con las estadísticas del equipo
+     * @return ClasificacionEquipo con las estadísticas y la posición del equipo
      * @throws EquipoException Si el equipo no existe
      */
     public ClasificacionEquipo obtenerClasificacionEquipo(Long equipoId) {
@@ -175,54 +532,26 @@ public class ClasificacionService {
             throw new EquipoException("El ID del equipo debe ser válido");
         }
 
-        Equipo equipo = equipoRepository.findById(equipoId)
-            .orElseThrow(() -> new EquipoException("No existe el equipo con ID: " + equipoId));
-
-        ClasificacionEquipo clasificacion = new ClasificacionEquipo(
-            equipo.getIdEquipo(),
-            equipo.getNombreEquipo(),
-            equipo.getEscudoURL()
-        );
-
-        // Obtener partidos del equipo
-        List<Partido> partidos = partidoRepository.findByEquipoLocalNombreEquipoOrEquipoVisitanteNombreEquipo(
-            equipo.getNombreEquipo(),
-            equipo.getNombreEquipo()
-        );
-
-        // Procesar cada partido
-        for (Partido partido : partidos) {
-            if (partido.getEquipoLocal().getIdEquipo().equals(equipoId)) {
-                // Este equipo es local
-                int golesLocal = partido.getGolesLocal();
-                int golesVisitante = partido.getGolesVisitante();
-
-                clasificacion.addGoles(golesLocal, golesVisitante);
-
-                if (golesLocal > golesVisitante) {
-                    clasificacion.addVictoria();
-                } else if (golesLocal < golesVisitante) {
-                    clasificacion.addDerrota();
-                } else {
-                    clasificacion.addEmpate();
-                }
-            } else if (partido.getEquipoVisitante().getIdEquipo().equals(equipoId)) {
-                // Este equipo es visitante
-                int golesLocal = partido.getGolesLocal();
-                int golesVisitante = partido.getGolesVisitante();
-
-                clasificacion.addGoles(golesVisitante, golesLocal);
-
-                if (golesVisitante > golesLocal) {
-                    clasificacion.addVictoria();
-                } else if (golesVisitante < golesLocal) {
-                    clasificacion.addDerrota();
-                } else {
-                    clasificacion.addEmpate();
-                }
+        // La fila materializada ya indica la liga sin cargar el equipo
+        Long ligaId = filaClasificacionRepository.findByIdEquipo(equipoId)
+            .map(FilaClasificacion::getIdLiga)
+            .orElse(null);
+
+        if (ligaId == null) {
+            Equipo equipo = equipoRepository.findById(equipoId)
+                .orElseThrow(() -> new EquipoException("No existe el equipo con ID: " + equipoId));
+
+            // Un equipo sin liga no tiene partidos ni posición
+            if (equipo.getLiga() == null) {
+                return new ClasificacionEquipo(equipo.getIdEquipo(), equipo.getNombreEquipo(), equipo.getEscudoURL());
             }
+            ligaId = equipo.getLiga().getIdLigaCume();
         }
 
+        ClasificacionEquipo clasificacion = obtenerClasificacionOrdenada(ligaId).get(equipoId);
+        if (clasificacion == null) {
+            throw new EquipoException("No existe el equipo con ID: " + equipoId);
+        }
         return clasificacion;
     }
 
@@ -46,6 +46,12 @@ public class EquipoService {
     @Autowired
     private AlineacionRepository alineacionRepository;
 
+    @Autowired
+    private ClasificacionService clasificacionService;
+
+    @Autowired
+    private MercadoJugadoresService mercadoJugadoresService;
+
     /**
      * Funcionalidad 1.1: Agregar un nuevo equipo a la liga
      *
@@ -109,6 +115,9 @@ public class EquipoService {
         equipo.setLiga(liga);
         equipo.setEscudoURL(URLescudo);
 
+        // La clasificación de la liga debe incluir al nuevo equipo
+        clasificacionService.invalidarClasificacion(idLiga);
+
         // Guardar y retornar el equipo creado
         return equipoRepository.save(equipo);
     }
@@ -190,6 +199,12 @@ public class EquipoService {
             );
         }
 
+        // El nombre y el escudo están copiados en la clasificación materializada y en el mercado de jugadores
+        if (equipo.getLiga() != null) {
+            clasificacionService.invalidarClasificacion(equipo.getLiga().getIdLigaCume());
+            mercadoJugadoresService.invalidarLiga(equipo.getLiga().getIdLigaCume());
+        }
+
         // Guardar y retornar el equipo modificado
         return equipoRepository.save(equipo);
     }
@@ -256,6 +271,8 @@ public class EquipoService {
 
             // 3. Eliminar el equipo
             equipoRepository.deleteById(id);
+            clasificacionService.invalidarClasificacion(liga.getIdLigaCume());
+            mercadoJugadoresService.invalidarLiga(liga.getIdLigaCume());
 
             // 4. Regenerar cuadros de competición
             regenerarCuadrosCompeticion(liga.getIdLigaCume());
@@ -343,11 +360,11 @@ public class EquipoService {
             }
 
             // Crear jornadas para la primera vuelta
+            List<Partido> partidos = new java.util.ArrayList<>();
             for (List<Equipo[]> emparejamientos : rondasEmparejamientos) {
                 Jornada jornada = jornadaService.crearJornada(liga);
                 for (Equipo[] pair : emparejamientos) {
-                    Partido partido = new Partido(pair[0], pair[1], 0, 0, jornada);
-                    partidoRepository.save(partido);
+                    partidos.add(new Partido(pair[0], pair[1], 0, 0, jornada));
                 }
             }
 
@@ -355,10 +372,12 @@ public class EquipoService {
             for (List<Equipo[]> emparejamientos : rondasEmparejamientos) {
                 Jornada jornada = jornadaService.crearJornada(liga);
                 for (Equipo[] pair : emparejamientos) {
-                    Partido partido = new Partido(pair[1], pair[0], 0, 0, jornada);
-                    partidoRepository.save(partido);
+                    partidos.add(new Partido(pair[1], pair[0], 0, 0, jornada));
                 }
             }
+
+            // Guardar todos los partidos juntos para que se inserten por lotes
+            partidoRepository.saveAll(partidos);
         } catch (Exception e) {
             throw new EquipoException("Error al regenerar cuadros de competición: " + e.getMessage());
         }
@@ -7,6 +7,9 @@ import com.example.Liga_Del_Cume.data.repository.EstadisticaJugadorPartidoReposi
 import com.example.Liga_Del_Cume.data.repository.JugadorRepository;
 import com.example.Liga_Del_Cume.data.repository.PartidoRepository;
 import com.example.Liga_Del_Cume.data.repository.JornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.PrecioJugadorJornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.PuntosUsuarioJornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.RankingJornadaRepository;
 import com.example.Liga_Del_Cume.data.repository.UsuarioRepository;
 import com.example.Liga_Del_Cume.data.exceptions.EstadisticaException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,12 +48,36 @@ public class EstadisticaService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private ClasificacionService clasificacionService;
+
+    @Autowired
+    private PuntosUsuarioJornadaRepository puntosUsuarioJornadaRepository;
+
+    @Autowired
+    private RankingJornadaRepository rankingJornadaRepository;
+
+    @Autowired
+    private IndiceRankingService indiceRankingService;
+
+    @Autowired
+    private PrecioJugadorService precioJugadorService;
+
+    @Autowired
+    private MercadoJugadoresService mercadoJugadoresService;
+
+    @Autowired
+    private PrecioJugadorJornadaRepository precioJugadorJornadaRepository;
+
+    @Autowired
+    private CerrojoLigaService cerrojoLigaService;
+
     /**
      * Funcionalidad 4.1: Añadir estadísticas de un jugador en un partido
      *
      * Este método registra las estadísticas de rendimiento de un jugador en un partido específico.
      * Las estadísticas incluyen goles, asistencias, tarjetas, minutos jugados y puntos obtenidos.
-     * También actualiza el precio del jugador basándose en los puntos obtenidos.
+     * También recalcula los precios de los jugadores de la jornada del partido.
      *
      * Validaciones:
      * 1. Verifica que el jugador no sea nulo
@@ -152,11 +179,22 @@ public class EstadisticaService {
         estadistica.setGolesRecibidos(golesRecibidos);
         estadistica.setPuntosJornada(puntosJornada);
 
+        // Sin actualizaciones de la jornada en segundo plano hasta confirmar (reescriben los mismos precios)
+        bloquearLigaDelPartido(partido);
+
         // Guardar la estadística
         EstadisticaJugadorPartido estadisticaGuardada = estadisticaRepository.save(estadistica);
 
-        // Actualizar el precio del jugador basándose en los puntos obtenidos
-        actualizarPrecioJugador(jugador, puntosJornada);
+        // Con estadísticas el partido cuenta como jugado (un 0-0 pasa a ser un empate)
+        if (!partido.isJugado()) {
+            partido.setJugado(true);
+            partidoRepository.save(partido);
+            clasificacionService.aplicarCambioResultado(partido, false,
+                    partido.getGolesLocal(), partido.getGolesVisitante());
+        }
+
+        // Recalcular los precios de la jornada con los nuevos puntos
+        recalcularPreciosPartido(partido);
 
         // Retornar la estadística creada
         return estadisticaGuardada;
@@ -167,7 +205,7 @@ public class EstadisticaService {
      *
      * Este método permite actualizar las estadísticas de un jugador en un partido específico.
      * Es flexible: puede modificar solo algunos campos, pasando null en los que no se desea cambiar.
-     * Si se modifican los puntos de jornada, se actualiza el precio del jugador ajustando la diferencia.
+     * Si se modifican los puntos de jornada, se recalculan los precios de la jornada del partido.
      *
      * Validaciones:
      * 1. Verifica que los IDs no sean nulos
@@ -294,15 +332,12 @@ public class EstadisticaService {
             cambiosRealizados = true;
         }
 
-        // Si se proporciona puntos de jornada, actualizar y ajustar precio
+        // Si se proporciona puntos de jornada, actualizar
+        boolean cambianPuntos = false;
         if (puntosJornada != null) {
-            int puntosAnteriores = estadistica.getPuntosJornada();
+            cambianPuntos = puntosJornada != estadistica.getPuntosJornada();
             estadistica.setPuntosJornada(puntosJornada);
             cambiosRealizados = true;
-
-            // Ajustar el precio del jugador: revertir puntos anteriores y aplicar nuevos
-            int diferenciaPuntos = puntosJornada - puntosAnteriores;
-            actualizarPrecioJugador(jugador, diferenciaPuntos);
         }
 
         // Validación 8: Verificar que se haya realizado al menos un cambio
@@ -313,8 +348,13 @@ public class EstadisticaService {
             );
         }
 
-        // Guardar y retornar la estadística modificada
-        return estadisticaRepository.save(estadistica);
+        // Guardar la estadística y, si cambian los puntos, recalcular los precios de la jornada
+        bloquearLigaDelPartido(estadistica.getPartido());
+        EstadisticaJugadorPartido estadisticaGuardada = estadisticaRepository.save(estadistica);
+        if (cambianPuntos) {
+            recalcularPreciosPartido(estadistica.getPartido());
+        }
+        return estadisticaGuardada;
     }
 
     /**
@@ -535,7 +575,18 @@ public class EstadisticaService {
         EstadisticaJugadorPartido estadistica = obtenerEstadistica(jugadorId, partidoId);
 
         // Si todas las validaciones pasan, eliminar la estadística
+        Partido partido = estadistica.getPartido();
+        bloquearLigaDelPartido(partido);
         estadisticaRepository.delete(estadistica);
+        recalcularPreciosPartido(partido);
+
+        // Un 0-0 deja de contar como jugado al quedarse sin estadísticas
+        if (partido.isJugado() && partido.getGolesLocal() == 0 && partido.getGolesVisitante() == 0
+                && !estadisticaRepository.existsByPartidoIdPartido(partido.getIdPartido())) {
+            partido.setJugado(false);
+            partidoRepository.save(partido);
+            clasificacionService.aplicarCambioResultado(partido, true, 0, 0);
+        }
     }
 
     /**
@@ -562,37 +613,24 @@ public class EstadisticaService {
     }
 
     /**
-     * Actualiza el precio de mercado de un jugador basándose en los puntos obtenidos en un partido.
-     *
-     * Lógica de actualización de precios:
-     * - Si los puntos son positivos: se suman (puntos * 1000) al precio actual
-     * - Si los puntos son negativos: se restan (|puntos| * 1000) del precio actual
-     * - El precio nunca puede ser menor que 0
-     *
-     * Ejemplos:
-     * - Jugador con precio 5000, obtiene 3 puntos: nuevo precio = 5000 + (3 * 1000) = 8000
-     * - Jugador con precio 5000, obtiene -2 puntos: nuevo precio = 5000 - (2 * 1000) = 3000
-     * - Jugador con precio 1000, obtiene -3 puntos: nuevo precio = max(0, 1000 - 3000) = 0
-     *
-     * @param jugador Jugador cuyo precio se actualizará
-     * @param puntosJornada Puntos obtenidos en la jornada (pueden ser positivos o negativos)
+     * Toma el cerrojo de la liga del partido hasta el fin de la transacción: las
+     * actualizaciones de jornadas, la repuntuación y la importación de resultados
+     * reescriben los mismos precios por jornada (CerrojoLigaService)
      */
-    private void actualizarPrecioJugador(Jugador jugador, int puntosJornada) {
-        if (jugador == null) {
-            return;
+    private void bloquearLigaDelPartido(Partido partido) {
+        if (partido.getJornada() != null && partido.getJornada().getLiga() != null) {
+            cerrojoLigaService.bloquearHastaFinTransaccion(partido.getJornada().getLiga().getIdLigaCume());
         }
+    }
 
-        float precioActual = jugador.getPrecioMercado();
-        float cambio = puntosJornada * 1000.0f;
-        float nuevoPrecio = precioActual + cambio;
-
-        // Asegurar que el precio nunca sea negativo
-        if (nuevoPrecio < 0) {
-            nuevoPrecio = 0;
+    // Los precios dependen de los puntos de toda la jornada del partido, y el mercado de los puntos de la temporada
+    private void recalcularPreciosPartido(Partido partido) {
+        if (partido.getJornada() != null) {
+            precioJugadorService.recalcularPreciosJornada(partido.getJornada().getIdJornada());
+            if (partido.getJornada().getLiga() != null) {
+                mercadoJugadoresService.invalidarLiga(partido.getJornada().getLiga().getIdLigaCume());
+            }
         }
-
-        jugador.setPrecioMercado(nuevoPrecio);
-        jugadorRepository.save(jugador);
     }
 
     /**
@@ -605,7 +643,8 @@ public class EstadisticaService {
      * - Eliminar todas las estadísticas asociadas a cada partido
      * - Poner los goles de cada partido a 0 (resultado reseteado)
      * - Resetear puntos acumulados de todos los usuarios a 0
-     * - Resetear precio de mercado de todos los jugadores a 100,000
+     * - Resetear precio de mercado de todos los jugadores a 100,000 y borrar su historial de precios
+     * - Invalidar la clasificación materializada de la liga
      *
      * @param ligaId ID de la liga
      */
@@ -613,6 +652,7 @@ public class EstadisticaService {
         if (ligaId == null) {
             throw new EstadisticaException("El ID de la liga no puede ser nulo");
         }
+        cerrojoLigaService.bloquearHastaFinTransaccion(ligaId);
 
         // Obtener todas las jornadas de la liga
         List<com.example.Liga_Del_Cume.data.model.Jornada> jornadas = jornadaRepository.findByLigaIdLigaCume(ligaId);
@@ -626,9 +666,10 @@ public class EstadisticaService {
                     estadisticaRepository.deleteAll(stats);
                 }
 
-                // Resetear resultado del partido a 0-0
+                // Resetear resultado del partido a 0-0 (sin jugar)
                 partido.setGolesLocal(0);
                 partido.setGolesVisitante(0);
+                partido.setJugado(false);
                 partidoRepository.save(partido);
             }
         }
@@ -643,5 +684,15 @@ public class EstadisticaService {
         // Resetear precio de mercado de todos los jugadores de la liga a 100,000
         // Usando una actualización masiva en una sola query para mayor eficiencia
         jugadorRepository.resetPreciosJugadoresPorLiga(ligaId);
+        precioJugadorJornadaRepository.deleteByIdLiga(ligaId);
+
+        // Los puntos por jornada ya apuntados y las fotos del ranking dejan de valer
+        puntosUsuarioJornadaRepository.deleteByIdLiga(ligaId);
+        rankingJornadaRepository.deleteByIdLiga(ligaId);
+
+        // La clasificación materializada y el ranking en memoria se reconstruirán en la próxima consulta
+        clasificacionService.invalidarClasificacion(ligaId);
+        indiceRankingService.invalidarLiga(ligaId);
+        mercadoJugadoresService.invalidarLiga(ligaId);
     }
 }
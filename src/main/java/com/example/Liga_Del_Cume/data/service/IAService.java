@@ -1,25 +1,60 @@
 package com.example.Liga_Del_Cume.data.service;
 
 import com.example.Liga_Del_Cume.data.model.*;
-import com.example.Liga_Del_Cume.data.repository.JugadorRepository;
 import com.example.Liga_Del_Cume.data.repository.LigaCumeRepository;
 import com.example.Liga_Del_Cume.data.repository.EstadisticaJugadorPartidoRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * Servicio de Inteligencia Artificial para recomendación de alineaciones
- * Utiliza OpenRouter API con el modelo Nemotron para analizar jugadores
- * y recomendar la mejor alineación posible dentro del presupuesto disponible
+ *
+ * La alineación la elige OptimizadorAlineacionService (la de más puntos esperados
+ * dentro del presupuesto, en milisegundos y siempre válida); la IA de OpenRouter
+ * solo redacta la explicación de por qué es la mejor opción.
+ *
+ * Mientras no cambien los datos de la liga (su versión en MercadoJugadoresService)
+ * la recomendación es la misma, así que el contexto enviado a la IA y la
+ * recomendación se guardan en cachés con tamaño máximo y caducidad, con la liga
+ * y la versión como clave. Solo el saludo personalizado se añade en cada petición.
+ *
+ * La respuesta de la IA se pide en streaming (generarRecomendacion, que usa
+ * RecomendacionStreamingService para enviarla por Server-Sent Events): el
+ * contexto se prepara antes, dentro de la transacción de la petición, y la
+ * llamada a la IA se hace en un hilo virtual sin transacción. Los métodos que
+ * devuelven la recomendación entera en JSON no son transaccionales: preparan el
+ * contexto en una transacción de solo lectura que se cierra antes de esperar a
+ * la IA, así que no retienen una conexión con la base de datos. Si varios usuarios
+ * piden a la vez la recomendación de la misma liga y versión de datos, comparten
+ * una sola llamada (RecomendacionCompartida); obtenerMetricas cuenta las ahorradas.
+ *
+ * Para comparar, el prompt solo lleva los ia.prompt.candidatos-por-posicion
+ * jugadores disponibles de cada posición con más puntos por euro, no toda la liga.
  */
 @Service
 @Transactional
@@ -34,55 +69,437 @@ public class IAService {
     @Value("${openrouter.model}")
     private String model;
 
-    private final JugadorRepository jugadorRepository;
+    @Value("${ia.prompt.candidatos-por-posicion:8}")
+    private int candidatosPorPosicion;
+
+    @Value("${ia.cache.tamano-maximo:200}")
+    private int tamanoMaximoCache;
+
+    @Value("${ia.cache.duracion-minutos:60}")
+    private long duracionCacheMinutos;
+
+    // Contexto de la IA y recomendación por "ligaId:versión de datos"
+    private CacheTemporal<String, ContextoRecomendacionIA> contextos;
+    private CacheTemporal<String, String> recomendaciones;
+
+    // Llamadas a la IA en curso por "ligaId:versión de datos"
+    private final Map<String, RecomendacionCompartida> recomendacionesEnCurso = new ConcurrentHashMap<>();
+
+    private final ExecutorService ejecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("llamada-ia-", 0).factory());
+
+    private final LongAdder llamadasIA = new LongAdder();
+    private final LongAdder llamadasCompartidas = new LongAdder();
+    private final LongAdder aciertosCache = new LongAdder();
+    private final LongAdder promptsConstruidos = new LongAdder();
+    private final LongAdder tiempoPromptsNanos = new LongAdder();
+    private volatile int ultimoPromptCaracteres;
+
     private final LigaCumeRepository ligaRepository;
     private final EstadisticaJugadorPartidoRepository estadisticaRepository;
+    private final OptimizadorAlineacionService optimizadorAlineacionService;
+    private final MercadoJugadoresService mercadoJugadoresService;
+
+    // Transacción corta para preparar el contexto antes de esperar a la IA
+    private final TransactionTemplate transaccionPreparacion;
 
     @Autowired
-    public IAService(JugadorRepository jugadorRepository,
-                     LigaCumeRepository ligaRepository,
-                     EstadisticaJugadorPartidoRepository estadisticaRepository) {
-        this.jugadorRepository = jugadorRepository;
+    public IAService(LigaCumeRepository ligaRepository,
+                     EstadisticaJugadorPartidoRepository estadisticaRepository,
+                     OptimizadorAlineacionService optimizadorAlineacionService,
+                     MercadoJugadoresService mercadoJugadoresService,
+                     PlatformTransactionManager transactionManager) {
         this.ligaRepository = ligaRepository;
         this.estadisticaRepository = estadisticaRepository;
+        this.optimizadorAlineacionService = optimizadorAlineacionService;
+        this.mercadoJugadoresService = mercadoJugadoresService;
+        this.transaccionPreparacion = new TransactionTemplate(transactionManager);
+        this.transaccionPreparacion.setReadOnly(true);
+    }
+
+    @PostConstruct
+    public void crearCaches() {
+        contextos = new CacheTemporal<>(tamanoMaximoCache, Duration.ofMinutes(duracionCacheMinutos));
+        recomendaciones = new CacheTemporal<>(tamanoMaximoCache, Duration.ofMinutes(duracionCacheMinutos));
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
     }
 
     /**
-     * Genera una recomendación de alineación usando IA
+     * Genera una recomendación de alineación: la alineación óptima seguida de la
+     * explicación redactada por la IA
+     *
+     * No es transaccional: el contexto se prepara en su propia transacción y la
+     * espera a la IA (hasta el timeout de lectura) se hace sin conexión con la base de datos.
      *
      * @param ligaId ID de la liga
-     * @return Respuesta de la IA con la recomendación
-     * @throws Exception si hay problemas con la API de OpenRouter
+     * @return Alineación recomendada con su explicación
+     * @throws Exception si hay problemas con la API de OpenRouter o ninguna alineación cabe en el presupuesto
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String generarRecomendacionAlineacion(Long ligaId) throws Exception {
+        String recomendacion = buscarRecomendacionEnCache(ligaId);
+        if (recomendacion != null) {
+            return recomendacion;
+        }
+
+        // La transacción se cierra antes de llamar a la API de OpenRouter, que solo redacta la explicación
+        ContextoRecomendacionIA contexto = transaccionPreparacion.execute(estado -> prepararContexto(ligaId));
+        return generarRecomendacion(contexto, texto -> {});
+    }
+
+    /**
+     * Busca la recomendación de una liga calculada con la versión actual de sus datos
+     *
+     * @param ligaId ID de la liga
+     * @return Recomendación (sin saludo), o null si no está en la caché
+     * @throws IllegalArgumentException si el ID es nulo
+     */
+    public String buscarRecomendacionEnCache(Long ligaId) {
+        String clave = calcularClave(ligaId);
+        String recomendacion = recomendaciones.obtener(clave);
+        if (recomendacion != null) {
+            aciertosCache.increment();
+            System.out.println("♻️  Recomendación de la liga " + ligaId + " servida desde la caché (" + clave + ")");
+        }
+        return recomendacion;
+    }
+
+    /**
+     * Obtiene la alineación óptima de una liga y el prompt para explicarla
+     *
+     * Si la llamada a la IA falló antes con la misma versión de datos, se
+     * reutiliza el contexto ya construido.
+     *
+     * @param ligaId ID de la liga
+     * @return Contexto para pedir la explicación a la IA
+     * @throws IllegalArgumentException si el ID es nulo
+     * @throws RuntimeException si la liga no existe o ninguna alineación cabe en el presupuesto
+     */
+    public ContextoRecomendacionIA prepararContexto(Long ligaId) {
+        String clave = calcularClave(ligaId);
+        ContextoRecomendacionIA contexto = contextos.obtener(clave);
+        if (contexto == null) {
+            contexto = construirContexto(ligaId, clave);
+            contextos.guardar(clave, contexto);
+        }
+        return contexto;
+    }
+
+    /**
+     * Genera la recomendación de un contexto ya preparado enviando el texto a
+     * medida que la IA lo escribe: primero la alineación y después cada fragmento
+     * de la explicación
+     *
+     * Si ya se está generando la recomendación con la misma clave (misma liga y
+     * versión de datos) no se llama otra vez a la IA: se recibe el texto que ya
+     * ha llegado y el resto a medida que llega. La llamada se hace en un hilo
+     * virtual y se cancela si todos los que esperan se van (su hilo se
+     * interrumpe) antes de que termine.
+     *
+     * No accede a la base de datos, así que no abre transacción: la llamada a la
+     * IA puede tardar hasta el timeout de lectura. Las llamadas desde esta misma
+     * clase no pasan por el proxy, por eso quien lo llama tampoco es transaccional.
+     *
+     * @param contexto Contexto obtenido con prepararContexto
+     * @param alRecibirTexto Recibe cada fragmento en el hilo que llama; si lanza una excepción deja de recibirlos
+     * @return Recomendación completa (sin saludo), que queda guardada en la caché
+     * @throws InterruptedException si se interrumpe el hilo mientras espera
+     * @throws Exception si hay problemas con la API de OpenRouter
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public String generarRecomendacion(ContextoRecomendacionIA contexto, Consumer<String> alRecibirTexto) throws Exception {
+        String clave = contexto.getClave();
+        AtomicBoolean nueva = new AtomicBoolean();
+        RecomendacionCompartida compartida = recomendacionesEnCurso.compute(clave, (c, enCurso) -> {
+            if (enCurso != null && enCurso.suscribir(alRecibirTexto)) {
+                return enCurso;
+            }
+            RecomendacionCompartida creada = new RecomendacionCompartida();
+            creada.suscribir(alRecibirTexto);
+            nueva.set(true);
+            return creada;
+        });
+
+        if (nueva.get()) {
+            llamadasIA.increment();
+            compartida.setTarea(ejecutor.submit(() -> llamarIA(contexto, compartida)));
+        } else {
+            llamadasCompartidas.increment();
+            System.out.println("🔗 Recomendación " + clave + " ya en curso: se comparte la llamada a la IA");
+        }
+
+        try {
+            return compartida.esperar(alRecibirTexto);
+        } catch (InterruptedException e) {
+            // Si era el último que esperaba, la llamada a la IA ya no le sirve a nadie
+            if (compartida.desuscribir(alRecibirTexto)) {
+                recomendacionesEnCurso.remove(clave, compartida);
+                compartida.cancelar();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Obtiene los contadores de llamadas a la IA desde que arrancó la aplicación
+     *
+     * @return Mapa con llamadasIA (llamadas hechas a OpenRouter), llamadasCompartidas
+     *         (peticiones que esperaron una llamada ya en curso), aciertosCache
+     *         (recomendaciones servidas desde la caché), llamadasAhorradas (la suma
+     *         de las dos anteriores), recomendacionesEnCurso, promptsConstruidos,
+     *         tiempoMedioPromptMs y ultimoPromptCaracteres
+     */
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new HashMap<>();
+        metricas.put("llamadasIA", llamadasIA.sum());
+        metricas.put("llamadasCompartidas", llamadasCompartidas.sum());
+        metricas.put("aciertosCache", aciertosCache.sum());
+        metricas.put("llamadasAhorradas", llamadasCompartidas.sum() + aciertosCache.sum());
+        metricas.put("recomendacionesEnCurso", recomendacionesEnCurso.size());
+        long prompts = promptsConstruidos.sum();
+        metricas.put("promptsConstruidos", prompts);
+        metricas.put("tiempoMedioPromptMs", prompts > 0 ? tiempoPromptsNanos.sum() / prompts / 1_000_000.0 : 0.0);
+        metricas.put("ultimoPromptCaracteres", ultimoPromptCaracteres);
+        return metricas;
+    }
+
+    // Hace la llamada a la IA de una recomendación compartida y la guarda en la caché
+    private void llamarIA(ContextoRecomendacionIA contexto, RecomendacionCompartida compartida) {
+        try {
+            String alineacion = contexto.getAlineacion() + "\n";
+            compartida.anadirTexto(alineacion);
+            String recomendacion = alineacion
+                    + llamarOpenRouterAPIEnStreaming(contexto.getPrompt(), compartida::anadirTexto);
+            recomendaciones.guardar(contexto.getClave(), recomendacion);
+            compartida.completar(recomendacion);
+        } catch (Exception e) {
+            compartida.fallar(e);
+        } finally {
+            recomendacionesEnCurso.remove(contexto.getClave(), compartida);
+        }
+    }
+
+    // Con la misma versión de datos la recomendación no cambia
+    private String calcularClave(Long ligaId) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+        return ligaId + ":" + mercadoJugadoresService.obtenerVersionDatos(ligaId);
+    }
+
+    /**
+     * Elige la alineación con el optimizador y construye el prompt para explicarla
+     *
+     * El prompt no lleva a todos los jugadores de la liga: para comparar, solo los
+     * candidatosPorPosicion porteros y jugadores de campo disponibles con más
+     * puntos por euro, con sus estadísticas de la temporada sumadas en una sola
+     * consulta. Así su tamaño no crece con el número de equipos.
+     */
+    private ContextoRecomendacionIA construirContexto(Long ligaId, String clave) {
         // Validar que la liga existe
         LigaCume liga = ligaRepository.findById(ligaId)
                 .orElseThrow(() -> new RuntimeException("Liga no encontrada"));
 
-        // Obtener presupuesto máximo
-        Long presupuestoMaximo = liga.getPresupuestoMaximo();
+        // La alineación la elige el optimizador: siempre 1 portero + 4 de campo dentro del presupuesto
+        AlineacionOptima alineacion = optimizadorAlineacionService.calcularAlineacionOptima(ligaId, null, null);
+
+        long inicio = System.nanoTime();
+        Set<Long> enAlineacion = new HashSet<>();
+        enAlineacion.add(alineacion.getPortero().getId());
+        alineacion.getJugadoresCampo().forEach(jugador -> enAlineacion.add(jugador.getId()));
+        MercadoJugadores mercado = mercadoJugadoresService.obtenerMercado(ligaId);
+        List<ResumenJugador> porteros = seleccionarCandidatos(mercado.getDisponibles(true), enAlineacion);
+        List<ResumenJugador> jugadoresCampo = seleccionarCandidatos(mercado.getDisponibles(false), enAlineacion);
+
+        // Estadísticas de la temporada de los candidatos: una consulta agrupada
+        Map<Long, Object[]> estadisticas = new HashMap<>();
+        List<Long> idsCandidatos = new ArrayList<>();
+        porteros.forEach(jugador -> idsCandidatos.add(jugador.getId()));
+        jugadoresCampo.forEach(jugador -> idsCandidatos.add(jugador.getId()));
+        if (!idsCandidatos.isEmpty()) {
+            for (Object[] fila : estadisticaRepository.sumarEstadisticasTemporada(idsCandidatos)) {
+                estadisticas.put((Long) fila[0], fila);
+            }
+        }
+
+        String textoAlineacion = formatearAlineacion(alineacion);
+        String prompt = construirContextoParaIA(textoAlineacion, porteros, jugadoresCampo, estadisticas,
+                liga.getPresupuestoMaximo());
+
+        long nanos = System.nanoTime() - inicio;
+        promptsConstruidos.increment();
+        tiempoPromptsNanos.add(nanos);
+        ultimoPromptCaracteres = prompt.length();
+        System.out.println("📊 Prompt de la liga " + ligaId + ": " + prompt.length() + " caracteres, "
+                + porteros.size() + " porteros y " + jugadoresCampo.size() + " jugadores de campo de "
+                + (mercado.getDisponibles(true).size() + mercado.getDisponibles(false).size())
+                + " disponibles, construido en " + String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0) + "ms");
+
+        return new ContextoRecomendacionIA(clave, textoAlineacion, prompt);
+    }
 
-        // Obtener todos los jugadores de la liga con sus estadísticas
-        List<Jugador> todosJugadores = new ArrayList<>();
-        for (Equipo equipo : liga.getEquipos()) {
-            todosJugadores.addAll(equipo.getJugadores());
+    /**
+     * Se queda con los candidatosPorPosicion jugadores con más puntos por euro que
+     * no están en la alineación, con un montículo de ese tamaño (O(n log k))
+     *
+     * @param jugadores Jugadores disponibles de una posición
+     * @param enAlineacion IDs de los jugadores de la alineación
+     * @return Candidatos, de más a menos puntos por euro
+     */
+    private List<ResumenJugador> seleccionarCandidatos(List<ResumenJugador> jugadores, Set<Long> enAlineacion) {
+        Comparator<ResumenJugador> porValor = Comparator
+                .comparingDouble(IAService::puntosPorMilEuros)
+                .thenComparing(ResumenJugador::getPuntosTotal)
+                .thenComparing(ResumenJugador::getId, Comparator.reverseOrder());
+
+        PriorityQueue<ResumenJugador> mejores = new PriorityQueue<>(porValor);
+        for (ResumenJugador jugador : jugadores) {
+            if (enAlineacion.contains(jugador.getId())) {
+                continue;
+            }
+            mejores.add(jugador);
+            if (mejores.size() > candidatosPorPosicion) {
+                mejores.poll();
+            }
         }
 
-        // Construir el contexto para la IA
-        String contexto = construirContextoParaIA(todosJugadores, presupuestoMaximo);
+        List<ResumenJugador> candidatos = new ArrayList<>(mejores);
+        candidatos.sort(porValor.reversed());
+        return candidatos;
+    }
 
-        // Llamar a la API de OpenRouter
-        return llamarOpenRouterAPI(contexto);
+    private static double puntosPorMilEuros(ResumenJugador jugador) {
+        return jugador.getPuntosTotal() * 1000.0 / Math.max(1, jugador.getPrecio());
     }
 
     /**
-     * Realiza la llamada HTTP a la API de OpenRouter
+     * Formatea la alineación elegida por el optimizador
      *
-     * @param prompt Prompt/contexto para la IA
-     * @return Respuesta de la IA
+     * @param alineacion Alineación óptima
+     * @return Texto con los jugadores, su coste y el saldo
+     */
+    private String formatearAlineacion(AlineacionOptima alineacion) {
+        StringBuilder texto = new StringBuilder();
+        texto.append("🎯 ALINEACIÓN:\n\n");
+        texto.append("PORTERO: ").append(formatearJugadorAlineacion(alineacion, alineacion.getPortero())).append("\n\n");
+        texto.append("CAMPO:\n");
+        int numero = 1;
+        for (ResumenJugador jugador : alineacion.getJugadoresCampo()) {
+            texto.append(numero++).append(". ").append(formatearJugadorAlineacion(alineacion, jugador)).append("\n");
+        }
+        texto.append("\n💰 TOTAL: ").append(alineacion.getCoste()).append("€");
+        if (alineacion.getPresupuesto() != Long.MAX_VALUE) {
+            texto.append(" / ").append(alineacion.getPresupuesto()).append("€ | SALDO: ")
+                    .append(alineacion.getSaldo()).append("€");
+        }
+        texto.append(String.format(Locale.ROOT, " | PUNTOS ESPERADOS: %.1f%n", alineacion.getPuntosEsperados()));
+        return texto.toString();
+    }
+
+    private String formatearJugadorAlineacion(AlineacionOptima alineacion, ResumenJugador jugador) {
+        return String.format(Locale.ROOT, "%s - %s - %d€ - Pts: %d en %d partidos (esperados: %.1f)",
+                jugador.getNombre(), jugador.getNombreEquipo(), jugador.getPrecio(), jugador.getPuntosTotal(),
+                jugador.getPartidosJugados(), alineacion.getPuntosEsperadosJugadores().get(jugador.getId()));
+    }
+
+    /**
+     * Llama a la API de OpenRouter pidiendo la respuesta en streaming (eventos SSE)
+     *
+     * @param prompt Prompt a enviar
+     * @param alRecibirTexto Recibe cada fragmento de la respuesta según llega
+     * @return Respuesta completa de la IA
      * @throws Exception si hay problemas con la API
      */
-    private String llamarOpenRouterAPI(String prompt) throws Exception {
+    private String llamarOpenRouterAPIEnStreaming(String prompt, Consumer<String> alRecibirTexto) throws Exception {
+        RestTemplate restTemplate = crearRestTemplate();
+        HttpEntity<Map<String, Object>> entity = crearPeticion(prompt);
+
+        try {
+            System.out.println("🤖 Llamando a OpenRouter API en streaming...");
+            System.out.println("   Modelo: " + model);
+            System.out.println("   Tamaño del prompt: " + prompt.length() + " caracteres");
+
+            long startTime = System.currentTimeMillis();
+
+            String respuesta = restTemplate.execute(
+                    apiUrl,
+                    HttpMethod.POST,
+                    restTemplate.httpEntityCallback(entity),
+                    response -> leerRespuestaEnStreaming(response.getBody(), alRecibirTexto)
+            );
+
+            long duration = System.currentTimeMillis() - startTime;
+            System.out.println("⏱️  Tiempo de respuesta: " + duration + "ms (" + (duration/1000) + "s)");
+            System.out.println("✅ Recomendación generada exitosamente (" + respuesta.length() + " caracteres)");
+
+            return respuesta;
+
+        } catch (org.springframework.web.client.HttpClientErrorException e) {
+            System.err.println("❌ Error HTTP al llamar a OpenRouter API: " + e.getStatusCode());
+            System.err.println("   Body: " + e.getResponseBodyAsString());
+            throw new Exception("Error HTTP " + e.getStatusCode() + ": " + e.getResponseBodyAsString());
+        } catch (org.springframework.web.client.ResourceAccessException e) {
+            System.err.println("❌ Error de conexión a OpenRouter API: " + e.getMessage());
+            throw new Exception("No se pudo conectar con el servicio de IA. Verifica tu conexión a Internet.");
+        } catch (Exception e) {
+            System.err.println("❌ Error al llamar a OpenRouter API: " + e.getMessage());
+            throw new Exception("Error al generar recomendación con IA: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lee los eventos de una respuesta en streaming de OpenRouter ("data: {...}"
+     * hasta "data: [DONE]") y pasa el texto de cada uno a alRecibirTexto
+     */
+    private String leerRespuestaEnStreaming(InputStream cuerpo, Consumer<String> alRecibirTexto) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        StringBuilder respuesta = new StringBuilder();
+        try {
+            BufferedReader lector = new BufferedReader(new InputStreamReader(cuerpo, StandardCharsets.UTF_8));
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                // Las líneas que empiezan por ":" son comentarios para mantener la conexión abierta
+                if (!linea.startsWith("data:")) {
+                    continue;
+                }
+                String datos = linea.substring("data:".length()).trim();
+                if (datos.equals("[DONE]")) {
+                    break;
+                }
+
+                JsonNode evento = mapper.readTree(datos);
+                if (evento.has("error")) {
+                    JsonNode error = evento.get("error");
+                    throw new IllegalStateException("Error de OpenRouter API: " + (error.has("message")
+                            ? error.get("message").asText()
+                            : "Error desconocido de la API"));
+                }
+                JsonNode texto = evento.path("choices").path(0).path("delta").path("content");
+                if (texto.isTextual() && !texto.asText().isEmpty()) {
+                    respuesta.append(texto.asText());
+                    alRecibirTexto.accept(texto.asText());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Cerrar antes de que RestTemplate intente leer el resto de la respuesta
+            cuerpo.close();
+            throw e;
+        }
+
+        if (respuesta.isEmpty()) {
+            throw new IllegalStateException("La respuesta de OpenRouter API no contiene texto");
+        }
+        return respuesta.toString();
+    }
+
+    /**
+     * Crea el cliente para OpenRouter comprobando antes que la API key está configurada
+     */
+    private RestTemplate crearRestTemplate() throws Exception {
         // Validar que la API key esté configurada
         if (apiKey == null || apiKey.isEmpty() || apiKey.startsWith("${")) {
             throw new Exception("API key de OpenRouter no configurada. " +
@@ -95,7 +512,16 @@ public class IAService {
         factory.setConnectTimeout(30000);  // 30 segundos para conectar
         factory.setReadTimeout(120000);    // 120 segundos para leer la respuesta (las IAs pueden tardar)
 
-        RestTemplate restTemplate = new RestTemplate(factory);
+        return new RestTemplate(factory);
+    }
+
+    /**
+     * Construye la petición a OpenRouter: cabeceras, mensaje de sistema y prompt,
+     * con la respuesta por eventos a medida que se genera
+     *
+     * @param prompt Prompt a enviar
+     */
+    private HttpEntity<Map<String, Object>> crearPeticion(String prompt) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.set("Authorization", "Bearer " + apiKey);
@@ -110,8 +536,9 @@ public class IAService {
         Map<String, String> systemMessage = new HashMap<>();
         systemMessage.put("role", "system");
         systemMessage.put("content", "Eres Guardiol-IA, un asistente experto en Fantasy Fútbol Sala. " +
-                "Debes recomendar la mejor alineación posible de 5 jugadores (1 portero + 4 jugadores de campo) " +
-                "basándote en estadísticas y rendimiento. Siempre respeta el presupuesto máximo disponible.");
+                "Te damos ya elegida la mejor alineación de 5 jugadores (1 portero + 4 jugadores de campo) " +
+                "dentro del presupuesto. No la cambies: explica de forma breve por qué es la mejor opción " +
+                "basándote en estadísticas y rendimiento.");
         messages.add(systemMessage);
 
         Map<String, String> userMessage = new HashMap<>();
@@ -121,147 +548,53 @@ public class IAService {
 
         requestBody.put("messages", messages);
         requestBody.put("temperature", 0.2);
+        requestBody.put("stream", true);
 
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-        try {
-            System.out.println("🤖 Llamando a OpenRouter API...");
-            System.out.println("   Modelo: " + model);
-            System.out.println("   Tamaño del prompt: " + prompt.length() + " caracteres");
-            System.out.println("   Timeouts: Conexión=30s, Lectura=120s");
-
-            long startTime = System.currentTimeMillis();
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    apiUrl,
-                    HttpMethod.POST,
-                    entity,
-                    String.class
-            );
-
-            long endTime = System.currentTimeMillis();
-            long duration = endTime - startTime;
-            System.out.println("⏱️  Tiempo de respuesta: " + duration + "ms (" + (duration/1000) + "s)");
-
-            String responseBody = response.getBody();
-            System.out.println("📩 Respuesta recibida de OpenRouter API");
-            System.out.println("   Status: " + response.getStatusCode());
-            System.out.println("   Body (primeros 500 chars): " +
-                    (responseBody != null && responseBody.length() > 500
-                            ? responseBody.substring(0, 500) + "..."
-                            : responseBody));
-
-            // Parsear la respuesta JSON
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(responseBody);
-
-            // Verificar si hay un error en la respuesta
-            if (root.has("error")) {
-                JsonNode error = root.get("error");
-                String errorMessage = error.has("message")
-                        ? error.get("message").asText()
-                        : "Error desconocido de la API";
-                throw new Exception("Error de OpenRouter API: " + errorMessage);
-            }
-
-            // Verificar que exista el campo "choices"
-            if (!root.has("choices") || root.get("choices").isEmpty()) {
-                throw new Exception("La respuesta de OpenRouter API no contiene 'choices'. " +
-                        "Respuesta completa: " + responseBody);
-            }
-
-            // Extraer el texto de la respuesta de forma segura
-            JsonNode choices = root.get("choices");
-            JsonNode firstChoice = choices.get(0);
-
-            if (firstChoice == null) {
-                throw new Exception("El array 'choices' está vacío en la respuesta de OpenRouter API");
-            }
-
-            JsonNode message = firstChoice.get("message");
-            if (message == null) {
-                throw new Exception("No se encontró 'message' en la respuesta de OpenRouter API");
-            }
-
-            JsonNode content = message.get("content");
-            if (content == null) {
-                throw new Exception("No se encontró 'content' en el mensaje de OpenRouter API");
-            }
-
-            String respuesta = content.asText();
-            System.out.println("✅ Recomendación generada exitosamente (" + respuesta.length() + " caracteres)");
-
-            return respuesta;
-
-        } catch (org.springframework.web.client.HttpClientErrorException e) {
-            System.err.println("❌ Error HTTP al llamar a OpenRouter API: " + e.getStatusCode());
-            System.err.println("   Body: " + e.getResponseBodyAsString());
-            throw new Exception("Error HTTP " + e.getStatusCode() + ": " + e.getResponseBodyAsString());
-        } catch (org.springframework.web.client.ResourceAccessException e) {
-            System.err.println("❌ Error de conexión a OpenRouter API: " + e.getMessage());
-            throw new Exception("No se pudo conectar con el servicio de IA. Verifica tu conexión a Internet.");
-        } catch (Exception e) {
-            System.err.println("❌ Error al llamar a OpenRouter API: " + e.getMessage());
-            e.printStackTrace();
-            throw new Exception("Error al generar recomendación con IA: " + e.getMessage());
-        }
+        return new HttpEntity<>(requestBody, headers);
     }
 
     /**
      * Construye el contexto completo para enviar a la IA
      *
-     * @param jugadores Lista de todos los jugadores disponibles
-     * @param presupuesto Presupuesto máximo disponible
+     * @param alineacion Alineación elegida por el optimizador, ya formateada
+     * @param porteros Porteros con los que compararla
+     * @param jugadoresCampo Jugadores de campo con los que compararla
+     * @param estadisticas Estadísticas de la temporada por ID de jugador (sumarEstadisticasTemporada)
+     * @param presupuesto Presupuesto máximo disponible (null = sin límite)
      * @return String con el prompt completo para la IA
      */
-    private String construirContextoParaIA(List<Jugador> jugadores, Long presupuesto) {
+    private String construirContextoParaIA(String alineacion, List<ResumenJugador> porteros,
+                                           List<ResumenJugador> jugadoresCampo, Map<Long, Object[]> estadisticas,
+                                           Long presupuesto) {
         StringBuilder contexto = new StringBuilder();
 
         // Instrucciones para la IA (más concisas)
-        contexto.append("Recomienda la MEJOR alineación de 5 jugadores (1 portero + 4 campo) ");
-        contexto.append("basándote en estadísticas. Presupuesto máximo: ").append(presupuesto).append("€\n\n");
-
-        contexto.append("REGLAS:\n");
-        contexto.append("1. EXACTAMENTE 1 portero + 4 jugadores\n");
-        contexto.append("2. Coste total ≤ ").append(presupuesto).append("€\n");
-        contexto.append("3. Prioriza mejores estadísticas (goles, asistencias, puntos)\n");
-        contexto.append("4. Evita tarjetas rojas y amarillas excesivas\n\n");
+        contexto.append("Explica por qué esta es la MEJOR alineación de 5 jugadores (1 portero + 4 campo) ");
+        contexto.append("para la próxima jornada. Presupuesto máximo: ")
+                .append(presupuesto != null ? presupuesto + "€" : "sin límite").append("\n\n");
 
-        // Separar porteros y jugadores de campo
-        List<Jugador> porteros = jugadores.stream()
-                .filter(Jugador::isEsPortero)
-                .collect(Collectors.toList());
+        contexto.append(alineacion).append("\n");
 
-        List<Jugador> jugadoresCampo = jugadores.stream()
-                .filter(j -> !j.isEsPortero())
-                .collect(Collectors.toList());
-
-        // Se envían TODOS los jugadores sin limitaciones
-        System.out.println("📊 Estadísticas del prompt:");
-        System.out.println("   Total jugadores: " + jugadores.size() +
-                " (Porteros: " + porteros.size() + ", Campo: " + jugadoresCampo.size() + ")");
+        contexto.append("Compárala con las mejores alternativas en puntos por cada 1000€:\n\n");
 
         // Información de porteros (formato compacto)
         contexto.append("PORTEROS:\n");
-        for (Jugador portero : porteros) {
-            contexto.append(formatearJugadorParaIA(portero, true));
+        for (ResumenJugador portero : porteros) {
+            contexto.append(formatearJugadorParaIA(portero, estadisticas.get(portero.getId()), true));
         }
 
         // Información de jugadores de campo (formato compacto)
         contexto.append("\nCAMPO:\n");
-        for (Jugador jugador : jugadoresCampo) {
-            contexto.append(formatearJugadorParaIA(jugador, false));
+        for (ResumenJugador jugador : jugadoresCampo) {
+            contexto.append(formatearJugadorParaIA(jugador, estadisticas.get(jugador.getId()), false));
         }
 
         // Formato de respuesta (simplificado)
-        contexto.append("\nRESPUESTA (formato):\n\n");
-        contexto.append("🎯 ALINEACIÓN:\n\n");
-        contexto.append("PORTERO: [Nombre] - [Equipo] - [X]€ - Razón: [breve]\n\n");
-        contexto.append("CAMPO:\n");
-        contexto.append("1. [Nombre] - [Equipo] - [X]€ - Razón: [breve]\n");
-        contexto.append("2-4. [repetir]\n\n");
-        contexto.append("💰 TOTAL: [X]€ / ").append(presupuesto).append("€ | SALDO: [X]€\n\n");
-        contexto.append("📊 [Análisis breve]\n");
+        contexto.append("\nRESPUESTA (formato, sin repetir la alineación):\n\n");
+        contexto.append("📊 ANÁLISIS:\n");
+        contexto.append("PORTERO: [Nombre] - Razón: [breve]\n");
+        contexto.append("1-4. [Nombre] - Razón: [breve]\n\n");
+        contexto.append("[Conclusión breve]\n");
 
         return contexto.toString();
     }
@@ -270,75 +603,40 @@ public class IAService {
      * Formatea la información de un jugador para el contexto de la IA
      *
      * @param jugador Jugador a formatear
+     * @param estadisticas Fila de sumarEstadisticasTemporada (null si no ha jugado)
      * @param esPortero Indica si es portero
      * @return String formateado con la información del jugador
      */
-    private String formatearJugadorParaIA(Jugador jugador, boolean esPortero) {
+    private String formatearJugadorParaIA(ResumenJugador jugador, Object[] estadisticas, boolean esPortero) {
         StringBuilder info = new StringBuilder();
-        Map<String, Integer> stats = calcularEstadisticasTotales(jugador);
 
         // Formato compacto: Nombre (Equipo) - €X | Stats
-        info.append("• ").append(jugador.getNombreJugador())
-                .append(" (").append(jugador.getEquipo().getNombreEquipo())
-                .append(") - ").append(jugador.getPrecioMercado()).append("€ | ");
+        info.append("• ").append(jugador.getNombre())
+                .append(" (").append(jugador.getNombreEquipo())
+                .append(") - ").append(jugador.getPrecio()).append("€ | ");
 
         if (esPortero) {
-            info.append("GR:").append(stats.get("golesRecibidos"));
+            info.append("GR:").append(sumar(estadisticas, 5));
         } else {
-            info.append("G:").append(stats.get("goles"))
-                    .append(" A:").append(stats.get("asistencias"));
+            info.append("G:").append(sumar(estadisticas, 1))
+                    .append(" A:").append(sumar(estadisticas, 2));
         }
 
-        info.append(" Pts:").append(stats.get("puntos"))
-                .append(" TA:").append(stats.get("amarillas"));
+        info.append(" Pts:").append(jugador.getPuntosTotal())
+                .append(" TA:").append(sumar(estadisticas, 3));
 
-        if (stats.get("rojas") > 0) {
-            info.append(" TR:").append(stats.get("rojas"));
+        if (sumar(estadisticas, 4) > 0) {
+            info.append(" TR:").append(sumar(estadisticas, 4));
         }
 
-        info.append(" PJ:").append(stats.get("partidos")).append("\n");
+        info.append(" PJ:").append(jugador.getPartidosJugados())
+                .append(String.format(Locale.ROOT, " | %.3f pts/1000€%n", puntosPorMilEuros(jugador)));
 
         return info.toString();
     }
 
-    /**
-     * Calcula las estadísticas totales de un jugador sumando todos sus partidos
-     *
-     * @param jugador Jugador del que calcular estadísticas
-     * @return Map con las estadísticas totales
-     */
-    private Map<String, Integer> calcularEstadisticasTotales(Jugador jugador) {
-        Map<String, Integer> totales = new HashMap<>();
-
-        List<EstadisticaJugadorPartido> estadisticas =
-                estadisticaRepository.findByJugadorIdJugador(jugador.getIdJugador());
-
-        int goles = 0;
-        int asistencias = 0;
-        int amarillas = 0;
-        int rojas = 0;
-        int puntos = 0;
-        int golesRecibidos = 0;
-        int partidos = estadisticas.size();
-
-        for (EstadisticaJugadorPartido est : estadisticas) {
-            goles += est.getGolesAnotados();
-            asistencias += est.getAsistencias();
-            amarillas += est.getTarjetaAmarillas();
-            if (est.isTarjetaRojas()) rojas++;
-            puntos += est.getPuntosJornada();
-            golesRecibidos += est.getGolesRecibidos();
-        }
-
-        totales.put("goles", goles);
-        totales.put("asistencias", asistencias);
-        totales.put("amarillas", amarillas);
-        totales.put("rojas", rojas);
-        totales.put("puntos", puntos);
-        totales.put("golesRecibidos", golesRecibidos);
-        totales.put("partidos", partidos);
-
-        return totales;
+    private long sumar(Object[] estadisticas, int columna) {
+        return estadisticas != null && estadisticas[columna] != null ? ((Number) estadisticas[columna]).longValue() : 0;
     }
 
     /**
@@ -349,15 +647,22 @@ public class IAService {
      * @return Respuesta personalizada de la IA
      * @throws Exception si hay problemas con la API de OpenRouter
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String generarRecomendacionPersonalizada(Long ligaId, String nombreUsuario) throws Exception {
         String recomendacion = generarRecomendacionAlineacion(ligaId);
+        return crearSaludo(nombreUsuario) + recomendacion;
+    }
 
-        // Personalizar el saludo inicial
-        String saludoPersonalizado = "¡Hola " + nombreUsuario + "! " +
+    /**
+     * Saludo personalizado que precede a la recomendación
+     *
+     * @param nombreUsuario Nombre del usuario que solicita la recomendación
+     * @return Saludo de Guardiol-IA
+     */
+    public String crearSaludo(String nombreUsuario) {
+        return "¡Hola " + nombreUsuario + "! " +
                 "Soy Guardiol-IA, tu asistente personal de Fantasy Fútbol Sala.\n\n" +
-                "He analizado todos los jugadores disponibles usando IA avanzada (Nemotron) " +
-                "y aquí está mi recomendación de alineación para maximizar tus puntos en la próxima jornada:\n\n";
-
-        return saludoPersonalizado + recomendacion;
+                "He buscado entre todos los jugadores disponibles la alineación con más puntos esperados " +
+                "dentro de tu presupuesto para la próxima jornada, y aquí la tienes con mi análisis:\n\n";
     }
 }
\ No newline at end of file
@@ -0,0 +1,245 @@
+package com.example.Liga_Del_Cume.data.service;
+
+import com.example.Liga_Del_Cume.data.model.IndiceRanking;
+import com.example.Liga_Del_Cume.data.model.Usuario;
+import com.example.Liga_Del_Cume.data.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servicio que mantiene en memoria un IndiceRanking por liga
+ *
+ * El índice de una liga se construye la primera vez que se consulta, con una
+ * única consulta que lee id, nombre y puntos de sus usuarios. A partir de ahí
+ * cada cambio de puntos o de liga de un usuario se aplica sobre el índice en
+ * tiempo logarítmico, y las consultas de posición y top N no acceden a la base
+ * de datos.
+ *
+ * Si la transacción en la que se modificó o construyó un índice no llega a
+ * confirmarse, el índice de esa liga se descarta y se reconstruye en la
+ * siguiente consulta.
+ *
+ * Cada liga tiene una versión que sube con cada cambio de puntos (en el momento
+ * y al terminar la transacción). Un índice solo se guarda si la versión no ha
+ * cambiado mientras se construía, y al confirmarse un cambio se descarta el
+ * índice que otra consulta haya guardado entretanto, ya que pudo construirse
+ * con datos anteriores al commit.
+ *
+ * Depende solo del repositorio para que UsuarioService y RankingService puedan
+ * usarlo sin crear dependencias circulares.
+ */
+@Service
+@Transactional
+public class IndiceRankingService {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private final Map<Long, IndiceRanking> indices = new ConcurrentHashMap<>();
+
+    // Versión de los puntos de cada liga: aumenta con cada cambio
+    private final Map<Long, AtomicLong> versiones = new ConcurrentHashMap<>();
+
+    /**
+     * Obtiene el índice de ranking de una liga, construyéndolo si no está en memoria
+     *
+     * @param ligaId ID de la liga
+     * @return Índice con los usuarios de la liga
+     * @throws IllegalArgumentException si el ID es nulo
+     */
+    public IndiceRanking obtenerIndice(Long ligaId) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+
+        IndiceRanking indice = indices.get(ligaId);
+        if (indice != null) {
+            return indice;
+        }
+
+        // Si la versión cambia mientras se construye, el índice puede tener puntos anteriores al cambio
+        long versionAntes = obtenerVersion(ligaId);
+        IndiceRanking nuevo = new IndiceRanking();
+        for (Object[] fila : usuarioRepository.findPuntosUsuariosLiga(ligaId)) {
+            nuevo.actualizar((Long) fila[0], (String) fila[1], ((Number) fila[2]).intValue());
+        }
+
+        IndiceRanking guardado = indices.compute(ligaId, (id, actual) ->
+                actual != null || obtenerVersion(ligaId) != versionAntes ? actual : nuevo);
+        if (guardado == null) {
+            return nuevo;
+        }
+        if (guardado != nuevo) {
+            return guardado;
+        }
+        descartarSiNoSeConfirma(ligaId);
+        return nuevo;
+    }
+
+    /**
+     * Refleja en el índice los puntos, el nombre y la liga actuales de un usuario
+     *
+     * Si el usuario ha cambiado de liga se quita del índice de la anterior. Los
+     * índices que aún no están en memoria no se tocan: ya leerán el dato al construirse.
+     *
+     * @param usuario Usuario ya guardado
+     */
+    public void actualizarUsuario(Usuario usuario) {
+        if (usuario == null || usuario.getIdUsuario() == null) {
+            return;
+        }
+
+        Long ligaId = usuario.getLiga() != null ? usuario.getLiga().getIdLigaCume() : null;
+        for (Map.Entry<Long, IndiceRanking> entrada : indices.entrySet()) {
+            if (!entrada.getKey().equals(ligaId) && entrada.getValue().contiene(usuario.getIdUsuario())) {
+                entrada.getValue().eliminar(usuario.getIdUsuario());
+                registrarCambio(entrada.getKey());
+            }
+        }
+
+        if (ligaId != null) {
+            IndiceRanking indice = indices.get(ligaId);
+            if (indice != null) {
+                indice.actualizar(usuario.getIdUsuario(), usuario.getNombreUsuario(), usuario.getPuntosAcumulados());
+            }
+            registrarCambio(ligaId);
+        }
+    }
+
+    /**
+     * Refleja en el índice de una liga los puntos de un usuario leídos de la base
+     * de datos después de cambiarlos (por ejemplo, con UsuarioJdbcRepository)
+     *
+     * @param ligaId ID de la liga del usuario
+     * @param usuarioId ID del usuario
+     * @param nombreUsuario Nombre del usuario
+     * @param puntos Puntos acumulados guardados
+     */
+    public void actualizarPuntos(Long ligaId, Long usuarioId, String nombreUsuario, int puntos) {
+        if (ligaId == null || usuarioId == null) {
+            return;
+        }
+
+        IndiceRanking indice = indices.get(ligaId);
+        if (indice != null) {
+            indice.actualizar(usuarioId, nombreUsuario, puntos);
+        }
+        registrarCambio(ligaId);
+    }
+
+    /**
+     * Quita un usuario eliminado de los índices en memoria
+     *
+     * @param usuarioId ID del usuario
+     */
+    public void eliminarUsuario(Long usuarioId) {
+        if (usuarioId == null) {
+            return;
+        }
+
+        for (Map.Entry<Long, IndiceRanking> entrada : indices.entrySet()) {
+            if (entrada.getValue().contiene(usuarioId)) {
+                entrada.getValue().eliminar(usuarioId);
+                registrarCambio(entrada.getKey());
+            }
+        }
+    }
+
+    /**
+     * Descarta el índice de una liga (por ejemplo, tras una actualización masiva
+     * de puntos hecha directamente en la base de datos)
+     *
+     * Se descarta en el momento y otra vez al terminar la transacción, para que
+     * una consulta hecha antes del commit no deje datos antiguos.
+     *
+     * @param ligaId ID de la liga
+     */
+    public void invalidarLiga(Long ligaId) {
+        if (ligaId == null) {
+            return;
+        }
+
+        descartar(ligaId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    descartar(ligaId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Descarta todos los índices en memoria
+     */
+    public void invalidarTodo() {
+        descartarTodo();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    descartarTodo();
+                }
+            });
+        }
+    }
+
+    private long obtenerVersion(Long ligaId) {
+        return versiones.computeIfAbsent(ligaId, id -> new AtomicLong()).get();
+    }
+
+    // Se sube la versión antes de quitar el índice, para que una construcción en curso no lo guarde
+    private void descartar(Long ligaId) {
+        versiones.computeIfAbsent(ligaId, id -> new AtomicLong()).incrementAndGet();
+        indices.remove(ligaId);
+    }
+
+    private void descartarTodo() {
+        versiones.values().forEach(AtomicLong::incrementAndGet);
+        indices.clear();
+    }
+
+    /**
+     * Anota un cambio de puntos de una liga: sube su versión ahora y al terminar
+     * la transacción, y entonces se queda solo con el índice que se actualizó
+     * aquí (el que hay ahora). Otro índice guardado entretanto pudo construirse
+     * con datos anteriores al commit, y si la transacción se deshace tampoco
+     * sirve el actualizado.
+     */
+    private void registrarCambio(Long ligaId) {
+        versiones.computeIfAbsent(ligaId, id -> new AtomicLong()).incrementAndGet();
+        IndiceRanking actualizado = indices.get(ligaId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    versiones.computeIfAbsent(ligaId, id -> new AtomicLong()).incrementAndGet();
+                    indices.computeIfPresent(ligaId, (id, indice) ->
+                            status == STATUS_COMMITTED && indice == actualizado ? indice : null);
+                }
+            });
+        }
+    }
+
+    // Si la transacción en la que se construyó se deshace, el índice puede incluir cambios no confirmados
+    private void descartarSiNoSeConfirma(Long ligaId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        indices.remove(ligaId);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -36,6 +36,12 @@ public class JornadaService {
     @Autowired
     private LigaCumeRepository ligaCumeRepository;
 
+    @Autowired
+    private ClasificacionService clasificacionService;
+
+    @Autowired
+    private MercadoJugadoresService mercadoJugadoresService;
+
     /**
      * Funcionalidad 3.1: Crea una nueva jornada para una liga
      *
@@ -81,8 +87,10 @@ public class JornadaService {
         int numeroJornada = jornadasExistentes.size() + 1;
         jornada.setNumeroJornada(numeroJornada);
 
-        // Guardar y retornar la jornada creada
-        return jornadaRepository.save(jornada);
+        // Guardar y retornar la jornada creada (puede pasar a ser la próxima del mercado de jugadores)
+        Jornada jornadaGuardada = jornadaRepository.save(jornada);
+        mercadoJugadoresService.invalidarLiga(ligaExistente.getIdLigaCume());
+        return jornadaGuardada;
     }
 
     /**
@@ -228,6 +236,12 @@ public class JornadaService {
 
         // Si todas las validaciones pasan, eliminar la jornada
         jornadaRepository.deleteById(id);
+
+        // Sus partidos dejan de contar para la clasificación y para el mercado de jugadores
+        if (jornada.getLiga() != null) {
+            clasificacionService.invalidarClasificacion(jornada.getLiga().getIdLigaCume());
+            mercadoJugadoresService.invalidarLiga(jornada.getLiga().getIdLigaCume());
+        }
     }
 
     /**
@@ -29,14 +29,17 @@ public class JugadorService {
     private EquipoRepository equipoRepository;
     private JornadaService jornadaService;
     private PartidoRepository partidoRepository;
+    private MercadoJugadoresService mercadoJugadoresService;
 
     @Autowired
     public JugadorService(JugadorRepository jugadorRepository, EquipoRepository equipoRepository,
-                         JornadaService jornadaService, PartidoRepository partidoRepository) {
+                         JornadaService jornadaService, PartidoRepository partidoRepository,
+                         MercadoJugadoresService mercadoJugadoresService) {
         this.jugadorRepository = jugadorRepository;
         this.equipoRepository = equipoRepository;
         this.jornadaService = jornadaService;
         this.partidoRepository = partidoRepository;
+        this.mercadoJugadoresService = mercadoJugadoresService;
     }
 
     /**
@@ -74,6 +77,7 @@ public class JugadorService {
         }
 
         Jugador jugador = new Jugador(nombre, esPortero, equipo, precio, avatarUrl.trim());
+        invalidarMercado(jugador);
         return jugadorRepository.save(jugador);
     }
 
@@ -117,8 +121,9 @@ public class JugadorService {
         }
 
         jugador.setNombreJugador(nuevoNombre);
-        jugador.setPrecioMercado(nuevoPrecio);
+        jugador.corregirPrecioMercado(nuevoPrecio);
         jugador.setEsPortero(esPortero);
+        invalidarMercado(jugador);
         return jugadorRepository.save(jugador);
     }
 
@@ -167,9 +172,10 @@ public class JugadorService {
         }
 
         jugador.setNombreJugador(nuevoNombre.trim());
-        jugador.setPrecioMercado(nuevoPrecio);
+        jugador.corregirPrecioMercado(nuevoPrecio);
         jugador.setEsPortero(esPortero);
         jugador.setAvatarUrl(avatarUrl.trim());
+        invalidarMercado(jugador);
 
         return jugadorRepository.save(jugador);
     }
@@ -203,6 +209,14 @@ public class JugadorService {
         }
 
         jugadorRepository.deleteById(id);
+        invalidarMercado(jugador);
+    }
+
+    // El mercado de jugadores de la liga guarda nombre, posición, avatar y precio de cada jugador
+    private void invalidarMercado(Jugador jugador) {
+        if (jugador.getEquipo() != null && jugador.getEquipo().getLiga() != null) {
+            mercadoJugadoresService.invalidarLiga(jugador.getEquipo().getLiga().getIdLigaCume());
+        }
     }
 
     /**
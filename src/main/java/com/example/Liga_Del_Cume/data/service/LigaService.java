@@ -21,6 +21,15 @@ public class LigaService {
     @Autowired
     private LigaCumeRepository ligaCumeRepository;
 
+    @Autowired
+    private PrecioJugadorService precioJugadorService;
+
+    @Autowired
+    private MercadoJugadoresService mercadoJugadoresService;
+
+    @Autowired
+    private CerrojoLigaService cerrojoLigaService;
+
     /**
      * Crea una nueva liga con nombre y presupuesto máximo.
      * @param nombre Nombre de la liga.
@@ -98,6 +107,8 @@ public class LigaService {
         else{
             throw new LigaException("Nombre de liga o presupuesto nulo");
         }
+        // Las alineaciones recomendadas dependen del presupuesto
+        mercadoJugadoresService.invalidarLiga(id);
         return ligaCumeRepository.save(liga);
     }
 
@@ -228,6 +239,8 @@ public class LigaService {
             } else {
                 liga.setPresupuestoMaximo(nuevoPresupuesto.longValue());
             }
+            // Las alineaciones recomendadas dependen del presupuesto
+            mercadoJugadoresService.invalidarLiga(id);
         }
 
         return ligaCumeRepository.save(liga);
@@ -263,12 +276,49 @@ public class LigaService {
             throw new LigaException("El presupuesto mínimo es de 500.000€");
         }
 
-        // Actualizar el presupuesto
+        // Actualizar el presupuesto (las alineaciones recomendadas dependen de él)
         liga.setPresupuestoMaximo(nuevoPresupuesto);
+        mercadoJugadoresService.invalidarLiga(ligaId);
 
         // Guardar y retornar
         return ligaCumeRepository.save(liga);
     }
 
+    /**
+     * Cambia el modelo de precios de una liga y recalcula con él el historial de
+     * precios de sus jugadores
+     *
+     * @param ligaId ID de la liga a modificar
+     * @param precioPorDemanda true para que el precio dependa también de cuántas alineaciones eligen al jugador
+     * @param eurosPorPunto Cambio de precio por cada punto fantasy (null = valor por defecto)
+     * @param eurosPorDemanda Subida si todas las alineaciones eligen al jugador (null = valor por defecto)
+     * @return La liga con el modelo de precios actualizado
+     * @throws LigaException si la liga no existe o algún coeficiente es negativo
+     */
+    public LigaCume actualizarModeloPrecios(Long ligaId, boolean precioPorDemanda,
+                                            Integer eurosPorPunto, Integer eurosPorDemanda) {
+        if (ligaId == null || ligaId <= 0) {
+            throw new LigaException("El ID de la liga debe ser válido");
+        }
+
+        LigaCume liga = ligaCumeRepository.findById(ligaId)
+                .orElseThrow(() -> new LigaException("Liga no encontrada con ID: " + ligaId));
+
+        if ((eurosPorPunto != null && eurosPorPunto < 0) || (eurosPorDemanda != null && eurosPorDemanda < 0)) {
+            throw new LigaException("Los coeficientes de precio no pueden ser negativos");
+        }
+
+        // Las actualizaciones de jornadas y la repuntuación reescriben el mismo historial de precios
+        cerrojoLigaService.bloquearHastaFinTransaccion(ligaId);
+
+        liga.setPrecioPorDemanda(precioPorDemanda);
+        liga.setEurosPorPunto(eurosPorPunto);
+        liga.setEurosPorDemanda(eurosPorDemanda);
+        liga = ligaCumeRepository.save(liga);
+
+        precioJugadorService.recalcularPreciosLiga(ligaId);
+        return liga;
+    }
+
 }
 
@@ -0,0 +1,200 @@
+package com.example.Liga_Del_Cume.data.service;
+
+import com.example.Liga_Del_Cume.data.model.MercadoJugadores;
+import com.example.Liga_Del_Cume.data.model.PaginaJugadores;
+import com.example.Liga_Del_Cume.data.model.ResumenJugador;
+import com.example.Liga_Del_Cume.data.repository.JornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.JugadorRepository;
+import com.example.Liga_Del_Cume.data.repository.PartidoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servicio que mantiene en memoria el mercado de jugadores (MercadoJugadores) de cada liga
+ *
+ * El mercado de una liga se construye la primera vez que se consulta con tres
+ * consultas: los jugadores de la liga con sus puntos de la temporada ya sumados,
+ * la próxima jornada sin resultados y los equipos que la juegan. A partir de ahí
+ * las consultas de jugadores disponibles no acceden a la base de datos.
+ *
+ * Se descarta al guardar resultados o estadísticas, al recalcular precios y al
+ * cambiar jugadores, equipos, partidos, jornadas o el presupuesto de la liga.
+ * Cada descarte sube además la versión de datos de la liga, con la que otras
+ * cachés (por ejemplo, las recomendaciones de IAService) saben si lo que
+ * guardaron sigue al día. Un mercado que se estaba construyendo mientras se
+ * descartaba no se guarda, para no dejar en memoria datos anteriores al cambio.
+ *
+ * Depende solo de los repositorios para que cualquier servicio pueda avisarle
+ * sin crear dependencias circulares.
+ */
+@Service
+@Transactional
+public class MercadoJugadoresService {
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private JornadaRepository jornadaRepository;
+
+    @Autowired
+    private PartidoRepository partidoRepository;
+
+    private final Map<Long, MercadoJugadores> mercados = new ConcurrentHashMap<>();
+
+    // Versión de los datos de cada liga: aumenta con cada descarte
+    private final Map<Long, AtomicLong> versiones = new ConcurrentHashMap<>();
+
+    /**
+     * Obtiene los jugadores que se pueden elegir para la próxima jornada de una liga
+     *
+     * Solo se devuelven jugadores de equipos que juegan la próxima jornada (todos
+     * si la liga no tiene jornadas pendientes).
+     *
+     * @param ligaId ID de la liga
+     * @param esPortero true para porteros, false para jugadores de campo
+     * @param orden "puntos", "precio" o "nombre" (por defecto, puntos)
+     * @param excluidos IDs de jugadores ya elegidos, que no se devuelven
+     * @param pagina Página, empezando en 0
+     * @param tamano Jugadores por página (0 o menos = todos)
+     * @return Página de jugadores disponibles
+     * @throws IllegalArgumentException si el ID de la liga es nulo
+     */
+    @Transactional(readOnly = true)
+    public PaginaJugadores buscarDisponibles(Long ligaId, boolean esPortero, String orden,
+                                             Set<Long> excluidos, int pagina, int tamano) {
+        return obtenerMercado(ligaId).buscar(esPortero, orden != null ? orden : MercadoJugadores.ORDEN_PUNTOS,
+                excluidos != null ? excluidos : Set.of(), pagina, tamano);
+    }
+
+    /**
+     * Obtiene el mercado de una liga, construyéndolo si no está en memoria
+     *
+     * @param ligaId ID de la liga
+     * @return Mercado con los jugadores disponibles de la liga
+     * @throws IllegalArgumentException si el ID es nulo
+     */
+    @Transactional(readOnly = true)
+    public MercadoJugadores obtenerMercado(Long ligaId) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+
+        MercadoJugadores mercado = mercados.get(ligaId);
+        if (mercado != null) {
+            return mercado;
+        }
+
+        // Si la versión cambia mientras se construye, el mercado puede tener datos anteriores al cambio
+        long versionAntes = obtenerVersionDatos(ligaId);
+        MercadoJugadores nuevo = construirMercado(ligaId);
+        if (obtenerVersionDatos(ligaId) != versionAntes) {
+            return nuevo;
+        }
+
+        MercadoJugadores existente = mercados.putIfAbsent(ligaId, nuevo);
+        if (existente != null) {
+            return existente;
+        }
+        descartarSiNoSeConfirma(ligaId);
+        return nuevo;
+    }
+
+    private MercadoJugadores construirMercado(Long ligaId) {
+        List<ResumenJugador> jugadores = new ArrayList<>();
+        for (Object[] fila : jugadorRepository.findResumenJugadoresLiga(ligaId)) {
+            jugadores.add(new ResumenJugador(
+                    (Long) fila[0],
+                    (String) fila[1],
+                    (String) fila[2],
+                    (Boolean) fila[3],
+                    (Long) fila[5],
+                    (String) fila[6],
+                    (String) fila[7],
+                    ((Number) fila[8]).intValue(),
+                    ((Number) fila[9]).intValue(),
+                    (long) ((Number) fila[4]).floatValue()));
+        }
+
+        // Equipos de la primera jornada sin resultados
+        Set<Long> equiposQueJuegan = new HashSet<>();
+        List<Long> jornadasPendientes = jornadaRepository.findIdsJornadasSinResultados(ligaId);
+        if (!jornadasPendientes.isEmpty()) {
+            for (Object[] fila : partidoRepository.findIdsEquiposJornada(jornadasPendientes.get(0))) {
+                if (fila[0] != null) {
+                    equiposQueJuegan.add((Long) fila[0]);
+                }
+                if (fila[1] != null) {
+                    equiposQueJuegan.add((Long) fila[1]);
+                }
+            }
+        }
+
+        return new MercadoJugadores(jugadores, equiposQueJuegan);
+    }
+
+    /**
+     * Obtiene la versión actual de los datos de una liga
+     *
+     * Cambia cada vez que cambian las estadísticas, los precios, los jugadores, las
+     * jornadas o el presupuesto de la liga, así que un resultado calculado con una
+     * versión sigue siendo válido mientras esta no cambie.
+     *
+     * @param ligaId ID de la liga
+     * @return Versión de los datos (empieza en 0 al arrancar la aplicación)
+     */
+    public long obtenerVersionDatos(Long ligaId) {
+        return versiones.computeIfAbsent(ligaId, id -> new AtomicLong()).get();
+    }
+
+    /**
+     * Descarta el mercado de una liga y sube la versión de sus datos tras un cambio
+     * en sus jugadores, precios, jornadas o presupuesto
+     *
+     * Se descarta en el momento y otra vez al terminar la transacción, para que
+     * una consulta hecha antes del commit no deje datos antiguos.
+     *
+     * @param ligaId ID de la liga
+     */
+    public void invalidarLiga(Long ligaId) {
+        if (ligaId == null) {
+            return;
+        }
+
+        descartar(ligaId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    descartar(ligaId);
+                }
+            });
+        }
+    }
+
+    private void descartar(Long ligaId) {
+        versiones.computeIfAbsent(ligaId, id -> new AtomicLong()).incrementAndGet();
+        mercados.remove(ligaId);
+    }
+
+    // Si la transacción en la que se construyó se deshace, el mercado puede incluir cambios no confirmados
+    private void descartarSiNoSeConfirma(Long ligaId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        mercados.remove(ligaId);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.Liga_Del_Cume.data.service;
+
+import com.example.Liga_Del_Cume.data.exceptions.AlineacionException;
+import com.example.Liga_Del_Cume.data.model.*;
+import com.example.Liga_Del_Cume.data.repository.LigaCumeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Servicio que calcula la alineación óptima de la próxima jornada de una liga
+ *
+ * Los candidatos son los jugadores del mercado de la liga (MercadoJugadoresService),
+ * es decir, los de equipos que juegan la próxima jornada, y sus puntos esperados
+ * salen del modelo configurado en ia.optimizador.modelo ("media" por defecto o
+ * "total", ver ModeloPuntosEsperados). La búsqueda (OptimizadorAlineacion) es
+ * exacta y se hace en memoria, sin llamadas externas.
+ */
+@Service
+@Transactional(readOnly = true)
+public class OptimizadorAlineacionService {
+
+    @Value("${ia.optimizador.modelo:media}")
+    private String modelo;
+
+    @Value("${ia.optimizador.partidos-previos:2}")
+    private int partidosPrevios;
+
+    @Autowired
+    private LigaCumeRepository ligaCumeRepository;
+
+    @Autowired
+    private MercadoJugadoresService mercadoJugadoresService;
+
+    /**
+     * Calcula la alineación (1 portero + 4 jugadores de campo) con más puntos
+     * esperados que cabe en el presupuesto máximo de la liga
+     *
+     * @param ligaId ID de la liga
+     * @param excluidos IDs de jugadores que no se pueden elegir (puede ser null)
+     * @param fijados IDs de jugadores que deben estar en la alineación (puede ser null)
+     * @return Alineación óptima
+     * @throws IllegalArgumentException si el ID de la liga es nulo o el modelo configurado no existe
+     * @throws RuntimeException si la liga no existe
+     * @throws AlineacionException si los jugadores fijados no son válidos o ninguna alineación cabe en el presupuesto
+     */
+    public AlineacionOptima calcularAlineacionOptima(Long ligaId, Set<Long> excluidos, Set<Long> fijados) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+        Set<Long> sinElegir = excluidos != null ? excluidos : Set.of();
+        Set<Long> obligatorios = fijados != null ? fijados : Set.of();
+
+        LigaCume liga = ligaCumeRepository.findById(ligaId)
+                .orElseThrow(() -> new RuntimeException("No existe ninguna liga con ID: " + ligaId));
+        // Sin presupuesto configurado no hay límite de coste
+        long presupuesto = liga.getPresupuestoMaximo() != null ? liga.getPresupuestoMaximo() : Long.MAX_VALUE;
+
+        MercadoJugadores mercado = mercadoJugadoresService.obtenerMercado(ligaId);
+        List<ResumenJugador> porteros = filtrarExcluidos(mercado.getDisponibles(true), sinElegir, obligatorios);
+        List<ResumenJugador> jugadoresCampo = filtrarExcluidos(mercado.getDisponibles(false), sinElegir, obligatorios);
+        validarFijados(porteros, jugadoresCampo, obligatorios);
+
+        ModeloPuntosEsperados modeloPuntos = ModeloPuntosEsperados.valueOf(modelo.trim().toUpperCase());
+        Map<Long, Double> puntosEsperados = new HashMap<>();
+        calcularPuntosEsperados(porteros, modeloPuntos, puntosEsperados);
+        calcularPuntosEsperados(jugadoresCampo, modeloPuntos, puntosEsperados);
+
+        AlineacionOptima alineacion = OptimizadorAlineacion.resolver(porteros, jugadoresCampo,
+                puntosEsperados, presupuesto, obligatorios);
+        if (alineacion == null) {
+            throw new AlineacionException("No hay ninguna alineación de 1 portero y "
+                    + OptimizadorAlineacion.JUGADORES_CAMPO + " jugadores de campo que quepa en el presupuesto de "
+                    + presupuesto + "€");
+        }
+        return alineacion;
+    }
+
+    private List<ResumenJugador> filtrarExcluidos(List<ResumenJugador> jugadores, Set<Long> excluidos, Set<Long> fijados) {
+        List<ResumenJugador> disponibles = new ArrayList<>(jugadores.size());
+        for (ResumenJugador jugador : jugadores) {
+            if (!excluidos.contains(jugador.getId())) {
+                disponibles.add(jugador);
+            } else if (fijados.contains(jugador.getId())) {
+                throw new AlineacionException("El jugador " + jugador.getNombre() + " no puede estar fijado y excluido a la vez");
+            }
+        }
+        return disponibles;
+    }
+
+    private void validarFijados(List<ResumenJugador> porteros, List<ResumenJugador> jugadoresCampo, Set<Long> fijados) {
+        int porterosFijados = 0;
+        int campoFijados = 0;
+        for (ResumenJugador portero : porteros) {
+            if (fijados.contains(portero.getId())) {
+                porterosFijados++;
+            }
+        }
+        for (ResumenJugador jugador : jugadoresCampo) {
+            if (fijados.contains(jugador.getId())) {
+                campoFijados++;
+            }
+        }
+
+        if (porterosFijados + campoFijados < fijados.size()) {
+            throw new AlineacionException("Algún jugador fijado no está disponible para la próxima jornada");
+        }
+        if (porterosFijados > 1) {
+            throw new AlineacionException("Solo se puede fijar un portero");
+        }
+        if (campoFijados > OptimizadorAlineacion.JUGADORES_CAMPO) {
+            throw new AlineacionException("Solo se pueden fijar " + OptimizadorAlineacion.JUGADORES_CAMPO
+                    + " jugadores de campo");
+        }
+    }
+
+    // Los puntos esperados de cada jugador según el modelo, con la media de su posición como referencia
+    private void calcularPuntosEsperados(List<ResumenJugador> jugadores, ModeloPuntosEsperados modeloPuntos,
+                                         Map<Long, Double> puntosEsperados) {
+        long puntos = 0;
+        long partidos = 0;
+        for (ResumenJugador jugador : jugadores) {
+            puntos += jugador.getPuntosTotal();
+            partidos += jugador.getPartidosJugados();
+        }
+        double mediaPosicion = partidos > 0 ? (double) puntos / partidos : 0;
+
+        for (ResumenJugador jugador : jugadores) {
+            puntosEsperados.put(jugador.getId(), modeloPuntos.puntosEsperados(jugador, mediaPosicion, partidosPrevios));
+        }
+    }
+}
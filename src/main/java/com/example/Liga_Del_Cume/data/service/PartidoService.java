@@ -4,6 +4,7 @@ import com.example.Liga_Del_Cume.data.model.Equipo;
 import com.example.Liga_Del_Cume.data.model.Jornada;
 import com.example.Liga_Del_Cume.data.model.Partido;
 import com.example.Liga_Del_Cume.data.repository.EquipoRepository;
+import com.example.Liga_Del_Cume.data.repository.EstadisticaJugadorPartidoRepository;
 import com.example.Liga_Del_Cume.data.repository.JornadaRepository;
 import com.example.Liga_Del_Cume.data.repository.PartidoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +33,15 @@ public class PartidoService {
     @Autowired
     private JornadaRepository jornadaRepository;
 
+    @Autowired
+    private EstadisticaJugadorPartidoRepository estadisticaRepository;
+
+    @Autowired
+    private ClasificacionService clasificacionService;
+
+    @Autowired
+    private MercadoJugadoresService mercadoJugadoresService;
+
     /**
      * Funcionalidad 3.1: Agregar resultado de un partido en una jornada
      *
@@ -94,7 +104,9 @@ public class PartidoService {
         }
 
         Partido partido = new Partido(equipoLocal, equipoVisitante, golesLocal, golesVisitante, jornada);
-        return partidoRepository.save(partido);
+        Partido partidoGuardado = partidoRepository.save(partido);
+        invalidarMercado(partidoGuardado);
+        return partidoGuardado;
     }
 
     /**
@@ -115,6 +127,11 @@ public class PartidoService {
         Partido partido = partidoRepository.findById(partidoId)
                 .orElseThrow(() -> new RuntimeException("Partido no encontrado con ID: " + partidoId));
 
+        // Resultado anterior, necesario para corregir la clasificación
+        boolean jugadoAntes = partido.isJugado();
+        int golesLocalAntes = partido.getGolesLocal();
+        int golesVisitanteAntes = partido.getGolesVisitante();
+
         if (nuevosGolesLocal != null) {
             if (nuevosGolesLocal < 0) {
                 throw new IllegalArgumentException("Los goles del equipo local no pueden ser negativos");
@@ -129,7 +146,14 @@ public class PartidoService {
             partido.setGolesVisitante(nuevosGolesVisitante);
         }
 
-        return partidoRepository.save(partido);
+        // Jugado = con goles o con estadísticas, en los dos sentidos (un 0-0 sin estadísticas no cuenta)
+        partido.actualizarJugado(estadisticaRepository.existsByPartidoIdPartido(partidoId));
+
+        Partido partidoGuardado = partidoRepository.save(partido);
+        clasificacionService.aplicarCambioResultado(partidoGuardado, jugadoAntes, golesLocalAntes, golesVisitanteAntes);
+        invalidarMercado(partidoGuardado);
+
+        return partidoGuardado;
     }
 
     /**
@@ -230,10 +254,17 @@ public class PartidoService {
             throw new IllegalArgumentException("El ID del partido no puede ser nulo");
         }
 
-        if (!partidoRepository.existsById(id)) {
-            throw new RuntimeException("Partido no encontrado con ID: " + id);
-        }
+        Partido partido = partidoRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Partido no encontrado con ID: " + id));
 
         partidoRepository.deleteById(id);
+        invalidarMercado(partido);
+    }
+
+    // Los partidos deciden la próxima jornada y qué equipos la juegan en el mercado de jugadores
+    private void invalidarMercado(Partido partido) {
+        if (partido.getJornada() != null && partido.getJornada().getLiga() != null) {
+            mercadoJugadoresService.invalidarLiga(partido.getJornada().getLiga().getIdLigaCume());
+        }
     }
 }
@@ -0,0 +1,233 @@
+package com.example.Liga_Del_Cume.data.service;
+
+import com.example.Liga_Del_Cume.data.model.Jornada;
+import com.example.Liga_Del_Cume.data.model.LigaCume;
+import com.example.Liga_Del_Cume.data.model.PrecioJugadorJornada;
+import com.example.Liga_Del_Cume.data.repository.AlineacionRepository;
+import com.example.Liga_Del_Cume.data.repository.EstadisticaJdbcRepository;
+import com.example.Liga_Del_Cume.data.repository.EstadisticaJugadorPartidoRepository;
+import com.example.Liga_Del_Cume.data.repository.JornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.JugadorRepository;
+import com.example.Liga_Del_Cume.data.repository.LigaCumeRepository;
+import com.example.Liga_Del_Cume.data.repository.PrecioJugadorJornadaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Servicio que calcula el precio de mercado de los jugadores jornada a jornada
+ *
+ * El precio de un jugador al terminar una jornada es el de la jornada anterior
+ * (o su precio de salida) más LigaCume.eurosPorPunto (1000 por defecto) por cada
+ * punto fantasy que ha sumado en ella, y nunca baja de 0. Si la liga usa el
+ * modelo por demanda (LigaCume.precioPorDemanda) se suma además
+ * LigaCume.eurosPorDemanda multiplicado por la fracción de alineaciones de la
+ * jornada que eligieron al jugador, para que los jugadores que todos fichan se
+ * encarezcan.
+ *
+ * Cada jornada se calcula de una pasada: una consulta agrupada con los puntos de
+ * sus jugadores, otra con las veces que cada jugador fue alineado (para todas
+ * las jornadas a la vez), las filas del historial (PrecioJugadorJornada) guardadas
+ * por lotes y la copia del último precio en Jugador.precioMercado actualizada con
+ * una escritura por lotes de JDBC.
+ *
+ * Como el precio de una jornada depende del de la anterior, al recalcular una
+ * jornada también se recalculan las posteriores que ya tenían precios.
+ */
+@Service
+@Transactional
+public class PrecioJugadorService {
+
+    @Autowired
+    private JornadaRepository jornadaRepository;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private LigaCumeRepository ligaCumeRepository;
+
+    @Autowired
+    private AlineacionRepository alineacionRepository;
+
+    @Autowired
+    private EstadisticaJugadorPartidoRepository estadisticaRepository;
+
+    @Autowired
+    private PrecioJugadorJornadaRepository precioJugadorJornadaRepository;
+
+    @Autowired
+    private EstadisticaJdbcRepository estadisticaJdbcRepository;
+
+    @Autowired
+    private MercadoJugadoresService mercadoJugadoresService;
+
+    /**
+     * Recalcula los precios de una jornada y de las posteriores que ya tenían precios
+     *
+     * @param jornadaId ID de la jornada
+     * @return Número de jugadores cuyo precio de mercado se ha vuelto a fijar
+     * @throws IllegalArgumentException si el ID es nulo
+     * @throws RuntimeException si la jornada no existe
+     */
+    public int recalcularPreciosJornada(Long jornadaId) {
+        if (jornadaId == null) {
+            throw new IllegalArgumentException("El ID de la jornada no puede ser nulo");
+        }
+
+        Jornada jornada = jornadaRepository.findById(jornadaId)
+                .orElseThrow(() -> new RuntimeException("No existe ninguna jornada con ID: " + jornadaId));
+        if (jornada.getLiga() == null || jornada.getNumeroJornada() == null) {
+            return 0;
+        }
+
+        Long ligaId = jornada.getLiga().getIdLigaCume();
+        Set<Long> posterioresConPrecios = new HashSet<>(precioJugadorJornadaRepository
+                .findIdsJornadasConPreciosDespuesDe(ligaId, jornada.getNumeroJornada()));
+
+        List<Jornada> jornadas = new ArrayList<>();
+        for (Jornada candidata : jornadasOrdenadas(ligaId)) {
+            if (candidata.getIdJornada().equals(jornadaId) || posterioresConPrecios.contains(candidata.getIdJornada())) {
+                jornadas.add(candidata);
+            }
+        }
+        return recalcular(ligaId, jornadas);
+    }
+
+    /**
+     * Recalcula el historial de precios completo de una liga, jornada a jornada
+     *
+     * @param ligaId ID de la liga
+     * @return Número de jugadores cuyo precio de mercado se ha vuelto a fijar
+     * @throws IllegalArgumentException si el ID es nulo
+     */
+    public int recalcularPreciosLiga(Long ligaId) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+        return recalcular(ligaId, jornadasOrdenadas(ligaId));
+    }
+
+    /**
+     * Obtiene el historial de precios de un jugador, por orden de jornada
+     *
+     * @param jugadorId ID del jugador
+     * @return Precio del jugador al terminar cada jornada en la que jugó
+     * @throws IllegalArgumentException si el ID es nulo
+     */
+    @Transactional(readOnly = true)
+    public List<PrecioJugadorJornada> obtenerHistorialPrecios(Long jugadorId) {
+        if (jugadorId == null) {
+            throw new IllegalArgumentException("El ID del jugador no puede ser nulo");
+        }
+        return precioJugadorJornadaRepository.findByIdJugadorOrderByNumeroJornadaAsc(jugadorId);
+    }
+
+    private List<Jornada> jornadasOrdenadas(Long ligaId) {
+        return jornadaRepository.findByLigaIdLigaCume(ligaId).stream()
+                .filter(jornada -> jornada.getNumeroJornada() != null)
+                .sorted(Comparator.comparing(Jornada::getNumeroJornada))
+                .toList();
+    }
+
+    /**
+     * Recalcula en orden los precios de unas jornadas de la liga
+     */
+    private int recalcular(Long ligaId, List<Jornada> jornadas) {
+        if (jornadas.isEmpty()) {
+            return 0;
+        }
+
+        // Jugadores creados antes del historial de precios: se deduce su precio de salida
+        if (jugadorRepository.existsByEquipoLigaIdLigaCumeAndPrecioSalidaIsNull(ligaId)) {
+            jugadorRepository.inicializarPreciosSalida(ligaId);
+        }
+
+        LigaCume liga = ligaCumeRepository.findById(ligaId)
+                .orElseThrow(() -> new RuntimeException("No existe ninguna liga con ID: " + ligaId));
+
+        // Cambio de precio de cada jugador en cada jornada por sus puntos: una consulta agrupada por jornada
+        Map<Long, Map<Long, Float>> cambiosPorJornada = new HashMap<>();
+        for (Jornada jornada : jornadas) {
+            Map<Long, Float> cambios = new HashMap<>();
+            for (Object[] fila : estadisticaRepository.sumarPuntosJugadoresJornada(jornada.getIdJornada())) {
+                cambios.put((Long) fila[0], ((Number) fila[1]).floatValue() * liga.getEurosPorPunto());
+            }
+            cambiosPorJornada.put(jornada.getIdJornada(), cambios);
+        }
+        Set<Long> idsJornadas = cambiosPorJornada.keySet();
+
+        // Con el modelo por demanda, más la parte de alineaciones que eligieron al jugador
+        if (liga.isPrecioPorDemanda()) {
+            sumarDemanda(cambiosPorJornada, liga.getEurosPorDemanda());
+        }
+
+        // Precio de partida: el último antes de la primera jornada o, si no hay, el de salida
+        Map<Long, Float> precios = new HashMap<>();
+        for (PrecioJugadorJornada anterior : precioJugadorJornadaRepository
+                .findUltimosPreciosAntesDe(ligaId, jornadas.get(0).getNumeroJornada())) {
+            precios.put(anterior.getIdJugador(), anterior.getPrecio());
+        }
+
+        // Jugadores cuyo último precio sale de estas jornadas: los que tenían precio y los que lo tendrán
+        Set<Long> afectados = new HashSet<>(precioJugadorJornadaRepository.findIdsJugadoresConPrecioEn(idsJornadas));
+        for (Map<Long, Float> cambios : cambiosPorJornada.values()) {
+            afectados.addAll(cambios.keySet());
+        }
+        if (afectados.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> sinPrecioAnterior = new HashSet<>(afectados);
+        sinPrecioAnterior.removeAll(precios.keySet());
+        if (!sinPrecioAnterior.isEmpty()) {
+            for (Object[] fila : jugadorRepository.findPreciosSalida(sinPrecioAnterior)) {
+                precios.put((Long) fila[0], fila[1] != null ? (Float) fila[1] : 0f);
+            }
+        }
+
+        // Nuevo historial de las jornadas, en orden y arrastrando el precio de la anterior
+        precioJugadorJornadaRepository.deleteByIdJornadaIn(idsJornadas);
+        List<PrecioJugadorJornada> historial = new ArrayList<>();
+        for (Jornada jornada : jornadas) {
+            for (Map.Entry<Long, Float> cambio : cambiosPorJornada.get(jornada.getIdJornada()).entrySet()) {
+                Long idJugador = cambio.getKey();
+                float precio = Math.max(0f, precios.getOrDefault(idJugador, 0f) + cambio.getValue());
+                precios.put(idJugador, precio);
+                historial.add(new PrecioJugadorJornada(ligaId, idJugador, jornada.getIdJornada(),
+                        jornada.getNumeroJornada(), precio));
+            }
+        }
+        precioJugadorJornadaRepository.saveAll(historial);
+
+        // Copia del último precio en el jugador
+        Map<Long, Float> preciosMercado = new HashMap<>();
+        for (Long idJugador : afectados) {
+            preciosMercado.put(idJugador, precios.getOrDefault(idJugador, 0f));
+        }
+        estadisticaJdbcRepository.fijarPreciosJugadores(preciosMercado);
+        mercadoJugadoresService.invalidarLiga(ligaId);
+        return preciosMercado.size();
+    }
+
+    /**
+     * Suma a los cambios de precio de cada jornada la demanda de cada jugador: la
+     * fracción de alineaciones de la jornada que lo eligieron por eurosPorDemanda
+     */
+    private void sumarDemanda(Map<Long, Map<Long, Float>> cambiosPorJornada, int eurosPorDemanda) {
+        Map<Long, Long> alineacionesPorJornada = new HashMap<>();
+        for (Object[] fila : alineacionRepository.contarAlineacionesJornadas(cambiosPorJornada.keySet())) {
+            alineacionesPorJornada.put((Long) fila[0], ((Number) fila[1]).longValue());
+        }
+
+        // Una sola consulta agrupada para todas las jornadas de la liga
+        for (Object[] fila : alineacionRepository.contarSeleccionesJugadores(cambiosPorJornada.keySet())) {
+            Long idJornada = (Long) fila[0];
+            long selecciones = ((Number) fila[2]).longValue();
+            float demanda = (float) selecciones / alineacionesPorJornada.get(idJornada);
+            cambiosPorJornada.get(idJornada).merge((Long) fila[1], (float) Math.round(demanda * eurosPorDemanda), Float::sum);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.Liga_Del_Cume.data.service;
+
+import com.example.Liga_Del_Cume.data.model.Jornada;
+import com.example.Liga_Del_Cume.data.model.PuntosUsuarioJornada;
+import com.example.Liga_Del_Cume.data.repository.AlineacionJdbcRepository;
+import com.example.Liga_Del_Cume.data.repository.AlineacionRepository;
+import com.example.Liga_Del_Cume.data.repository.JornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.PuntosUsuarioJornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.UsuarioJdbcRepository;
+import com.example.Liga_Del_Cume.data.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Servicio que lleva los puntos de cada usuario en cada jornada
+ *
+ * Al recalcular una jornada se calculan en una sola consulta los puntos de todas
+ * sus alineaciones, se comparan con lo apuntado en PuntosUsuarioJornada y a los
+ * puntos acumulados de cada usuario solo se les aplica la diferencia. Recalcular
+ * la misma jornada varias veces deja siempre el mismo resultado.
+ *
+ * Si un usuario aún no tiene apunte en la jornada, se toma como ya aplicado el
+ * valor guardado en su alineación (los datos anteriores a este registro ya lo
+ * tenían sumado en sus puntos acumulados).
+ *
+ * Las diferencias se suman en la base de datos (UsuarioJdbcRepository), no
+ * leyendo y guardando el usuario, para que dos recálculos de jornadas distintas
+ * que tocan al mismo usuario a la vez no pierdan ninguno de los dos cambios.
+ *
+ * Dos recálculos de la misma jornada no pueden ir a la vez: leerían el mismo
+ * apunte y sumarían dos veces la misma diferencia. Por eso cada recálculo toma el
+ * cerrojo de la liga (CerrojoLigaService) hasta el fin de su transacción y lee los
+ * apuntes bloqueándolos, de modo que el segundo ve ya lo que apuntó el primero.
+ */
+@Service
+@Transactional
+public class PuntosJornadaService {
+
+    @Autowired
+    private PuntosUsuarioJornadaRepository puntosUsuarioJornadaRepository;
+
+    @Autowired
+    private AlineacionRepository alineacionRepository;
+
+    @Autowired
+    private AlineacionJdbcRepository alineacionJdbcRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private UsuarioJdbcRepository usuarioJdbcRepository;
+
+    @Autowired
+    private JornadaRepository jornadaRepository;
+
+    @Autowired
+    private IndiceRankingService indiceRankingService;
+
+    @Autowired
+    private CerrojoLigaService cerrojoLigaService;
+
+    /**
+     * Recalcula los puntos de todos los usuarios con alineación en una jornada
+     *
+     * @param jornadaId ID de la jornada
+     * @return Número de usuarios cuyos puntos acumulados han cambiado
+     * @throws IllegalArgumentException si el ID es nulo
+     * @throws RuntimeException si la jornada no existe
+     */
+    public int recalcularPuntosJornada(Long jornadaId) {
+        if (jornadaId == null) {
+            throw new IllegalArgumentException("El ID de la jornada no puede ser nulo");
+        }
+
+        Jornada jornada = jornadaRepository.findById(jornadaId)
+                .orElseThrow(() -> new RuntimeException("No existe ninguna jornada con ID: " + jornadaId));
+        Long ligaId = jornada.getLiga() != null ? jornada.getLiga().getIdLigaCume() : null;
+        if (ligaId != null) {
+            cerrojoLigaService.bloquearHastaFinTransaccion(ligaId);
+        }
+
+        // Apuntes actuales de la jornada, por usuario (bloqueados hasta confirmar)
+        Map<Long, PuntosUsuarioJornada> apuntes = new HashMap<>();
+        for (PuntosUsuarioJornada apunte : puntosUsuarioJornadaRepository.findByIdJornada(jornadaId)) {
+            apuntes.put(apunte.getIdUsuario(), apunte);
+        }
+
+        // Puntos nuevos de cada usuario, diferencia a aplicar y alineaciones a corregir
+        Map<Long, Integer> puntosNuevos = new HashMap<>();
+        Map<Long, Integer> diferencias = new HashMap<>();
+        Map<Long, Integer> alineacionesModificadas = new HashMap<>();
+
+        for (Object[] fila : alineacionRepository.calcularPuntosAlineacionesJornada(jornadaId)) {
+            Long idAlineacion = (Long) fila[0];
+            Long idUsuario = (Long) fila[1];
+            int puntosGuardados = ((Number) fila[2]).intValue();
+            int puntosCalculados = ((Number) fila[3]).intValue();
+
+            if (puntosCalculados != puntosGuardados) {
+                alineacionesModificadas.put(idAlineacion, puntosCalculados);
+            }
+
+            puntosNuevos.merge(idUsuario, puntosCalculados, Integer::sum);
+            if (!apuntes.containsKey(idUsuario)) {
+                // Sin apunte previo: lo guardado en la alineación ya estaba sumado al usuario
+                diferencias.merge(idUsuario, -puntosGuardados, Integer::sum);
+            }
+        }
+
+        // Usuarios con apunte pero sin alineación en la jornada pasan a tener 0 puntos en ella
+        for (Long idUsuario : apuntes.keySet()) {
+            puntosNuevos.putIfAbsent(idUsuario, 0);
+        }
+
+        List<PuntosUsuarioJornada> apuntesModificados = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entrada : puntosNuevos.entrySet()) {
+            Long idUsuario = entrada.getKey();
+            int puntos = entrada.getValue();
+            PuntosUsuarioJornada apunte = apuntes.get(idUsuario);
+
+            if (apunte == null) {
+                apuntesModificados.add(new PuntosUsuarioJornada(ligaId, idUsuario, jornadaId, puntos));
+                diferencias.merge(idUsuario, puntos, Integer::sum);
+            } else if (apunte.getPuntos() != puntos) {
+                diferencias.merge(idUsuario, puntos - apunte.getPuntos(), Integer::sum);
+                apunte.setPuntos(puntos);
+                apuntesModificados.add(apunte);
+            }
+        }
+        puntosUsuarioJornadaRepository.saveAll(apuntesModificados);
+
+        // Aplicar solo las diferencias distintas de cero a los puntos acumulados
+        diferencias.values().removeIf(diferencia -> diferencia == 0);
+        if (!diferencias.isEmpty()) {
+            usuarioJdbcRepository.sumarPuntosAcumulados(diferencias);
+
+            // El índice del ranking se actualiza con los puntos que han quedado guardados
+            for (Object[] fila : usuarioRepository.findPuntosUsuarios(diferencias.keySet())) {
+                indiceRankingService.actualizarPuntos((Long) fila[0], (Long) fila[1], (String) fila[2],
+                        ((Number) fila[3]).intValue());
+            }
+        }
+
+        // Las alineaciones se actualizan al final, en un solo lote: vuelca y limpia el contexto de persistencia
+        alineacionJdbcRepository.actualizarPuntosAlineaciones(alineacionesModificadas);
+
+        return diferencias.size();
+    }
+}
@@ -1,14 +1,30 @@
 package com.example.Liga_Del_Cume.data.service;
 
 import com.example.Liga_Del_Cume.data.model.Alineacion;
+import com.example.Liga_Del_Cume.data.model.IndiceRanking;
+import com.example.Liga_Del_Cume.data.model.Jornada;
+import com.example.Liga_Del_Cume.data.model.PaginaRanking;
+import com.example.Liga_Del_Cume.data.model.PosicionRanking;
+import com.example.Liga_Del_Cume.data.model.RankingJornada;
 import com.example.Liga_Del_Cume.data.model.Usuario;
+import com.example.Liga_Del_Cume.data.repository.AlineacionRepository;
+import com.example.Liga_Del_Cume.data.repository.JornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.RankingJornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -16,6 +32,13 @@ import java.util.stream.Collectors;
  * Funcionalidades:
  * - 8: Ver clasificación general de usuarios
  * - 10: Consultar puntuación total por jornada
+ *
+ * Las consultas de posición, top N y vecindario de un usuario se resuelven con el
+ * IndiceRanking en memoria de la liga, sin recorrer ni leer el ranking completo.
+ *
+ * Al cerrar una jornada se guarda una foto del ranking (RankingJornada) con la
+ * posición, los puntos y el movimiento de cada usuario, que es de donde salen las
+ * flechas de la página de ranking y la evolución de la temporada.
  */
 @Service
 @Transactional
@@ -27,6 +50,21 @@ public class RankingService {
     @Autowired
     private AlineacionService alineacionService;
 
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private IndiceRankingService indiceRankingService;
+
+    @Autowired
+    private AlineacionRepository alineacionRepository;
+
+    @Autowired
+    private JornadaRepository jornadaRepository;
+
+    @Autowired
+    private RankingJornadaRepository rankingJornadaRepository;
+
     /**
      * Funcionalidad 8: Consultar ranking de todos los usuarios de una liga
      * Ordena por puntos acumulados de forma descendente
@@ -51,41 +89,78 @@ public class RankingService {
     }
 
     /**
-     * Funcionalidad 10: Obtener ranking de una jornada específica
-     * Ordena los usuarios por los puntos obtenidos en esa jornada
+     * Funcionalidad 10: Obtener una página del ranking de una jornada específica
+     *
+     * El orden (puntos de la jornada descendente y, a igualdad, ID de usuario) lo
+     * resuelve la base de datos, y solo se leen las filas de la página pedida. Cada
+     * fila lleva únicamente usuario, puntos y posición; los jugadores de la
+     * alineación se consultan aparte con obtenerDetallePuntuacionJornada.
      *
      * @param jornadaId ID de la jornada
-     * @return Lista de mapas con información de usuarios y puntos
-     * @throws IllegalArgumentException si el ID es nulo
+     * @param cursor Cursor devuelto en la página anterior (null para la primera página)
+     * @param tamanoPagina Número máximo de filas de la página
+     * @return Página del ranking con el cursor de la siguiente
+     * @throws IllegalArgumentException si el ID es nulo, el tamaño no es positivo o el cursor no es válido
      * @throws RuntimeException si no hay alineaciones en la jornada
      */
-    public List<Map<String, Object>> obtenerRankingJornada(Long jornadaId) {
+    public PaginaRanking obtenerRankingJornada(Long jornadaId, String cursor, int tamanoPagina) {
         if (jornadaId == null) {
             throw new IllegalArgumentException("El ID de la jornada no puede ser nulo");
         }
+        if (tamanoPagina <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo");
+        }
+
+        // El cursor guarda la última fila devuelta: "puntos:idUsuario:posicion"
+        int puntos = Integer.MAX_VALUE;
+        long idUsuario = 0L;
+        int posicion = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = cursor.split(":");
+            try {
+                if (partes.length != 3) {
+                    throw new NumberFormatException(cursor);
+                }
+                puntos = Integer.parseInt(partes[0]);
+                idUsuario = Long.parseLong(partes[1]);
+                posicion = Integer.parseInt(partes[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor de ranking no válido: " + cursor);
+            }
+        }
 
-        List<Alineacion> alineaciones = alineacionService.listarAlineacionesPorJornada(jornadaId);
+        // Se pide una fila de más para saber si hay página siguiente
+        List<PosicionRanking> filas = alineacionRepository.findRankingJornadaDespuesDe(
+                jornadaId, puntos, idUsuario, PageRequest.of(0, tamanoPagina + 1));
 
-        if (alineaciones.isEmpty()) {
+        if (filas.isEmpty() && posicion == 0) {
             throw new RuntimeException("No hay alineaciones para la jornada con ID: " + jornadaId);
         }
 
-        return alineaciones.stream()
-                .sorted((a1, a2) -> Integer.compare(a2.getPuntosTotalesJornada(), a1.getPuntosTotalesJornada()))
-                .map(alineacion -> {
-                    Map<String, Object> resultado = new HashMap<>();
-                    resultado.put("usuario", alineacion.getUsuario().getNombreUsuario());
-                    resultado.put("puntos", alineacion.getPuntosTotalesJornada());
-                    resultado.put("jugadores", alineacion.getJugadores());
-                    return resultado;
-                })
-                .collect(Collectors.toList());
+        boolean hayMas = filas.size() > tamanoPagina;
+        if (hayMas) {
+            filas = new ArrayList<>(filas.subList(0, tamanoPagina));
+        }
+        for (PosicionRanking fila : filas) {
+            fila.setPosicion(++posicion);
+        }
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            PosicionRanking ultima = filas.get(filas.size() - 1);
+            siguienteCursor = ultima.getPuntos() + ":" + ultima.getIdUsuario() + ":" + ultima.getPosicion();
+        }
+
+        return new PaginaRanking(filas, siguienteCursor);
     }
 
     /**
      * Funcionalidad 10: Mostrar detalle de puntuación de un usuario en una jornada
      * Incluye jugadores seleccionados y sus respectivas puntuaciones
      *
+     * Los jugadores se devuelven como mapas con id, nombre, si es portero y los
+     * puntos obtenidos en la jornada, sin cargar las entidades Jugador.
+     *
      * @param usuarioId ID del usuario
      * @param jornadaId ID de la jornada
      * @return Mapa con detalles de la puntuación
@@ -107,11 +182,21 @@ public class RankingService {
                     " en la jornada " + jornadaId);
         }
 
+        List<Map<String, Object>> jugadores = new ArrayList<>();
+        for (Object[] fila : alineacionRepository.findPuntosJugadoresAlineacion(usuarioId, jornadaId)) {
+            Map<String, Object> jugador = new HashMap<>();
+            jugador.put("idJugador", fila[0]);
+            jugador.put("nombreJugador", fila[1]);
+            jugador.put("esPortero", fila[2]);
+            jugador.put("puntos", ((Number) fila[3]).intValue());
+            jugadores.add(jugador);
+        }
+
         Map<String, Object> detalle = new HashMap<>();
         detalle.put("usuario", alineacion.getUsuario().getNombreUsuario());
         detalle.put("jornada", alineacion.getJornada().getIdJornada());
         detalle.put("puntosTotales", alineacion.getPuntosTotalesJornada());
-        detalle.put("jugadores", alineacion.getJugadores());
+        detalle.put("jugadores", jugadores);
 
         return detalle;
     }
@@ -120,30 +205,28 @@ public class RankingService {
      * Actualiza los puntos acumulados de todos los usuarios de una liga
      * basándose en sus alineaciones
      *
+     * Los puntos de cada usuario pasan a ser la suma de puntosTotalesJornada de
+     * todas sus alineaciones. Se hace con una sola sentencia UPDATE en la base de
+     * datos, sin cargar usuarios ni alineaciones.
+     *
      * @param ligaId ID de la liga
+     * @return Número de usuarios actualizados
      * @throws IllegalArgumentException si el ID es nulo
      * @throws RuntimeException si la liga no tiene usuarios
      */
-    public void actualizarPuntosAcumulados(Long ligaId) {
+    public int actualizarPuntosAcumulados(Long ligaId) {
         if (ligaId == null) {
             throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
         }
 
-        List<Usuario> usuarios = usuarioService.listarUsuariosPorLiga(ligaId);
+        int usuariosActualizados = usuarioRepository.recalcularPuntosAcumuladosPorLiga(ligaId);
+        indiceRankingService.invalidarLiga(ligaId);
 
-        if (usuarios.isEmpty()) {
+        if (usuariosActualizados == 0) {
             throw new RuntimeException("No hay usuarios en la liga con ID: " + ligaId);
         }
 
-        for (Usuario usuario : usuarios) {
-            int puntosAcumulados = alineacionService.listarAlineacionesPorUsuario(usuario.getIdUsuario())
-                    .stream()
-                    .mapToInt(Alineacion::getPuntosTotalesJornada)
-                    .sum();
-
-            usuario.setPuntosAcumulados(puntosAcumulados);
-            usuarioService.modificarUsuario(usuario.getIdUsuario(), null, puntosAcumulados);
-        }
+        return usuariosActualizados;
     }
 
     /**
@@ -162,12 +245,9 @@ public class RankingService {
             throw new IllegalArgumentException("El ID del usuario no puede ser nulo");
         }
 
-        List<Usuario> ranking = obtenerRankingGeneral(ligaId);
-
-        for (int i = 0; i < ranking.size(); i++) {
-            if (ranking.get(i).getIdUsuario().equals(usuarioId)) {
-                return i + 1;
-            }
+        int posicion = obtenerIndiceConUsuarios(ligaId).posicion(usuarioId);
+        if (posicion > 0) {
+            return posicion;
         }
 
         throw new RuntimeException("Usuario con ID " + usuarioId + " no encontrado en la liga " + ligaId);
@@ -189,13 +269,61 @@ public class RankingService {
             throw new IllegalArgumentException("El número de usuarios debe ser positivo");
         }
 
-        List<Usuario> ranking = obtenerRankingGeneral(ligaId);
+        List<Long> ids = obtenerTopRanking(ligaId, topN).stream()
+                .map(PosicionRanking::getIdUsuario)
+                .collect(Collectors.toList());
+
+        // Se cargan solo los N usuarios del top y se devuelven en el orden del índice
+        Map<Long, Usuario> usuariosPorId = usuarioRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Usuario::getIdUsuario, usuario -> usuario));
 
-        return ranking.stream()
-                .limit(topN)
+        return ids.stream()
+                .map(usuariosPorId::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Obtiene las N primeras posiciones del ranking de una liga
+     *
+     * @param ligaId ID de la liga
+     * @param topN Número de posiciones a devolver
+     * @return Filas del ranking (usuario, puntos y posición) de la 1 a la N
+     * @throws IllegalArgumentException si algún parámetro es inválido
+     * @throws RuntimeException si la liga no tiene usuarios
+     */
+    public List<PosicionRanking> obtenerTopRanking(Long ligaId, int topN) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+        if (topN <= 0) {
+            throw new IllegalArgumentException("El número de usuarios debe ser positivo");
+        }
+
+        return obtenerIndiceConUsuarios(ligaId).rango(1, topN);
+    }
+
+    /**
+     * Obtiene la zona del ranking alrededor de un usuario: los usuarios que tiene
+     * justo por encima, él mismo y los que tiene justo por debajo
+     *
+     * @param ligaId ID de la liga
+     * @param usuarioId ID del usuario
+     * @param porEncima Número de posiciones a mostrar por encima del usuario
+     * @param porDebajo Número de posiciones a mostrar por debajo del usuario
+     * @return Filas del ranking ordenadas por posición
+     * @throws IllegalArgumentException si algún parámetro es inválido
+     * @throws RuntimeException si el usuario no está en la liga
+     */
+    public List<PosicionRanking> obtenerVecindarioUsuario(Long ligaId, Long usuarioId, int porEncima, int porDebajo) {
+        if (porEncima < 0 || porDebajo < 0) {
+            throw new IllegalArgumentException("El número de posiciones no puede ser negativo");
+        }
+
+        int posicion = obtenerPosicionUsuario(ligaId, usuarioId);
+        return indiceRankingService.obtenerIndice(ligaId).rango(posicion - porEncima, posicion + porDebajo);
+    }
+
     /**
      * Compara las puntuaciones de dos usuarios en una liga
      *
@@ -216,26 +344,175 @@ public class RankingService {
             throw new IllegalArgumentException("No se puede comparar un usuario consigo mismo");
         }
 
-        Usuario usuario1 = usuarioService.obtenerUsuario(usuarioId1);
-        Usuario usuario2 = usuarioService.obtenerUsuario(usuarioId2);
+        // Valida que ambos usuarios existan
+        usuarioService.obtenerUsuario(usuarioId1);
+        usuarioService.obtenerUsuario(usuarioId2);
 
-        int posicion1 = obtenerPosicionUsuario(ligaId, usuarioId1);
-        int posicion2 = obtenerPosicionUsuario(ligaId, usuarioId2);
+        IndiceRanking indice = obtenerIndiceConUsuarios(ligaId);
+        PosicionRanking usuario1 = indice.obtener(usuarioId1);
+        PosicionRanking usuario2 = indice.obtener(usuarioId2);
+        if (usuario1 == null || usuario2 == null) {
+            Long usuarioId = usuario1 == null ? usuarioId1 : usuarioId2;
+            throw new RuntimeException("Usuario con ID " + usuarioId + " no encontrado en la liga " + ligaId);
+        }
 
         Map<String, Object> comparacion = new HashMap<>();
         comparacion.put("usuario1", Map.of(
                 "nombre", usuario1.getNombreUsuario(),
-                "puntos", usuario1.getPuntosAcumulados(),
-                "posicion", posicion1
+                "puntos", usuario1.getPuntos(),
+                "posicion", usuario1.getPosicion()
         ));
         comparacion.put("usuario2", Map.of(
                 "nombre", usuario2.getNombreUsuario(),
-                "puntos", usuario2.getPuntosAcumulados(),
-                "posicion", posicion2
+                "puntos", usuario2.getPuntos(),
+                "posicion", usuario2.getPosicion()
         ));
-        comparacion.put("diferenciaPuntos", Math.abs(usuario1.getPuntosAcumulados() - usuario2.getPuntosAcumulados()));
-        comparacion.put("diferenciaPosiciones", Math.abs(posicion1 - posicion2));
+        comparacion.put("diferenciaPuntos", Math.abs(usuario1.getPuntos() - usuario2.getPuntos()));
+        comparacion.put("diferenciaPosiciones", Math.abs(usuario1.getPosicion() - usuario2.getPosicion()));
 
         return comparacion;
     }
+
+    /**
+     * Cierra una jornada guardando la foto del ranking de su liga
+     *
+     * Los puntos de cada usuario son la suma de sus alineaciones hasta esa jornada,
+     * y el movimiento se calcula frente a la última jornada cerrada anterior. Si la
+     * jornada ya estaba cerrada no se modifica.
+     *
+     * @param jornadaId ID de la jornada
+     * @return true si se ha guardado la foto, false si la jornada ya estaba cerrada
+     * @throws IllegalArgumentException si el ID es nulo
+     * @throws RuntimeException si la jornada no existe o no tiene liga o número
+     */
+    public boolean cerrarJornada(Long jornadaId) {
+        if (jornadaId == null) {
+            throw new IllegalArgumentException("El ID de la jornada no puede ser nulo");
+        }
+
+        Jornada jornada = jornadaRepository.findById(jornadaId)
+                .orElseThrow(() -> new RuntimeException("No existe ninguna jornada con ID: " + jornadaId));
+        if (jornada.getLiga() == null || jornada.getNumeroJornada() == null) {
+            throw new RuntimeException("La jornada con ID " + jornadaId + " no tiene liga o número asignado");
+        }
+        if (!rankingJornadaRepository.findByIdJornada(jornadaId).isEmpty()) {
+            return false;
+        }
+
+        guardarFotoRanking(jornada);
+        return true;
+    }
+
+    /**
+     * Cierra, en orden, todas las jornadas de una liga anteriores a la indicada que
+     * aún no tengan foto del ranking
+     *
+     * Se llama al registrar resultados de una jornada: a partir de ese momento las
+     * jornadas anteriores se consideran terminadas.
+     *
+     * @param ligaId ID de la liga
+     * @param numeroJornada Número de la jornada que se está jugando
+     * @return Número de jornadas cerradas
+     */
+    public int cerrarJornadasAnteriores(Long ligaId, Integer numeroJornada) {
+        if (ligaId == null || numeroJornada == null) {
+            return 0;
+        }
+
+        Set<Long> cerradas = new HashSet<>(rankingJornadaRepository.findIdsJornadasCerradas(ligaId));
+        List<Jornada> pendientes = jornadaRepository.findByLigaIdLigaCume(ligaId).stream()
+                .filter(jornada -> jornada.getNumeroJornada() != null && jornada.getNumeroJornada() < numeroJornada)
+                .filter(jornada -> !cerradas.contains(jornada.getIdJornada()))
+                .sorted(Comparator.comparing(Jornada::getNumeroJornada))
+                .collect(Collectors.toList());
+
+        for (Jornada jornada : pendientes) {
+            guardarFotoRanking(jornada);
+        }
+        return pendientes.size();
+    }
+
+    /**
+     * Obtiene la foto del ranking de la última jornada cerrada de una liga
+     *
+     * @param ligaId ID de la liga
+     * @return Filas de la foto indexadas por ID de usuario (vacío si no hay jornadas cerradas)
+     * @throws IllegalArgumentException si el ID es nulo
+     */
+    public Map<Long, RankingJornada> obtenerUltimoRankingCerrado(Long ligaId) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+
+        Map<Long, RankingJornada> ranking = new HashMap<>();
+        for (RankingJornada fila : rankingJornadaRepository.findUltimoRankingLiga(ligaId)) {
+            ranking.put(fila.getIdUsuario(), fila);
+        }
+        return ranking;
+    }
+
+    /**
+     * Obtiene la evolución del ranking de una liga a lo largo de las jornadas cerradas
+     *
+     * @param ligaId ID de la liga
+     * @param numerosJornada Lista que se rellena con los números de jornada cerrados, en orden
+     * @return Por cada usuario, su posición en cada jornada de numerosJornada
+     *         (null en las jornadas en las que aún no estaba en la liga)
+     * @throws IllegalArgumentException si el ID es nulo
+     */
+    public Map<Long, List<Integer>> obtenerEvolucionRanking(Long ligaId, List<Integer> numerosJornada) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+
+        Map<Long, List<Integer>> evolucion = new LinkedHashMap<>();
+        for (RankingJornada fila : rankingJornadaRepository.findByIdLigaOrderByNumeroJornadaAscPosicionAsc(ligaId)) {
+            if (numerosJornada.isEmpty() || numerosJornada.get(numerosJornada.size() - 1) != fila.getNumeroJornada()) {
+                numerosJornada.add(fila.getNumeroJornada());
+            }
+            List<Integer> posiciones = evolucion.computeIfAbsent(fila.getIdUsuario(), id -> new ArrayList<>());
+            while (posiciones.size() < numerosJornada.size() - 1) {
+                posiciones.add(null);
+            }
+            posiciones.add(fila.getPosicion());
+        }
+        return evolucion;
+    }
+
+    /**
+     * Calcula y guarda la foto del ranking de una jornada
+     */
+    private void guardarFotoRanking(Jornada jornada) {
+        Long ligaId = jornada.getLiga().getIdLigaCume();
+        int numeroJornada = jornada.getNumeroJornada();
+
+        Map<Long, Integer> posicionesAnteriores = new HashMap<>();
+        for (RankingJornada fila : rankingJornadaRepository.findRankingAnterior(ligaId, numeroJornada)) {
+            posicionesAnteriores.put(fila.getIdUsuario(), fila.getPosicion());
+        }
+
+        List<RankingJornada> foto = new ArrayList<>();
+        int posicion = 0;
+        for (Object[] fila : usuarioRepository.findPuntosHastaJornada(ligaId, numeroJornada)) {
+            Long idUsuario = (Long) fila[0];
+            posicion++;
+            Integer posicionAnterior = posicionesAnteriores.get(idUsuario);
+            int diferencia = posicionAnterior != null ? posicionAnterior - posicion : 0;
+
+            foto.add(new RankingJornada(ligaId, jornada.getIdJornada(), numeroJornada, idUsuario, posicion,
+                    ((Number) fila[1]).intValue(), ((Number) fila[2]).intValue(), diferencia));
+        }
+        rankingJornadaRepository.saveAll(foto);
+    }
+
+    /**
+     * Obtiene el índice de ranking de una liga comprobando que tenga usuarios
+     */
+    private IndiceRanking obtenerIndiceConUsuarios(Long ligaId) {
+        IndiceRanking indice = indiceRankingService.obtenerIndice(ligaId);
+        if (indice.tamano() == 0) {
+            throw new RuntimeException("No hay usuarios registrados en la liga con ID: " + ligaId);
+        }
+        return indice;
+    }
 }
@@ -0,0 +1,198 @@
+package com.example.Liga_Del_Cume.data.service;
+
+import com.example.Liga_Del_Cume.data.model.ContextoRecomendacionIA;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Servicio que envía la recomendación de Guardiol-IA por Server-Sent Events a
+ * medida que la IA la escribe
+ *
+ * La alineación y el prompt se preparan en el hilo de la petición (IAService,
+ * con la caché por versión de datos) y la llamada a OpenRouter, que puede tardar
+ * hasta el timeout de lectura, se hace en un hilo virtual: el hilo de Tomcat
+ * queda libre enseguida y no se retiene ninguna conexión con la base de datos.
+ *
+ * Cada usuario puede tener como mucho ia.streaming.max-por-usuario
+ * recomendaciones en curso. Si el cliente se desconecta o se agota
+ * ia.streaming.timeout-segundos, se interrumpe el hilo virtual que espera la
+ * recomendación; si nadie más la espera, IAService corta la llamada a OpenRouter.
+ *
+ * Eventos enviados: "texto" ({"texto": fragmento}) con el saludo, la alineación
+ * y cada fragmento de la explicación, "fin" al terminar y "fallo"
+ * ({"error": mensaje}) si algo sale mal.
+ *
+ * No es @Transactional a nivel de clase: la preparación usa la transacción de IAService.
+ */
+@Service
+public class RecomendacionStreamingService {
+
+    @Value("${ia.streaming.max-por-usuario:1}")
+    private int maxPorUsuario;
+
+    @Value("${ia.streaming.timeout-segundos:180}")
+    private long timeoutSegundos;
+
+    @Autowired
+    private IAService iaService;
+
+    private final ExecutorService ejecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("recomendacion-ia-", 0).factory());
+
+    // Recomendaciones en curso de cada usuario (sin entrada = ninguna)
+    private final Map<Long, Integer> enCurso = new ConcurrentHashMap<>();
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Empieza a generar la recomendación de una liga para un usuario
+     *
+     * @param ligaId ID de la liga
+     * @param usuarioId ID del usuario que la solicita
+     * @param nombreUsuario Nombre del usuario, para el saludo
+     * @return Emisor por el que se envían los eventos
+     * @throws IllegalArgumentException si algún ID es nulo
+     * @throws IllegalStateException si el usuario ya tiene el máximo de recomendaciones en curso
+     * @throws RuntimeException si la liga no existe o ninguna alineación cabe en el presupuesto
+     */
+    public SseEmitter iniciarRecomendacion(Long ligaId, Long usuarioId, String nombreUsuario) {
+        if (ligaId == null || usuarioId == null) {
+            throw new IllegalArgumentException("Los IDs de la liga y del usuario no pueden ser nulos");
+        }
+        if (!reservarPlaza(usuarioId)) {
+            throw new IllegalStateException("Ya tienes una recomendación en curso. Espera a que termine.");
+        }
+
+        AtomicBoolean liberada = new AtomicBoolean();
+        Runnable liberar = () -> {
+            if (liberada.compareAndSet(false, true)) {
+                liberarPlaza(usuarioId);
+            }
+        };
+
+        String recomendacionEnCache;
+        ContextoRecomendacionIA contexto;
+        try {
+            recomendacionEnCache = iaService.buscarRecomendacionEnCache(ligaId);
+            contexto = recomendacionEnCache == null ? iaService.prepararContexto(ligaId) : null;
+        } catch (RuntimeException e) {
+            liberar.run();
+            throw e;
+        }
+
+        SseEmitter emitter = new SseEmitter(Duration.ofSeconds(timeoutSegundos).toMillis());
+        AtomicBoolean cancelada = new AtomicBoolean();
+        AtomicReference<Future<?>> tarea = new AtomicReference<>();
+
+        // Al desconectarse el cliente o agotarse el tiempo se interrumpe el hilo virtual
+        Runnable cancelar = () -> {
+            cancelada.set(true);
+            Future<?> enCurso = tarea.get();
+            if (enCurso != null) {
+                enCurso.cancel(true);
+            }
+            liberar.run();
+        };
+
+        tarea.set(ejecutor.submit(() -> {
+            try {
+                enviarTexto(emitter, cancelar, iaService.crearSaludo(nombreUsuario));
+                if (recomendacionEnCache != null) {
+                    enviarTexto(emitter, cancelar, recomendacionEnCache);
+                } else {
+                    iaService.generarRecomendacion(contexto, texto -> enviarTexto(emitter, cancelar, texto));
+                }
+                // La plaza se libera antes de cerrar: el cliente puede pedir otra en cuanto recibe el fin
+                liberar.run();
+                emitter.send(SseEmitter.event().name("fin").data(Map.of("success", true)));
+                emitter.complete();
+            } catch (Exception e) {
+                liberar.run();
+                if (cancelada.get()) {
+                    System.out.println("\t Recomendación de la liga " + ligaId + " cancelada (usuario " + usuarioId + ")");
+                } else {
+                    enviarFallo(emitter, e);
+                }
+            } finally {
+                liberar.run();
+            }
+        }));
+        // El cliente pudo irse antes de guardar la tarea
+        if (cancelada.get()) {
+            tarea.get().cancel(true);
+        }
+
+        emitter.onTimeout(() -> {
+            cancelar.run();
+            emitter.complete();
+        });
+        emitter.onError(error -> cancelar.run());
+        emitter.onCompletion(cancelar);
+        return emitter;
+    }
+
+    /**
+     * Obtiene cuántas recomendaciones tiene en curso un usuario
+     *
+     * @param usuarioId ID del usuario
+     * @return Recomendaciones en curso
+     */
+    public int getRecomendacionesEnCurso(Long usuarioId) {
+        return enCurso.getOrDefault(usuarioId, 0);
+    }
+
+    private boolean reservarPlaza(Long usuarioId) {
+        AtomicBoolean reservada = new AtomicBoolean();
+        enCurso.compute(usuarioId, (id, actuales) -> {
+            int n = actuales != null ? actuales : 0;
+            if (n >= maxPorUsuario) {
+                return actuales;
+            }
+            reservada.set(true);
+            return n + 1;
+        });
+        return reservada.get();
+    }
+
+    private void liberarPlaza(Long usuarioId) {
+        enCurso.computeIfPresent(usuarioId, (id, actuales) -> actuales > 1 ? actuales - 1 : null);
+    }
+
+    private void enviarTexto(SseEmitter emitter, Runnable cancelar, String texto) {
+        try {
+            emitter.send(SseEmitter.event().name("texto").data(Map.of("texto", texto)));
+        } catch (IOException e) {
+            // El cliente se ha desconectado: deja de esperar a la IA
+            cancelar.run();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void enviarFallo(SseEmitter emitter, Exception e) {
+        System.err.println("\t ✗ Error al generar recomendación: " + e.getMessage());
+        String error = e.getMessage() != null ? e.getMessage() : "Error de conexión con el servicio de IA.";
+        try {
+            emitter.send(SseEmitter.event().name("fallo").data(Map.of("success", false, "error", error)));
+            emitter.complete();
+        } catch (IOException | IllegalStateException ignorada) {
+            // El cliente ya no está conectado
+        }
+    }
+}
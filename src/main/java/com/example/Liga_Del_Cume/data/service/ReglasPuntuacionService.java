@@ -0,0 +1,142 @@
+package com.example.Liga_Del_Cume.data.service;
+
+import com.example.Liga_Del_Cume.data.model.ReglasPuntuacion;
+import com.example.Liga_Del_Cume.data.model.TablaPuntuacion;
+import com.example.Liga_Del_Cume.data.repository.ReglasPuntuacionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servicio para gestionar las reglas de puntuación fantasy de cada liga
+ *
+ * Las reglas se guardan una vez por liga (ReglasPuntuacion) y se compilan en una
+ * TablaPuntuacion que se guarda en memoria. Todo el código que calcula los puntos
+ * de una EstadisticaJugadorPartido debe pedir aquí la tabla de su liga, de modo
+ * que registrar resultados no vuelve a leer ni interpretar las reglas.
+ */
+@Service
+@Transactional
+public class ReglasPuntuacionService {
+
+    @Autowired
+    private ReglasPuntuacionRepository reglasPuntuacionRepository;
+
+    private final Map<Long, TablaPuntuacion> tablas = new ConcurrentHashMap<>();
+
+    // Versión de las reglas de cada liga: aumenta cada vez que se descarta su tabla
+    private final Map<Long, AtomicLong> versiones = new ConcurrentHashMap<>();
+
+    /**
+     * Obtiene la tabla de puntuación compilada de una liga
+     *
+     * La tabla solo se guarda en memoria si las reglas no han cambiado mientras se
+     * leían y compilaban: una lectura que empezó antes de confirmarse guardarReglas
+     * no puede dejar en memoria la tabla antigua después de descartarla.
+     *
+     * @param ligaId ID de la liga
+     * @return Tabla de coeficientes de la liga (la de por defecto si no tiene reglas propias)
+     * @throws IllegalArgumentException si el ID es nulo
+     */
+    public TablaPuntuacion obtenerTabla(Long ligaId) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+
+        TablaPuntuacion tabla = tablas.get(ligaId);
+        if (tabla != null) {
+            return tabla;
+        }
+
+        long versionAntes = obtenerVersion(ligaId);
+        TablaPuntuacion nueva = TablaPuntuacion.compilar(obtenerReglas(ligaId));
+        tablas.compute(ligaId, (id, actual) -> obtenerVersion(ligaId) == versionAntes ? nueva : actual);
+        return nueva;
+    }
+
+    /**
+     * Obtiene las reglas de puntuación de una liga
+     *
+     * @param ligaId ID de la liga
+     * @return Reglas guardadas, o las reglas por defecto (sin guardar) si la liga no tiene
+     * @throws IllegalArgumentException si el ID es nulo
+     */
+    public ReglasPuntuacion obtenerReglas(Long ligaId) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+
+        return reglasPuntuacionRepository.findByIdLiga(ligaId)
+                .orElseGet(() -> new ReglasPuntuacion(ligaId));
+    }
+
+    /**
+     * Guarda las reglas de puntuación de una liga y descarta su tabla compilada
+     *
+     * Solo cambia cómo se puntúan las estadísticas a partir de ahora; para aplicar
+     * las nuevas reglas a los partidos ya registrados hay que volver a puntuar la
+     * temporada.
+     *
+     * @param ligaId ID de la liga
+     * @param nuevasReglas Valores de las reglas (se ignoran su ID y su liga)
+     * @return Reglas guardadas
+     * @throws IllegalArgumentException si algún parámetro es nulo
+     */
+    public ReglasPuntuacion guardarReglas(Long ligaId, ReglasPuntuacion nuevasReglas) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+        if (nuevasReglas == null) {
+            throw new IllegalArgumentException("Las reglas de puntuación no pueden ser nulas");
+        }
+
+        ReglasPuntuacion reglas = obtenerReglas(ligaId);
+        reglas.setPuntosMinutosJugados(nuevasReglas.getPuntosMinutosJugados());
+        reglas.setPuntosGolPortero(nuevasReglas.getPuntosGolPortero());
+        reglas.setPuntosGolJugadorCampo(nuevasReglas.getPuntosGolJugadorCampo());
+        reglas.setPuntosAsistencia(nuevasReglas.getPuntosAsistencia());
+        reglas.setPuntosPorteriaCero(nuevasReglas.getPuntosPorteriaCero());
+        reglas.setPuntosPorteroUnoODosGoles(nuevasReglas.getPuntosPorteroUnoODosGoles());
+        reglas.setPuntosPorteroTresOMasGoles(nuevasReglas.getPuntosPorteroTresOMasGoles());
+        reglas.setPuntosTarjetaAmarilla(nuevasReglas.getPuntosTarjetaAmarilla());
+        reglas.setPuntosTarjetaRoja(nuevasReglas.getPuntosTarjetaRoja());
+
+        ReglasPuntuacion guardadas = reglasPuntuacionRepository.save(reglas);
+        descartarTabla(ligaId);
+        return guardadas;
+    }
+
+    /**
+     * Descarta la tabla compilada de una liga en el momento y otra vez al terminar
+     * la transacción, subiendo cada vez la versión de sus reglas para que una
+     * lectura concurrente no deje la tabla antigua (ver obtenerTabla)
+     */
+    private void descartarTabla(Long ligaId) {
+        descartar(ligaId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    descartar(ligaId);
+                }
+            });
+        }
+    }
+
+    // Primero la versión: una compilación en curso ya no podrá guardar su tabla
+    private void descartar(Long ligaId) {
+        versiones.computeIfAbsent(ligaId, id -> new AtomicLong()).incrementAndGet();
+        tablas.remove(ligaId);
+    }
+
+    private long obtenerVersion(Long ligaId) {
+        return versiones.computeIfAbsent(ligaId, id -> new AtomicLong()).get();
+    }
+}
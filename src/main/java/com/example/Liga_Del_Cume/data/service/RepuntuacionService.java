@@ -0,0 +1,274 @@
+package com.example.Liga_Del_Cume.data.service;
+
+import com.example.Liga_Del_Cume.data.model.Jornada;
+import com.example.Liga_Del_Cume.data.model.ProgresoRepuntuacion;
+import com.example.Liga_Del_Cume.data.model.RankingJornada;
+import com.example.Liga_Del_Cume.data.model.TablaPuntuacion;
+import com.example.Liga_Del_Cume.data.repository.EstadisticaJdbcRepository;
+import com.example.Liga_Del_Cume.data.repository.EstadisticaJdbcRepository.FilaEstadistica;
+import com.example.Liga_Del_Cume.data.repository.JornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.RankingJornadaRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servicio que vuelve a puntuar la temporada de una liga después de cambiar sus reglas
+ *
+ * El proceso se ejecuta en segundo plano (uno por liga a la vez) y recorre las
+ * estadísticas de la liga por bloques con JDBC, sin cargar entidades: cada bloque
+ * se puntúa con la TablaPuntuacion de la liga y se escribe en su propia transacción
+ * con actualizaciones por lotes.
+ *
+ * Al terminar las estadísticas se recalculan una vez las jornadas de la liga
+ * (alineaciones, puntos de los usuarios e índice del ranking), el historial de
+ * precios de los jugadores y se rehacen las fotos del ranking de las jornadas que
+ * ya estaban cerradas.
+ *
+ * Si las reglas cambian mientras una repuntuación está en curso
+ * (solicitarRepuntuacion), se anota y al terminar se lanza otra una sola vez,
+ * que ya lee las reglas nuevas.
+ *
+ * Mientras dura se tiene el cerrojo de la liga (CerrojoLigaService): las
+ * actualizaciones de jornadas y las importaciones de la liga esperan a que termine.
+ *
+ * No es @Transactional a nivel de clase: cada paso abre su propia transacción para
+ * no mantener una transacción abierta durante toda la temporada.
+ */
+@Service
+public class RepuntuacionService {
+
+    private static final int TAMANO_BLOQUE = 500;
+
+    @Autowired
+    private EstadisticaJdbcRepository estadisticaJdbcRepository;
+
+    @Autowired
+    private JornadaRepository jornadaRepository;
+
+    @Autowired
+    private RankingJornadaRepository rankingJornadaRepository;
+
+    @Autowired
+    private ReglasPuntuacionService reglasPuntuacionService;
+
+    @Autowired
+    private PuntosJornadaService puntosJornadaService;
+
+    @Autowired
+    private RankingService rankingService;
+
+    @Autowired
+    private PrecioJugadorService precioJugadorService;
+
+    @Autowired
+    private CerrojoLigaService cerrojoLigaService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, ProgresoRepuntuacion> progresos = new ConcurrentHashMap<>();
+
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "repuntuacion-temporada");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @Autowired
+    public RepuntuacionService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Lanza en segundo plano la repuntuación de la temporada de una liga
+     *
+     * @param ligaId ID de la liga
+     * @return Progreso del proceso lanzado
+     * @throws IllegalArgumentException si el ID es nulo
+     * @throws RuntimeException si ya hay una repuntuación en curso para la liga
+     */
+    public ProgresoRepuntuacion iniciarRepuntuacion(Long ligaId) {
+        ProgresoRepuntuacion progreso = registrarProgreso(ligaId);
+        ejecutor.submit(() -> ejecutar(ligaId, progreso));
+        return progreso;
+    }
+
+    /**
+     * Pide la repuntuación de una liga después de cambiar sus reglas
+     *
+     * Si ya hay una en curso no se lanza otra a la vez: se anota en su progreso
+     * (repeticionPendiente) y al terminar se repite una vez con las reglas nuevas,
+     * ya que la que está en curso leyó la tabla de puntuación al empezar.
+     *
+     * @param ligaId ID de la liga
+     * @return Progreso del proceso lanzado, o del que está en curso
+     * @throws IllegalArgumentException si el ID es nulo
+     */
+    public ProgresoRepuntuacion solicitarRepuntuacion(Long ligaId) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+
+        ProgresoRepuntuacion nuevo = new ProgresoRepuntuacion(ligaId);
+        ProgresoRepuntuacion actual = progresos.compute(ligaId, (id, anterior) -> {
+            if (anterior != null && anterior.isEnCurso()) {
+                anterior.setRepeticionPendiente(true);
+                return anterior;
+            }
+            return nuevo;
+        });
+        if (actual == nuevo) {
+            ejecutor.submit(() -> ejecutar(ligaId, nuevo));
+        }
+        return actual;
+    }
+
+    /**
+     * Vuelve a puntuar la temporada de una liga en el hilo actual
+     *
+     * @param ligaId ID de la liga
+     * @return Progreso final del proceso
+     * @throws IllegalArgumentException si el ID es nulo
+     * @throws RuntimeException si ya hay una repuntuación en curso para la liga
+     */
+    public ProgresoRepuntuacion repuntuarTemporada(Long ligaId) {
+        ProgresoRepuntuacion progreso = registrarProgreso(ligaId);
+        ejecutar(ligaId, progreso);
+        return progreso;
+    }
+
+    /**
+     * Obtiene el progreso de la última repuntuación de una liga
+     *
+     * @param ligaId ID de la liga
+     * @return Progreso, o null si la liga no se ha repuntuado desde que arrancó la aplicación
+     */
+    public ProgresoRepuntuacion obtenerProgreso(Long ligaId) {
+        return ligaId != null ? progresos.get(ligaId) : null;
+    }
+
+    private ProgresoRepuntuacion registrarProgreso(Long ligaId) {
+        if (ligaId == null) {
+            throw new IllegalArgumentException("El ID de la liga no puede ser nulo");
+        }
+
+        ProgresoRepuntuacion nuevo = new ProgresoRepuntuacion(ligaId);
+        ProgresoRepuntuacion actual = progresos.compute(ligaId,
+                (id, anterior) -> anterior != null && anterior.isEnCurso() ? anterior : nuevo);
+        if (actual != nuevo) {
+            throw new RuntimeException("Ya hay una repuntuación en curso para la liga con ID: " + ligaId);
+        }
+        return nuevo;
+    }
+
+    private void ejecutar(Long ligaId, ProgresoRepuntuacion progreso) {
+        RuntimeException error = null;
+        try {
+            cerrojoLigaService.ejecutar(ligaId, () -> {
+                repuntuarEstadisticas(ligaId, progreso);
+                recalcularJornadas(ligaId, progreso);
+            });
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        terminar(ligaId, progreso, error);
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Marca el fin del proceso y, si las reglas cambiaron mientras tanto, lanza la
+     * repetición. Se hace dentro de compute para que solicitarRepuntuacion no
+     * pueda anotar una repetición que ya nadie va a ver.
+     */
+    private void terminar(Long ligaId, ProgresoRepuntuacion progreso, RuntimeException error) {
+        ProgresoRepuntuacion siguiente = progresos.compute(ligaId, (id, actual) -> {
+            if (error == null) {
+                progreso.completar();
+            } else {
+                progreso.fallar(error.getMessage());
+            }
+            return progreso.isRepeticionPendiente() ? new ProgresoRepuntuacion(ligaId) : actual;
+        });
+        if (siguiente != progreso) {
+            ejecutor.submit(() -> ejecutar(ligaId, siguiente));
+        }
+    }
+
+    /**
+     * Recorre las estadísticas de la liga por bloques y escribe solo las que cambian
+     */
+    private void repuntuarEstadisticas(Long ligaId, ProgresoRepuntuacion progreso) {
+        TablaPuntuacion tabla = reglasPuntuacionService.obtenerTabla(ligaId);
+        progreso.setEstadisticasTotales(estadisticaJdbcRepository.contarEstadisticasLiga(ligaId));
+
+        long ultimoPartido = 0;
+        long ultimoJugador = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<FilaEstadistica> bloque = estadisticaJdbcRepository
+                    .leerBloqueEstadisticasLiga(ligaId, ultimoPartido, ultimoJugador, TAMANO_BLOQUE);
+            if (bloque.isEmpty()) {
+                return;
+            }
+
+            Map<FilaEstadistica, Integer> puntosModificados = new LinkedHashMap<>();
+            for (FilaEstadistica fila : bloque) {
+                int puntos = tabla.puntuar(fila.esPortero, fila.golesAnotados, fila.asistencias,
+                        fila.tarjetasAmarillas, fila.tarjetaRoja, fila.minMinutosJugados, fila.golesRecibidos);
+                if (puntos != fila.puntosJornada) {
+                    puntosModificados.put(fila, puntos);
+                }
+            }
+
+            if (!puntosModificados.isEmpty()) {
+                transactionTemplate.executeWithoutResult(
+                        estado -> estadisticaJdbcRepository.actualizarPuntosEstadisticas(puntosModificados));
+            }
+
+            FilaEstadistica ultima = bloque.get(bloque.size() - 1);
+            ultimoPartido = ultima.idPartido;
+            ultimoJugador = ultima.idJugador;
+            progreso.setEstadisticasProcesadas(progreso.getEstadisticasProcesadas() + bloque.size());
+            progreso.setEstadisticasModificadas(progreso.getEstadisticasModificadas() + puntosModificados.size());
+        }
+        throw new RuntimeException("La repuntuación de la liga con ID " + ligaId + " se ha interrumpido");
+    }
+
+    /**
+     * Recalcula las jornadas y los precios de la liga y rehace las fotos del ranking ya cerradas
+     */
+    private void recalcularJornadas(Long ligaId, ProgresoRepuntuacion progreso) {
+        List<Jornada> jornadas = jornadaRepository.findByLigaIdLigaCume(ligaId).stream()
+                .filter(jornada -> jornada.getNumeroJornada() != null)
+                .sorted(Comparator.comparing(Jornada::getNumeroJornada))
+                .toList();
+
+        for (Jornada jornada : jornadas) {
+            puntosJornadaService.recalcularPuntosJornada(jornada.getIdJornada());
+            progreso.setJornadasRecalculadas(progreso.getJornadasRecalculadas() + 1);
+        }
+
+        transactionTemplate.executeWithoutResult(estado -> {
+            precioJugadorService.recalcularPreciosLiga(ligaId);
+            Optional<RankingJornada> ultimaCerrada = rankingJornadaRepository.findUltimoRankingLiga(ligaId)
+                    .stream().findFirst();
+            if (ultimaCerrada.isPresent()) {
+                rankingJornadaRepository.deleteByIdLiga(ligaId);
+                rankingService.cerrarJornadasAnteriores(ligaId, ultimaCerrada.get().getNumeroJornada() + 1);
+            }
+        });
+    }
+}
@@ -0,0 +1,554 @@
+package com.example.Liga_Del_Cume.data.service;
+
+import com.example.Liga_Del_Cume.data.model.*;
+import com.example.Liga_Del_Cume.data.repository.*;
+import com.example.Liga_Del_Cume.data.repository.EstadisticaJdbcRepository.FilaEstadistica;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Servicio para registrar los resultados de una jornada completa de una vez
+ *
+ * La importación recibe las estadísticas de todos los partidos de la jornada (en
+ * JSON o CSV), carga los jugadores y las estadísticas ya registradas con unas pocas
+ * consultas, escribe las estadísticas nuevas y modificadas por lotes y solo al final
+ * actualiza una vez los goles recibidos de los porteros, los precios, las
+ * alineaciones, los puntos de los usuarios y el ranking. Todo ocurre en una única
+ * transacción: si alguna fila es incorrecta no se guarda nada. Mientras dura, la
+ * liga no se actualiza ni se repuntúa en segundo plano (CerrojoLigaService).
+ */
+@Service
+@Transactional
+public class ResultadosJornadaService {
+
+    @Autowired
+    private JornadaRepository jornadaRepository;
+
+    @Autowired
+    private PartidoRepository partidoRepository;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private AlineacionRepository alineacionRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EstadisticaJugadorPartidoRepository estadisticaRepository;
+
+    @Autowired
+    private EstadisticaJdbcRepository estadisticaJdbcRepository;
+
+    @Autowired
+    private ReglasPuntuacionService reglasPuntuacionService;
+
+    @Autowired
+    private ClasificacionService clasificacionService;
+
+    @Autowired
+    private PuntosJornadaService puntosJornadaService;
+
+    @Autowired
+    private RankingService rankingService;
+
+    @Autowired
+    private PrecioJugadorService precioJugadorService;
+
+    @Autowired
+    private MercadoJugadoresService mercadoJugadoresService;
+
+    @Autowired
+    private CerrojoLigaService cerrojoLigaService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Guarda las estadísticas de todos los jugadores de un partido
+     *
+     * Actualiza el marcador, la clasificación y los goles recibidos de los porteros.
+     * Lo que depende de la jornada completa (mover alineaciones futuras, puntos de
+     * los usuarios, precios de los jugadores y fotos del ranking) no se hace aquí: se
+     * publica un EventoResultadoGuardado que se procesa después de confirmar la
+     * transacción, para que el guardado no dependa del tamaño de la liga.
+     *
+     * @param ligaId ID de la liga
+     * @param partidoId ID del partido
+     * @param jugadores Estadísticas de cada jugador (idJugador, goles, asistencias, ...)
+     * @return Partido con el marcador actualizado
+     * @throws RuntimeException si el partido o algún jugador no existen
+     */
+    public Partido guardarResultadosPartido(Long ligaId, Long partidoId, List<Map<String, Object>> jugadores) {
+        Partido partido = partidoRepository.findById(partidoId)
+            .orElseThrow(() -> new RuntimeException("Partido no encontrado"));
+
+        // Guardar el resultado anterior para actualizar la clasificación con la diferencia
+        boolean jugadoAntes = partido.isJugado();
+        int golesLocalAntes = partido.getGolesLocal();
+        int golesVisitanteAntes = partido.getGolesVisitante();
+
+        // Jugadores del partido en una sola consulta
+        Set<Long> idsJugadores = new HashSet<>();
+        for (Map<String, Object> jugadorData : jugadores) {
+            idsJugadores.add(Long.valueOf(jugadorData.get("idJugador").toString()));
+        }
+        Map<Long, Jugador> jugadoresPorId = new HashMap<>();
+        for (Jugador jugador : jugadorRepository.findAllById(idsJugadores)) {
+            jugadoresPorId.put(jugador.getIdJugador(), jugador);
+        }
+
+        // Marcador del partido: se calcula antes para puntuar a los porteros con los goles recibidos reales
+        Long idEquipoLocal = partido.getEquipoLocal().getIdEquipo();
+        Long idJornada = partido.getJornada().getIdJornada();
+        int golesLocal = 0;
+        int golesVisitante = 0;
+        for (Map<String, Object> jugadorData : jugadores) {
+            Jugador jugador = jugadoresPorId.get(Long.valueOf(jugadorData.get("idJugador").toString()));
+            if (jugador == null) {
+                throw new RuntimeException("Jugador no encontrado");
+            }
+            int goles = Integer.parseInt(jugadorData.get("goles").toString());
+            if (jugador.getEquipo().getIdEquipo().equals(idEquipoLocal)) {
+                golesLocal += goles;
+            } else {
+                golesVisitante += goles;
+            }
+        }
+
+        // Reglas de puntuación de la liga, ya compiladas
+        TablaPuntuacion tablaPuntuacion = reglasPuntuacionService.obtenerTabla(ligaId);
+
+        // Procesar cada jugador
+        for (Map<String, Object> jugadorData : jugadores) {
+            Long idJugador = Long.valueOf(jugadorData.get("idJugador").toString());
+            int goles = Integer.parseInt(jugadorData.get("goles").toString());
+            int asistencias = Integer.parseInt(jugadorData.get("asistencias").toString());
+            int tarjetasAmarillas = Integer.parseInt(jugadorData.get("tarjetasAmarillas").toString());
+            boolean tarjetaRoja = Boolean.parseBoolean(jugadorData.get("tarjetaRoja").toString());
+            boolean minMinutosJugados = Boolean.parseBoolean(jugadorData.get("minMinutosJugados").toString());
+            int golesRecibidos = Integer.parseInt(jugadorData.get("golesRecibidos").toString());
+
+            Jugador jugador = jugadoresPorId.get(idJugador);
+
+            // Los porteros reciben los goles del rival
+            if (jugador.isEsPortero()) {
+                golesRecibidos = jugador.getEquipo().getIdEquipo().equals(idEquipoLocal) ? golesVisitante : golesLocal;
+            }
+
+            // Calcular puntos de fantasy
+            int puntosJornada = tablaPuntuacion.puntuar(jugador.isEsPortero(), goles, asistencias,
+                tarjetasAmarillas, tarjetaRoja, minMinutosJugados, golesRecibidos);
+
+            // Guardar o actualizar estadística
+            EstadisticaJugadorPartido estadistica = estadisticaRepository
+                .findByJugadorIdJugadorAndPartidoIdPartido(idJugador, partidoId);
+
+            if (estadistica == null) {
+                estadistica = new EstadisticaJugadorPartido();
+                estadistica.setJugador(jugador);
+                estadistica.setPartido(partido);
+            }
+
+            estadistica.setGolesAnotados(goles);
+            estadistica.setAsistencias(asistencias);
+            estadistica.setTarjetaAmarillas(tarjetasAmarillas);
+            estadistica.setTarjetaRojas(tarjetaRoja);
+            estadistica.setMinMinutosJugados(minMinutosJugados);
+            estadistica.setGolesRecibidos(golesRecibidos);
+            estadistica.setPuntosJornada(puntosJornada);
+
+            estadisticaRepository.save(estadistica);
+        }
+
+        // Actualizar marcador del partido
+        partido.setGolesLocal(golesLocal);
+        partido.setGolesVisitante(golesVisitante);
+        // Con estadísticas registradas el partido cuenta como jugado aunque acabe 0-0
+        partido.actualizarJugado(!jugadores.isEmpty()
+                || estadisticaRepository.existsByPartidoIdPartido(partido.getIdPartido()));
+        partidoRepository.save(partido);
+
+        // Actualizar la clasificación materializada solo con el cambio de este partido
+        clasificacionService.aplicarCambioResultado(partido, jugadoAntes, golesLocalAntes, golesVisitanteAntes);
+
+        // Porteros con estadísticas de antes que no vienen en la petición: goles recibidos y puntos en una sentencia
+        estadisticaRepository.actualizarGolesRecibidosPorteros(partido.getIdPartido(), idEquipoLocal,
+                golesLocal, golesVisitante, tablaPuntuacion.getPuntosPorteriaCero(),
+                tablaPuntuacion.getPuntosPorteroUnoODosGoles(), tablaPuntuacion.getPuntosPorteroTresOMasGoles());
+
+        // Cambian los puntos de la temporada y quizá la próxima jornada del mercado
+        mercadoJugadoresService.invalidarLiga(ligaId);
+
+        // Alineaciones, puntos de usuarios y ranking de la jornada: después de confirmar, en segundo plano
+        eventPublisher.publishEvent(new EventoResultadoGuardado(ligaId, idJornada));
+
+        return partido;
+    }
+
+    /**
+     * Importa las estadísticas de los partidos de una jornada
+     *
+     * Cada fila tiene las mismas claves que el guardado de un partido más el partido
+     * al que pertenece: idPartido, idJugador, goles, asistencias, tarjetasAmarillas,
+     * tarjetaRoja, minMinutosJugados y golesRecibidos (las que falten valen 0/false).
+     * El marcador de cada partido importado se calcula con los goles de sus filas y
+     * los de las estadísticas ya registradas del partido que no vienen en la
+     * importación (así, reimportar solo un jugador para corregirlo no cambia el
+     * resto del marcador), y los goles recibidos de sus porteros se toman de ese marcador.
+     *
+     * @param ligaId ID de la liga
+     * @param jornadaId ID de la jornada
+     * @param filas Estadísticas a importar, una por jugador y partido
+     * @return Resumen de la importación (partidos, estadisticasNuevas, estadisticasActualizadas, usuariosActualizados)
+     * @throws IllegalArgumentException si algún parámetro es nulo o una fila no es válida
+     * @throws RuntimeException si la jornada, un partido o un jugador no existen o no encajan
+     */
+    public Map<String, Object> importarResultados(Long ligaId, Long jornadaId, List<Map<String, Object>> filas) {
+        if (ligaId == null || jornadaId == null) {
+            throw new IllegalArgumentException("Los IDs de la liga y de la jornada no pueden ser nulos");
+        }
+        if (filas == null || filas.isEmpty()) {
+            throw new IllegalArgumentException("No hay estadísticas que importar");
+        }
+
+        // Sin actualizaciones de jornadas ni repuntuaciones de la liga a la vez hasta confirmar
+        cerrojoLigaService.bloquearHastaFinTransaccion(ligaId);
+
+        Jornada jornada = jornadaRepository.findById(jornadaId)
+                .orElseThrow(() -> new RuntimeException("No existe ninguna jornada con ID: " + jornadaId));
+        if (jornada.getLiga() == null || !ligaId.equals(jornada.getLiga().getIdLigaCume())) {
+            throw new RuntimeException("La jornada con ID " + jornadaId + " no pertenece a la liga con ID: " + ligaId);
+        }
+
+        Map<Long, Partido> partidosJornada = new HashMap<>();
+        for (Partido partido : partidoRepository.findByJornadaIdJornada(jornadaId)) {
+            partidosJornada.put(partido.getIdPartido(), partido);
+        }
+
+        // Filas importadas agrupadas por partido y jugador
+        Map<Long, Map<Long, Map<String, Object>>> importadas = new LinkedHashMap<>();
+        Set<Long> idsJugadores = new HashSet<>();
+        int numeroFila = 0;
+        for (Map<String, Object> fila : filas) {
+            numeroFila++;
+            Long idPartido = leerId(fila, "idPartido", numeroFila);
+            Long idJugador = leerId(fila, "idJugador", numeroFila);
+            if (!partidosJornada.containsKey(idPartido)) {
+                throw new RuntimeException("Fila " + numeroFila + ": el partido con ID " + idPartido +
+                        " no pertenece a la jornada con ID: " + jornadaId);
+            }
+            if (importadas.computeIfAbsent(idPartido, id -> new LinkedHashMap<>()).put(idJugador, fila) != null) {
+                throw new IllegalArgumentException("Fila " + numeroFila + ": el jugador con ID " + idJugador +
+                        " está repetido en el partido con ID: " + idPartido);
+            }
+            idsJugadores.add(idJugador);
+        }
+
+        // Estadísticas ya registradas en los partidos importados (una sola consulta por jornada)
+        Map<Long, Map<Long, FilaEstadistica>> existentes = new HashMap<>();
+        for (FilaEstadistica fila : estadisticaJdbcRepository.leerEstadisticasJornada(jornadaId)) {
+            if (importadas.containsKey(fila.idPartido)) {
+                existentes.computeIfAbsent(fila.idPartido, id -> new HashMap<>()).put(fila.idJugador, fila);
+                idsJugadores.add(fila.idJugador);
+            }
+        }
+
+        // Todos los jugadores implicados en una sola consulta
+        Map<Long, Jugador> jugadores = new HashMap<>();
+        for (Jugador jugador : jugadorRepository.findAllById(idsJugadores)) {
+            jugadores.put(jugador.getIdJugador(), jugador);
+        }
+        for (Long idJugador : idsJugadores) {
+            if (!jugadores.containsKey(idJugador)) {
+                throw new RuntimeException("No existe ningún jugador con ID: " + idJugador);
+            }
+        }
+
+        TablaPuntuacion tabla = reglasPuntuacionService.obtenerTabla(ligaId);
+        List<FilaEstadistica> nuevas = new ArrayList<>();
+        List<FilaEstadistica> modificadas = new ArrayList<>();
+
+        for (Map.Entry<Long, Map<Long, Map<String, Object>>> entrada : importadas.entrySet()) {
+            Partido partido = partidosJornada.get(entrada.getKey());
+            Long idLocal = partido.getEquipoLocal().getIdEquipo();
+            Long idVisitante = partido.getEquipoVisitante().getIdEquipo();
+
+            // Marcador del partido a partir de los goles de sus jugadores
+            int golesLocal = 0;
+            int golesVisitante = 0;
+            for (Map.Entry<Long, Map<String, Object>> filaJugador : entrada.getValue().entrySet()) {
+                Long idEquipo = jugadores.get(filaJugador.getKey()).getEquipo().getIdEquipo();
+                int goles = leerEntero(filaJugador.getValue(), "goles");
+                if (idEquipo.equals(idLocal)) {
+                    golesLocal += goles;
+                } else if (idEquipo.equals(idVisitante)) {
+                    golesVisitante += goles;
+                } else {
+                    throw new RuntimeException("El jugador con ID " + filaJugador.getKey() +
+                            " no juega en el partido con ID: " + partido.getIdPartido());
+                }
+            }
+
+            // Más los goles de las estadísticas ya registradas que no vienen en la importación
+            Map<Long, FilaEstadistica> anteriores = existentes.getOrDefault(partido.getIdPartido(), Collections.emptyMap());
+            for (FilaEstadistica anterior : anteriores.values()) {
+                if (entrada.getValue().containsKey(anterior.idJugador)) {
+                    continue;
+                }
+                Long idEquipo = jugadores.get(anterior.idJugador).getEquipo().getIdEquipo();
+                if (idEquipo.equals(idLocal)) {
+                    golesLocal += anterior.golesAnotados;
+                } else if (idEquipo.equals(idVisitante)) {
+                    golesVisitante += anterior.golesAnotados;
+                }
+            }
+
+            // Estadísticas importadas: los porteros reciben los goles del rival
+            for (Map.Entry<Long, Map<String, Object>> filaJugador : entrada.getValue().entrySet()) {
+                Jugador jugador = jugadores.get(filaJugador.getKey());
+                Map<String, Object> datos = filaJugador.getValue();
+                boolean esLocal = jugador.getEquipo().getIdEquipo().equals(idLocal);
+                int golesRecibidos = jugador.isEsPortero()
+                        ? (esLocal ? golesVisitante : golesLocal)
+                        : leerEntero(datos, "golesRecibidos");
+
+                FilaEstadistica fila = puntuar(tabla, partido.getIdPartido(), jugador.getIdJugador(),
+                        jugador.isEsPortero(), leerEntero(datos, "goles"), leerEntero(datos, "asistencias"),
+                        leerEntero(datos, "tarjetasAmarillas"), leerBooleano(datos, "tarjetaRoja"),
+                        leerBooleano(datos, "minMinutosJugados"), golesRecibidos);
+
+                FilaEstadistica anterior = anteriores.get(jugador.getIdJugador());
+                if (anterior == null) {
+                    nuevas.add(fila);
+                } else {
+                    modificadas.add(fila);
+                }
+            }
+
+            // Porteros ya registrados que no vienen en la importación: solo cambian sus goles recibidos
+            for (FilaEstadistica anterior : anteriores.values()) {
+                if (!anterior.esPortero || entrada.getValue().containsKey(anterior.idJugador)) {
+                    continue;
+                }
+                boolean esLocal = jugadores.get(anterior.idJugador).getEquipo().getIdEquipo().equals(idLocal);
+                FilaEstadistica fila = puntuar(tabla, anterior.idPartido, anterior.idJugador, true,
+                        anterior.golesAnotados, anterior.asistencias, anterior.tarjetasAmarillas,
+                        anterior.tarjetaRoja, anterior.minMinutosJugados, esLocal ? golesVisitante : golesLocal);
+                if (fila.golesRecibidos != anterior.golesRecibidos || fila.puntosJornada != anterior.puntosJornada) {
+                    modificadas.add(fila);
+                }
+            }
+
+            // Actualizar el marcador y la clasificación materializada con la diferencia
+            boolean jugadoAntes = partido.isJugado();
+            int golesLocalAntes = partido.getGolesLocal();
+            int golesVisitanteAntes = partido.getGolesVisitante();
+            partido.setGolesLocal(golesLocal);
+            partido.setGolesVisitante(golesVisitante);
+            partido.setJugado(true);
+            partidoRepository.save(partido);
+            clasificacionService.aplicarCambioResultado(partido, jugadoAntes, golesLocalAntes, golesVisitanteAntes);
+        }
+
+        // Escritura por lotes de estadísticas
+        if (!nuevas.isEmpty()) {
+            estadisticaJdbcRepository.insertarEstadisticas(nuevas);
+        }
+        if (!modificadas.isEmpty()) {
+            estadisticaJdbcRepository.actualizarEstadisticas(modificadas);
+        }
+
+        // Recalcular una sola vez alineaciones, puntos de usuarios, precios y ranking de la jornada
+        Jornada jornadaActualizada = jornadaRepository.findById(jornadaId).orElseThrow();
+        moverAlineacionesFuturasAHistorial(jornadaActualizada);
+        int usuariosActualizados = puntosJornadaService.recalcularPuntosJornada(jornadaId);
+        precioJugadorService.recalcularPreciosJornada(jornadaId);
+        rankingService.cerrarJornadasAnteriores(ligaId, jornadaActualizada.getNumeroJornada());
+        mercadoJugadoresService.invalidarLiga(ligaId);
+
+        Map<String, Object> resumen = new HashMap<>();
+        resumen.put("partidos", importadas.size());
+        resumen.put("estadisticasNuevas", nuevas.size());
+        resumen.put("estadisticasActualizadas", modificadas.size());
+        resumen.put("usuariosActualizados", usuariosActualizados);
+        return resumen;
+    }
+
+    /**
+     * Convierte un CSV con cabecera en filas para importarResultados
+     *
+     * La primera línea no vacía es la cabecera con los nombres de las columnas (los
+     * mismos que las claves del JSON). Se admite coma o punto y coma como separador
+     * y se ignoran las líneas vacías y las que empiezan por '#'.
+     *
+     * @param contenido Texto del CSV
+     * @return Una fila por línea de datos
+     * @throws IllegalArgumentException si el CSV está vacío o alguna línea no tiene todas las columnas
+     */
+    public List<Map<String, Object>> leerCsv(String contenido) {
+        if (contenido == null || contenido.isBlank()) {
+            throw new IllegalArgumentException("El CSV está vacío");
+        }
+
+        String[] cabecera = null;
+        String separador = ",";
+        List<Map<String, Object>> filas = new ArrayList<>();
+        String[] lineas = contenido.split("\\r?\\n");
+
+        for (int i = 0; i < lineas.length; i++) {
+            String linea = lineas[i].trim();
+            if (linea.isEmpty() || linea.startsWith("#")) {
+                continue;
+            }
+
+            if (cabecera == null) {
+                separador = linea.contains(";") ? ";" : ",";
+                cabecera = linea.split(separador);
+                for (int c = 0; c < cabecera.length; c++) {
+                    cabecera[c] = cabecera[c].trim();
+                }
+                continue;
+            }
+
+            String[] valores = linea.split(separador, -1);
+            if (valores.length != cabecera.length) {
+                throw new IllegalArgumentException("Línea " + (i + 1) + " del CSV: se esperaban " +
+                        cabecera.length + " columnas y hay " + valores.length);
+            }
+            Map<String, Object> fila = new HashMap<>();
+            for (int c = 0; c < cabecera.length; c++) {
+                fila.put(cabecera[c], valores[c].trim());
+            }
+            filas.add(fila);
+        }
+        return filas;
+    }
+
+    /**
+     * Mueve las alineaciones "futuras" (sin jornada asignada o de jornadas futuras)
+     * al historial de la jornada que acaba de jugarse.
+     *
+     * Este método se ejecuta cuando se agregan resultados a un partido por primera vez.
+     *
+     * Lógica:
+     * 1. Si es la primera vez que se juega un partido de esta jornada, todas las alineaciones
+     *    que los usuarios tenían guardadas para "alineación futura" deben moverse a esta jornada.
+     * 2. Esto asegura que las alineaciones se guarden en el historial automáticamente.
+     *
+     * @param jornada La jornada que acaba de jugarse
+     */
+    public void moverAlineacionesFuturasAHistorial(Jornada jornada) {
+        try {
+            Long jornadaId = jornada.getIdJornada();
+            Long ligaId = jornada.getLiga().getIdLigaCume();
+
+            // Verificar si es la primera vez que se agregan resultados a esta jornada
+            // (es decir, si esta jornada ya tiene alineaciones guardadas, no hacemos nada)
+            List<Alineacion> alineacionesExistentes = alineacionRepository.findByJornadaIdJornada(jornadaId);
+
+            if (!alineacionesExistentes.isEmpty()) {
+                // Ya hay alineaciones guardadas para esta jornada, no hacer nada
+                return;
+            }
+
+            // Obtener la próxima jornada sin resultados (que ahora ES esta jornada que se está jugando)
+            List<Jornada> todasJornadas = jornadaRepository.findByLigaIdLigaCume(ligaId);
+            todasJornadas.sort((j1, j2) -> j1.getNumeroJornada().compareTo(j2.getNumeroJornada()));
+
+            // Encontrar la posición de la jornada actual
+            int posicionJornadaActual = -1;
+            for (int i = 0; i < todasJornadas.size(); i++) {
+                if (todasJornadas.get(i).getIdJornada().equals(jornadaId)) {
+                    posicionJornadaActual = i;
+                    break;
+                }
+            }
+
+            if (posicionJornadaActual == -1) {
+                return; // No se encontró la jornada, algo raro pasó
+            }
+
+            // Buscar alineaciones que tengan una jornada "futura" (mayor número de jornada)
+            // o que no tengan jornada asignada
+            List<Usuario> usuariosDeLiga = usuarioRepository.findByLigaIdLigaCume(ligaId);
+
+            for (Usuario usuario : usuariosDeLiga) {
+                // Buscar si el usuario tiene una alineación en una jornada futura
+                // o en una jornada sin resultados
+                Alineacion alineacionFutura = null;
+
+                // Buscar la alineación más cercana que el usuario tenga para jornadas futuras
+                for (int i = posicionJornadaActual; i < todasJornadas.size(); i++) {
+                    Jornada jornadaBusqueda = todasJornadas.get(i);
+                    Optional<Alineacion> alineacionOpt = alineacionRepository
+                        .findByUsuarioIdUsuarioAndJornadaIdJornada(
+                            usuario.getIdUsuario(),
+                            jornadaBusqueda.getIdJornada()
+                        );
+
+                    if (alineacionOpt.isPresent()) {
+                        alineacionFutura = alineacionOpt.get();
+                        break; // Encontramos la primera alineación futura
+                    }
+                }
+
+                // Si encontramos una alineación futura, moverla a esta jornada
+                if (alineacionFutura != null && !alineacionFutura.getJornada().getIdJornada().equals(jornadaId)) {
+                    // Cambiar la jornada de la alineación
+                    alineacionFutura.setJornada(jornada);
+                    alineacionRepository.save(alineacionFutura);
+                }
+            }
+
+        } catch (Exception e) {
+            // Log del error pero no interrumpir el flujo principal
+            System.err.println("Error al mover alineaciones futuras: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private FilaEstadistica puntuar(TablaPuntuacion tabla, long idPartido, long idJugador, boolean esPortero,
+                                    int goles, int asistencias, int tarjetasAmarillas, boolean tarjetaRoja,
+                                    boolean minMinutosJugados, int golesRecibidos) {
+        int puntos = tabla.puntuar(esPortero, goles, asistencias, tarjetasAmarillas, tarjetaRoja,
+                minMinutosJugados, golesRecibidos);
+        return new FilaEstadistica(idPartido, idJugador, esPortero, goles, asistencias, tarjetasAmarillas,
+                tarjetaRoja, minMinutosJugados, golesRecibidos, puntos);
+    }
+
+    private Long leerId(Map<String, Object> fila, String clave, int numeroFila) {
+        Object valor = fila.get(clave);
+        if (valor == null || valor.toString().isBlank()) {
+            throw new IllegalArgumentException("Fila " + numeroFila + ": falta el campo " + clave);
+        }
+        try {
+            return Long.valueOf(valor.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Fila " + numeroFila + ": el campo " + clave + " no es válido: " + valor);
+        }
+    }
+
+    private int leerEntero(Map<String, Object> fila, String clave) {
+        Object valor = fila.get(clave);
+        if (valor == null || valor.toString().isBlank()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(valor.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El campo " + clave + " no es un número válido: " + valor);
+        }
+    }
+
+    private boolean leerBooleano(Map<String, Object> fila, String clave) {
+        Object valor = fila.get(clave);
+        return valor != null && Boolean.parseBoolean(valor.toString().trim());
+    }
+}
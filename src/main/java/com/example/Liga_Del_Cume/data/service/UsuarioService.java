@@ -2,6 +2,7 @@ package com.example.Liga_Del_Cume.data.service;
 
 import com.example.Liga_Del_Cume.data.model.LigaCume;
 import com.example.Liga_Del_Cume.data.model.Usuario;
+import com.example.Liga_Del_Cume.data.repository.PuntosUsuarioJornadaRepository;
 import com.example.Liga_Del_Cume.data.repository.UsuarioRepository;
 import com.example.Liga_Del_Cume.data.repository.LigaCumeRepository;
 import com.example.Liga_Del_Cume.data.exceptions.*;
@@ -35,6 +36,12 @@ public class UsuarioService {
     @Autowired
     private LigaCumeRepository ligaCumeRepository;
 
+    @Autowired
+    private PuntosUsuarioJornadaRepository puntosUsuarioJornadaRepository;
+
+    @Autowired
+    private IndiceRankingService indiceRankingService;
+
     /**
      * Funcionalidad 1.1: Da de alta un nuevo usuario en una liga
      *
@@ -113,7 +120,9 @@ public class UsuarioService {
         }
 
         // Guardar y retornar el usuario creado
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        indiceRankingService.actualizarUsuario(guardado);
+        return guardado;
     }
     /**
      * Funcionalidad 1.2: Modifica la información de un usuario
@@ -206,7 +215,9 @@ public class UsuarioService {
         }
 
         // Guardar y retornar el usuario modificado
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        indiceRankingService.actualizarUsuario(guardado);
+        return guardado;
     }
 
     /**
@@ -240,6 +251,8 @@ public class UsuarioService {
 
         // Si todas las validaciones pasan, eliminar el usuario (usar la entidad para evitar warning de variable sin usar)
         usuarioRepository.delete(usuario);
+        puntosUsuarioJornadaRepository.deleteByIdUsuario(id);
+        indiceRankingService.eliminarUsuario(id);
     }
 
     /**
@@ -332,6 +345,7 @@ public class UsuarioService {
         // Actualizar los puntos
         usuario.setPuntosAcumulados(puntosNuevos);
         usuarioRepository.save(usuario);
+        indiceRankingService.actualizarUsuario(usuario);
     }
 
     /**
@@ -451,6 +465,7 @@ public class UsuarioService {
         // Resetear los puntos a cero
         usuario.setPuntosAcumulados(0);
         usuarioRepository.save(usuario);
+        indiceRankingService.actualizarUsuario(usuario);
     }
 
 
@@ -561,9 +576,12 @@ public class UsuarioService {
 
         // Reiniciar puntos acumulados a cero (el usuario comienza desde cero en la nueva liga)
         usuario.setPuntosAcumulados(0);
+        puntosUsuarioJornadaRepository.deleteByIdUsuario(usuarioId);
 
         // Guardar y retornar el usuario actualizado
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        indiceRankingService.actualizarUsuario(guardado);
+        return guardado;
     }
 
     // Métodos auxiliares para evitar duplicación de condiciones y validar de forma centralizada
@@ -1,20 +1,30 @@
 package com.example.Liga_Del_Cume;
 
 import com.example.Liga_Del_Cume.data.model.ClasificacionEquipo;
+import com.example.Liga_Del_Cume.data.model.DeltaClasificacionJornada;
 import com.example.Liga_Del_Cume.data.model.Equipo;
+import com.example.Liga_Del_Cume.data.model.EvolucionClasificacionEquipo;
+import com.example.Liga_Del_Cume.data.model.FilaClasificacion;
+import com.example.Liga_Del_Cume.data.model.Jugador;
 import com.example.Liga_Del_Cume.data.model.LigaCume;
 import com.example.Liga_Del_Cume.data.model.Partido;
 import com.example.Liga_Del_Cume.data.model.Jornada;
+import com.example.Liga_Del_Cume.data.repository.DeltaClasificacionJornadaRepository;
 import com.example.Liga_Del_Cume.data.repository.EquipoRepository;
+import com.example.Liga_Del_Cume.data.repository.FilaClasificacionRepository;
 import com.example.Liga_Del_Cume.data.repository.LigaCumeRepository;
 import com.example.Liga_Del_Cume.data.repository.PartidoRepository;
 import com.example.Liga_Del_Cume.data.repository.JornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.JugadorRepository;
 import com.example.Liga_Del_Cume.data.service.ClasificacionService;
+import com.example.Liga_Del_Cume.data.service.EstadisticaService;
+import com.example.Liga_Del_Cume.data.service.PartidoService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,6 +51,21 @@ public class ClasificacionTest {
     @Autowired
     private JornadaRepository jornadaRepository;
 
+    @Autowired
+    private PartidoService partidoService;
+
+    @Autowired
+    private EstadisticaService estadisticaService;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private FilaClasificacionRepository filaClasificacionRepository;
+
+    @Autowired
+    private DeltaClasificacionJornadaRepository deltaClasificacionRepository;
+
     /**
      * Test básico: Clasificación con equipos sin partidos
      * Todos los equipos deben tener 0 puntos
@@ -316,5 +341,271 @@ public class ClasificacionTest {
         assertEquals(2, test.getGolesEnContra());
         assertEquals(2, test.getDiferenciaGoles());
     }
-}
 
+    /**
+     * Test de la clasificación materializada: al modificar un resultado
+     * se revierte el resultado anterior y se aplica el nuevo
+     */
+    @Test
+    public void testModificarResultadoActualizaClasificacion() {
+        // Crear liga
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Cambio Resultado");
+        liga = ligaCumeRepository.save(liga);
+
+        // Crear jornada
+        Jornada jornada = new Jornada();
+        jornada.setNumeroJornada(1);
+        jornada.setLiga(liga);
+        jornada = jornadaRepository.save(jornada);
+
+        // Crear equipos
+        Equipo equipo1 = new Equipo();
+        equipo1.setNombreEquipo("Equipo Cambio A");
+        equipo1.setEscudoURL("url1");
+        equipo1.setLiga(liga);
+        equipo1 = equipoRepository.save(equipo1);
+
+        Equipo equipo2 = new Equipo();
+        equipo2.setNombreEquipo("Equipo Cambio B");
+        equipo2.setEscudoURL("url2");
+        equipo2.setLiga(liga);
+        equipo2 = equipoRepository.save(equipo2);
+
+        // Partido sin jugar (0-0 sin estadísticas)
+        Partido partido = partidoRepository.save(new Partido(equipo1, equipo2, 0, 0, jornada));
+
+        // Clasificación ya materializada (en la aplicación se hace después del commit de la primera lectura)
+        filaClasificacionRepository.save(new FilaClasificacion(liga.getIdLigaCume(), equipo1.getIdEquipo(), "Equipo Cambio A", "url1"));
+        filaClasificacionRepository.save(new FilaClasificacion(liga.getIdLigaCume(), equipo2.getIdEquipo(), "Equipo Cambio B", "url2"));
+
+        // Primera lectura: desde las filas materializadas
+        List<ClasificacionEquipo> clasificacion = clasificacionService.obtenerClasificacionLiga(liga.getIdLigaCume());
+        assertEquals(0, clasificacion.get(0).getPartidosJugados());
+
+        // Victoria local 2-1
+        partidoService.modificarResultado(partido.getIdPartido(), 2, 1);
+        clasificacion = clasificacionService.obtenerClasificacionLiga(liga.getIdLigaCume());
+        assertEquals("Equipo Cambio A", clasificacion.get(0).getNombreEquipo());
+        assertEquals(3, clasificacion.get(0).getPuntosTotales());
+        assertEquals(0, clasificacion.get(1).getPuntosTotales());
+
+        // Corrección a victoria visitante 1-3: el resultado anterior se revierte
+        partidoService.modificarResultado(partido.getIdPartido(), 1, 3);
+        clasificacion = clasificacionService.obtenerClasificacionLiga(liga.getIdLigaCume());
+        assertEquals("Equipo Cambio B", clasificacion.get(0).getNombreEquipo());
+        assertEquals(3, clasificacion.get(0).getPuntosTotales());
+        assertEquals(1, clasificacion.get(0).getPartidosJugados());
+        assertEquals(3, clasificacion.get(0).getGolesAFavor());
+        assertEquals(1, clasificacion.get(0).getGolesEnContra());
+        assertEquals(0, clasificacion.get(1).getPuntosTotales());
+        assertEquals(1, clasificacion.get(1).getDerrotas());
+
+        // Las filas y las variaciones de la jornada se han actualizado sumando en la base de datos
+        FilaClasificacion filaVisitante = filaClasificacionRepository.findByIdEquipo(equipo2.getIdEquipo()).orElseThrow();
+        assertEquals(1, filaVisitante.getVictorias());
+        assertEquals(0, filaVisitante.getDerrotas());
+        assertEquals(3, filaVisitante.getPuntosTotales());
+        List<DeltaClasificacionJornada> deltas = deltaClasificacionRepository.findByIdLigaOrderByNumeroJornadaAsc(liga.getIdLigaCume());
+        assertEquals(2, deltas.size());
+        for (DeltaClasificacionJornada delta : deltas) {
+            assertEquals(delta.getIdEquipo().equals(equipo2.getIdEquipo()) ? 1 : 0, delta.getVictorias());
+            assertEquals(delta.getIdEquipo().equals(equipo2.getIdEquipo()) ? 3 : 1, delta.getGolesAFavor());
+        }
+
+        // Corrección a 0-0 sin estadísticas: el partido deja de contar como jugado
+        Partido corregido = partidoService.modificarResultado(partido.getIdPartido(), 0, 0);
+        assertFalse(corregido.isJugado());
+        clasificacion = clasificacionService.obtenerClasificacionLiga(liga.getIdLigaCume());
+        assertEquals(0, clasificacion.get(0).getPartidosJugados());
+        assertEquals(0, clasificacion.get(1).getPartidosJugados());
+    }
+
+    /**
+     * Test del indicador jugado: un 0-0 solo cuenta como empate
+     * cuando se registran estadísticas del partido
+     */
+    @Test
+    public void testEmpateSinGolesConEstadisticas() {
+        // Crear liga
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Jugado");
+        liga = ligaCumeRepository.save(liga);
+
+        // Crear jornada
+        Jornada jornada = new Jornada();
+        jornada.setNumeroJornada(1);
+        jornada.setLiga(liga);
+        jornada = jornadaRepository.save(jornada);
+
+        // Crear equipos
+        Equipo equipo1 = new Equipo();
+        equipo1.setNombreEquipo("Equipo Jugado A");
+        equipo1.setEscudoURL("url1");
+        equipo1.setLiga(liga);
+        equipo1 = equipoRepository.save(equipo1);
+
+        Equipo equipo2 = new Equipo();
+        equipo2.setNombreEquipo("Equipo Jugado B");
+        equipo2.setEscudoURL("url2");
+        equipo2.setLiga(liga);
+        equipo2 = equipoRepository.save(equipo2);
+
+        Jugador jugador = jugadorRepository.save(new Jugador("Jugador Jugado", false, equipo1, 1000f, null));
+
+        // Partido 0-0 sin estadísticas: no se ha jugado
+        Partido partido = partidoRepository.save(new Partido(equipo1, equipo2, 0, 0, jornada));
+        assertFalse(partido.isJugado());
+
+        List<ClasificacionEquipo> clasificacion = clasificacionService.obtenerClasificacionLiga(liga.getIdLigaCume());
+        assertEquals(0, clasificacion.get(0).getEmpates());
+        assertEquals(List.of(jornada.getIdJornada()), jornadaRepository.findIdsJornadasSinResultados(liga.getIdLigaCume()));
+
+        // Al registrar estadísticas el 0-0 pasa a contar como empate y la jornada deja de estar pendiente
+        estadisticaService.añadirEstadistica(jugador, partido, 0, 0, 0, false, true, 0, 1);
+        assertTrue(partido.isJugado());
+        assertTrue(jornadaRepository.findIdsJornadasSinResultados(liga.getIdLigaCume()).isEmpty());
+
+        clasificacion = clasificacionService.obtenerClasificacionLiga(liga.getIdLigaCume());
+        assertEquals(1, clasificacion.get(0).getEmpates());
+        assertEquals(1, clasificacion.get(1).getEmpates());
+        assertEquals(1, clasificacion.get(0).getPuntosTotales());
+    }
+
+    /**
+     * Test de la clasificación histórica: la tabla hasta una jornada y la
+     * evolución de posiciones se obtienen de las variaciones por jornada
+     */
+    @Test
+    public void testClasificacionHastaJornadaYEvolucion() {
+        // Crear liga
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Historico");
+        liga = ligaCumeRepository.save(liga);
+
+        // Crear jornadas
+        Jornada jornada1 = new Jornada();
+        jornada1.setNumeroJornada(1);
+        jornada1.setLiga(liga);
+        jornada1 = jornadaRepository.save(jornada1);
+
+        Jornada jornada2 = new Jornada();
+        jornada2.setNumeroJornada(2);
+        jornada2.setLiga(liga);
+        jornada2 = jornadaRepository.save(jornada2);
+
+        // Crear equipos
+        Equipo equipo1 = new Equipo();
+        equipo1.setNombreEquipo("Equipo Historico A");
+        equipo1.setEscudoURL("url1");
+        equipo1.setLiga(liga);
+        equipo1 = equipoRepository.save(equipo1);
+
+        Equipo equipo2 = new Equipo();
+        equipo2.setNombreEquipo("Equipo Historico B");
+        equipo2.setEscudoURL("url2");
+        equipo2.setLiga(liga);
+        equipo2 = equipoRepository.save(equipo2);
+
+        // Jornada 1: gana A 1-0. Jornada 2 (aún sin jugar)
+        partidoRepository.save(new Partido(equipo1, equipo2, 1, 0, jornada1));
+        Partido vuelta = partidoRepository.save(new Partido(equipo2, equipo1, 0, 0, jornada2));
+
+        // Primera lectura: construye la clasificación y las variaciones por jornada
+        clasificacionService.obtenerClasificacionLiga(liga.getIdLigaCume());
+
+        // Jornada 2: gana B 3-0 (se aplica como variación)
+        partidoService.modificarResultado(vuelta.getIdPartido(), 3, 0);
+
+        // Clasificación actual: lidera B por diferencia de goles
+        List<ClasificacionEquipo> actual = clasificacionService.obtenerClasificacionLiga(liga.getIdLigaCume());
+        assertEquals("Equipo Historico B", actual.get(0).getNombreEquipo());
+
+        // Clasificación tras la jornada 1: lidera A
+        List<ClasificacionEquipo> hastaJornada1 =
+            clasificacionService.obtenerClasificacionHastaJornada(liga.getIdLigaCume(), 1);
+        assertEquals("Equipo Historico A", hastaJornada1.get(0).getNombreEquipo());
+        assertEquals(3, hastaJornada1.get(0).getPuntosTotales());
+        assertEquals(0, hastaJornada1.get(1).getPuntosTotales());
+
+        // Evolución: A pasa de 1º a 2º y B de 2º a 1º
+        List<Integer> jornadas = new ArrayList<>();
+        List<EvolucionClasificacionEquipo> evolucion =
+            clasificacionService.obtenerEvolucionClasificacion(liga.getIdLigaCume(), jornadas);
+        assertEquals(List.of(1, 2), jornadas);
+
+        EvolucionClasificacionEquipo evolucionA = evolucion.stream()
+            .filter(e -> e.getNombreEquipo().equals("Equipo Historico A"))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(List.of(1, 2), evolucionA.getPosiciones());
+        assertEquals(List.of(3, 3), evolucionA.getPuntos());
+    }
+
+    /**
+     * Test del desempate por enfrentamientos directos: con los mismos puntos
+     * queda por delante quien ganó el partido entre ambos, aunque tenga peor
+     * diferencia de goles general
+     */
+    @Test
+    public void testDesempatePorEnfrentamientoDirecto() {
+        // Crear liga
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Desempate");
+        liga = ligaCumeRepository.save(liga);
+
+        // Crear jornada
+        Jornada jornada = new Jornada();
+        jornada.setNumeroJornada(1);
+        jornada.setLiga(liga);
+        jornada = jornadaRepository.save(jornada);
+
+        // Crear equipos
+        Equipo equipoA = new Equipo();
+        equipoA.setNombreEquipo("Equipo Directo A");
+        equipoA.setLiga(liga);
+        equipoA = equipoRepository.save(equipoA);
+
+        Equipo equipoB = new Equipo();
+        equipoB.setNombreEquipo("Equipo Directo B");
+        equipoB.setLiga(liga);
+        equipoB = equipoRepository.save(equipoB);
+
+        Equipo equipoC = new Equipo();
+        equipoC.setNombreEquipo("Equipo Directo C");
+        equipoC.setLiga(liga);
+        equipoC = equipoRepository.save(equipoC);
+
+        Equipo equipoD = new Equipo();
+        equipoD.setNombreEquipo("Equipo Directo D");
+        equipoD.setLiga(liga);
+        equipoD = equipoRepository.save(equipoD);
+
+        // A gana a B 1-0, B golea a C 5-0, D gana a A 1-0 y C empata con D:
+        // D 4 pts, A 3 pts (dif 0), B 3 pts (dif +4), C 1 pt
+        partidoRepository.save(new Partido(equipoA, equipoB, 1, 0, jornada));
+        partidoRepository.save(new Partido(equipoB, equipoC, 5, 0, jornada));
+        partidoRepository.save(new Partido(equipoD, equipoA, 1, 0, jornada));
+        partidoRepository.save(new Partido(equipoC, equipoD, 1, 1, jornada));
+
+        List<ClasificacionEquipo> clasificacion = clasificacionService.obtenerClasificacionLiga(liga.getIdLigaCume());
+
+        // A queda por delante de B por el enfrentamiento directo
+        assertEquals("Equipo Directo D", clasificacion.get(0).getNombreEquipo());
+        assertEquals("Equipo Directo A", clasificacion.get(1).getNombreEquipo());
+        assertEquals("Equipo Directo B", clasificacion.get(2).getNombreEquipo());
+        assertEquals("Equipo Directo C", clasificacion.get(3).getNombreEquipo());
+
+        // La segunda lectura mantiene el mismo orden
+        clasificacion = clasificacionService.obtenerClasificacionLiga(liga.getIdLigaCume());
+        assertEquals("Equipo Directo A", clasificacion.get(1).getNombreEquipo());
+
+        // La fila de un equipo coincide con la de la tabla, incluida la posición
+        ClasificacionEquipo filaA = clasificacionService.obtenerClasificacionEquipo(equipoA.getIdEquipo());
+        assertEquals(2, filaA.getPosicion());
+        assertEquals(3, filaA.getPuntosTotales());
+        assertEquals(1, filaA.getVictorias());
+        assertEquals(1, filaA.getDerrotas());
+        assertEquals(4, clasificacionService.obtenerClasificacionEquipo(equipoC.getIdEquipo()).getPosicion());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.Liga_Del_Cume;
+
+import com.example.Liga_Del_Cume.data.model.FilaClasificacion;
+import com.example.Liga_Del_Cume.data.model.Jugador;
+import com.example.Liga_Del_Cume.data.repository.FilaClasificacionRepository;
+import com.example.Liga_Del_Cume.data.repository.JugadorRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark de inserciones por lotes
+ *
+ * Compara una entidad con IDs por secuencia (Jugador, se inserta por lotes) con una
+ * que sigue con IDENTITY (FilaClasificacion, un INSERT por fila), contando las
+ * sentencias que Hibernate prepara y midiendo las filas insertadas por segundo.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public class InsercionPorLotesTest {
+
+    private static final int FILAS = 1000;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private FilaClasificacionRepository filaClasificacionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void testInsercionPorLotesReduceSentencias() {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Con secuencia: los INSERT se agrupan en lotes de 50
+        List<Jugador> jugadores = new ArrayList<>();
+        for (int i = 0; i < FILAS; i++) {
+            jugadores.add(new Jugador("Jugador Lote " + i, i % 10 == 0, null, 100000f, null));
+        }
+        estadisticas.clear();
+        long inicio = System.nanoTime();
+        jugadorRepository.saveAll(jugadores);
+        entityManager.flush();
+        long nanosSecuencia = System.nanoTime() - inicio;
+        long sentenciasSecuencia = estadisticas.getPrepareStatementCount();
+
+        // Con IDENTITY: cada fila es un INSERT en el momento de guardarla
+        List<FilaClasificacion> filas = new ArrayList<>();
+        for (int i = 0; i < FILAS; i++) {
+            filas.add(new FilaClasificacion(-1L, -1L - i, "Equipo Lote " + i, null));
+        }
+        estadisticas.clear();
+        inicio = System.nanoTime();
+        filaClasificacionRepository.saveAll(filas);
+        entityManager.flush();
+        long nanosIdentity = System.nanoTime() - inicio;
+        long sentenciasIdentity = estadisticas.getPrepareStatementCount();
+
+        System.out.printf("Inserción de %d filas%n", FILAS);
+        System.out.printf("  Secuencia + lotes: %d sentencias, %.0f filas/s%n",
+                sentenciasSecuencia, FILAS * 1e9 / nanosSecuencia);
+        System.out.printf("  IDENTITY:          %d sentencias, %.0f filas/s%n",
+                sentenciasIdentity, FILAS * 1e9 / nanosIdentity);
+
+        assertEquals(FILAS, jugadores.stream().filter(j -> j.getIdJugador() != null).count());
+        assertTrue(sentenciasIdentity >= FILAS);
+        // 20 lotes de INSERT y 20 bloques de IDs de la secuencia, con margen
+        assertTrue(sentenciasSecuencia <= FILAS / 10,
+                "Se esperaban inserciones por lotes y se prepararon " + sentenciasSecuencia + " sentencias");
+    }
+}
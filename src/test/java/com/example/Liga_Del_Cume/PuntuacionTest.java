@@ -0,0 +1,666 @@
+package com.example.Liga_Del_Cume;
+
+import com.example.Liga_Del_Cume.data.exceptions.AlineacionException;
+import com.example.Liga_Del_Cume.data.model.*;
+import com.example.Liga_Del_Cume.data.repository.*;
+import com.example.Liga_Del_Cume.data.service.JugadorService;
+import com.example.Liga_Del_Cume.data.service.LigaService;
+import com.example.Liga_Del_Cume.data.service.MercadoJugadoresService;
+import com.example.Liga_Del_Cume.data.service.OptimizadorAlineacionService;
+import com.example.Liga_Del_Cume.data.service.PrecioJugadorService;
+import com.example.Liga_Del_Cume.data.service.PuntosJornadaService;
+import com.example.Liga_Del_Cume.data.service.ReglasPuntuacionService;
+import com.example.Liga_Del_Cume.data.service.RepuntuacionService;
+import com.example.Liga_Del_Cume.data.service.ResultadosJornadaService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests para las reglas de puntuación fantasy de las ligas
+ */
+@SpringBootTest
+@Transactional
+public class PuntuacionTest {
+
+    @Autowired
+    private ReglasPuntuacionService reglasPuntuacionService;
+
+    @Autowired
+    private RepuntuacionService repuntuacionService;
+
+    @Autowired
+    private PuntosJornadaService puntosJornadaService;
+
+    @Autowired
+    private ResultadosJornadaService resultadosJornadaService;
+
+    @Autowired
+    private PrecioJugadorService precioJugadorService;
+
+    @Autowired
+    private MercadoJugadoresService mercadoJugadoresService;
+
+    @Autowired
+    private OptimizadorAlineacionService optimizadorAlineacionService;
+
+    @Autowired
+    private JugadorService jugadorService;
+
+    @Autowired
+    private LigaService ligaService;
+
+    @Autowired
+    private LigaCumeRepository ligaCumeRepository;
+
+    @Autowired
+    private EquipoRepository equipoRepository;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private JornadaRepository jornadaRepository;
+
+    @Autowired
+    private PartidoRepository partidoRepository;
+
+    @Autowired
+    private EstadisticaJugadorPartidoRepository estadisticaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private AlineacionRepository alineacionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    /**
+     * Test de la tabla por defecto: da los mismos puntos que el sistema original
+     */
+    @Test
+    public void testTablaPorDefectoMantieneSistemaOriginal() {
+        TablaPuntuacion tabla = TablaPuntuacion.compilar(new ReglasPuntuacion());
+
+        // Jugador de campo: minutos (1) + 2 goles (8) + asistencia (3) + amarilla (-1)
+        assertEquals(11, tabla.puntuar(false, 2, 1, 1, false, true, 0));
+        // Jugador de campo expulsado sin llegar al mínimo de minutos
+        assertEquals(-3, tabla.puntuar(false, 0, 0, 0, true, false, 0));
+        // Portero: minutos (1) + portería a cero (5) + gol (6)
+        assertEquals(12, tabla.puntuar(true, 1, 0, 0, false, true, 0));
+        // Portero sin minutos no suma portería a cero
+        assertEquals(0, tabla.puntuar(true, 0, 0, 0, false, false, 0));
+        // Portero que recibe 2 goles y 3 goles
+        assertEquals(0, tabla.puntuar(true, 0, 0, 0, false, true, 2));
+        assertEquals(-1, tabla.puntuar(true, 0, 0, 0, false, true, 3));
+    }
+
+    /**
+     * Test de reglas propias de una liga: al guardarlas se recompila su tabla
+     */
+    @Test
+    public void testGuardarReglasCambiaTablaDeLaLiga() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Reglas");
+        liga = ligaCumeRepository.save(liga);
+        Long ligaId = liga.getIdLigaCume();
+
+        assertEquals(5, reglasPuntuacionService.obtenerTabla(ligaId).puntuar(false, 1, 0, 0, false, true, 0));
+
+        ReglasPuntuacion reglas = new ReglasPuntuacion();
+        reglas.setPuntosGolJugadorCampo(10);
+        reglas.setPuntosTarjetaAmarilla(-2);
+        reglasPuntuacionService.guardarReglas(ligaId, reglas);
+
+        TablaPuntuacion tabla = reglasPuntuacionService.obtenerTabla(ligaId);
+        assertEquals(11, tabla.puntuar(false, 1, 0, 0, false, true, 0));
+        assertEquals(9, tabla.puntuar(false, 1, 0, 1, false, true, 0));
+        // Los porteros mantienen su valor por gol
+        assertEquals(12, tabla.puntuar(true, 1, 0, 0, false, true, 0));
+        assertEquals(10, reglasPuntuacionService.obtenerReglas(ligaId).getPuntosGolJugadorCampo());
+    }
+
+    /**
+     * Test de la repuntuación de la temporada: al cambiar las reglas se actualizan
+     * los puntos de las estadísticas, las alineaciones, los usuarios y los precios
+     */
+    @Test
+    public void testRepuntuarTemporadaAplicaNuevasReglas() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Repuntuar");
+        liga = ligaCumeRepository.save(liga);
+        Long ligaId = liga.getIdLigaCume();
+
+        Jornada jornada = new Jornada();
+        jornada.setNumeroJornada(1);
+        jornada.setLiga(liga);
+        jornada = jornadaRepository.save(jornada);
+
+        Equipo local = new Equipo();
+        local.setNombreEquipo("Local Repuntuar");
+        local.setLiga(liga);
+        local = equipoRepository.save(local);
+        Equipo visitante = new Equipo();
+        visitante.setNombreEquipo("Visitante Repuntuar");
+        visitante.setLiga(liga);
+        visitante = equipoRepository.save(visitante);
+
+        Jugador delantero = jugadorRepository.save(new Jugador("Delantero Repuntuar", false, local, 100000f, null));
+        Partido partido = partidoRepository.save(new Partido(local, visitante, 2, 0, jornada));
+
+        // Con las reglas por defecto: minutos (1) + 2 goles (8)
+        EstadisticaJugadorPartido estadistica = new EstadisticaJugadorPartido(delantero, partido);
+        estadistica.setGolesAnotados(2);
+        estadistica.setMinMinutosJugados(true);
+        estadistica.setPuntosJornada(reglasPuntuacionService.obtenerTabla(ligaId).puntuar(estadistica, false));
+        estadistica = estadisticaRepository.save(estadistica);
+        assertEquals(9, estadistica.getPuntosJornada());
+
+        Usuario usuario = usuarioRepository.save(new Usuario("Usuario Repuntuar", 0, liga));
+        Alineacion alineacion = new Alineacion();
+        alineacion.setUsuario(usuario);
+        alineacion.setJornada(jornada);
+        alineacion.setJugadores(new ArrayList<>(List.of(delantero)));
+        alineacion = alineacionRepository.save(alineacion);
+        puntosJornadaService.recalcularPuntosJornada(jornada.getIdJornada());
+        precioJugadorService.recalcularPreciosJornada(jornada.getIdJornada());
+        assertEquals(109000f, jugadorRepository.findById(delantero.getIdJugador()).orElseThrow().getPrecioMercado());
+
+        // Nuevas reglas: el gol de jugador de campo pasa a valer 10
+        ReglasPuntuacion reglas = new ReglasPuntuacion();
+        reglas.setPuntosGolJugadorCampo(10);
+        reglasPuntuacionService.guardarReglas(ligaId, reglas);
+        entityManager.flush();
+
+        ProgresoRepuntuacion progreso = repuntuacionService.repuntuarTemporada(ligaId);
+        entityManager.clear();
+
+        assertEquals(ProgresoRepuntuacion.COMPLETADO, progreso.getEstado());
+        assertEquals(1, progreso.getEstadisticasTotales());
+        assertEquals(1, progreso.getEstadisticasModificadas());
+        assertEquals(100, progreso.getPorcentaje());
+        assertEquals(21, estadisticaRepository.findByJugadorIdJugadorAndPartidoIdPartido(
+                delantero.getIdJugador(), partido.getIdPartido()).getPuntosJornada());
+        assertEquals(21, alineacionRepository.findById(alineacion.getIdAlineacion()).orElseThrow().getPuntosTotalesJornada());
+        assertEquals(21, usuarioRepository.findById(usuario.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+        // El historial de precios se recalcula desde el precio de salida con los nuevos puntos
+        assertEquals(121000f, jugadorRepository.findById(delantero.getIdJugador()).orElseThrow().getPrecioMercado());
+
+        // Volver a puntuar sin cambios de reglas no modifica nada
+        assertEquals(0, repuntuacionService.repuntuarTemporada(ligaId).getEstadisticasModificadas());
+    }
+
+    /**
+     * Test de la importación de una jornada completa: calcula el marcador, los goles
+     * recibidos del portero, los puntos y los precios, y una segunda importación
+     * solo aplica la diferencia
+     */
+    @Test
+    public void testImportarResultadosJornada() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Importar");
+        liga = ligaCumeRepository.save(liga);
+        Long ligaId = liga.getIdLigaCume();
+
+        Jornada jornada = new Jornada();
+        jornada.setNumeroJornada(1);
+        jornada.setLiga(liga);
+        jornada = jornadaRepository.save(jornada);
+
+        Equipo local = new Equipo();
+        local.setNombreEquipo("Local Importar");
+        local.setLiga(liga);
+        local = equipoRepository.save(local);
+        Equipo visitante = new Equipo();
+        visitante.setNombreEquipo("Visitante Importar");
+        visitante.setLiga(liga);
+        visitante = equipoRepository.save(visitante);
+
+        Jugador delantero = jugadorRepository.save(new Jugador("Delantero Importar", false, local, 100000f, null));
+        Jugador portero = jugadorRepository.save(new Jugador("Portero Importar", true, local, 100000f, null));
+        Jugador rival = jugadorRepository.save(new Jugador("Rival Importar", false, visitante, 100000f, null));
+        Partido partido = partidoRepository.save(new Partido(local, visitante, 0, 0, jornada));
+
+        Usuario usuario = usuarioRepository.save(new Usuario("Usuario Importar", 0, liga));
+        Alineacion alineacion = new Alineacion();
+        alineacion.setUsuario(usuario);
+        alineacion.setJornada(jornada);
+        alineacion.setJugadores(new ArrayList<>(List.of(delantero, portero)));
+        alineacionRepository.save(alineacion);
+
+        Long idPartido = partido.getIdPartido();
+        String csv = "idPartido;idJugador;goles;asistencias;tarjetasAmarillas;tarjetaRoja;minMinutosJugados\n" +
+                idPartido + ";" + delantero.getIdJugador() + ";2;0;0;false;true\n" +
+                idPartido + ";" + portero.getIdJugador() + ";0;0;0;false;true\n" +
+                idPartido + ";" + rival.getIdJugador() + ";1;0;0;false;true\n";
+
+        Map<String, Object> resumen = resultadosJornadaService.importarResultados(
+                ligaId, jornada.getIdJornada(), resultadosJornadaService.leerCsv(csv));
+        assertEquals(3, resumen.get("estadisticasNuevas"));
+
+        Partido jugado = partidoRepository.findById(idPartido).orElseThrow();
+        assertTrue(jugado.isJugado());
+        assertEquals(2, jugado.getGolesLocal());
+        assertEquals(1, jugado.getGolesVisitante());
+
+        // Portero: minutos (1) + un gol recibido (-1)
+        EstadisticaJugadorPartido estadisticaPortero = estadisticaRepository
+                .findByJugadorIdJugadorAndPartidoIdPartido(portero.getIdJugador(), idPartido);
+        assertEquals(1, estadisticaPortero.getGolesRecibidos());
+        assertEquals(0, estadisticaPortero.getPuntosJornada());
+        assertEquals(9, usuarioRepository.findById(usuario.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+        assertEquals(109000f, jugadorRepository.findById(delantero.getIdJugador()).orElseThrow().getPrecioMercado());
+
+        // Segunda importación: el delantero se queda sin goles y el rival marca otro
+        List<Map<String, Object>> correccion = List.of(
+                Map.of("idPartido", idPartido, "idJugador", delantero.getIdJugador(), "minMinutosJugados", true),
+                Map.of("idPartido", idPartido, "idJugador", rival.getIdJugador(), "goles", 2, "minMinutosJugados", true));
+        resumen = resultadosJornadaService.importarResultados(ligaId, jornada.getIdJornada(), correccion);
+        assertEquals(0, resumen.get("estadisticasNuevas"));
+        // Las dos importadas y el portero, que ahora recibe dos goles
+        assertEquals(3, resumen.get("estadisticasActualizadas"));
+
+        assertEquals(2, estadisticaRepository
+                .findByJugadorIdJugadorAndPartidoIdPartido(portero.getIdJugador(), idPartido).getGolesRecibidos());
+        assertEquals(1, usuarioRepository.findById(usuario.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+        assertEquals(101000f, jugadorRepository.findById(delantero.getIdJugador()).orElseThrow().getPrecioMercado());
+        assertEquals(0, partidoRepository.findById(idPartido).orElseThrow().getGolesLocal());
+
+        // Reimportar solo al delantero no borra del marcador los dos goles ya registrados del rival
+        resultadosJornadaService.importarResultados(ligaId, jornada.getIdJornada(), List.of(
+                Map.of("idPartido", idPartido, "idJugador", delantero.getIdJugador(), "goles", 1, "minMinutosJugados", true)));
+        Partido corregido = partidoRepository.findById(idPartido).orElseThrow();
+        assertEquals(1, corregido.getGolesLocal());
+        assertEquals(2, corregido.getGolesVisitante());
+        assertEquals(2, estadisticaRepository
+                .findByJugadorIdJugadorAndPartidoIdPartido(portero.getIdJugador(), idPartido).getGolesRecibidos());
+
+        // Un partido que no es de la jornada invalida toda la importación
+        Long idJornada = jornada.getIdJornada();
+        List<Map<String, Object>> invalida = List.of(Map.of("idPartido", 0L, "idJugador", delantero.getIdJugador()));
+        assertThrows(RuntimeException.class,
+                () -> resultadosJornadaService.importarResultados(ligaId, idJornada, invalida));
+    }
+
+    @Test
+    public void testGuardarResultadoActualizaPorterosEnBloque() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Porteros");
+        liga = ligaCumeRepository.save(liga);
+        Long ligaId = liga.getIdLigaCume();
+
+        Jornada jornada = new Jornada();
+        jornada.setNumeroJornada(1);
+        jornada.setLiga(liga);
+        jornada = jornadaRepository.save(jornada);
+
+        Equipo local = new Equipo();
+        local.setNombreEquipo("Local Porteros");
+        local.setLiga(liga);
+        local = equipoRepository.save(local);
+        Equipo visitante = new Equipo();
+        visitante.setNombreEquipo("Visitante Porteros");
+        visitante.setLiga(liga);
+        visitante = equipoRepository.save(visitante);
+
+        Jugador porteroLocal = jugadorRepository.save(new Jugador("Portero Local", true, local, 100000f, null));
+        Jugador porteroVisitante = jugadorRepository.save(new Jugador("Portero Visitante", true, visitante, 100000f, null));
+        Jugador delantero = jugadorRepository.save(new Jugador("Delantero Porteros", false, visitante, 100000f, null));
+        Partido partido = partidoRepository.save(new Partido(local, visitante, 0, 0, jornada));
+        Long idPartido = partido.getIdPartido();
+
+        // Primer guardado: los dos porteros a cero; el golesRecibidos de la petición se ignora para porteros
+        List<Map<String, Object>> primero = List.of(
+                estadisticaPeticion(porteroLocal.getIdJugador(), 0, 5),
+                estadisticaPeticion(porteroVisitante.getIdJugador(), 0, 5));
+        resultadosJornadaService.guardarResultadosPartido(ligaId, idPartido, primero);
+
+        // Minutos (1) + portería a cero (5)
+        EstadisticaJugadorPartido estadisticaLocal = estadisticaRepository
+                .findByJugadorIdJugadorAndPartidoIdPartido(porteroLocal.getIdJugador(), idPartido);
+        assertEquals(0, estadisticaLocal.getGolesRecibidos());
+        assertEquals(6, estadisticaLocal.getPuntosJornada());
+
+        // Segundo guardado sin los porteros: el delantero visitante marca tres
+        resultadosJornadaService.guardarResultadosPartido(ligaId, idPartido,
+                List.of(estadisticaPeticion(delantero.getIdJugador(), 3, 0)));
+
+        // Portero local: minutos (1) + tres o más goles recibidos (-2)
+        estadisticaLocal = estadisticaRepository
+                .findByJugadorIdJugadorAndPartidoIdPartido(porteroLocal.getIdJugador(), idPartido);
+        assertEquals(3, estadisticaLocal.getGolesRecibidos());
+        assertEquals(-1, estadisticaLocal.getPuntosJornada());
+
+        // Portero visitante: sigue a cero
+        EstadisticaJugadorPartido estadisticaVisitante = estadisticaRepository
+                .findByJugadorIdJugadorAndPartidoIdPartido(porteroVisitante.getIdJugador(), idPartido);
+        assertEquals(0, estadisticaVisitante.getGolesRecibidos());
+        assertEquals(6, estadisticaVisitante.getPuntosJornada());
+
+        // Los puntos en bloque coinciden con los de la tabla de la liga
+        TablaPuntuacion tabla = reglasPuntuacionService.obtenerTabla(ligaId);
+        assertEquals(tabla.puntuar(estadisticaLocal, true), estadisticaLocal.getPuntosJornada());
+    }
+
+    /**
+     * Test del historial de precios: cada jornada parte del precio de la anterior,
+     * recalcular una jornada arrastra el cambio a las siguientes y una corrección
+     * manual del precio se mantiene al recalcular
+     */
+    @Test
+    public void testHistorialPreciosPorJornada() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Precios");
+        liga = ligaCumeRepository.save(liga);
+
+        Jornada jornada1 = new Jornada();
+        jornada1.setNumeroJornada(1);
+        jornada1.setLiga(liga);
+        jornada1 = jornadaRepository.save(jornada1);
+        Jornada jornada2 = new Jornada();
+        jornada2.setNumeroJornada(2);
+        jornada2.setLiga(liga);
+        jornada2 = jornadaRepository.save(jornada2);
+
+        Equipo local = new Equipo();
+        local.setNombreEquipo("Local Precios");
+        local.setLiga(liga);
+        local = equipoRepository.save(local);
+        Equipo visitante = new Equipo();
+        visitante.setNombreEquipo("Visitante Precios");
+        visitante.setLiga(liga);
+        visitante = equipoRepository.save(visitante);
+
+        Jugador delantero = jugadorRepository.save(new Jugador("Delantero Precios", false, local, 100000f, null));
+        Long idJugador = delantero.getIdJugador();
+        Partido partido1 = partidoRepository.save(new Partido(local, visitante, 2, 0, jornada1));
+        Partido partido2 = partidoRepository.save(new Partido(visitante, local, 0, 1, jornada2));
+
+        EstadisticaJugadorPartido estadistica1 = new EstadisticaJugadorPartido(delantero, partido1);
+        estadistica1.setPuntosJornada(9);
+        estadisticaRepository.save(estadistica1);
+        EstadisticaJugadorPartido estadistica2 = new EstadisticaJugadorPartido(delantero, partido2);
+        estadistica2.setPuntosJornada(5);
+        estadisticaRepository.save(estadistica2);
+
+        assertEquals(1, precioJugadorService.recalcularPreciosJornada(jornada1.getIdJornada()));
+        assertEquals(109000f, jugadorRepository.findById(idJugador).orElseThrow().getPrecioMercado());
+        precioJugadorService.recalcularPreciosJornada(jornada2.getIdJornada());
+        assertEquals(114000f, jugadorRepository.findById(idJugador).orElseThrow().getPrecioMercado());
+
+        // Corregir los puntos de la primera jornada cambia también el precio de la segunda
+        EstadisticaJugadorPartido corregida = estadisticaRepository
+                .findByJugadorIdJugadorAndPartidoIdPartido(idJugador, partido1.getIdPartido());
+        corregida.setPuntosJornada(1);
+        estadisticaRepository.save(corregida);
+        precioJugadorService.recalcularPreciosJornada(jornada1.getIdJornada());
+
+        List<PrecioJugadorJornada> historial = precioJugadorService.obtenerHistorialPrecios(idJugador);
+        assertEquals(2, historial.size());
+        assertEquals(1, historial.get(0).getNumeroJornada());
+        assertEquals(101000f, historial.get(0).getPrecio());
+        assertEquals(106000f, historial.get(1).getPrecio());
+        assertEquals(106000f, jugadorRepository.findById(idJugador).orElseThrow().getPrecioMercado());
+
+        // Una corrección manual del precio sobrevive a recalcular todo el historial
+        jugadorService.actualizarJugador(idJugador, "Delantero Precios", 200000f, false);
+        precioJugadorService.recalcularPreciosLiga(liga.getIdLigaCume());
+        assertEquals(200000f, jugadorRepository.findById(idJugador).orElseThrow().getPrecioMercado());
+    }
+
+    /**
+     * Test del modelo de precios por demanda: además de los puntos, el precio sube
+     * según la parte de alineaciones de la jornada que eligieron al jugador
+     */
+    @Test
+    public void testPrecioPorDemandaSegunAlineaciones() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Demanda");
+        liga = ligaCumeRepository.save(liga);
+        Long ligaId = liga.getIdLigaCume();
+
+        Jornada jornada = new Jornada();
+        jornada.setNumeroJornada(1);
+        jornada.setLiga(liga);
+        jornada = jornadaRepository.save(jornada);
+
+        Equipo local = new Equipo();
+        local.setNombreEquipo("Local Demanda");
+        local.setLiga(liga);
+        local = equipoRepository.save(local);
+        Equipo visitante = new Equipo();
+        visitante.setNombreEquipo("Visitante Demanda");
+        visitante.setLiga(liga);
+        visitante = equipoRepository.save(visitante);
+
+        Jugador estrella = jugadorRepository.save(new Jugador("Estrella Demanda", false, local, 100000f, null));
+        Jugador suplente = jugadorRepository.save(new Jugador("Suplente Demanda", false, local, 100000f, null));
+        Jugador olvidado = jugadorRepository.save(new Jugador("Olvidado Demanda", false, visitante, 100000f, null));
+        Partido partido = partidoRepository.save(new Partido(local, visitante, 0, 0, jornada));
+        for (Jugador jugador : List.of(estrella, suplente, olvidado)) {
+            EstadisticaJugadorPartido estadistica = new EstadisticaJugadorPartido(jugador, partido);
+            estadistica.setPuntosJornada(2);
+            estadisticaRepository.save(estadistica);
+        }
+
+        // La estrella está en las dos alineaciones y el suplente solo en una
+        for (int i = 0; i < 2; i++) {
+            Usuario usuario = usuarioRepository.save(new Usuario("Usuario Demanda " + i, 0, liga));
+            Alineacion alineacion = new Alineacion();
+            alineacion.setUsuario(usuario);
+            alineacion.setJornada(jornada);
+            alineacion.setJugadores(new ArrayList<>(i == 0 ? List.of(estrella, suplente) : List.of(estrella)));
+            alineacionRepository.save(alineacion);
+        }
+
+        // Sin demanda solo cuentan los puntos
+        precioJugadorService.recalcularPreciosJornada(jornada.getIdJornada());
+        assertEquals(102000f, jugadorRepository.findById(estrella.getIdJugador()).orElseThrow().getPrecioMercado());
+
+        // Con demanda: 500 por punto y hasta 20.000 según la parte de alineaciones
+        ligaService.actualizarModeloPrecios(ligaId, true, 500, 20000);
+        assertEquals(121000f, jugadorRepository.findById(estrella.getIdJugador()).orElseThrow().getPrecioMercado());
+        assertEquals(111000f, jugadorRepository.findById(suplente.getIdJugador()).orElseThrow().getPrecioMercado());
+        assertEquals(101000f, jugadorRepository.findById(olvidado.getIdJugador()).orElseThrow().getPrecioMercado());
+
+        assertThrows(RuntimeException.class, () -> ligaService.actualizarModeloPrecios(ligaId, true, -1, null));
+    }
+
+    /**
+     * Test del mercado de jugadores de la alineación futura: solo jugadores de la
+     * liga cuyos equipos juegan la próxima jornada, con sus puntos de la temporada,
+     * ordenados y paginados en el servidor, y al día tras guardar resultados
+     */
+    @Test
+    public void testMercadoJugadoresProximaJornada() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Mercado");
+        liga = ligaCumeRepository.save(liga);
+        Long ligaId = liga.getIdLigaCume();
+
+        Jornada jornada1 = new Jornada();
+        jornada1.setNumeroJornada(1);
+        jornada1.setLiga(liga);
+        jornada1 = jornadaRepository.save(jornada1);
+        Jornada jornada2 = new Jornada();
+        jornada2.setNumeroJornada(2);
+        jornada2.setLiga(liga);
+        jornada2 = jornadaRepository.save(jornada2);
+
+        List<Equipo> equipos = new ArrayList<>();
+        for (String nombre : List.of("A Mercado", "B Mercado", "C Mercado")) {
+            Equipo equipo = new Equipo();
+            equipo.setNombreEquipo(nombre);
+            equipo.setLiga(liga);
+            equipos.add(equipoRepository.save(equipo));
+        }
+
+        Jugador porteroA = jugadorRepository.save(new Jugador("Portero A Mercado", true, equipos.get(0), 100000f, null));
+        Jugador delanteroA = jugadorRepository.save(new Jugador("Delantero A Mercado", false, equipos.get(0), 150000f, null));
+        Jugador delanteroB = jugadorRepository.save(new Jugador("Delantero B Mercado", false, equipos.get(1), 100000f, null));
+        Jugador delanteroC = jugadorRepository.save(new Jugador("Delantero C Mercado", false, equipos.get(2), 300000f, null));
+        Partido partido1 = partidoRepository.save(new Partido(equipos.get(0), equipos.get(1), 0, 0, jornada1));
+        partidoRepository.save(new Partido(equipos.get(2), equipos.get(0), 0, 0, jornada2));
+
+        // Próxima jornada: la 1 (A contra B), así que el delantero C no está disponible
+        PaginaJugadores campo = mercadoJugadoresService.buscarDisponibles(ligaId, false, "precio", Set.of(), 0, 0);
+        assertEquals(List.of(delanteroA.getIdJugador(), delanteroB.getIdJugador()),
+                campo.getJugadores().stream().map(ResumenJugador::getId).toList());
+        PaginaJugadores porteros = mercadoJugadoresService.buscarDisponibles(ligaId, true, null, Set.of(), 0, 0);
+        assertEquals(1, porteros.getTotal());
+        assertEquals(porteroA.getIdJugador(), porteros.getJugadores().get(0).getId());
+
+        // Los ya elegidos no se devuelven y la paginación cuenta sobre los que quedan
+        PaginaJugadores sinElegidos = mercadoJugadoresService.buscarDisponibles(ligaId, false, "precio",
+                Set.of(delanteroA.getIdJugador()), 0, 0);
+        assertEquals(1, sinElegidos.getTotal());
+        assertEquals(delanteroB.getIdJugador(), sinElegidos.getJugadores().get(0).getId());
+        PaginaJugadores segundaPagina = mercadoJugadoresService.buscarDisponibles(ligaId, false, "precio", Set.of(), 1, 1);
+        assertEquals(2, segundaPagina.getTotal());
+        assertEquals(List.of(delanteroB.getIdJugador()),
+                segundaPagina.getJugadores().stream().map(ResumenJugador::getId).toList());
+
+        // Guardar la jornada 1 descarta el mercado: la próxima es la 2 (C contra A) y cuentan los puntos nuevos
+        resultadosJornadaService.guardarResultadosPartido(ligaId, partido1.getIdPartido(), List.of(
+                estadisticaPeticion(delanteroA.getIdJugador(), 1, 0),
+                estadisticaPeticion(delanteroB.getIdJugador(), 0, 0)));
+
+        campo = mercadoJugadoresService.buscarDisponibles(ligaId, false, "puntos", Set.of(), 0, 0);
+        assertEquals(List.of(delanteroA.getIdJugador(), delanteroC.getIdJugador()),
+                campo.getJugadores().stream().map(ResumenJugador::getId).toList());
+        // Minutos (1) + gol de jugador de campo (4)
+        assertEquals(5, campo.getJugadores().get(0).getPuntosTotal());
+        assertEquals(0, campo.getJugadores().get(1).getPuntosTotal());
+    }
+
+    /**
+     * Test del optimizador de alineaciones: la alineación de más puntos esperados
+     * que cabe en el presupuesto, respetando jugadores excluidos y fijados, y la
+     * misma que una búsqueda exhaustiva
+     */
+    @Test
+    public void testAlineacionOptimaDentroDelPresupuesto() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Optimizador");
+        liga.setPresupuestoMaximo(400000L);
+        liga = ligaCumeRepository.save(liga);
+        Long ligaId = liga.getIdLigaCume();
+
+        Jornada jornada = new Jornada();
+        jornada.setNumeroJornada(1);
+        jornada.setLiga(liga);
+        jornada = jornadaRepository.save(jornada);
+
+        Equipo local = new Equipo();
+        local.setNombreEquipo("Local Optimizador");
+        local.setLiga(liga);
+        local = equipoRepository.save(local);
+        Equipo visitante = new Equipo();
+        visitante.setNombreEquipo("Visitante Optimizador");
+        visitante.setLiga(liga);
+        visitante = equipoRepository.save(visitante);
+        Partido partido = partidoRepository.save(new Partido(local, visitante, 1, 0, jornada));
+
+        // Todos con un partido jugado: [nombre, equipo, precio, puntos]
+        Map<String, Jugador> jugadores = new HashMap<>();
+        Object[][] datos = {
+                {"Portero Caro", local, 150000f, 10, true},
+                {"Portero Barato", visitante, 50000f, 2, true},
+                {"Crack", local, 200000f, 20, false},
+                {"Bueno", visitante, 60000f, 9, false},
+                {"Bueno Bis", local, 60000f, 8, false},
+                {"Regular", visitante, 50000f, 3, false},
+                {"Flojo", local, 40000f, 1, false}};
+        for (Object[] fila : datos) {
+            Jugador jugador = jugadorRepository.save(new Jugador((String) fila[0], (Boolean) fila[4],
+                    (Equipo) fila[1], (Float) fila[2], null));
+            EstadisticaJugadorPartido estadistica = new EstadisticaJugadorPartido(jugador, partido);
+            estadistica.setPuntosJornada((Integer) fila[3]);
+            estadisticaRepository.save(estadistica);
+            jugadores.put(jugador.getNombreJugador(), jugador);
+        }
+
+        // El crack solo cabe con el portero barato, y aun así compensa
+        AlineacionOptima optima = optimizadorAlineacionService.calcularAlineacionOptima(ligaId, null, null);
+        assertEquals(jugadores.get("Portero Barato").getIdJugador(), optima.getPortero().getId());
+        assertEquals(List.of("Crack", "Bueno", "Regular", "Flojo"),
+                optima.getJugadoresCampo().stream().map(ResumenJugador::getNombre).toList());
+        assertEquals(400000L, optima.getCoste());
+        assertEquals(0L, optima.getSaldo());
+
+        // Sin el crack, el presupuesto da para el portero caro
+        optima = optimizadorAlineacionService.calcularAlineacionOptima(ligaId,
+                Set.of(jugadores.get("Crack").getIdJugador()), null);
+        assertEquals(jugadores.get("Portero Caro").getIdJugador(), optima.getPortero().getId());
+        assertTrue(optima.getCoste() <= 400000L);
+
+        // Un jugador fijado entra siempre
+        optima = optimizadorAlineacionService.calcularAlineacionOptima(ligaId, null,
+                Set.of(jugadores.get("Bueno Bis").getIdJugador()));
+        assertTrue(optima.getJugadoresCampo().stream().anyMatch(j -> j.getNombre().equals("Bueno Bis")));
+        assertTrue(optima.getCoste() <= 400000L);
+
+        // El portero caro y el crack no caben juntos con otros tres
+        Set<Long> imposibles = Set.of(jugadores.get("Portero Caro").getIdJugador(), jugadores.get("Crack").getIdJugador());
+        assertThrows(AlineacionException.class,
+                () -> optimizadorAlineacionService.calcularAlineacionOptima(ligaId, null, imposibles));
+
+        // La ramificación y poda da lo mismo que probar todas las combinaciones
+        Random random = new Random(20);
+        List<ResumenJugador> porteros = new ArrayList<>();
+        List<ResumenJugador> campo = new ArrayList<>();
+        Map<Long, Double> puntosEsperados = new HashMap<>();
+        for (long id = 1; id <= 16; id++) {
+            ResumenJugador jugador = new ResumenJugador(id, "Jugador " + id, null, id <= 3, 1L, "Equipo", null,
+                    0, 0, 50000L + 10000L * random.nextInt(30));
+            (jugador.isPortero() ? porteros : campo).add(jugador);
+            puntosEsperados.put(id, random.nextInt(200) / 10.0 - 2);
+        }
+        for (long presupuesto : new long[]{350000L, 700000L, 1200000L}) {
+            optima = OptimizadorAlineacion.resolver(porteros, campo, puntosEsperados, presupuesto, Set.of());
+            double mejor = Double.NEGATIVE_INFINITY;
+            for (ResumenJugador portero : porteros) {
+                for (int a = 0; a < campo.size(); a++)
+                    for (int b = a + 1; b < campo.size(); b++)
+                        for (int c = b + 1; c < campo.size(); c++)
+                            for (int d = c + 1; d < campo.size(); d++) {
+                                List<ResumenJugador> cinco = List.of(portero, campo.get(a), campo.get(b), campo.get(c), campo.get(d));
+                                if (cinco.stream().mapToLong(ResumenJugador::getPrecio).sum() <= presupuesto) {
+                                    mejor = Math.max(mejor, cinco.stream().mapToDouble(j -> puntosEsperados.get(j.getId())).sum());
+                                }
+                            }
+            }
+            if (mejor == Double.NEGATIVE_INFINITY) {
+                assertNull(optima);
+            } else {
+                assertEquals(mejor, optima.getPuntosEsperados(), 1e-6);
+                assertTrue(optima.getCoste() <= presupuesto);
+            }
+        }
+    }
+
+    private Map<String, Object> estadisticaPeticion(Long idJugador, int goles, int golesRecibidos) {
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("idJugador", idJugador);
+        datos.put("goles", goles);
+        datos.put("asistencias", 0);
+        datos.put("tarjetasAmarillas", 0);
+        datos.put("tarjetaRoja", false);
+        datos.put("minMinutosJugados", true);
+        datos.put("golesRecibidos", golesRecibidos);
+        return datos;
+    }
+}
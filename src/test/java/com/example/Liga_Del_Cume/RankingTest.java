@@ -0,0 +1,521 @@
+package com.example.Liga_Del_Cume;
+
+import com.example.Liga_Del_Cume.data.model.Alineacion;
+import com.example.Liga_Del_Cume.data.model.CacheTemporal;
+import com.example.Liga_Del_Cume.data.model.Equipo;
+import com.example.Liga_Del_Cume.data.model.EstadisticaJugadorPartido;
+import com.example.Liga_Del_Cume.data.model.IndiceRanking;
+import com.example.Liga_Del_Cume.data.model.Jornada;
+import com.example.Liga_Del_Cume.data.model.Jugador;
+import com.example.Liga_Del_Cume.data.model.LigaCume;
+import com.example.Liga_Del_Cume.data.model.PaginaRanking;
+import com.example.Liga_Del_Cume.data.model.Partido;
+import com.example.Liga_Del_Cume.data.model.PosicionRanking;
+import com.example.Liga_Del_Cume.data.model.RankingJornada;
+import com.example.Liga_Del_Cume.data.model.Usuario;
+import com.example.Liga_Del_Cume.data.repository.AlineacionRepository;
+import com.example.Liga_Del_Cume.data.repository.EquipoRepository;
+import com.example.Liga_Del_Cume.data.repository.EstadisticaJugadorPartidoRepository;
+import com.example.Liga_Del_Cume.data.repository.JornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.JugadorRepository;
+import com.example.Liga_Del_Cume.data.repository.LigaCumeRepository;
+import com.example.Liga_Del_Cume.data.repository.PartidoRepository;
+import com.example.Liga_Del_Cume.data.repository.UsuarioRepository;
+import com.example.Liga_Del_Cume.data.service.ActualizacionJornadaService;
+import com.example.Liga_Del_Cume.data.service.AlineacionService;
+import com.example.Liga_Del_Cume.data.service.LigaService;
+import com.example.Liga_Del_Cume.data.service.MercadoJugadoresService;
+import com.example.Liga_Del_Cume.data.service.PuntosJornadaService;
+import com.example.Liga_Del_Cume.data.service.RankingService;
+import com.example.Liga_Del_Cume.data.service.ResultadosJornadaService;
+import com.example.Liga_Del_Cume.data.service.UsuarioService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests para la funcionalidad de ranking de usuarios
+ */
+@SpringBootTest
+@Transactional
+public class RankingTest {
+
+    @Autowired
+    private RankingService rankingService;
+
+    @Autowired
+    private LigaCumeRepository ligaCumeRepository;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JornadaRepository jornadaRepository;
+
+    @Autowired
+    private AlineacionRepository alineacionRepository;
+
+    @Autowired
+    private PuntosJornadaService puntosJornadaService;
+
+    @Autowired
+    private AlineacionService alineacionService;
+
+    @Autowired
+    private ResultadosJornadaService resultadosJornadaService;
+
+    @Autowired
+    private ActualizacionJornadaService actualizacionJornadaService;
+
+    @Autowired
+    private EquipoRepository equipoRepository;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private PartidoRepository partidoRepository;
+
+    @Autowired
+    private EstadisticaJugadorPartidoRepository estadisticaRepository;
+
+    @Autowired
+    private LigaService ligaService;
+
+    @Autowired
+    private MercadoJugadoresService mercadoJugadoresService;
+
+    /**
+     * Test del recálculo masivo: los puntos acumulados de cada usuario pasan a ser
+     * la suma de los puntos de sus alineaciones
+     */
+    @Test
+    public void testActualizarPuntosAcumuladosSumaAlineaciones() {
+        // Crear liga
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Ranking");
+        liga = ligaCumeRepository.save(liga);
+
+        // Crear jornadas
+        Jornada jornada1 = crearJornada(liga, 1);
+        Jornada jornada2 = crearJornada(liga, 2);
+
+        // Crear usuarios (uno con puntos antiguos incorrectos)
+        Usuario usuario1 = usuarioRepository.save(new Usuario("Usuario Ranking 1", 99, liga));
+        Usuario usuario2 = usuarioRepository.save(new Usuario("Usuario Ranking 2", 0, liga));
+        Usuario usuarioSinAlineaciones = usuarioRepository.save(new Usuario("Usuario Ranking 3", 7, liga));
+
+        crearAlineacion(usuario1, jornada1, 10);
+        crearAlineacion(usuario1, jornada2, 5);
+        crearAlineacion(usuario2, jornada1, 8);
+
+        // Recalcular
+        int actualizados = rankingService.actualizarPuntosAcumulados(liga.getIdLigaCume());
+        assertEquals(3, actualizados);
+
+        assertEquals(15, usuarioRepository.findById(usuario1.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+        assertEquals(8, usuarioRepository.findById(usuario2.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+        assertEquals(0, usuarioRepository.findById(usuarioSinAlineaciones.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+    }
+
+    /**
+     * Test del índice en memoria: posición, top N y vecindario coinciden con el
+     * ranking ordenado y se actualizan al cambiar los puntos de un usuario
+     */
+    @Test
+    public void testIndiceRankingPosicionTopYVecindario() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Indice");
+        liga = ligaCumeRepository.save(liga);
+        Long ligaId = liga.getIdLigaCume();
+
+        Usuario ana = usuarioRepository.save(new Usuario("Ana Indice", 30, liga));
+        Usuario beto = usuarioRepository.save(new Usuario("Beto Indice", 50, liga));
+        Usuario carla = usuarioRepository.save(new Usuario("Carla Indice", 30, liga));
+        Usuario dani = usuarioRepository.save(new Usuario("Dani Indice", 10, liga));
+
+        // Orden: Beto (50), Ana (30), Carla (30, empate resuelto por ID), Dani (10)
+        assertEquals(1, rankingService.obtenerPosicionUsuario(ligaId, beto.getIdUsuario()));
+        assertEquals(2, rankingService.obtenerPosicionUsuario(ligaId, ana.getIdUsuario()));
+        assertEquals(3, rankingService.obtenerPosicionUsuario(ligaId, carla.getIdUsuario()));
+        assertEquals(4, rankingService.obtenerPosicionUsuario(ligaId, dani.getIdUsuario()));
+
+        List<PosicionRanking> top = rankingService.obtenerTopRanking(ligaId, 2);
+        assertEquals(List.of(beto.getIdUsuario(), ana.getIdUsuario()),
+                top.stream().map(PosicionRanking::getIdUsuario).collect(Collectors.toList()));
+        assertEquals(50, top.get(0).getPuntos());
+
+        List<Usuario> topUsuarios = rankingService.obtenerTopUsuarios(ligaId, 10);
+        assertEquals(4, topUsuarios.size());
+        assertEquals(beto.getIdUsuario(), topUsuarios.get(0).getIdUsuario());
+
+        // Dani suma 35 puntos y pasa a ser segundo
+        usuarioService.actualizarPuntosAcumulados(dani.getIdUsuario(), 35);
+        assertEquals(2, rankingService.obtenerPosicionUsuario(ligaId, dani.getIdUsuario()));
+        assertEquals(4, rankingService.obtenerPosicionUsuario(ligaId, carla.getIdUsuario()));
+
+        List<PosicionRanking> vecindario = rankingService.obtenerVecindarioUsuario(ligaId, ana.getIdUsuario(), 1, 5);
+        assertEquals(List.of(2, 3, 4), vecindario.stream().map(PosicionRanking::getPosicion).collect(Collectors.toList()));
+        assertEquals(dani.getIdUsuario(), vecindario.get(0).getIdUsuario());
+
+        // Un usuario eliminado deja de estar en el ranking
+        usuarioService.eliminarUsuario(beto.getIdUsuario());
+        assertEquals(1, rankingService.obtenerPosicionUsuario(ligaId, dani.getIdUsuario()));
+        assertThrows(RuntimeException.class,
+                () -> rankingService.obtenerPosicionUsuario(ligaId, beto.getIdUsuario()));
+    }
+
+    /**
+     * Test del árbol del índice frente a una ordenación completa con muchas
+     * actualizaciones aleatorias
+     */
+    @Test
+    public void testIndiceRankingCoincideConOrdenacion() {
+        IndiceRanking indice = new IndiceRanking();
+        Map<Long, Integer> puntos = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2000; i++) {
+            Long id = (long) random.nextInt(300);
+            if (random.nextInt(10) == 0) {
+                indice.eliminar(id);
+                puntos.remove(id);
+            } else {
+                int valor = random.nextInt(100);
+                indice.actualizar(id, "U" + id, valor);
+                puntos.put(id, valor);
+            }
+        }
+
+        List<Long> esperado = puntos.keySet().stream()
+                .sorted(Comparator.comparing((Long id) -> -puntos.get(id)).thenComparing(id -> id))
+                .collect(Collectors.toList());
+
+        assertEquals(esperado.size(), indice.tamano());
+        for (int i = 0; i < esperado.size(); i++) {
+            assertEquals(i + 1, indice.posicion(esperado.get(i)));
+        }
+        assertEquals(esperado.subList(10, 20),
+                indice.rango(11, 20).stream().map(PosicionRanking::getIdUsuario).collect(Collectors.toList()));
+        assertEquals(-1, indice.posicion(-1L));
+    }
+
+    /**
+     * Test del registro de puntos por jornada: recalcular varias veces la misma
+     * jornada no suma dos veces y un cambio de estadística solo aplica la diferencia
+     */
+    @Test
+    public void testRecalcularPuntosJornadaEsIdempotente() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Apuntes");
+        liga = ligaCumeRepository.save(liga);
+        Jornada jornada = crearJornada(liga, 1);
+
+        Equipo local = new Equipo();
+        local.setNombreEquipo("Local Apuntes");
+        local.setLiga(liga);
+        local = equipoRepository.save(local);
+        Equipo visitante = new Equipo();
+        visitante.setNombreEquipo("Visitante Apuntes");
+        visitante.setLiga(liga);
+        visitante = equipoRepository.save(visitante);
+
+        Jugador delantero = jugadorRepository.save(new Jugador("Delantero Apuntes", false, local, 100000f, null));
+        Jugador defensa = jugadorRepository.save(new Jugador("Defensa Apuntes", false, visitante, 100000f, null));
+        Partido partido = partidoRepository.save(new Partido(local, visitante, 1, 0, jornada));
+
+        EstadisticaJugadorPartido estadisticaDelantero = new EstadisticaJugadorPartido(delantero, partido);
+        estadisticaDelantero.setPuntosJornada(6);
+        estadisticaDelantero = estadisticaRepository.save(estadisticaDelantero);
+        EstadisticaJugadorPartido estadisticaDefensa = new EstadisticaJugadorPartido(defensa, partido);
+        estadisticaDefensa.setPuntosJornada(3);
+        estadisticaRepository.save(estadisticaDefensa);
+
+        Usuario usuario1 = usuarioRepository.save(new Usuario("Usuario Apuntes 1", 10, liga));
+        Usuario usuario2 = usuarioRepository.save(new Usuario("Usuario Apuntes 2", 0, liga));
+        Alineacion alineacion1 = crearAlineacion(usuario1, jornada, 0);
+        alineacion1.setJugadores(new ArrayList<>(List.of(delantero, defensa)));
+        alineacionRepository.save(alineacion1);
+        Alineacion alineacion2 = crearAlineacion(usuario2, jornada, 0);
+        alineacion2.setJugadores(new ArrayList<>(List.of(defensa)));
+        alineacionRepository.save(alineacion2);
+
+        // Primera pasada: se suman los puntos de la jornada
+        assertEquals(1, rankingService.obtenerPosicionUsuario(liga.getIdLigaCume(), usuario1.getIdUsuario()));
+        assertEquals(2, puntosJornadaService.recalcularPuntosJornada(jornada.getIdJornada()));
+        assertEquals(19, usuarioRepository.findById(usuario1.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+        assertEquals(3, usuarioRepository.findById(usuario2.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+        // El índice del ranking ya en memoria recibe los puntos guardados
+        assertEquals(19, rankingService.obtenerTopRanking(liga.getIdLigaCume(), 1).get(0).getPuntos());
+
+        // Segunda pasada sin cambios: no se toca ningún usuario
+        assertEquals(0, puntosJornadaService.recalcularPuntosJornada(jornada.getIdJornada()));
+        assertEquals(19, usuarioRepository.findById(usuario1.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+
+        // El delantero pasa de 6 a 2 puntos: solo cambia el usuario que lo tiene
+        estadisticaDelantero.setPuntosJornada(2);
+        estadisticaRepository.save(estadisticaDelantero);
+        assertEquals(1, puntosJornadaService.recalcularPuntosJornada(jornada.getIdJornada()));
+        assertEquals(15, usuarioRepository.findById(usuario1.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+        assertEquals(3, usuarioRepository.findById(usuario2.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+        assertEquals(5, alineacionRepository.findById(alineacion1.getIdAlineacion()).orElseThrow().getPuntosTotalesJornada());
+    }
+
+    /**
+     * Test de la puntuación de todas las alineaciones de una jornada: solo cuenta
+     * las estadísticas de los partidos de esa jornada, no las de otras jornadas
+     */
+    @Test
+    public void testCalcularPuntosJornadaSoloCuentaSusPartidos() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Puntos Jornada");
+        liga = ligaCumeRepository.save(liga);
+        Jornada jornada1 = crearJornada(liga, 1);
+        Jornada jornada2 = crearJornada(liga, 2);
+
+        Equipo local = new Equipo();
+        local.setNombreEquipo("Local Puntos Jornada");
+        local.setLiga(liga);
+        local = equipoRepository.save(local);
+        Equipo visitante = new Equipo();
+        visitante.setNombreEquipo("Visitante Puntos Jornada");
+        visitante.setLiga(liga);
+        visitante = equipoRepository.save(visitante);
+
+        Jugador delantero = jugadorRepository.save(new Jugador("Delantero Puntos Jornada", false, local, 100000f, null));
+        Jugador medio = jugadorRepository.save(new Jugador("Medio Puntos Jornada", false, visitante, 100000f, null));
+        Partido partido1 = partidoRepository.save(new Partido(local, visitante, 1, 0, jornada1));
+        Partido partido2 = partidoRepository.save(new Partido(visitante, local, 2, 2, jornada2));
+
+        EstadisticaJugadorPartido estadistica = new EstadisticaJugadorPartido(delantero, partido1);
+        estadistica.setPuntosJornada(5);
+        estadisticaRepository.save(estadistica);
+        estadistica = new EstadisticaJugadorPartido(medio, partido1);
+        estadistica.setPuntosJornada(2);
+        estadisticaRepository.save(estadistica);
+        estadistica = new EstadisticaJugadorPartido(delantero, partido2);
+        estadistica.setPuntosJornada(40);
+        estadisticaRepository.save(estadistica);
+
+        Usuario usuario1 = usuarioRepository.save(new Usuario("Usuario Puntos Jornada 1", 0, liga));
+        Usuario usuario2 = usuarioRepository.save(new Usuario("Usuario Puntos Jornada 2", 0, liga));
+        Alineacion alineacion1 = crearAlineacion(usuario1, jornada1, 0);
+        alineacion1.setJugadores(new ArrayList<>(List.of(delantero, medio)));
+        alineacionRepository.save(alineacion1);
+        Alineacion alineacion2 = crearAlineacion(usuario2, jornada1, 0);
+        alineacion2.setJugadores(new ArrayList<>(List.of(medio)));
+        alineacionRepository.save(alineacion2);
+
+        assertEquals(2, alineacionService.calcularPuntosJornada(jornada1.getIdJornada()));
+        assertEquals(7, alineacionRepository.findById(alineacion1.getIdAlineacion()).orElseThrow().getPuntosTotalesJornada());
+        assertEquals(2, alineacionRepository.findById(alineacion2.getIdAlineacion()).orElseThrow().getPuntosTotalesJornada());
+        assertEquals(2, usuarioRepository.findById(usuario2.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+        assertEquals(7, alineacionService.calcularPuntosAlineacion(alineacion1.getIdAlineacion()).getPuntosTotalesJornada());
+    }
+
+    /**
+     * Test del guardado de un resultado: las estadísticas se guardan en el momento y
+     * los puntos de los usuarios se actualizan después, al procesar la jornada
+     */
+    @Test
+    public void testGuardarResultadoDejaPuntosParaSegundoPlano() throws InterruptedException {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Segundo Plano");
+        liga = ligaCumeRepository.save(liga);
+        Jornada jornada = crearJornada(liga, 1);
+
+        Equipo local = new Equipo();
+        local.setNombreEquipo("Local Segundo Plano");
+        local.setLiga(liga);
+        local = equipoRepository.save(local);
+        Equipo visitante = new Equipo();
+        visitante.setNombreEquipo("Visitante Segundo Plano");
+        visitante.setLiga(liga);
+        visitante = equipoRepository.save(visitante);
+
+        Jugador delantero = jugadorRepository.save(new Jugador("Delantero Segundo Plano", false, local, 100000f, null));
+        Partido partido = partidoRepository.save(new Partido(local, visitante, 0, 0, jornada));
+        Usuario usuario = usuarioRepository.save(new Usuario("Usuario Segundo Plano", 0, liga));
+        Alineacion alineacion = crearAlineacion(usuario, jornada, 0);
+        alineacion.setJugadores(new ArrayList<>(List.of(delantero)));
+        alineacionRepository.save(alineacion);
+
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("idJugador", delantero.getIdJugador());
+        datos.put("goles", 1);
+        datos.put("asistencias", 0);
+        datos.put("tarjetasAmarillas", 0);
+        datos.put("tarjetaRoja", false);
+        datos.put("minMinutosJugados", true);
+        datos.put("golesRecibidos", 0);
+
+        Partido guardado = resultadosJornadaService.guardarResultadosPartido(
+                liga.getIdLigaCume(), partido.getIdPartido(), List.of(datos));
+        assertEquals(1, guardado.getGolesLocal());
+        assertEquals(0, usuarioRepository.findById(usuario.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+
+        actualizacionJornadaService.actualizarJornada(jornada.getIdJornada());
+        assertEquals(5, usuarioRepository.findById(usuario.getIdUsuario()).orElseThrow().getPuntosAcumulados());
+
+        // Las peticiones en segundo plano se agrupan por liga y el estado indica cuándo han
+        // terminado; una jornada que no existe se descarta con su error en vez de reintentarse
+        Long ligaInexistente = -1L;
+        actualizacionJornadaService.solicitarActualizacion(ligaInexistente, -1L);
+        actualizacionJornadaService.solicitarActualizacion(ligaInexistente, -1L);
+        for (int i = 0; i < 100 && !(Boolean) actualizacionJornadaService.obtenerEstado(ligaInexistente).get("actualizado"); i++) {
+            Thread.sleep(50);
+        }
+        Map<String, Object> estado = actualizacionJornadaService.obtenerEstado(ligaInexistente);
+        assertEquals(true, estado.get("actualizado"));
+        assertEquals(List.of(), estado.get("jornadasPendientes"));
+        assertNotNull(estado.get("ultimoError"));
+    }
+
+    /**
+     * Test del ranking paginado de una jornada: recorrer todas las páginas con el
+     * cursor devuelve todas las alineaciones ordenadas y con posiciones consecutivas
+     */
+    @Test
+    public void testRankingJornadaPaginadoPorCursor() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Paginas");
+        liga = ligaCumeRepository.save(liga);
+        Jornada jornada = crearJornada(liga, 1);
+
+        int[] puntos = {10, 30, 30, 5, 20};
+        for (int i = 0; i < puntos.length; i++) {
+            Usuario usuario = usuarioRepository.save(new Usuario("Usuario Pagina " + i, 0, liga));
+            crearAlineacion(usuario, jornada, puntos[i]);
+        }
+
+        List<PosicionRanking> filas = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+        do {
+            PaginaRanking pagina = rankingService.obtenerRankingJornada(jornada.getIdJornada(), cursor, 2);
+            assertTrue(pagina.getFilas().size() <= 2);
+            filas.addAll(pagina.getFilas());
+            cursor = pagina.getSiguienteCursor();
+            paginas++;
+        } while (cursor != null);
+
+        assertEquals(3, paginas);
+        assertEquals(List.of(30, 30, 20, 10, 5),
+                filas.stream().map(PosicionRanking::getPuntos).collect(Collectors.toList()));
+        assertEquals(List.of(1, 2, 3, 4, 5),
+                filas.stream().map(PosicionRanking::getPosicion).collect(Collectors.toList()));
+        assertEquals("Usuario Pagina 1", filas.get(0).getNombreUsuario());
+        assertTrue(filas.get(0).getIdUsuario() < filas.get(1).getIdUsuario());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> rankingService.obtenerRankingJornada(jornada.getIdJornada(), "no-es-un-cursor", 2));
+    }
+
+    /**
+     * Test de las fotos del ranking: al cerrar jornadas se guarda la posición y el
+     * movimiento de cada usuario, y cerrar dos veces la misma jornada no la cambia
+     */
+    @Test
+    public void testCerrarJornadasGuardaMovimientoDelRanking() {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Fotos");
+        liga = ligaCumeRepository.save(liga);
+        Long ligaId = liga.getIdLigaCume();
+        Jornada jornada1 = crearJornada(liga, 1);
+        Jornada jornada2 = crearJornada(liga, 2);
+        crearJornada(liga, 3);
+
+        Usuario ana = usuarioRepository.save(new Usuario("Ana Fotos", 0, liga));
+        Usuario beto = usuarioRepository.save(new Usuario("Beto Fotos", 0, liga));
+        Usuario carla = usuarioRepository.save(new Usuario("Carla Fotos", 0, liga));
+
+        // Jornada 1: Ana 10, Beto 5, Carla 0 | Jornada 2: Beto 20, Carla 8
+        crearAlineacion(ana, jornada1, 10);
+        crearAlineacion(beto, jornada1, 5);
+        crearAlineacion(beto, jornada2, 20);
+        crearAlineacion(carla, jornada2, 8);
+
+        // Empezar la jornada 3 cierra la 1 y la 2
+        assertEquals(2, rankingService.cerrarJornadasAnteriores(ligaId, 3));
+        assertFalse(rankingService.cerrarJornada(jornada2.getIdJornada()));
+
+        Map<Long, RankingJornada> ultimo = rankingService.obtenerUltimoRankingCerrado(ligaId);
+        assertEquals(3, ultimo.size());
+        RankingJornada filaBeto = ultimo.get(beto.getIdUsuario());
+        assertEquals(2, filaBeto.getNumeroJornada());
+        assertEquals(1, filaBeto.getPosicion());
+        assertEquals(25, filaBeto.getPuntos());
+        assertEquals(20, filaBeto.getPuntosJornada());
+        assertEquals(1, filaBeto.getDiferenciaPosicion());
+        assertEquals(2, ultimo.get(ana.getIdUsuario()).getPosicion());
+        assertEquals(-1, ultimo.get(ana.getIdUsuario()).getDiferenciaPosicion());
+        assertEquals(0, ultimo.get(carla.getIdUsuario()).getDiferenciaPosicion());
+
+        List<Integer> jornadas = new ArrayList<>();
+        Map<Long, List<Integer>> evolucion = rankingService.obtenerEvolucionRanking(ligaId, jornadas);
+        assertEquals(List.of(1, 2), jornadas);
+        assertEquals(List.of(2, 1), evolucion.get(beto.getIdUsuario()));
+        assertEquals(List.of(1, 2), evolucion.get(ana.getIdUsuario()));
+    }
+
+    /**
+     * Test de la caché temporal y la versión de datos: las entradas caducan, la
+     * menos usada sale al llenarse, y la versión de la liga sube al cambiar su presupuesto
+     */
+    @Test
+    public void testCacheTemporalYVersionDatosLiga() {
+        long[] ahora = {0};
+        CacheTemporal<String, String> cache = new CacheTemporal<>(2, Duration.ofMinutes(10), () -> ahora[0]);
+        cache.guardar("a", "1");
+        cache.guardar("b", "2");
+        assertEquals("1", cache.obtener("a"));
+
+        // Llena: sale "b", la usada hace más tiempo
+        cache.guardar("c", "3");
+        assertEquals(2, cache.getTamano());
+        assertNull(cache.obtener("b"));
+        assertEquals("1", cache.obtener("a"));
+
+        // Pasados los 10 minutos no queda nada
+        ahora[0] += Duration.ofMinutes(10).toNanos();
+        assertNull(cache.obtener("a"));
+        assertNull(cache.obtener("c"));
+        assertEquals(0, cache.getTamano());
+
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga("Liga Test Version");
+        liga.setPresupuestoMaximo(500000L);
+        liga = ligaCumeRepository.save(liga);
+        Long ligaId = liga.getIdLigaCume();
+
+        long version = mercadoJugadoresService.obtenerVersionDatos(ligaId);
+        assertEquals(version, mercadoJugadoresService.obtenerVersionDatos(ligaId));
+        ligaService.actualizarPresupuestoMaximo(ligaId, 600000L);
+        assertTrue(mercadoJugadoresService.obtenerVersionDatos(ligaId) > version);
+    }
+
+    private Jornada crearJornada(LigaCume liga, int numero) {
+        Jornada jornada = new Jornada();
+        jornada.setNumeroJornada(numero);
+        jornada.setLiga(liga);
+        return jornadaRepository.save(jornada);
+    }
+
+    private Alineacion crearAlineacion(Usuario usuario, Jornada jornada, int puntos) {
+        Alineacion alineacion = new Alineacion();
+        alineacion.setUsuario(usuario);
+        alineacion.setJornada(jornada);
+        alineacion.setPuntosTotalesJornada(puntos);
+        return alineacionRepository.save(alineacion);
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.Liga_Del_Cume;
+
+import com.example.Liga_Del_Cume.data.Controller.IAController;
+import com.example.Liga_Del_Cume.data.model.Equipo;
+import com.example.Liga_Del_Cume.data.model.EstadisticaJugadorPartido;
+import com.example.Liga_Del_Cume.data.model.Jornada;
+import com.example.Liga_Del_Cume.data.model.Jugador;
+import com.example.Liga_Del_Cume.data.model.LigaCume;
+import com.example.Liga_Del_Cume.data.model.Partido;
+import com.example.Liga_Del_Cume.data.model.Usuario;
+import com.example.Liga_Del_Cume.data.repository.EquipoRepository;
+import com.example.Liga_Del_Cume.data.repository.EstadisticaJugadorPartidoRepository;
+import com.example.Liga_Del_Cume.data.repository.JornadaRepository;
+import com.example.Liga_Del_Cume.data.repository.JugadorRepository;
+import com.example.Liga_Del_Cume.data.repository.LigaCumeRepository;
+import com.example.Liga_Del_Cume.data.repository.PartidoRepository;
+import com.example.Liga_Del_Cume.data.repository.UsuarioRepository;
+import com.example.Liga_Del_Cume.data.service.IAService;
+import com.example.Liga_Del_Cume.data.service.RecomendacionStreamingService;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests de la recomendación de la IA en streaming, con un servidor local que
+ * hace de API de OpenRouter
+ */
+@SpringBootTest
+@Transactional
+public class RecomendacionIATest {
+
+    // Servidor que responde como OpenRouter en streaming: dos fragmentos y [DONE]
+    private static final HttpServer servidorIA = crearServidorIA();
+    private static final AtomicInteger peticionesIA = new AtomicInteger();
+    private static volatile String ultimaPeticionIA;
+    // Conexiones que el cliente cortó antes de terminar la respuesta
+    private static final AtomicInteger desconexionesIA = new AtomicInteger();
+    // Si no es null, el servidor espera a que se abra (como mucho 10 s) antes del segundo fragmento
+    private static volatile CountDownLatch bloqueoIA;
+
+    @DynamicPropertySource
+    static void configurarIA(DynamicPropertyRegistry registry) {
+        registry.add("openrouter.api.url",
+                () -> "http://localhost:" + servidorIA.getAddress().getPort() + "/api/v1/chat/completions");
+        registry.add("openrouter.api.key", () -> "clave-de-prueba");
+    }
+
+    @AfterAll
+    static void pararServidorIA() {
+        servidorIA.stop(0);
+    }
+
+    @Autowired
+    private IAController iaController;
+
+    @Autowired
+    private RecomendacionStreamingService recomendacionStreamingService;
+
+    @Autowired
+    private IAService iaService;
+
+    @Autowired
+    private LigaCumeRepository ligaCumeRepository;
+
+    @Autowired
+    private JornadaRepository jornadaRepository;
+
+    @Autowired
+    private EquipoRepository equipoRepository;
+
+    @Autowired
+    private PartidoRepository partidoRepository;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private EstadisticaJugadorPartidoRepository estadisticaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void preparar() {
+        mockMvc = MockMvcBuilders.standaloneSetup(iaController).build();
+        peticionesIA.set(0);
+        desconexionesIA.set(0);
+        bloqueoIA = null;
+    }
+
+    /**
+     * Test del streaming: el saludo, la alineación y los fragmentos de la IA llegan
+     * como eventos, y la segunda petición sale de la caché sin llamar a la IA
+     */
+    @Test
+    public void testRecomendacionEnStreamingYCache() throws Exception {
+        Usuario usuario = crearLigaConUsuario("Liga Test Streaming");
+        Long ligaId = usuario.getLiga().getIdLigaCume();
+
+        String eventos = leerEventos(ligaId, usuario.getIdUsuario());
+        assertTrue(eventos.contains("event:texto"));
+        assertTrue(eventos.contains("¡Hola " + usuario.getNombreUsuario() + "!"));
+        assertTrue(eventos.contains("ALINEACIÓN"));
+        assertTrue(eventos.indexOf("\"texto\":\"La mejor\"") < eventos.indexOf("\"texto\":\" opción\""));
+        assertTrue(eventos.contains("event:fin"));
+        assertEquals(1, peticionesIA.get());
+        assertTrue(ultimaPeticionIA.contains("\"stream\":true"));
+
+        // Misma versión de datos: la recomendación completa sale de la caché
+        eventos = leerEventos(ligaId, usuario.getIdUsuario());
+        assertTrue(eventos.contains("La mejor opción"));
+        assertTrue(eventos.contains("event:fin"));
+        assertEquals(1, peticionesIA.get());
+        assertTrue(esperar(() -> recomendacionStreamingService.getRecomendacionesEnCurso(usuario.getIdUsuario()) == 0));
+    }
+
+    /**
+     * Test del límite por usuario y de la cancelación: con una recomendación en
+     * curso la segunda se rechaza, y al desconectarse el cliente se corta la
+     * llamada a la IA sin esperar a que termine
+     */
+    @Test
+    public void testRecomendacionEnStreamingLimiteYCancelacion() throws Exception {
+        Usuario usuario = crearLigaConUsuario("Liga Test Cancelacion");
+        Long ligaId = usuario.getLiga().getIdLigaCume();
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        bloqueoIA = bloqueo;
+
+        try {
+            MvcResult enCurso = mockMvc.perform(get("/liga/{idLiga}/alineacion-sugeria/stream", ligaId)
+                            .param("usuarioId", usuario.getIdUsuario().toString()))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            assertTrue(esperar(() -> contenido(enCurso).contains("La mejor")));
+            assertEquals(1, recomendacionStreamingService.getRecomendacionesEnCurso(usuario.getIdUsuario()));
+
+            // Segunda recomendación del mismo usuario mientras la primera sigue en curso
+            mockMvc.perform(get("/liga/{idLiga}/alineacion-sugeria/stream", ligaId)
+                            .param("usuarioId", usuario.getIdUsuario().toString()))
+                    .andExpect(status().isTooManyRequests());
+
+            // El cliente se desconecta: se corta la conexión con la IA sin esperar al resto de la respuesta
+            MockAsyncContext contextoAsincrono = (MockAsyncContext) enCurso.getRequest().getAsyncContext();
+            for (AsyncListener listener : contextoAsincrono.getListeners()) {
+                listener.onError(new AsyncEvent(contextoAsincrono, new IOException("Broken pipe")));
+            }
+            assertTrue(esperar(() -> desconexionesIA.get() == 1));
+            assertEquals(0, recomendacionStreamingService.getRecomendacionesEnCurso(usuario.getIdUsuario()));
+            assertEquals(1, bloqueo.getCount());
+            assertFalse(contenido(enCurso).contains("event:fin"));
+        } finally {
+            bloqueo.countDown();
+        }
+    }
+
+    /**
+     * Test de las peticiones simultáneas: dos usuarios que piden a la vez la
+     * recomendación de la misma liga comparten una sola llamada a la IA, y el
+     * segundo recibe también el texto que había llegado antes de unirse
+     */
+    @Test
+    public void testRecomendacionesSimultaneasCompartenLlamada() throws Exception {
+        Usuario primero = crearLigaConUsuario("Liga Test Compartida");
+        LigaCume liga = primero.getLiga();
+        Usuario segundo = usuarioRepository.save(new Usuario("Segundo Manager Compartida", 0, liga));
+        long compartidasAntes = (Long) iaService.obtenerMetricas().get("llamadasCompartidas");
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        bloqueoIA = bloqueo;
+
+        try {
+            MvcResult resultadoPrimero = mockMvc.perform(get("/liga/{idLiga}/alineacion-sugeria/stream", liga.getIdLigaCume())
+                            .param("usuarioId", primero.getIdUsuario().toString()))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            assertTrue(esperar(() -> contenido(resultadoPrimero).contains("La mejor")));
+
+            MvcResult resultadoSegundo = mockMvc.perform(get("/liga/{idLiga}/alineacion-sugeria/stream", liga.getIdLigaCume())
+                            .param("usuarioId", segundo.getIdUsuario().toString()))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            assertTrue(esperar(() -> contenido(resultadoSegundo).contains("La mejor")));
+
+            bloqueo.countDown();
+            resultadoPrimero.getAsyncResult(5000);
+            resultadoSegundo.getAsyncResult(5000);
+            for (MvcResult resultado : new MvcResult[]{resultadoPrimero, resultadoSegundo}) {
+                assertTrue(contenido(resultado).contains("\"texto\":\" opción\""));
+                assertTrue(contenido(resultado).contains("event:fin"));
+            }
+            assertTrue(contenido(resultadoSegundo).contains("¡Hola " + segundo.getNombreUsuario() + "!"));
+        } finally {
+            bloqueo.countDown();
+        }
+
+        assertEquals(1, peticionesIA.get());
+        assertEquals(compartidasAntes + 1, (Long) iaService.obtenerMetricas().get("llamadasCompartidas"));
+    }
+
+    private String leerEventos(Long ligaId, Long usuarioId) throws Exception {
+        MvcResult resultado = mockMvc.perform(get("/liga/{idLiga}/alineacion-sugeria/stream", ligaId)
+                        .param("usuarioId", usuarioId.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        resultado.getAsyncResult(5000);
+        return contenido(resultado);
+    }
+
+    private String contenido(MvcResult resultado) {
+        return new String(resultado.getResponse().getContentAsByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test del prompt: solo lleva los candidatos de cada posición con más puntos
+     * por euro (ia.prompt.candidatos-por-posicion = 8), con las estadísticas de la
+     * temporada sumadas, y se mide lo que tarda en construirse
+     */
+    @Test
+    public void testPromptConCandidatosPorPosicion() {
+        Usuario usuario = crearLigaConUsuario("Liga Test Prompt", 12);
+        long promptsAntes = ((Number) iaService.obtenerMetricas().get("promptsConstruidos")).longValue();
+
+        String prompt = iaService.prepararContexto(usuario.getLiga().getIdLigaCume()).getPrompt();
+
+        // 16 jugadores de campo, 4 en la alineación: de los otros 12 solo quedan 8
+        String campo = prompt.substring(prompt.indexOf("CAMPO:"), prompt.indexOf("RESPUESTA"));
+        assertEquals(8, campo.split("• ", -1).length - 1);
+        // Los de menos puntos por euro se descartan; el resto lleva sus estadísticas sumadas
+        assertFalse(campo.contains("Suplente 1 ("));
+        assertFalse(campo.contains("Suplente 2 ("));
+        assertTrue(campo.contains("Suplente 11 (Visitante Liga Test Prompt) - 130000€ | G:1 A:0 Pts:11 TA:0 PJ:1"));
+        assertTrue(campo.contains("pts/1000€"));
+
+        Map<String, Object> metricas = iaService.obtenerMetricas();
+        assertEquals(promptsAntes + 1, ((Number) metricas.get("promptsConstruidos")).longValue());
+        assertEquals(prompt.length(), metricas.get("ultimoPromptCaracteres"));
+        assertTrue(((Number) metricas.get("tiempoMedioPromptMs")).doubleValue() > 0);
+    }
+
+    private boolean esperar(BooleanSupplier condicion) throws InterruptedException {
+        for (int i = 0; i < 60 && !condicion.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        return condicion.getAsBoolean();
+    }
+
+    private Usuario crearLigaConUsuario(String nombreLiga) {
+        return crearLigaConUsuario(nombreLiga, 0);
+    }
+
+    // Con suplentes de campo: el suplente i cuesta 20000 + 10000·i € y tiene i puntos
+    private Usuario crearLigaConUsuario(String nombreLiga, int suplentes) {
+        LigaCume liga = new LigaCume();
+        liga.setNombreLiga(nombreLiga);
+        liga.setPresupuestoMaximo(500000L);
+        liga = ligaCumeRepository.save(liga);
+
+        Jornada jornada = new Jornada();
+        jornada.setNumeroJornada(1);
+        jornada.setLiga(liga);
+        jornada = jornadaRepository.save(jornada);
+
+        Equipo local = new Equipo();
+        local.setNombreEquipo("Local " + nombreLiga);
+        local.setLiga(liga);
+        local = equipoRepository.save(local);
+        Equipo visitante = new Equipo();
+        visitante.setNombreEquipo("Visitante " + nombreLiga);
+        visitante.setLiga(liga);
+        visitante = equipoRepository.save(visitante);
+        Partido partido = partidoRepository.save(new Partido(local, visitante, 2, 1, jornada));
+
+        // Un portero y cuatro jugadores de campo: [nombre, equipo, precio, puntos, portero]
+        Object[][] datos = {
+                {"Portero IA", local, 100000f, 6, true},
+                {"Pivot IA", local, 80000f, 9, false},
+                {"Ala IA", visitante, 70000f, 7, false},
+                {"Cierre IA", visitante, 60000f, 5, false},
+                {"Universal IA", local, 50000f, 3, false}};
+        for (Object[] fila : datos) {
+            Jugador jugador = jugadorRepository.save(new Jugador((String) fila[0], (Boolean) fila[4],
+                    (Equipo) fila[1], (Float) fila[2], null));
+            EstadisticaJugadorPartido estadistica = new EstadisticaJugadorPartido(jugador, partido);
+            estadistica.setPuntosJornada((Integer) fila[3]);
+            estadisticaRepository.save(estadistica);
+        }
+        for (int i = 1; i <= suplentes; i++) {
+            Jugador jugador = jugadorRepository.save(new Jugador("Suplente " + i, false,
+                    i % 2 == 0 ? local : visitante, 20000f + 10000f * i, null));
+            EstadisticaJugadorPartido estadistica = new EstadisticaJugadorPartido(jugador, partido);
+            estadistica.setPuntosJornada(i);
+            estadistica.setGolesAnotados(1);
+            estadisticaRepository.save(estadistica);
+        }
+
+        return usuarioRepository.save(new Usuario("Manager " + nombreLiga, 0, liga));
+    }
+
+    private static HttpServer crearServidorIA() {
+        try {
+            HttpServer servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            servidor.createContext("/api/v1/chat/completions", intercambio -> {
+                peticionesIA.incrementAndGet();
+                ultimaPeticionIA = new String(intercambio.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                intercambio.getResponseHeaders().set("Content-Type", "text/event-stream");
+                intercambio.sendResponseHeaders(200, 0);
+                try (OutputStream salida = intercambio.getResponseBody()) {
+                    escribir(salida, ": OPENROUTER PROCESSING\n\n");
+                    escribir(salida, "data: {\"choices\":[{\"delta\":{\"content\":\"La mejor\"}}]}\n\n");
+                    // Mientras espera manda comentarios, como OpenRouter, y así nota si el cliente se va
+                    CountDownLatch bloqueo = bloqueoIA;
+                    for (int i = 0; bloqueo != null && i < 100 && !bloqueo.await(100, TimeUnit.MILLISECONDS); i++) {
+                        escribir(salida, ": OPENROUTER PROCESSING\n\n");
+                    }
+                    escribir(salida, "data: {\"choices\":[{\"delta\":{\"content\":\" opción\"}}]}\n\n");
+                    escribir(salida, "data: [DONE]\n\n");
+                } catch (IOException e) {
+                    desconexionesIA.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            servidor.setExecutor(java.util.concurrent.Executors.newCachedThreadPool());
+            servidor.start();
+            return servidor;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void escribir(OutputStream salida, String texto) throws IOException {
+        salida.write(texto.getBytes(StandardCharsets.UTF_8));
+        salida.flush();
+    }
+}